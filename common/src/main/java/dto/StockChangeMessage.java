@@ -0,0 +1,59 @@
+package dto;
+
+/**
+ * Событие изменения остатка товара для Kafka.
+ * Публикуется inventory-service в компактируемый топик с ключом = productId,
+ * поэтому в топике остается последнее состояние каждого товара.
+ * Удаление товара публикуется как tombstone (null значение).
+ */
+public class StockChangeMessage {
+    private Long productId;
+    private Integer quantity;
+    private Long version;
+    private Long changedAt;
+
+    public StockChangeMessage() {
+    }
+
+    public StockChangeMessage(Long productId, Integer quantity, Long version, Long changedAt) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.version = version;
+        this.changedAt = changedAt;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return время фиксации изменения в миллисекундах epoch
+     */
+    public Long getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Long changedAt) {
+        this.changedAt = changedAt;
+    }
+}
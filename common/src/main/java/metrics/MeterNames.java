@@ -0,0 +1,102 @@
+package metrics;
+
+/**
+ * Общие имена метрик и тегов сервисов магазина.
+ * Дашборды и алерты строятся по этим именам, поэтому сервисы берут их отсюда,
+ * а не объявляют у себя: одна и та же величина называется одинаково во всех сервисах.
+ * В формате Prometheus точки заменяются на подчеркивания, а к счетчикам добавляется {@code _total}.
+ */
+public final class MeterNames {
+
+    /** Принятые заказы. */
+    public static final String ORDERS_ACCEPTED = "orders.accepted";
+
+    /** Отклоненные заказы, тег {@link #TAG_REASON}. */
+    public static final String ORDERS_REJECTED = "orders.rejected";
+
+    /** Позиции, которые не удалось зарезервировать, теги {@link #TAG_REASON} и {@link #TAG_PRODUCT_BUCKET}. */
+    public static final String RESERVATION_CONFLICTS = "inventory.reservation.conflicts";
+
+    /** Позиции поступивших заказов, тег {@link #TAG_PRODUCT_BUCKET}; знаменатель для доли нехватки. */
+    public static final String ORDER_ITEMS_REQUESTED = "orders.items.requested";
+
+    /** Позиции заказов, которых не хватило на складе, тег {@link #TAG_PRODUCT_BUCKET}. */
+    public static final String ORDER_ITEMS_OUT_OF_STOCK = "orders.items.out_of_stock";
+
+    /**
+     * Время обработки заказов потребителем, теги {@link #TAG_TOPIC} и {@link #TAG_OUTCOME}.
+     * Пакетный слушатель дает одно значение на пачку, остальные - на запись.
+     */
+    public static final String CONSUMER_PROCESSING = "orders.consumer.processing";
+
+    /** Время от записи заказа в топик до начала его обработки, тег {@link #TAG_TOPIC}. */
+    public static final String CONSUMER_WAIT = "orders.consumer.wait";
+
+    /** Заказы, отклоненные ограничением нагрузки до обработки, теги {@link #TAG_PRIORITY} и {@link #TAG_SCOPE}. */
+    public static final String ADMISSION_REJECTED = "orders.admission.rejected";
+
+    /** Число проверок доступности, объединенных в один запрос к inventory-service. */
+    public static final String AVAILABILITY_BATCH_SIZE = "inventory.availability.batch.size";
+
+    /** Число разных товаров в объединенном запросе проверки доступности. */
+    public static final String AVAILABILITY_BATCH_ITEMS = "inventory.availability.batch.items";
+
+    /** Задержка проверки доступности на ожидание объединенного запроса. */
+    public static final String AVAILABILITY_BATCH_WAIT = "inventory.availability.batch.wait";
+
+    /**
+     * Проверки доступности по кэшу остатков order-service, тег {@link #TAG_OUTCOME}:
+     * {@link #CACHE_FRESH}, {@link #CACHE_STALE} или {@link #CACHE_MISS} (проверка ушла в inventory-service).
+     */
+    public static final String AVAILABILITY_CACHE = "inventory.availability.cache";
+
+    /** Число заказов, зарезервированных в одной транзакции. */
+    public static final String RESERVATION_BATCH_SIZE = "inventory.reservation.batch.size";
+
+    /** Время от поступления запроса резервирования до начала транзакции его пачки. */
+    public static final String RESERVATION_BATCH_WAIT = "inventory.reservation.batch.wait";
+
+    public static final String TAG_REASON = "reason";
+    public static final String TAG_PRODUCT_BUCKET = "product_bucket";
+    public static final String TAG_TOPIC = "topic";
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_PRIORITY = "priority";
+    public static final String TAG_SCOPE = "scope";
+
+    public static final String REASON_VALIDATION = "validation";
+    public static final String REASON_USER_NOT_FOUND = "user-not-found";
+    public static final String REASON_OUT_OF_STOCK = "out-of-stock";
+    public static final String REASON_PRODUCT_NOT_FOUND = "product-not-found";
+    public static final String REASON_RESERVATION_FAILED = "reservation-failed";
+    public static final String REASON_CONCURRENT_UPDATE = "concurrent-update";
+    public static final String REASON_ERROR = "error";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+
+    public static final String CACHE_FRESH = "fresh";
+    public static final String CACHE_STALE = "stale";
+    public static final String CACHE_MISS = "miss";
+
+    public static final String SCOPE_USER = "user";
+    public static final String SCOPE_GLOBAL = "global";
+
+    /**
+     * Количество групп товаров в тегах. Тег с идентификатором товара дал бы по временному ряду
+     * на каждый товар, поэтому товары раскладываются по фиксированному числу групп.
+     */
+    public static final int PRODUCT_BUCKETS = 16;
+
+    private MeterNames() {
+    }
+
+    /**
+     * Возвращает группу товара для тега {@link #TAG_PRODUCT_BUCKET}.
+     *
+     * @param productId идентификатор товара
+     * @return номер группы от 0 до {@link #PRODUCT_BUCKETS} - 1
+     */
+    public static String productBucket(long productId) {
+        return String.valueOf(Math.floorMod(productId, PRODUCT_BUCKETS));
+    }
+}
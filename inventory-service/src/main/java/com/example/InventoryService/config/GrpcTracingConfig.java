@@ -0,0 +1,27 @@
+package com.example.InventoryService.config;
+
+import io.grpc.ServerInterceptor;
+import io.micrometer.core.instrument.binder.grpc.ObservationGrpcServerInterceptor;
+import io.micrometer.observation.ObservationRegistry;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Трассировка входящих gRPC вызовов.
+ * Перехватчик извлекает контекст трассировки из метаданных запроса order-service
+ * и открывает серверный span, внутри которого выполняются проверка и резервирование.
+ */
+@Configuration
+public class GrpcTracingConfig {
+
+    /**
+     * Глобальный серверный перехватчик наблюдения для всех gRPC сервисов.
+     *
+     * @param observationRegistry реестр наблюдений
+     * @return перехватчик gRPC сервера
+     */
+    @GrpcGlobalServerInterceptor
+    public ServerInterceptor observationGrpcServerInterceptor(ObservationRegistry observationRegistry) {
+        return new ObservationGrpcServerInterceptor(observationRegistry);
+    }
+}
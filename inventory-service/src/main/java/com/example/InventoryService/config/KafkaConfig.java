@@ -0,0 +1,33 @@
+package com.example.InventoryService.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Конфигурация Kafka для inventory-service.
+ * Создает компактируемый топик событий изменения остатков.
+ */
+@Configuration
+public class KafkaConfig {
+
+    /**
+     * Компактируемый топик остатков: для каждого товара хранится последнее событие,
+     * поэтому новый потребитель восстанавливает реплику чтением топика с начала.
+     *
+     * @param topic      имя топика
+     * @param partitions количество партиций
+     * @return описание топика для KafkaAdmin
+     */
+    @Bean
+    public NewTopic stockChangesTopic(@Value("${app.kafka.topics.stock-changes}") String topic,
+                                      @Value("${app.kafka.stock-changes.partitions:3}") int partitions) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.InventoryService.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Источник данных, выбирающий базу по типу транзакции.
+ * Транзакции {@code readOnly = true} идут на реплику, если её отставание в пределах допустимого,
+ * все остальные (резервирования, изменения каталога) - на основную базу.
+ * Используется за {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * чтобы соединение бралось уже после того, как транзакция помечена как readOnly.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Ключ целевого источника данных.
+     */
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    /**
+     * @param replicaLagMonitor монитор отставания реплики
+     */
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isReplicaUsable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.InventoryService.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Периодически измеряет отставание реплики PostgreSQL.
+ * Если отставание превышает допустимое или реплика недоступна, чтение переключается на основную базу.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    /**
+     * Отставание в миллисекундах. Для базы не в режиме восстановления (например, второй
+     * независимый инстанс в тестах) и для полностью догнавшей реплики возвращает 0.
+     */
+    private static final String LAG_SQL =
+            "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) " +
+            "END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+
+    private volatile long lagMs = -1;
+    private volatile boolean replicaUsable;
+
+    /**
+     * @param replicaDataSource источник данных реплики
+     * @param maxLagMs          максимально допустимое отставание в миллисекундах
+     */
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMs) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMs = maxLagMs;
+    }
+
+    /**
+     * Измеряет отставание реплики и обновляет признак её пригодности для чтения.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        boolean wasUsable = replicaUsable;
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Number.class);
+            lagMs = lag != null ? lag.longValue() : 0;
+            replicaUsable = lagMs <= maxLagMs;
+        } catch (Exception e) {
+            lagMs = -1;
+            replicaUsable = false;
+            if (wasUsable) {
+                log.warn("[Inventory] Реплика недоступна, чтение переключено на основную базу: {}", e.getMessage());
+            }
+            return;
+        }
+        if (wasUsable != replicaUsable) {
+            log.warn("[Inventory] Реплика {}: отставание {} мс (допустимо {} мс)",
+                    replicaUsable ? "снова используется для чтения" : "отстает, чтение переключено на основную базу",
+                    lagMs, maxLagMs);
+        }
+    }
+
+    /**
+     * @return true если последнее измерение уложилось в допустимое отставание
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * @return последнее измеренное отставание в миллисекундах или -1 если реплика недоступна
+     */
+    public long getLagMs() {
+        return lagMs;
+    }
+}
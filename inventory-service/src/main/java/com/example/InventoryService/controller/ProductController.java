@@ -1,10 +1,15 @@
 package com.example.InventoryService.controller;
 
+import com.example.InventoryService.dto.ProductBulkResponse;
 import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.service.ProductBulkService;
 import com.example.InventoryService.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -16,14 +21,17 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
 
     /**
      * Конструктор контроллера товаров.
      *
      * @param productService сервис для работы с товарами
+     * @param productBulkService сервис массовой загрузки товаров
      */
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductBulkService productBulkService) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
     }
 
     /**
@@ -97,4 +105,19 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
-} 
+
+    /**
+     * Массово создает и обновляет товары.
+     * Принимает JSON массив или NDJSON (по товару в строке) и читает его потоково.
+     * Строки с id обновляются (null поля не меняются), строки без id создаются.
+     *
+     * @param request HTTP запрос с телом загрузки
+     * @return сводка и результат по каждой строке
+     * @throws IOException при ошибке чтения тела запроса
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ProductBulkResponse> bulkUpsert(HttpServletRequest request) throws IOException {
+        ProductBulkResponse response = productBulkService.upsert(request.getInputStream());
+        return ResponseEntity.ok(response);
+    }
+}
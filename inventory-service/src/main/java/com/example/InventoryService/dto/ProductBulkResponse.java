@@ -0,0 +1,34 @@
+package com.example.InventoryService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO ответа на массовую загрузку товаров.
+ * Содержит сводку и результат по каждой строке входного потока.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkResponse {
+    /** Количество прочитанных строк */
+    private int processed;
+
+    /** Количество созданных товаров */
+    private int created;
+
+    /** Количество обновленных товаров */
+    private int updated;
+
+    /** Количество строк с несуществующим id */
+    private int notFound;
+
+    /** Количество отклоненных строк */
+    private int failed;
+
+    /** Результаты по строкам в порядке входного потока */
+    private List<ProductBulkResult> results;
+}
@@ -0,0 +1,40 @@
+package com.example.InventoryService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO с результатом обработки одной строки массовой загрузки товаров.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkResult {
+
+    /**
+     * Итог обработки строки.
+     */
+    public enum Status {
+        /** Товар создан */
+        CREATED,
+        /** Товар обновлен */
+        UPDATED,
+        /** Товар с указанным id не найден */
+        NOT_FOUND,
+        /** Строка отклонена валидацией или ошибкой базы данных */
+        FAILED
+    }
+
+    /** Порядковый номер строки во входном потоке (с нуля) */
+    private int index;
+
+    /** Идентификатор товара (для созданных - сгенерированный) */
+    private Long id;
+
+    /** Итог обработки строки */
+    private Status status;
+
+    /** Причина ошибки, если строка не применена */
+    private String message;
+}
@@ -32,11 +32,18 @@ public class ProductEntity {
     @Column(nullable = false)
     private BigDecimal sale;
 
+    /** Версия записи, увеличивается при каждом изменении и публикуется в событиях остатков */
+    @Version
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
 
     public ProductEntity(String name, Integer quantity, BigDecimal price, BigDecimal sale) {
         this.name = name;
         this.quantity = quantity;
         this.price = price;
         this.sale = sale;
+        this.version = 0L;
     }
 } 
@@ -0,0 +1,33 @@
+package com.example.InventoryService.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Журнал резервирований товаров по идентификатору заказа.
+ * Хранит сериализованный gRPC ответ первого резервирования, чтобы повторные запросы
+ * (ретраи и хеджирование со стороны order-service) получали тот же результат без изменения остатков.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_reservations")
+public class ProductReservationEntity {
+
+    /** Идентификатор заказа из ReserveProductsRequest */
+    @Id
+    @Column(name = "order_id", length = 64)
+    private String orderId;
+
+    /** Сериализованный ReserveProductsResponse */
+    @Column(name = "response")
+    private byte[] response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,123 @@
+package com.example.InventoryService.kafka;
+
+import com.example.InventoryService.entity.ProductEntity;
+import dto.StockChangeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Публикует события изменения остатков товаров в компактируемый Kafka топик.
+ * Внутри транзакции изменения копятся в буфере (по одному событию на товар,
+ * побеждает последнее) и отправляются одной пачкой только после успешного коммита.
+ * Вне транзакции событие отправляется сразу.
+ */
+@Component
+@Slf4j
+public class StockChangePublisher {
+
+    private final KafkaTemplate<String, StockChangeMessage> kafkaTemplate;
+    private final String topic;
+
+    /**
+     * Конструктор публикатора событий остатков.
+     *
+     * @param kafkaTemplate шаблон Kafka для отправки событий
+     * @param topic         имя компактируемого топика остатков
+     */
+    public StockChangePublisher(KafkaTemplate<String, StockChangeMessage> kafkaTemplate,
+                                @Value("${app.kafka.topics.stock-changes}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+    }
+
+    /**
+     * Регистрирует изменение товара.
+     * Событие собирается после коммита, когда Hibernate уже увеличил версию сущности.
+     *
+     * @param product измененная сущность товара
+     */
+    public void productChanged(ProductEntity product) {
+        enqueue(product.getId(), () -> new StockChangeMessage(
+                product.getId(), product.getQuantity(), product.getVersion(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Регистрирует изменение товара, прочитанное напрямую из базы (пакетные JDBC пути).
+     *
+     * @param productId идентификатор товара
+     * @param quantity  новое количество
+     * @param version   новая версия записи
+     */
+    public void productChanged(Long productId, Integer quantity, Long version) {
+        enqueue(productId, () -> new StockChangeMessage(productId, quantity, version, System.currentTimeMillis()));
+    }
+
+    /**
+     * Регистрирует удаление товара. В топик уходит tombstone, и при компакции ключ исчезает.
+     *
+     * @param productId идентификатор удаленного товара
+     */
+    public void productDeleted(Long productId) {
+        enqueue(productId, () -> null);
+    }
+
+    private void enqueue(Long productId, Supplier<StockChangeMessage> event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(String.valueOf(productId), event.get());
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.events.put(String.valueOf(productId), event);
+    }
+
+    /**
+     * Отправляет событие. Ошибки Kafka только логируются: изменение остатка уже зафиксировано в базе.
+     * Пропущенное событие оставляет в репликах устаревший остаток до следующего изменения товара,
+     * поэтому order-service по реплике только пропускает gRPC проверку при большом запасе и никогда
+     * не отклоняет заказ, а резервирование все равно проверяет остаток в базе.
+     */
+    private void send(String key, StockChangeMessage message) {
+        try {
+            kafkaTemplate.send(topic, key, message).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("[Inventory] Не удалось отправить событие остатка для товара {}: {}", key, ex.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            // send() бросает синхронно, если метаданные топика недоступны дольше max.block.ms
+            log.error("[Inventory] Не удалось отправить событие остатка для товара {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Буфер событий текущей транзакции.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<String, Supplier<StockChangeMessage>> events = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            events.forEach((key, event) -> send(key, event.get()));
+            log.debug("[Inventory] Отправлено событий остатков после коммита: {}", events.size());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockChangePublisher.this);
+        }
+    }
+}
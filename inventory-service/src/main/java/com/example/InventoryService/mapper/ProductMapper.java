@@ -0,0 +1,51 @@
+package com.example.InventoryService.mapper;
+
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.entity.ProductEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Маппер для преобразования между сущностью ProductEntity и ProductDto.
+ * Копирует поля напрямую, без рефлексии, поэтому безопасен для горячих путей REST API.
+ */
+@Component
+public class ProductMapper {
+
+    /**
+     * Преобразует сущность товара в DTO.
+     *
+     * @param productEntity сущность товара
+     * @return DTO товара или null если сущность null
+     */
+    public ProductDto toDto(ProductEntity productEntity) {
+        if (productEntity == null) {
+            return null;
+        }
+        ProductDto productDto = new ProductDto();
+        productDto.setId(productEntity.getId());
+        productDto.setName(productEntity.getName());
+        productDto.setQuantity(productEntity.getQuantity());
+        productDto.setPrice(productEntity.getPrice());
+        productDto.setSale(productEntity.getSale());
+        return productDto;
+    }
+
+    /**
+     * Преобразует DTO товара в сущность.
+     *
+     * @param productDto DTO товара
+     * @return сущность товара или null если DTO null
+     */
+    public ProductEntity toEntity(ProductDto productDto) {
+        if (productDto == null) {
+            return null;
+        }
+        ProductEntity productEntity = new ProductEntity();
+        productEntity.setId(productDto.getId());
+        productEntity.setName(productDto.getName());
+        productEntity.setQuantity(productDto.getQuantity());
+        productEntity.setPrice(productDto.getPrice());
+        productEntity.setSale(productDto.getSale());
+        return productEntity;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.InventoryService.repository;
+
+import com.example.InventoryService.dto.ProductDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Репозиторий для пакетной записи товаров через JDBC.
+ * Используется массовой загрузкой: Hibernate не умеет батчить вставки
+ * при {@code GenerationType.IDENTITY}, поэтому пакеты отправляются напрямую.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductBatchRepository {
+
+    private static final String UPDATE_SQL =
+            "UPDATE products SET " +
+            "name = COALESCE(?, name), " +
+            "quantity = COALESCE(?, quantity), " +
+            "price = COALESCE(?, price), " +
+            "sale = COALESCE(?, sale), " +
+            "version = version + 1 " +
+            "WHERE id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, quantity, price, sale, version) VALUES (?, ?, ?, ?, 0)";
+
+    private static final String SELECT_STOCK_SQL =
+            "SELECT id, quantity, version FROM products WHERE id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Обновляет товары одним JDBC пакетом.
+     * Поля со значением null не изменяются.
+     *
+     * @param products DTO товаров с заполненным id
+     * @return количество обновленных строк для каждого товара (0 - товар не найден)
+     */
+    public int[] batchUpdate(List<ProductDto> products) {
+        return jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductDto product = products.get(i);
+                ps.setObject(1, product.getName(), Types.VARCHAR);
+                ps.setObject(2, product.getQuantity(), Types.INTEGER);
+                ps.setObject(3, product.getPrice(), Types.NUMERIC);
+                ps.setObject(4, product.getSale(), Types.NUMERIC);
+                ps.setLong(5, product.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return products.size();
+            }
+        });
+    }
+
+    /**
+     * Создает товары одним JDBC пакетом.
+     *
+     * @param products DTO новых товаров
+     * @return сгенерированные идентификаторы в порядке входного списка
+     */
+    public List<Long> batchInsert(List<ProductDto> products) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ProductDto product = products.get(i);
+                        ps.setString(1, product.getName());
+                        ps.setInt(2, product.getQuantity());
+                        ps.setBigDecimal(3, product.getPrice());
+                        ps.setBigDecimal(4, product.getSale());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return products.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.get("id")).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Читает текущие остаток и версию товаров одним запросом.
+     *
+     * @param ids идентификаторы товаров
+     * @return состояние найденных товаров
+     */
+    public List<StockState> findStockStates(List<Long> ids) {
+        return jdbcTemplate.query(SELECT_STOCK_SQL,
+                (rs, rowNum) -> new StockState(rs.getLong("id"), rs.getInt("quantity"), rs.getLong("version")),
+                (Object) ids.toArray(new Long[0]));
+    }
+
+    /**
+     * Остаток и версия товара.
+     *
+     * @param id       идентификатор товара
+     * @param quantity количество на складе
+     * @param version  версия записи
+     */
+    public record StockState(Long id, Integer quantity, Long version) {
+    }
+}
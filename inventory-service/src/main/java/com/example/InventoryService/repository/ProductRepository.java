@@ -1,11 +1,15 @@
 package com.example.InventoryService.repository;
 
 import com.example.InventoryService.entity.ProductEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,16 +26,29 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
      */
     Optional<ProductEntity> findByName(String name);
 
+    /**
+     * Находит товары и блокирует их строки до конца транзакции (SELECT ... FOR UPDATE).
+     * Строки блокируются в порядке id, поэтому две транзакции с пересекающимися наборами товаров
+     * ждут друг друга, а не попадают во взаимную блокировку.
+     *
+     * @param ids идентификаторы товаров
+     * @return найденные товары в порядке id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductEntity p WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductEntity> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     /**
      * Атомарно уменьшает количество товара на указанное значение.
      * Выполняется только если текущее количество достаточно.
+     * Контекст персистентности сбрасывается и очищается, чтобы следующее чтение товара вернуло новый остаток и версию.
      *
      * @param productId идентификатор товара
      * @param quantity количество для уменьшения
      * @return количество обновленных строк (1 - успех, 0 - неудача)
      */
-    @Modifying
-    @Query("UPDATE ProductEntity p SET p.quantity = p.quantity - :quantity WHERE p.id = :productId AND p.quantity >= :quantity")
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductEntity p SET p.quantity = p.quantity - :quantity, p.version = p.version + 1 WHERE p.id = :productId AND p.quantity >= :quantity")
     int decreaseQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
     /**
@@ -42,6 +59,6 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
      * @return количество обновленных строк
      */
     @Modifying
-    @Query("UPDATE ProductEntity p SET p.quantity = p.quantity + :quantity WHERE p.id = :productId")
+    @Query("UPDATE ProductEntity p SET p.quantity = p.quantity + :quantity, p.version = p.version + 1 WHERE p.id = :productId")
     int increaseQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 } 
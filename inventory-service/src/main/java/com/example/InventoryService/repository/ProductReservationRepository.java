@@ -0,0 +1,48 @@
+package com.example.InventoryService.repository;
+
+import com.example.InventoryService.entity.ProductReservationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * Репозиторий журнала резервирований.
+ */
+public interface ProductReservationRepository extends JpaRepository<ProductReservationEntity, String> {
+
+    /**
+     * Занимает идентификатор заказа до выполнения резервирования.
+     * Если параллельная транзакция уже вставила тот же orderId, запрос дождется её завершения.
+     *
+     * @param orderId идентификатор заказа
+     * @return 1 если запись создана (первое резервирование), 0 если заказ уже резервировался
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_reservations (order_id, created_at) VALUES (:orderId, now()) " +
+            "ON CONFLICT (order_id) DO NOTHING", nativeQuery = true)
+    int claim(@Param("orderId") String orderId);
+
+    /**
+     * Сохраняет ответ резервирования для занятого заказа.
+     *
+     * @param orderId  идентификатор заказа
+     * @param response сериализованный ответ
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @Query(value = "UPDATE product_reservations SET response = :response WHERE order_id = :orderId", nativeQuery = true)
+    int saveResponse(@Param("orderId") String orderId, @Param("response") byte[] response);
+
+    /**
+     * Удаляет записи старше указанного момента.
+     *
+     * @param threshold граница хранения
+     * @return количество удаленных записей
+     */
+    @Modifying
+    @Query("DELETE FROM ProductReservationEntity r WHERE r.createdAt < :threshold")
+    int deleteOlderThan(@Param("threshold") LocalDateTime threshold);
+}
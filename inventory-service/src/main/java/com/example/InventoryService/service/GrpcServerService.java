@@ -7,7 +7,9 @@ import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 /**
@@ -21,6 +23,8 @@ import org.springframework.stereotype.Service;
 public class GrpcServerService extends InventoryServiceGrpc.InventoryServiceImplBase {
 
     private final ProductService productService;
+    private final ReservationDedupService reservationDedupService;
+    private final ReservationAggregator reservationAggregator;
 
     @Override
     public void checkAvailability(BulkProductRequest request, StreamObserver<BulkProductResponse> responseObserver) {
@@ -46,7 +50,17 @@ public class GrpcServerService extends InventoryServiceGrpc.InventoryServiceImpl
         log.info("[Inventory] Получен запрос на резервирование товаров для заказа: {}", orderId);
 
         try {
-            ReserveProductsResponse response = productService.reserveProducts(request);
+            // Повтор недавнего заказа отвечается из памяти, без транзакции и обращений к базе
+            ReserveProductsResponse response = reservationDedupService.findCached(orderId);
+            if (response != null) {
+                log.info("[Inventory] Повторный запрос резервирования для заказа {}, ответ из кэша", orderId);
+            } else if (reservationAggregator.isEnabled()) {
+                // Ответ отправит агрегатор после коммита транзакции пачки
+                reservationAggregator.submit(request, responseObserver);
+                return;
+            } else {
+                response = productService.reserveProducts(request);
+            }
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
@@ -54,6 +68,11 @@ public class GrpcServerService extends InventoryServiceGrpc.InventoryServiceImpl
                     response.getSuccess() ? "успешно" : "с ошибками");
 
         } catch (Exception e) {
+            if (e instanceof OptimisticLockingFailureException) {
+                // Остаток изменил параллельный заказ: резервирование откатилось целиком
+                request.getItemsList().forEach(item ->
+                        productService.reservationConflict(MeterNames.REASON_CONCURRENT_UPDATE, item.getProductId()));
+            }
             log.error("[Inventory] Ошибка при резервировании товаров для заказа {}: {}", orderId, e.getMessage(), e);
             responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
         }
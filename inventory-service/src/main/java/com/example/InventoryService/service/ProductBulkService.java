@@ -0,0 +1,250 @@
+package com.example.InventoryService.service;
+
+import com.example.InventoryService.dto.ProductBulkResponse;
+import com.example.InventoryService.dto.ProductBulkResult;
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.kafka.StockChangePublisher;
+import com.example.InventoryService.repository.ProductBatchRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Сервис массовой загрузки и переоценки товаров.
+ * Читает тело запроса потоково (JSON массив или NDJSON), не собирая его в память целиком,
+ * и применяет изменения JDBC пакетами. Каждый пакет выполняется в отдельной транзакции.
+ */
+@Service
+@Slf4j
+public class ProductBulkService {
+
+    private final ProductBatchRepository productBatchRepository;
+    private final StockChangePublisher stockChangePublisher;
+    private final ObjectReader productReader;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    /**
+     * Конструктор сервиса массовой загрузки.
+     *
+     * @param productBatchRepository репозиторий пакетной записи
+     * @param stockChangePublisher   публикатор событий изменения остатков
+     * @param objectMapper           Jackson маппер приложения
+     * @param transactionManager     менеджер транзакций
+     * @param chunkSize              количество строк в одном JDBC пакете
+     */
+    public ProductBulkService(ProductBatchRepository productBatchRepository,
+                              StockChangePublisher stockChangePublisher,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.products.bulk.chunk-size:500}") int chunkSize) {
+        this.productBatchRepository = productBatchRepository;
+        this.stockChangePublisher = stockChangePublisher;
+        this.productReader = objectMapper.readerFor(ProductDto.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Применяет поток товаров: строки с id обновляются (null поля не меняются),
+     * строки без id создаются.
+     *
+     * @param body тело запроса с JSON массивом или NDJSON
+     * @return сводка и результат по каждой строке
+     * @throws IOException при ошибке чтения потока
+     */
+    public ProductBulkResponse upsert(InputStream body) throws IOException {
+        List<ProductBulkResult> results = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+
+        try (MappingIterator<ProductDto> iterator = productReader.readValues(body)) {
+            while (true) {
+                ProductDto product;
+                try {
+                    if (!iterator.hasNextValue()) {
+                        break;
+                    }
+                    product = iterator.nextValue();
+                } catch (JsonProcessingException e) {
+                    // После синтаксической ошибки позиция в потоке не восстанавливается
+                    log.warn("[Inventory] Массовая загрузка прервана на строке {}: {}", index, e.getMessage());
+                    results.add(new ProductBulkResult(index, null, ProductBulkResult.Status.FAILED,
+                            "Некорректный JSON: " + e.getOriginalMessage()));
+                    index++;
+                    break;
+                }
+
+                String error = validate(product);
+                if (error != null) {
+                    results.add(new ProductBulkResult(index, product.getId(), ProductBulkResult.Status.FAILED, error));
+                } else {
+                    chunk.add(new Row(index, product));
+                    if (chunk.size() >= chunkSize) {
+                        results.addAll(applyChunk(chunk));
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                index++;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(applyChunk(chunk));
+        }
+
+        results.sort(Comparator.comparingInt(ProductBulkResult::getIndex));
+        ProductBulkResponse response = summarize(index, results);
+        log.info("[Inventory] Массовая загрузка завершена: строк {}, создано {}, обновлено {}, не найдено {}, ошибок {}",
+                response.getProcessed(), response.getCreated(), response.getUpdated(),
+                response.getNotFound(), response.getFailed());
+        return response;
+    }
+
+    /**
+     * Применяет пакет строк в одной транзакции.
+     * Если пакет откатился, строки применяются по одной, чтобы найти ошибочные.
+     */
+    private List<ProductBulkResult> applyChunk(List<Row> chunk) {
+        try {
+            return transactionTemplate.execute(status -> write(chunk));
+        } catch (DataAccessException e) {
+            log.warn("[Inventory] Пакет из {} строк отклонен ({}), повтор по одной строке",
+                    chunk.size(), e.getMostSpecificCause().getMessage());
+            List<ProductBulkResult> results = new ArrayList<>(chunk.size());
+            for (Row row : chunk) {
+                try {
+                    results.addAll(transactionTemplate.execute(status -> write(List.of(row))));
+                } catch (DataAccessException rowError) {
+                    results.add(new ProductBulkResult(row.index(), row.product().getId(),
+                            ProductBulkResult.Status.FAILED, rowError.getMostSpecificCause().getMessage()));
+                }
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Отправляет обновления и вставки пакета двумя JDBC пакетами.
+     */
+    private List<ProductBulkResult> write(List<Row> rows) {
+        List<Row> updates = new ArrayList<>();
+        List<Row> inserts = new ArrayList<>();
+        for (Row row : rows) {
+            (row.product().getId() != null ? updates : inserts).add(row);
+        }
+
+        List<ProductBulkResult> results = new ArrayList<>(rows.size());
+        if (!updates.isEmpty()) {
+            int[] counts = productBatchRepository.batchUpdate(products(updates));
+            List<Long> updatedIds = new ArrayList<>(updates.size());
+            for (int i = 0; i < updates.size(); i++) {
+                Row row = updates.get(i);
+                // SUCCESS_NO_INFO (-2) означает, что драйвер не сообщил число строк
+                boolean updated = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+                if (updated) {
+                    updatedIds.add(row.product().getId());
+                }
+                results.add(updated
+                        ? new ProductBulkResult(row.index(), row.product().getId(), ProductBulkResult.Status.UPDATED, null)
+                        : new ProductBulkResult(row.index(), row.product().getId(), ProductBulkResult.Status.NOT_FOUND,
+                                "Товар не найден с id: " + row.product().getId()));
+            }
+            if (!updatedIds.isEmpty()) {
+                productBatchRepository.findStockStates(updatedIds).forEach(state ->
+                        stockChangePublisher.productChanged(state.id(), state.quantity(), state.version()));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            List<Long> ids = productBatchRepository.batchInsert(products(inserts));
+            for (int i = 0; i < inserts.size(); i++) {
+                Row row = inserts.get(i);
+                results.add(new ProductBulkResult(row.index(), ids.get(i), ProductBulkResult.Status.CREATED, null));
+                stockChangePublisher.productChanged(ids.get(i), row.product().getQuantity(), 0L);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Проверяет строку. Для новых товаров обязательны все поля,
+     * для обновления - только неотрицательность переданных значений.
+     *
+     * @return текст ошибки или null если строка корректна
+     */
+    private String validate(ProductDto product) {
+        if (product == null) {
+            return "Пустая строка";
+        }
+        if (product.getId() == null) {
+            if (product.getName() == null || product.getName().isBlank()) {
+                return "Название товара обязательно";
+            }
+            if (product.getQuantity() == null) {
+                return "Количество обязательно";
+            }
+            if (product.getPrice() == null) {
+                return "Цена обязательна";
+            }
+            if (product.getSale() == null) {
+                return "Скидка обязательна";
+            }
+        } else if (product.getName() != null && product.getName().isBlank()) {
+            return "Название товара не может быть пустым";
+        }
+        if (product.getQuantity() != null && product.getQuantity() < 0) {
+            return "Количество не может быть отрицательным";
+        }
+        if (product.getPrice() != null && product.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return "Цена не может быть отрицательной";
+        }
+        if (product.getSale() != null && product.getSale().compareTo(BigDecimal.ZERO) < 0) {
+            return "Скидка не может быть отрицательной";
+        }
+        return null;
+    }
+
+    private ProductBulkResponse summarize(int processed, List<ProductBulkResult> results) {
+        int created = 0;
+        int updated = 0;
+        int notFound = 0;
+        int failed = 0;
+        for (ProductBulkResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                case NOT_FOUND -> notFound++;
+                case FAILED -> failed++;
+            }
+        }
+        return new ProductBulkResponse(processed, created, updated, notFound, failed, results);
+    }
+
+    private static List<ProductDto> products(List<Row> rows) {
+        List<ProductDto> products = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            products.add(row.product());
+        }
+        return products;
+    }
+
+    /**
+     * Строка входного потока вместе с её порядковым номером.
+     */
+    private record Row(int index, ProductDto product) {
+    }
+}
@@ -3,18 +3,24 @@ package com.example.InventoryService.service;
 import com.example.InventoryService.dto.ProductAvailability;
 import com.example.InventoryService.dto.ProductDto;
 import com.example.InventoryService.entity.ProductEntity;
+import com.example.InventoryService.kafka.StockChangePublisher;
+import com.example.InventoryService.mapper.ProductMapper;
 import com.example.InventoryService.repository.ProductRepository;
 import com.example.inventory.*;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import metrics.MeterNames;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -27,14 +33,17 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final StockChangePublisher stockChangePublisher;
+    private final ReservationDedupService reservationDedupService;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Возвращает список всех товаров.
      *
      * @return список DTO товаров
      */
-    //@Transactional(readOnly = true)
+    @Transactional(readOnly = true)
     public List<ProductDto> getAllProducts() {
         return productRepository.findAll().stream()
                 .map(this::convertToDto)
@@ -48,7 +57,7 @@ public class ProductService {
      * @return DTO товара
      * @throws RuntimeException если товар не найден
      */
-    //@Transactional(readOnly = true)
+    @Transactional(readOnly = true)
     public ProductDto getProductById(Long id) {
         ProductEntity productEntity = findProductEntityById(id);
         return convertToDto(productEntity);
@@ -64,6 +73,7 @@ public class ProductService {
     public ProductDto createProduct(ProductDto productDto) {
         ProductEntity productEntity = convertToEntity(productDto);
         ProductEntity savedProductEntity = productRepository.save(productEntity);
+        stockChangePublisher.productChanged(savedProductEntity);
         return convertToDto(savedProductEntity);
     }
 
@@ -94,6 +104,7 @@ public class ProductService {
         }
 
         ProductEntity updatedProductEntity = productRepository.save(existingProductEntity);
+        stockChangePublisher.productChanged(updatedProductEntity);
         return convertToDto(updatedProductEntity);
     }
 
@@ -109,6 +120,7 @@ public class ProductService {
             throw new RuntimeException("Товар не найден с id: " + id);
         }
         productRepository.deleteById(id);
+        stockChangePublisher.productDeleted(id);
     }
 
     // === Внутренние методы для gRPC сервиса ===
@@ -132,6 +144,7 @@ public class ProductService {
      * @param rqUid   идентификатор запроса для логирования
      * @return bulk ответ с доступными и недоступными товарами
      */
+    @Transactional(readOnly = true)
     public BulkProductResponse checkBulkAvailability(BulkProductRequest request, String rqUid) {
         log.info("[Inventory: RqUid {}] Начало bulk проверки доступности {} товаров",
                 rqUid, request.getItemsCount());
@@ -226,6 +239,7 @@ public class ProductService {
      * @param productIds список идентификаторов товаров
      * @return список информации о доступности товаров
      */
+    @Transactional(readOnly = true)
     List<ProductAvailability> checkProductsAvailability(List<Long> productIds) {
         return productRepository.findAllById(productIds).stream()
                 .map(productEntity -> new ProductAvailability(
@@ -248,7 +262,7 @@ public class ProductService {
      * @return DTO товара
      */
     private ProductDto convertToDto(ProductEntity productEntity) {
-        return modelMapper.map(productEntity, ProductDto.class);
+        return productMapper.toDto(productEntity);
     }
 
     /**
@@ -258,7 +272,7 @@ public class ProductService {
      * @return сущность товара
      */
     private ProductEntity convertToEntity(ProductDto productDto) {
-        return modelMapper.map(productDto, ProductEntity.class);
+        return productMapper.toEntity(productDto);
     }
     /**
      * Вспомогательный метод для безопасного преобразования BigDecimal в double
@@ -267,83 +281,126 @@ public class ProductService {
         return value != null ? value.doubleValue() : 0.0;
     }
     /**
-     * Резервирует товары для заказа
+     * Резервирует товары для заказа.
+     * Заказ резервируется целиком или не резервируется, так же как в {@link #reserveProductsBatch},
+     * независимо от того, включено ли групповое резервирование: это пачка из одного заказа.
+     * Повторный запрос с тем же orderId возвращает исходный результат и не изменяет остатки.
      */
     @Transactional
     public ReserveProductsResponse reserveProducts(ReserveProductsRequest request) {
-        String orderId = request.getOrderId();
-        log.info("[Inventory] Резервирование товаров для заказа: {}", orderId);
-
-        ReserveProductsResponse.Builder responseBuilder = ReserveProductsResponse.newBuilder()
-                .setOrderId(orderId);
-
-        List<ProductResponseItem> reservedItems = new ArrayList<>();
-        List<ProductResponseItem> failedItems = new ArrayList<>();
+        log.info("[Inventory] Резервирование товаров для заказа: {}", request.getOrderId());
+        return reserveProductsBatch(List.of(request)).get(0);
+    }
 
-        for (ProductRequestItem requestItem : request.getItemsList()) {
-            try {
-                ProductResponseItem reservedItem = reserveProduct(requestItem, orderId);
-                if (reservedItem.getIsAvailable()) {
-                    reservedItems.add(reservedItem);
-                } else {
-                    failedItems.add(reservedItem);
-                }
-            } catch (Exception e) {
-                log.error("[Inventory] Ошибка резервирования товара {} для заказа {}: {}",
-                        requestItem.getProductId(), orderId, e.getMessage());
-                failedItems.add(createFailedReservationResponse(requestItem, e.getMessage()));
+    /**
+     * Резервирует товары нескольких заказов в одной транзакции (group commit).
+     * Строки всех товаров пачки блокируются одним запросом в порядке id, затем заказы
+     * применяются по очереди к остаткам в памяти. Каждый заказ резервируется целиком или не резервируется:
+     * если хотя бы одной позиции не хватает, остатки по остальным позициям заказа не меняются.
+     * Повторные заказы, как и в {@link #reserveProducts}, получают исходный результат.
+     *
+     * @param requests запросы резервирования с разными orderId
+     * @return ответы в порядке запросов
+     */
+    @Transactional
+    public List<ReserveProductsResponse> reserveProductsBatch(List<ReserveProductsRequest> requests) {
+        log.info("[Inventory] Пакетное резервирование: заказов {}", requests.size());
+
+        ReserveProductsResponse[] responses = new ReserveProductsResponse[requests.size()];
+        Set<Long> productIds = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Optional<ReserveProductsResponse> original = reservationDedupService.claimOrReplay(requests.get(i).getOrderId());
+            if (original.isPresent()) {
+                log.info("[Inventory] Повторный запрос резервирования для заказа {}, возвращен исходный результат",
+                        requests.get(i).getOrderId());
+                responses[i] = original.get();
+            } else {
+                requests.get(i).getItemsList().forEach(item -> productIds.add(item.getProductId()));
             }
         }
 
-        // Добавляем результаты в ответ
-        reservedItems.forEach(responseBuilder::addReservedItems);
-        failedItems.forEach(responseBuilder::addFailedItems);
-
-        boolean success = failedItems.isEmpty();
-        responseBuilder.setSuccess(success);
-        responseBuilder.setMessage(success ? "Товары успешно зарезервированы" : "Некоторые товары не удалось зарезервировать");
+        Map<Long, ProductEntity> products = new LinkedHashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllByIdForUpdate(productIds).forEach(product -> products.put(product.getId(), product));
+        }
 
-        log.info("[Inventory] Резервирование для заказа {} завершено: успешно {}, неудачно {}",
-                orderId, reservedItems.size(), failedItems.size());
+        // Ключ - id: equals/hashCode сущности зависят от изменяемого остатка
+        Map<Long, ProductEntity> changed = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (responses[i] == null) {
+                ReserveProductsRequest request = requests.get(i);
+                responses[i] = reserveAllOrNothing(request, products, changed);
+                reservationDedupService.record(request.getOrderId(), responses[i]);
+            }
+        }
 
-        return responseBuilder.build();
+        if (!changed.isEmpty()) {
+            productRepository.saveAll(changed.values());
+            changed.values().forEach(stockChangePublisher::productChanged);
+        }
+        log.info("[Inventory] Пакетное резервирование завершено: заказов {}, изменено товаров {}",
+                requests.size(), changed.size());
+        return List.of(responses);
     }
 
     /**
-     * Резервирует один товар
+     * Резервирует заказ целиком по заблокированным товарам пачки.
      */
-    private ProductResponseItem reserveProduct(ProductRequestItem requestItem, String orderId) {
-        Long productId = requestItem.getProductId();
-        Integer requestedQuantity = requestItem.getRequestedQuantity();
-
-        log.debug("[Inventory] Резервирование товара ID: {} для заказа {}, количество: {}",
-                productId, orderId, requestedQuantity);
+    private ReserveProductsResponse reserveAllOrNothing(ReserveProductsRequest request, Map<Long, ProductEntity> products,
+                                                        Map<Long, ProductEntity> changed) {
+        String orderId = request.getOrderId();
+        ReserveProductsResponse.Builder responseBuilder = ReserveProductsResponse.newBuilder()
+                .setOrderId(orderId);
 
-        Optional<ProductEntity> productOpt = productRepository.findById(productId);
+        // Одна позиция может повторяться в заказе: проверяется суммарное количество
+        Map<Long, Integer> needed = new LinkedHashMap<>();
+        request.getItemsList().forEach(item ->
+                needed.merge(item.getProductId(), item.getRequestedQuantity(), Integer::sum));
 
-        if (productOpt.isEmpty()) {
-            log.warn("[Inventory] Товар не найден при резервировании: ID {} для заказа {}", productId, orderId);
-            return createFailedReservationResponse(requestItem, "Товар не найден");
+        for (ProductRequestItem requestItem : request.getItemsList()) {
+            ProductEntity product = products.get(requestItem.getProductId());
+            if (product == null) {
+                log.warn("[Inventory] Товар не найден при резервировании: ID {} для заказа {}",
+                        requestItem.getProductId(), orderId);
+                reservationConflict(MeterNames.REASON_PRODUCT_NOT_FOUND, requestItem.getProductId());
+                responseBuilder.addFailedItems(createFailedReservationResponse(requestItem, "Товар не найден"));
+            } else if (product.getQuantity() < needed.get(product.getId())) {
+                log.warn("[Inventory] Недостаточно товара при резервировании: ID {} (доступно: {}, запрошено: {}) для заказа {}",
+                        product.getId(), product.getQuantity(), needed.get(product.getId()), orderId);
+                reservationConflict(MeterNames.REASON_OUT_OF_STOCK, product.getId());
+                responseBuilder.addFailedItems(createFailedReservationResponse(requestItem, product, "Недостаточно товара"));
+            }
         }
-
-        ProductEntity product = productOpt.get();
-
-        // Проверяем доступность еще раз (на случай параллельных заказов)
-        if (product.getQuantity() < requestedQuantity) {
-            log.warn("[Inventory] Недостаточно товара при резервировании: ID {} (доступно: {}, запрошено: {}) для заказа {}",
-                    productId, product.getQuantity(), requestedQuantity, orderId);
-            return createFailedReservationResponse(requestItem, product, "Недостаточно товара");
+        if (responseBuilder.getFailedItemsCount() > 0) {
+            return responseBuilder
+                    .setSuccess(false)
+                    .setMessage("Некоторые товары не удалось зарезервировать, заказ не зарезервирован")
+                    .build();
         }
 
-        // Уменьшаем количество товара
-        int newQuantity = product.getQuantity() - requestedQuantity;
-        product.setQuantity(newQuantity);
-        productRepository.save(product);
-
-        log.info("[Inventory] Товар ID {} зарезервирован для заказа {}. Новое количество: {}",
-                productId, orderId, newQuantity);
+        for (ProductRequestItem requestItem : request.getItemsList()) {
+            ProductEntity product = products.get(requestItem.getProductId());
+            int newQuantity = product.getQuantity() - requestItem.getRequestedQuantity();
+            product.setQuantity(newQuantity);
+            changed.put(product.getId(), product);
+            responseBuilder.addReservedItems(createReservedResponse(requestItem, product, newQuantity));
+        }
+        log.debug("[Inventory] Заказ {} зарезервирован в пачке: позиций {}", orderId, request.getItemsCount());
+        return responseBuilder
+                .setSuccess(true)
+                .setMessage("Товары успешно зарезервированы")
+                .build();
+    }
 
-        return createReservedResponse(requestItem, product, newQuantity);
+    /**
+     * Учитывает позицию, которую не удалось зарезервировать, в метриках.
+     *
+     * @param reason    причина из {@link MeterNames}
+     * @param productId идентификатор товара
+     */
+    public void reservationConflict(String reason, long productId) {
+        meterRegistry.counter(MeterNames.RESERVATION_CONFLICTS, MeterNames.TAG_REASON, reason,
+                MeterNames.TAG_PRODUCT_BUCKET, MeterNames.productBucket(productId)).increment();
     }
 
     /**
@@ -0,0 +1,240 @@
+package com.example.InventoryService.service;
+
+import com.example.inventory.ReserveProductsRequest;
+import com.example.inventory.ReserveProductsResponse;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Групповой коммит резервирований.
+ * Запросы ReserveProducts складываются в очередь, а один поток-писатель забирает их пачками
+ * (первый запрос пачки ждет остальные не дольше окна) и резервирует пачку в одной транзакции
+ * через {@link ProductService#reserveProductsBatch}. Пока идет транзакция, следующая пачка уже
+ * копится, так что под нагрузкой на коммит приходится много заказов, а без нагрузки задержка
+ * ограничена окном. Ответы отправляются в StreamObserver каждого вызова после коммита.
+ *
+ * Если транзакция пачки не удалась, каждый ее заказ резервируется в собственной транзакции той же
+ * логикой (строки в порядке id, заказ целиком или никак): ошибка одного заказа не должна отклонять остальные.
+ */
+@Service
+@Slf4j
+public class ReservationAggregator {
+
+    private final ProductService productService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxOrders;
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final BlockingQueue<PendingReservation> queue = new LinkedBlockingQueue<>();
+    /** submit ставит в очередь под read lock, stop снимает флаг под write lock: после остановки очередь не пополняется */
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Конструктор агрегатора резервирований.
+     *
+     * @param productService сервис товаров
+     * @param enabled        включено ли объединение резервирований
+     * @param windowMs       сколько первый запрос пачки ждет остальные
+     * @param maxOrders      наибольшее число заказов в одной транзакции
+     * @param meterRegistry  реестр метрик
+     */
+    public ReservationAggregator(ProductService productService,
+                                 @Value("${app.inventory.reservations.batching.enabled:false}") boolean enabled,
+                                 @Value("${app.inventory.reservations.batching.window-ms:2}") long windowMs,
+                                 @Value("${app.inventory.reservations.batching.max-orders:100}") int maxOrders,
+                                 MeterRegistry meterRegistry) {
+        if (windowMs < 0 || maxOrders < 1) {
+            throw new IllegalArgumentException("Некорректные параметры объединения резервирований: окно "
+                    + windowMs + " мс, заказов " + maxOrders);
+        }
+        this.productService = productService;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxOrders = maxOrders;
+        this.batchSize = DistributionSummary.builder(MeterNames.RESERVATION_BATCH_SIZE)
+                .description("Число заказов в одной транзакции резервирования")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder(MeterNames.RESERVATION_BATCH_WAIT)
+                .description("Ожидание резервирования до начала транзакции пачки")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "reservation-aggregator");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("[Inventory] Объединение резервирований включено: окно {} мс, до {} заказов",
+                TimeUnit.NANOSECONDS.toMillis(windowNanos), maxOrders);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        List<PendingReservation> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(pending -> pending.observer.onError(Status.UNAVAILABLE
+                .withDescription("Inventory-service останавливается").asRuntimeException()));
+    }
+
+    /**
+     * @return true, если резервирования нужно передавать в {@link #submit}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит резервирование в очередь. Ответ или ошибка придут в observer из потока-писателя.
+     *
+     * @param request  запрос резервирования
+     * @param observer поток ответа gRPC вызова
+     */
+    public void submit(ReserveProductsRequest request, StreamObserver<ReserveProductsResponse> observer) {
+        lifecycle.readLock().lock();
+        try {
+            if (running) {
+                queue.add(new PendingReservation(request, observer, System.nanoTime()));
+                return;
+            }
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        observer.onError(Status.UNAVAILABLE.withDescription("Объединение резервирований остановлено").asRuntimeException());
+    }
+
+    private void writeLoop() {
+        List<PendingReservation> batch = new ArrayList<>(maxOrders);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxOrders) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingReservation next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                // Поток-писатель не должен умирать: иначе все следующие резервирования зависнут
+                log.error("[Inventory] Необработанная ошибка пачки резервирований: {}", e.getMessage(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingReservation> batch) {
+        long startedAt = System.nanoTime();
+        batch.forEach(pending -> batchWait.record(startedAt - pending.receivedAt, TimeUnit.NANOSECONDS));
+
+        // Повторы одного заказа внутри пачки резервируются один раз и получают один ответ
+        Map<String, List<PendingReservation>> byOrder = new LinkedHashMap<>();
+        List<List<PendingReservation>> groups = new ArrayList<>();
+        for (PendingReservation pending : batch) {
+            String orderId = pending.request.getOrderId();
+            if (orderId.isEmpty()) {
+                groups.add(List.of(pending));
+            } else {
+                byOrder.computeIfAbsent(orderId, id -> {
+                    List<PendingReservation> group = new ArrayList<>();
+                    groups.add(group);
+                    return group;
+                }).add(pending);
+            }
+        }
+        batchSize.record(groups.size());
+
+        List<ReserveProductsRequest> requests = groups.stream().map(group -> group.get(0).request).toList();
+        List<ReserveProductsResponse> responses;
+        try {
+            responses = productService.reserveProductsBatch(requests);
+        } catch (Exception e) {
+            log.warn("[Inventory] Транзакция пачки из {} заказов не удалась, резервирование по одному заказу: {}",
+                    requests.size(), e.getMessage());
+            groups.forEach(this::reserveSingly);
+            return;
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            complete(groups.get(i), responses.get(i));
+        }
+    }
+
+    private void reserveSingly(List<PendingReservation> group) {
+        ReserveProductsRequest request = group.get(0).request;
+        try {
+            complete(group, productService.reserveProductsBatch(List.of(request)).get(0));
+        } catch (Exception e) {
+            log.error("[Inventory] Ошибка при резервировании товаров для заказа {}: {}",
+                    request.getOrderId(), e.getMessage(), e);
+            group.forEach(pending -> pending.observer.onError(
+                    Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException()));
+        }
+    }
+
+    private static void complete(List<PendingReservation> group, ReserveProductsResponse response) {
+        for (PendingReservation pending : group) {
+            try {
+                pending.observer.onNext(response);
+                pending.observer.onCompleted();
+            } catch (RuntimeException e) {
+                // Клиент мог отменить вызов по дедлайну, резервирование при этом уже выполнено
+                log.warn("[Inventory] Не удалось отправить ответ резервирования заказа {}: {}",
+                        response.getOrderId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Резервирование, ожидающее своей пачки.
+     */
+    private record PendingReservation(ReserveProductsRequest request,
+                                      StreamObserver<ReserveProductsResponse> observer,
+                                      long receivedAt) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.InventoryService.service;
+
+import com.example.InventoryService.entity.ProductReservationEntity;
+import com.example.InventoryService.repository.ProductReservationRepository;
+import com.example.inventory.ReserveProductsResponse;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Дедупликация резервирований по идентификатору заказа.
+ * Недавние результаты хранятся в LRU индексе в памяти, полный журнал - в таблице product_reservations.
+ * Повторный запрос с тем же orderId получает исходный ответ с признаком replayed и не изменяет остатки:
+ * остатки в таком ответе устарели, и клиент не должен считать их текущими.
+ */
+@Service
+@Slf4j
+public class ReservationDedupService {
+
+    private final ProductReservationRepository productReservationRepository;
+    private final Map<String, ReserveProductsResponse> recent;
+    private final Duration retention;
+
+    /**
+     * Конструктор сервиса дедупликации.
+     *
+     * @param productReservationRepository репозиторий журнала резервирований
+     * @param cacheSize                    количество заказов в индексе в памяти
+     * @param retention                    срок хранения записей журнала
+     */
+    public ReservationDedupService(ProductReservationRepository productReservationRepository,
+                                   @Value("${app.inventory.reservations.cache-size:10000}") int cacheSize,
+                                   @Value("${app.inventory.reservations.retention:P7D}") Duration retention) {
+        this.productReservationRepository = productReservationRepository;
+        this.retention = retention;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReserveProductsResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Ищет результат резервирования в индексе в памяти, не обращаясь к базе.
+     *
+     * @param orderId идентификатор заказа
+     * @return сохраненный ответ с признаком повтора или null
+     */
+    public ReserveProductsResponse findCached(String orderId) {
+        return orderId == null || orderId.isEmpty() ? null : recent.get(orderId);
+    }
+
+    /**
+     * Занимает orderId для нового резервирования или возвращает результат предыдущего.
+     * Должен вызываться в транзакции резервирования.
+     *
+     * @param orderId идентификатор заказа
+     * @return исходный ответ с признаком повтора для повторного запроса или пустой Optional для первого
+     */
+    public Optional<ReserveProductsResponse> claimOrReplay(String orderId) {
+        if (orderId == null || orderId.isEmpty()) {
+            return Optional.empty();
+        }
+        ReserveProductsResponse cached = recent.get(orderId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (productReservationRepository.claim(orderId) == 1) {
+            return Optional.empty();
+        }
+
+        ProductReservationEntity reservation = productReservationRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalStateException("Запись резервирования исчезла для заказа: " + orderId));
+        if (reservation.getResponse() == null) {
+            throw new IllegalStateException("Резервирование заказа " + orderId + " не завершено");
+        }
+        try {
+            ReserveProductsResponse original = replayed(ReserveProductsResponse.parseFrom(reservation.getResponse()));
+            recent.put(orderId, original);
+            return Optional.of(original);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Поврежден сохраненный ответ резервирования для заказа " + orderId, e);
+        }
+    }
+
+    /**
+     * Сохраняет результат резервирования в журнал, а после коммита - в индекс в памяти.
+     *
+     * @param orderId  идентификатор заказа
+     * @param response ответ резервирования
+     */
+    public void record(String orderId, ReserveProductsResponse response) {
+        if (orderId == null || orderId.isEmpty()) {
+            return;
+        }
+        productReservationRepository.saveResponse(orderId, response.toByteArray());
+        // Из индекса ответ отдается только повторным запросам
+        ReserveProductsResponse replay = replayed(response);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.put(orderId, replay);
+                }
+            });
+        } else {
+            recent.put(orderId, replay);
+        }
+    }
+
+    /**
+     * Удаляет из журнала записи старше срока хранения.
+     */
+    @Scheduled(cron = "${app.inventory.reservations.purge-cron:0 0 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = productReservationRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("[Inventory] Удалено устаревших записей журнала резервирований: {}", deleted);
+        }
+    }
+
+    private static ReserveProductsResponse replayed(ReserveProductsResponse response) {
+        return response.toBuilder().setReplayed(true).build();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.InventoryService.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.InventoryService.entity.ProductEntity;
+import com.example.InventoryService.mapper.GrpcMapper;
+import com.example.InventoryService.mapper.ProductMapper;
+import com.example.InventoryService.repository.ProductRepository;
+import com.example.InventoryService.service.ProductService;
+import com.example.inventory.BulkProductRequest;
+import com.example.inventory.BulkProductResponse;
+import com.example.inventory.ProductRequestItem;
+import com.example.inventory.ProductResponseItem;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH бенчмарк построения и разбора gRPC сообщений inventory.proto при разных размерах корзины.
+ * <ul>
+ *     <li>{@code buildRequest} - сборка BulkProductRequest, как в InventoryClient.checkBulkAvailability
+ *     order-service (цикл повторен здесь: клиент живет в другом модуле и требует stub);</li>
+ *     <li>{@code parseRequest} - разбор запроса на сервере;</li>
+ *     <li>{@code checkBulkAvailability} - ProductService.checkBulkAvailability с репозиторием в памяти,
+ *     то есть построение ProductResponseItem без обращения к базе и без логирования;</li>
+ *     <li>{@code buildResponseGrpcMapper} - тот же ответ через GrpcMapper;</li>
+ *     <li>{@code serializeResponse} и {@code parseResponse} - ответ на проводе и разбор на клиенте.</li>
+ * </ul>
+ * Размеры сообщений на проводе, в том числе без поля name и с ценами в копейках (int64),
+ * печатает {@link #main(String[])} перед запуском бенчмарков.
+ *
+ * Запуск: {@code mvn test-compile} и затем {@link #main(String[])} из IDE
+ * или {@code java -cp <test classpath> org.openjdk.jmh.Main InventoryProtoBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InventoryProtoBenchmark {
+
+    private static final String RQ_UID = "6f1c1f9e-0c55-4a7e-9a53-2f3c8f1d2b47";
+
+    @Param({"1", "10", "100", "1000"})
+    private int basketSize;
+
+    private long[] productIds;
+    private int[] quantities;
+    private ProductEntity[] products;
+    private ProductService productService;
+    private GrpcMapper grpcMapper;
+    private BulkProductRequest request;
+    private byte[] requestBytes;
+    private BulkProductResponse response;
+    private byte[] responseBytes;
+
+    @Setup
+    public void setUp() {
+        // Логирование ProductService измеряется отдельно, здесь только работа с сообщениями
+        ((Logger) LoggerFactory.getLogger("com.example")).setLevel(Level.OFF);
+
+        products = createProducts(basketSize);
+        productIds = new long[basketSize];
+        quantities = new int[basketSize];
+        Map<Long, ProductEntity> catalog = new HashMap<>();
+        for (int i = 0; i < basketSize; i++) {
+            productIds[i] = products[i].getId();
+            quantities[i] = 1 + i % 3;
+            catalog.put(products[i].getId(), products[i]);
+        }
+
+        productService = new ProductService(inMemoryRepository(catalog), new ProductMapper(),
+                null, null, new SimpleMeterRegistry());
+        grpcMapper = new GrpcMapper();
+
+        request = buildRequest();
+        requestBytes = request.toByteArray();
+        response = productService.checkBulkAvailability(request, RQ_UID);
+        responseBytes = response.toByteArray();
+    }
+
+    @Benchmark
+    public BulkProductRequest buildRequest() {
+        BulkProductRequest.Builder requestBuilder = BulkProductRequest.newBuilder()
+                .setRqUid(RQ_UID);
+        for (int i = 0; i < productIds.length; i++) {
+            ProductRequestItem requestItem = ProductRequestItem.newBuilder()
+                    .setProductId(productIds[i])
+                    .setRequestedQuantity(quantities[i])
+                    .build();
+            requestBuilder.addItems(requestItem);
+        }
+        return requestBuilder.build();
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() {
+        return request.toByteArray();
+    }
+
+    @Benchmark
+    public void parseRequest(Blackhole blackhole) throws InvalidProtocolBufferException {
+        BulkProductRequest parsed = BulkProductRequest.parseFrom(requestBytes);
+        for (ProductRequestItem item : parsed.getItemsList()) {
+            blackhole.consume(item.getProductId());
+            blackhole.consume(item.getRequestedQuantity());
+        }
+    }
+
+    @Benchmark
+    public BulkProductResponse checkBulkAvailability() {
+        return productService.checkBulkAvailability(request, RQ_UID);
+    }
+
+    @Benchmark
+    public BulkProductResponse buildResponseGrpcMapper() {
+        BulkProductResponse.Builder responseBuilder = BulkProductResponse.newBuilder()
+                .setRqUid(RQ_UID);
+        for (int i = 0; i < products.length; i++) {
+            responseBuilder.addAvailableItems(grpcMapper.toProductResponseItem(products[i], quantities[i]));
+        }
+        return responseBuilder.build();
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() {
+        return response.toByteArray();
+    }
+
+    @Benchmark
+    public void parseResponse(Blackhole blackhole) throws InvalidProtocolBufferException {
+        BulkProductResponse parsed = BulkProductResponse.parseFrom(responseBytes);
+        for (ProductResponseItem item : parsed.getAvailableItemsList()) {
+            blackhole.consume(item.getProductId());
+            blackhole.consume(item.getPrice());
+            blackhole.consume(item.getName());
+        }
+    }
+
+    /**
+     * Печатает размеры сообщений на проводе для текущей схемы и для вариантов ее изменения.
+     */
+    static void printWireSizes() {
+        System.out.printf("%8s %10s %10s %14s %14s%n",
+                "корзина", "запрос, Б", "ответ, Б", "без name, Б", "цены int64, Б");
+        for (int size : new int[]{1, 10, 100, 1000}) {
+            InventoryProtoBenchmark benchmark = new InventoryProtoBenchmark();
+            benchmark.basketSize = size;
+            benchmark.setUp();
+
+            int withoutName = benchmark.responseBytes.length;
+            int integerPrices = benchmark.responseBytes.length;
+            for (ProductResponseItem item : benchmark.response.getAvailableItemsList()) {
+                int itemSize = item.getSerializedSize();
+                int itemWithoutName = itemSize - CodedOutputStream.computeStringSize(2, item.getName());
+                int itemIntegerPrices = itemSize
+                        - CodedOutputStream.computeDoubleSize(4, item.getPrice())
+                        - CodedOutputStream.computeDoubleSize(5, item.getSale())
+                        + CodedOutputStream.computeInt64Size(4, Math.round(item.getPrice() * 100))
+                        + CodedOutputStream.computeInt64Size(5, Math.round(item.getSale() * 100));
+                // Изменение размера элемента меняет и длину его префикса в repeated поле
+                withoutName -= lengthDelimitedSize(itemSize) - lengthDelimitedSize(itemWithoutName);
+                integerPrices -= lengthDelimitedSize(itemSize) - lengthDelimitedSize(itemIntegerPrices);
+            }
+            System.out.printf("%8d %10d %10d %14d %14d%n", size, benchmark.requestBytes.length,
+                    benchmark.responseBytes.length, withoutName, integerPrices);
+        }
+    }
+
+    private static int lengthDelimitedSize(int messageSize) {
+        return CodedOutputStream.computeTagSize(2) + CodedOutputStream.computeUInt32SizeNoTag(messageSize) + messageSize;
+    }
+
+    private static ProductEntity[] createProducts(int count) {
+        ProductEntity[] products = new ProductEntity[count];
+        for (int i = 0; i < count; i++) {
+            long id = 1000L + i * 7L;
+            products[i] = new ProductEntity(id, "Товар " + id, 500, BigDecimal.valueOf(1499.90),
+                    BigDecimal.valueOf(0.15), 0L);
+        }
+        return products;
+    }
+
+    /**
+     * Репозиторий, который отвечает на findById из карты и не поддерживает остальные методы.
+     */
+    private static ProductRepository inMemoryRepository(Map<Long, ProductEntity> catalog) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return Optional.ofNullable(catalog.get((Long) args[0]));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printWireSizes();
+        Options options = new OptionsBuilder()
+                .include(InventoryProtoBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.InventoryService.benchmark;
+
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.entity.ProductEntity;
+import com.example.InventoryService.mapper.ProductMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH бенчмарк маппинга ProductEntity <-> ProductDto.
+ * Сравнивает ручной ProductMapper с рефлексивным ModelMapper.
+ *
+ * Запуск: {@code mvn test-compile} и затем {@link #main(String[])} из IDE
+ * или {@code java -cp <test classpath> org.openjdk.jmh.Main ProductMapperBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductMapperBenchmark {
+
+    private ProductMapper productMapper;
+    private ModelMapper modelMapper;
+    private ProductEntity productEntity;
+    private ProductDto productDto;
+
+    @Setup
+    public void setUp() {
+        productMapper = new ProductMapper();
+        modelMapper = new ModelMapper();
+
+        productEntity = new ProductEntity(1L, "Товар 1", 100, BigDecimal.valueOf(500.00), BigDecimal.valueOf(0.1), 0L);
+        productDto = new ProductDto(1L, "Товар 1", 100, BigDecimal.valueOf(500.00), BigDecimal.valueOf(0.1));
+
+        // Прогреваем внутренний кэш TypeMap, чтобы измерять только маппинг
+        modelMapper.map(productEntity, ProductDto.class);
+        modelMapper.map(productDto, ProductEntity.class);
+    }
+
+    @Benchmark
+    public ProductDto entityToDtoProductMapper() {
+        return productMapper.toDto(productEntity);
+    }
+
+    @Benchmark
+    public ProductDto entityToDtoModelMapper() {
+        return modelMapper.map(productEntity, ProductDto.class);
+    }
+
+    @Benchmark
+    public ProductEntity dtoToEntityProductMapper() {
+        return productMapper.toEntity(productDto);
+    }
+
+    @Benchmark
+    public ProductEntity dtoToEntityModelMapper() {
+        return modelMapper.map(productDto, ProductEntity.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProductMapperBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
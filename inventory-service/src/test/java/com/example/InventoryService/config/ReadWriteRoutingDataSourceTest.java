@@ -0,0 +1,53 @@
+package com.example.InventoryService.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты маршрутизации чтения и записи.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private ReplicaLagMonitor replicaLagMonitor;
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        replicaLagMonitor = mock(ReplicaLagMonitor.class);
+        routingDataSource = new ReadWriteRoutingDataSource(replicaLagMonitor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransaction_WithHealthyReplica_ShouldRouteToReplica() {
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransaction_WithLaggingReplica_ShouldFallBackToPrimary() {
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void writeTransaction_ShouldRouteToPrimary() {
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.InventoryService.kafka;
+
+import com.example.InventoryService.entity.ProductEntity;
+import dto.StockChangeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Юнит тесты для StockChangePublisher.
+ */
+@ExtendWith(MockitoExtension.class)
+class StockChangePublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, StockChangeMessage> kafkaTemplate;
+
+    private StockChangePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new StockChangePublisher(kafkaTemplate, "stock-changes");
+        lenient().when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.<SendResult<String, StockChangeMessage>>completedFuture(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void productChanged_WithoutTransaction_ShouldSendImmediately() {
+        // Act
+        publisher.productChanged(1L, 5, 3L);
+
+        // Assert
+        ArgumentCaptor<StockChangeMessage> captor = ArgumentCaptor.forClass(StockChangeMessage.class);
+        verify(kafkaTemplate).send(eq("stock-changes"), eq("1"), captor.capture());
+        assertEquals(5, captor.getValue().getQuantity());
+        assertEquals(3L, captor.getValue().getVersion());
+    }
+
+    @Test
+    void productChanged_InTransaction_ShouldSendLatestStateAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        ProductEntity product = new ProductEntity(1L, "Товар", 10, BigDecimal.TEN, BigDecimal.ZERO, 0L);
+
+        // Act
+        publisher.productChanged(product);
+        product.setQuantity(8);
+        product.setVersion(1L);
+        publisher.productChanged(product);
+        publisher.productDeleted(2L);
+
+        // Assert
+        verifyNoInteractions(kafkaTemplate);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        ArgumentCaptor<StockChangeMessage> captor = ArgumentCaptor.forClass(StockChangeMessage.class);
+        verify(kafkaTemplate, times(1)).send(eq("stock-changes"), eq("1"), captor.capture());
+        assertEquals(8, captor.getValue().getQuantity());
+        assertEquals(1L, captor.getValue().getVersion());
+        verify(kafkaTemplate, times(1)).send("stock-changes", "2", null);
+        assertNull(TransactionSynchronizationManager.getResource(publisher));
+    }
+
+    @Test
+    void productChanged_WhenTransactionRolledBack_ShouldNotSend() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        publisher.productChanged(1L, 5, 3L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Assert
+        verifyNoInteractions(kafkaTemplate);
+        assertNull(TransactionSynchronizationManager.getResource(publisher));
+    }
+
+    @Test
+    void productChanged_WhenKafkaThrows_ShouldNotPropagate() {
+        // Arrange
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenThrow(new KafkaException("Send failed"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> publisher.productChanged(1L, 5, 3L));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.InventoryService.mapper;
+
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.entity.ProductEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Юнит тесты для ProductMapper.
+ */
+class ProductMapperTest {
+
+    private ProductMapper productMapper;
+
+    @BeforeEach
+    void setUp() {
+        productMapper = new ProductMapper();
+    }
+
+    @Test
+    void toDto_WithValidEntity_ShouldCopyAllFields() {
+        // Arrange
+        ProductEntity product = new ProductEntity(1L, "Test Product", 10, BigDecimal.valueOf(100.0), BigDecimal.valueOf(0.1), 0L);
+
+        // Act
+        ProductDto dto = productMapper.toDto(product);
+
+        // Assert
+        assertNotNull(dto);
+        assertEquals(1L, dto.getId());
+        assertEquals("Test Product", dto.getName());
+        assertEquals(10, dto.getQuantity());
+        assertEquals(BigDecimal.valueOf(100.0), dto.getPrice());
+        assertEquals(BigDecimal.valueOf(0.1), dto.getSale());
+    }
+
+    @Test
+    void toEntity_WithValidDto_ShouldCopyAllFields() {
+        // Arrange
+        ProductDto dto = new ProductDto(2L, "Other Product", 5, BigDecimal.valueOf(50.0), BigDecimal.ZERO);
+
+        // Act
+        ProductEntity entity = productMapper.toEntity(dto);
+
+        // Assert
+        assertNotNull(entity);
+        assertEquals(2L, entity.getId());
+        assertEquals("Other Product", entity.getName());
+        assertEquals(5, entity.getQuantity());
+        assertEquals(BigDecimal.valueOf(50.0), entity.getPrice());
+        assertEquals(BigDecimal.ZERO, entity.getSale());
+    }
+
+    @Test
+    void toDto_WithNull_ShouldReturnNull() {
+        assertNull(productMapper.toDto(null));
+        assertNull(productMapper.toEntity(null));
+    }
+}
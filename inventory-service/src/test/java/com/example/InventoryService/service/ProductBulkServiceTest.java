@@ -0,0 +1,140 @@
+package com.example.InventoryService.service;
+
+import com.example.InventoryService.dto.ProductBulkResponse;
+import com.example.InventoryService.dto.ProductBulkResult;
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.kafka.StockChangePublisher;
+import com.example.InventoryService.repository.ProductBatchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Юнит тесты для ProductBulkService.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductBulkServiceTest {
+
+    @Mock
+    private ProductBatchRepository productBatchRepository;
+
+    @Mock
+    private StockChangePublisher stockChangePublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductBulkService productBulkService;
+
+    @BeforeEach
+    void setUp() {
+        productBulkService = new ProductBulkService(productBatchRepository, stockChangePublisher, new ObjectMapper(), transactionManager, 2);
+    }
+
+    @Test
+    void upsert_WithNdjson_ShouldReportPerRowOutcomes() throws Exception {
+        // Arrange
+        String body = """
+                {"id":1,"price":120.0}
+                {"id":999,"sale":0.2}
+                {"name":"Новый товар","quantity":5,"price":10.0,"sale":0}
+                {"name":"Без цены","quantity":5,"sale":0}
+                """;
+        when(productBatchRepository.batchUpdate(anyList())).thenReturn(new int[]{1, 0});
+        when(productBatchRepository.batchInsert(anyList())).thenReturn(List.of(42L));
+
+        // Act
+        ProductBulkResponse response = productBulkService.upsert(stream(body));
+
+        // Assert
+        assertEquals(4, response.getProcessed());
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getNotFound());
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getFailed());
+
+        List<ProductBulkResult> results = response.getResults();
+        assertEquals(ProductBulkResult.Status.UPDATED, results.get(0).getStatus());
+        assertEquals(ProductBulkResult.Status.NOT_FOUND, results.get(1).getStatus());
+        assertEquals(ProductBulkResult.Status.CREATED, results.get(2).getStatus());
+        assertEquals(42L, results.get(2).getId());
+        assertEquals(ProductBulkResult.Status.FAILED, results.get(3).getStatus());
+        assertEquals("Цена обязательна", results.get(3).getMessage());
+    }
+
+    @Test
+    void upsert_WithJsonArray_ShouldSendRowsInChunks() throws Exception {
+        // Arrange
+        String body = "[{\"id\":1,\"price\":1},{\"id\":2,\"price\":2},{\"id\":3,\"price\":3}]";
+        when(productBatchRepository.batchUpdate(anyList())).thenAnswer(invocation -> {
+            List<ProductDto> products = invocation.getArgument(0);
+            int[] counts = new int[products.size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+
+        // Act
+        ProductBulkResponse response = productBulkService.upsert(stream(body));
+
+        // Assert
+        assertEquals(3, response.getUpdated());
+        verify(productBatchRepository, times(2)).batchUpdate(anyList());
+        verify(productBatchRepository, never()).batchInsert(anyList());
+    }
+
+    @Test
+    void upsert_WhenChunkFails_ShouldRetryRowByRow() throws Exception {
+        // Arrange
+        String body = """
+                {"name":"A","quantity":1,"price":1,"sale":0}
+                {"name":"B","quantity":1,"price":1,"sale":0}
+                """;
+        when(productBatchRepository.batchInsert(anyList()))
+                .thenThrow(new DataIntegrityViolationException("batch"))
+                .thenReturn(List.of(10L))
+                .thenThrow(new DataIntegrityViolationException("row"));
+
+        // Act
+        ProductBulkResponse response = productBulkService.upsert(stream(body));
+
+        // Assert
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(10L, response.getResults().get(0).getId());
+        assertEquals(ProductBulkResult.Status.FAILED, response.getResults().get(1).getStatus());
+    }
+
+    @Test
+    void upsert_WithMalformedJson_ShouldApplyPrefixAndStop() throws Exception {
+        // Arrange
+        String body = "{\"id\":1,\"price\":1}\n{\"id\":2,\"price\":";
+        when(productBatchRepository.batchUpdate(anyList())).thenReturn(new int[]{1});
+
+        // Act
+        ProductBulkResponse response = productBulkService.upsert(stream(body));
+
+        // Assert
+        assertEquals(2, response.getProcessed());
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getFailed());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
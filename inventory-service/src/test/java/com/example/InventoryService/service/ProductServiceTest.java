@@ -2,23 +2,31 @@ package com.example.InventoryService.service;
 
 import com.example.InventoryService.dto.ProductDto;
 import com.example.InventoryService.entity.ProductEntity;
+import com.example.InventoryService.kafka.StockChangePublisher;
+import com.example.InventoryService.mapper.ProductMapper;
 import com.example.InventoryService.repository.ProductRepository;
+import com.example.inventory.ProductRequestItem;
+import com.example.inventory.ReserveProductsRequest;
+import com.example.inventory.ReserveProductsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import metrics.MeterNames;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -30,8 +38,17 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private ProductMapper productMapper = new ProductMapper();
+
+    @Mock
+    private StockChangePublisher stockChangePublisher;
+
     @Mock
-    private ModelMapper modelMapper;
+    private ReservationDedupService reservationDedupService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private ProductService productService;
@@ -60,7 +77,6 @@ class ProductServiceTest {
     void getAllProducts_ShouldReturnProductList() {
         // Arrange
         when(productRepository.findAll()).thenReturn(List.of(testProduct));
-        when(modelMapper.map(testProduct, ProductDto.class)).thenReturn(testProductDto);
 
         // Act
         List<ProductDto> result = productService.getAllProducts();
@@ -70,7 +86,7 @@ class ProductServiceTest {
         assertEquals(1, result.size());
         assertEquals(testProductDto, result.get(0));
         verify(productRepository, times(1)).findAll();
-        verify(modelMapper, times(1)).map(testProduct, ProductDto.class);
+        verify(productMapper, times(1)).toDto(testProduct);
     }
 
     @Test
@@ -85,14 +101,13 @@ class ProductServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
         verify(productRepository, times(1)).findAll();
-        verify(modelMapper, never()).map(any(), eq(ProductDto.class));
+        verify(productMapper, never()).toDto(any());
     }
 
     @Test
     void getProductById_WithExistingId_ShouldReturnProduct() {
         // Arrange
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
-        when(modelMapper.map(testProduct, ProductDto.class)).thenReturn(testProductDto);
 
         // Act
         ProductDto result = productService.getProductById(1L);
@@ -101,7 +116,7 @@ class ProductServiceTest {
         assertNotNull(result);
         assertEquals(testProductDto, result);
         verify(productRepository, times(1)).findById(1L);
-        verify(modelMapper, times(1)).map(testProduct, ProductDto.class);
+        verify(productMapper, times(1)).toDto(testProduct);
     }
 
     @Test
@@ -116,15 +131,13 @@ class ProductServiceTest {
 
         assertEquals("Product not found with id: 999", exception.getMessage());
         verify(productRepository, times(1)).findById(999L);
-        verify(modelMapper, never()).map(any(), eq(ProductDto.class));
+        verify(productMapper, never()).toDto(any());
     }
 
     @Test
     void createProduct_WithValidData_ShouldReturnCreatedProduct() {
         // Arrange
-        when(modelMapper.map(testProductDto, ProductEntity.class)).thenReturn(testProduct);
-        when(productRepository.save(testProduct)).thenReturn(testProduct);
-        when(modelMapper.map(testProduct, ProductDto.class)).thenReturn(testProductDto);
+        when(productRepository.save(any(ProductEntity.class))).thenReturn(testProduct);
 
         // Act
         ProductDto result = productService.createProduct(testProductDto);
@@ -132,9 +145,10 @@ class ProductServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(testProductDto, result);
-        verify(modelMapper, times(1)).map(testProductDto, ProductEntity.class);
+        verify(productMapper, times(1)).toEntity(testProductDto);
         verify(productRepository, times(1)).save(testProduct);
-        verify(modelMapper, times(1)).map(testProduct, ProductDto.class);
+        verify(productMapper, times(1)).toDto(testProduct);
+        verify(stockChangePublisher, times(1)).productChanged(testProduct);
     }
 
     @Test
@@ -162,18 +176,18 @@ class ProductServiceTest {
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
         when(productRepository.save(any(ProductEntity.class))).thenReturn(updatedProduct);
-        when(modelMapper.map(updatedProduct, ProductDto.class)).thenReturn(expectedDto);
 
         // Act
         ProductDto result = productService.updateProduct(1L, updateDto);
 
         // Assert
         assertNotNull(result);
+        assertEquals(expectedDto, result);
         assertEquals("Updated Product", result.getName());
         assertEquals(20, result.getQuantity());
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(any(ProductEntity.class));
-        verify(modelMapper, times(1)).map(updatedProduct, ProductDto.class);
+        verify(productMapper, times(1)).toDto(updatedProduct);
     }
 
     @Test
@@ -204,6 +218,7 @@ class ProductServiceTest {
         // Assert
         verify(productRepository, times(1)).existsById(1L);
         verify(productRepository, times(1)).deleteById(1L);
+        verify(stockChangePublisher, times(1)).productDeleted(1L);
     }
 
     @Test
@@ -220,4 +235,152 @@ class ProductServiceTest {
         verify(productRepository, times(1)).existsById(999L);
         verify(productRepository, never()).deleteById(anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    void reserveProducts_WithNewOrder_ShouldDecreaseStockAndRecordResult() {
+        // Arrange
+        ReserveProductsRequest request = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-1")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(3).build())
+                .build();
+        when(reservationDedupService.claimOrReplay("order-1")).thenReturn(Optional.empty());
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct));
+
+        // Act
+        ReserveProductsResponse response = productService.reserveProducts(request);
+
+        // Assert
+        assertTrue(response.getSuccess());
+        assertEquals(7, response.getReservedItems(0).getAvailableQuantity());
+        assertEquals(7, testProduct.getQuantity());
+        verify(stockChangePublisher, times(1)).productChanged(testProduct);
+        verify(reservationDedupService, times(1)).record("order-1", response);
+    }
+
+    @Test
+    void reserveProducts_WithDuplicateOrder_ShouldReturnOriginalWithoutTouchingStock() {
+        // Arrange
+        ReserveProductsRequest request = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-1")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(3).build())
+                .build();
+        ReserveProductsResponse original = ReserveProductsResponse.newBuilder()
+                .setOrderId("order-1")
+                .setSuccess(true)
+                .build();
+        when(reservationDedupService.claimOrReplay("order-1")).thenReturn(Optional.of(original));
+
+        // Act
+        ReserveProductsResponse response = productService.reserveProducts(request);
+
+        // Assert
+        assertSame(original, response);
+        verifyNoInteractions(productRepository);
+        verify(reservationDedupService, never()).record(any(), any());
+    }
+
+    @Test
+    void reserveProducts_WithInsufficientStock_ShouldCountConflict() {
+        // Arrange
+        ReserveProductsRequest request = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-1")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(11).build())
+                .build();
+        when(reservationDedupService.claimOrReplay("order-1")).thenReturn(Optional.empty());
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct));
+
+        // Act
+        ReserveProductsResponse response = productService.reserveProducts(request);
+
+        // Assert
+        assertFalse(response.getSuccess());
+        verify(stockChangePublisher, never()).productChanged(any(ProductEntity.class));
+        assertEquals(1.0, meterRegistry.counter(MeterNames.RESERVATION_CONFLICTS,
+                MeterNames.TAG_REASON, MeterNames.REASON_OUT_OF_STOCK,
+                MeterNames.TAG_PRODUCT_BUCKET, MeterNames.productBucket(1L)).count());
+    }
+
+    @Test
+    void reserveProducts_WhenLaterItemIsShort_ShouldNotDecreaseAnyStock() {
+        // Arrange
+        ProductEntity second = new ProductEntity("Second Product", 1, BigDecimal.valueOf(50.0), BigDecimal.ZERO);
+        second.setId(2L);
+        ReserveProductsRequest request = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-1")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(3).build())
+                .addItems(ProductRequestItem.newBuilder().setProductId(2L).setRequestedQuantity(5).build())
+                .build();
+        when(reservationDedupService.claimOrReplay("order-1")).thenReturn(Optional.empty());
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct, second));
+
+        // Act
+        ReserveProductsResponse response = productService.reserveProducts(request);
+
+        // Assert
+        assertFalse(response.getSuccess());
+        assertEquals(0, response.getReservedItemsCount());
+        assertEquals(10, testProduct.getQuantity());
+        assertEquals(1, second.getQuantity());
+        verify(stockChangePublisher, never()).productChanged(any(ProductEntity.class));
+        verify(reservationDedupService, times(1)).record("order-1", response);
+    }
+
+    @Test
+    void reserveProductsBatch_ShouldReserveEachOrderAllOrNothing() {
+        // Arrange
+        ProductEntity second = new ProductEntity("Second Product", 1, BigDecimal.valueOf(50.0), BigDecimal.ZERO);
+        second.setId(2L);
+        ReserveProductsRequest first = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-1")
+                .addItems(ProductRequestItem.newBuilder().setProductId(2L).setRequestedQuantity(1).build())
+                .build();
+        ReserveProductsRequest conflicting = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-2")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(4).build())
+                .addItems(ProductRequestItem.newBuilder().setProductId(2L).setRequestedQuantity(1).build())
+                .build();
+        ReserveProductsRequest third = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-3")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(6).build())
+                .build();
+        when(reservationDedupService.claimOrReplay(any())).thenReturn(Optional.empty());
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct, second));
+
+        // Act
+        List<ReserveProductsResponse> responses = productService.reserveProductsBatch(List.of(first, conflicting, third));
+
+        // Assert
+        assertTrue(responses.get(0).getSuccess());
+        assertFalse(responses.get(1).getSuccess());
+        assertEquals(0, responses.get(1).getReservedItemsCount());
+        assertEquals(2L, responses.get(1).getFailedItems(0).getProductId());
+        assertTrue(responses.get(2).getSuccess());
+        assertEquals(4, testProduct.getQuantity());
+        assertEquals(0, second.getQuantity());
+        verify(productRepository, times(1)).findAllByIdForUpdate(new TreeSet<>(List.of(1L, 2L)));
+        verify(stockChangePublisher, times(2)).productChanged(any(ProductEntity.class));
+        verify(reservationDedupService, times(3)).record(any(), any());
+    }
+
+    @Test
+    void reserveProductsBatch_WithDuplicateOrder_ShouldReturnOriginalWithoutTouchingStock() {
+        // Arrange
+        ReserveProductsRequest request = ReserveProductsRequest.newBuilder()
+                .setOrderId("order-1")
+                .addItems(ProductRequestItem.newBuilder().setProductId(1L).setRequestedQuantity(3).build())
+                .build();
+        ReserveProductsResponse original = ReserveProductsResponse.newBuilder()
+                .setOrderId("order-1")
+                .setSuccess(true)
+                .build();
+        when(reservationDedupService.claimOrReplay("order-1")).thenReturn(Optional.of(original));
+
+        // Act
+        List<ReserveProductsResponse> responses = productService.reserveProductsBatch(List.of(request));
+
+        // Assert
+        assertSame(original, responses.get(0));
+        verify(productRepository, never()).findAllByIdForUpdate(any());
+        verify(reservationDedupService, never()).record(any(), any());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.InventoryService.service;
+
+import com.example.InventoryService.entity.ProductReservationEntity;
+import com.example.InventoryService.repository.ProductReservationRepository;
+import com.example.inventory.ReserveProductsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Юнит тесты для ReservationDedupService.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReservationDedupServiceTest {
+
+    @Mock
+    private ProductReservationRepository productReservationRepository;
+
+    private ReservationDedupService reservationDedupService;
+
+    private final ReserveProductsResponse response = ReserveProductsResponse.newBuilder()
+            .setOrderId("order-1")
+            .setSuccess(true)
+            .setMessage("Товары успешно зарезервированы")
+            .build();
+
+    private final ReserveProductsResponse replay = response.toBuilder().setReplayed(true).build();
+
+    @BeforeEach
+    void setUp() {
+        reservationDedupService = new ReservationDedupService(productReservationRepository, 2, Duration.ofDays(7));
+    }
+
+    @Test
+    void claimOrReplay_ForNewOrder_ShouldClaimAndReturnEmpty() {
+        when(productReservationRepository.claim("order-1")).thenReturn(1);
+
+        assertTrue(reservationDedupService.claimOrReplay("order-1").isEmpty());
+        verify(productReservationRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void claimOrReplay_ForStoredOrder_ShouldReturnOriginalResponse() {
+        // Arrange
+        when(productReservationRepository.claim("order-1")).thenReturn(0);
+        when(productReservationRepository.findById("order-1")).thenReturn(Optional.of(
+                new ProductReservationEntity("order-1", response.toByteArray(), LocalDateTime.now())));
+
+        // Act
+        Optional<ReserveProductsResponse> original = reservationDedupService.claimOrReplay("order-1");
+
+        // Assert
+        assertEquals(Optional.of(replay), original);
+        assertEquals(replay, reservationDedupService.findCached("order-1"));
+    }
+
+    @Test
+    void record_WithoutTransaction_ShouldPersistAndCache() {
+        // Act
+        reservationDedupService.record("order-1", response);
+
+        // Assert
+        verify(productReservationRepository).saveResponse("order-1", response.toByteArray());
+        assertEquals(Optional.of(replay), reservationDedupService.claimOrReplay("order-1"));
+        verify(productReservationRepository, never()).claim(anyString());
+    }
+
+    @Test
+    void findCached_ShouldEvictLeastRecentlyUsedOrders() {
+        // Arrange
+        reservationDedupService.record("order-1", response);
+        reservationDedupService.record("order-2", response);
+        reservationDedupService.findCached("order-1");
+
+        // Act
+        reservationDedupService.record("order-3", response);
+
+        // Assert
+        assertNotNull(reservationDedupService.findCached("order-1"));
+        assertNull(reservationDedupService.findCached("order-2"));
+        assertNotNull(reservationDedupService.findCached("order-3"));
+    }
+
+    @Test
+    void claimOrReplay_WithoutOrderId_ShouldSkipDeduplication() {
+        assertTrue(reservationDedupService.claimOrReplay("").isEmpty());
+        reservationDedupService.record("", response);
+
+        verifyNoInteractions(productReservationRepository);
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteOldRecords() {
+        reservationDedupService.purgeExpired();
+
+        verify(productReservationRepository).deleteOlderThan(any(LocalDateTime.class));
+    }
+}
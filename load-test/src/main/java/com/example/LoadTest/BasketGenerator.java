@@ -0,0 +1,101 @@
+package com.example.LoadTest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Генератор корзин заказов.
+ * Популярность товаров распределена по закону Ципфа: товар ранга k выбирается с весом 1/k^s,
+ * поэтому небольшая часть каталога получает большую часть заказов и раньше заканчивается на складе.
+ * Размер корзины распределен геометрически с заданным средним: чаще всего заказывают одну-две позиции,
+ * реже больше. Количество в позиции: 1 в 75% случаев, 2 в 20%, 3 в 5%.
+ * Не потокобезопасен: используется одним потоком генератора нагрузки.
+ */
+public class BasketGenerator {
+
+    private final List<Long> productIdsByRank;
+    private final double[] cumulativeWeights;
+    private final double basketMean;
+    private final int basketMax;
+    private final Random random;
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param productIdsByRank идентификаторы товаров от самого популярного к наименее популярному
+     * @param zipfExponent     показатель распределения Ципфа
+     * @param basketMean       средний размер корзины
+     * @param basketMax        максимальный размер корзины
+     * @param random           источник случайных чисел
+     */
+    public BasketGenerator(List<Long> productIdsByRank, double zipfExponent,
+                           double basketMean, int basketMax, Random random) {
+        this.productIdsByRank = List.copyOf(productIdsByRank);
+        this.cumulativeWeights = new double[productIdsByRank.size()];
+        double total = 0;
+        for (int rank = 0; rank < cumulativeWeights.length; rank++) {
+            total += 1.0 / Math.pow(rank + 1, zipfExponent);
+            cumulativeWeights[rank] = total;
+        }
+        for (int rank = 0; rank < cumulativeWeights.length; rank++) {
+            cumulativeWeights[rank] /= total;
+        }
+        this.basketMean = Math.max(basketMean, 1.0);
+        this.basketMax = Math.min(Math.max(basketMax, 1), productIdsByRank.size());
+        this.random = random;
+    }
+
+    /**
+     * Создает следующую корзину.
+     *
+     * @return количество по идентификаторам товаров, без повторов товаров
+     */
+    public Map<Long, Integer> next() {
+        int size = basketSize();
+        Map<Long, Integer> basket = new LinkedHashMap<>();
+        while (basket.size() < size) {
+            basket.putIfAbsent(nextProductId(), quantity());
+        }
+        return basket;
+    }
+
+    /**
+     * Выбирает товар с учетом популярности.
+     *
+     * @return идентификатор товара
+     */
+    long nextProductId() {
+        double point = random.nextDouble();
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] < point) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return productIdsByRank.get(low);
+    }
+
+    private int basketSize() {
+        // Геометрическое распределение на 1, 2, ... со средним basketMean
+        double p = 1.0 / basketMean;
+        int size = 1;
+        while (size < basketMax && random.nextDouble() >= p) {
+            size++;
+        }
+        return size;
+    }
+
+    private int quantity() {
+        double point = random.nextDouble();
+        if (point < 0.75) {
+            return 1;
+        }
+        return point < 0.95 ? 2 : 3;
+    }
+}
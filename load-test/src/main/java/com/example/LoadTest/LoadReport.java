@@ -0,0 +1,71 @@
+package com.example.LoadTest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отчет нагрузочного теста: задержки и пропускная способность по фазам
+ * и проверка согласованности данных сервисов после нагрузки.
+ */
+@Value
+@Builder
+public class LoadReport {
+
+    LoadTestSettings settings;
+    List<PhaseResult> phases;
+
+    /** Заказы, на которые order-service ответил успехом. */
+    long acceptedOrders;
+
+    /** Отклоненные order-service заказы по причинам из метрики orders.rejected. */
+    Map<String, Long> rejectedByReason;
+
+    /** Принятые заказы, которые так и не появились в базе notification-service. */
+    long lostOrders;
+
+    /** Заказы в базе notification-service, на которые клиент не получил успешного ответа. */
+    long unconfirmedOrders;
+
+    /** Заказы, сохраненные в notification-service больше одного раза. */
+    long duplicateOrders;
+
+    /** Товары, проданные сверх начального остатка. */
+    long oversoldProducts;
+
+    /** Единицы товара, проданные сверх начального остатка. */
+    long oversoldUnits;
+
+    /** Единицы товара, списанные со склада без принятого заказа, например при таймауте клиента. */
+    long unclaimedReservedUnits;
+
+    /**
+     * @return true, если нет перепроданных товаров, потерянных и задвоенных заказов
+     */
+    public boolean isConsistent() {
+        return lostOrders == 0 && duplicateOrders == 0 && oversoldProducts == 0;
+    }
+
+    /**
+     * @return текст отчета
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder(String.format("%n=== Нагрузочный тест ===%n"));
+        report.append(String.format("Товаров %d по %d шт., Ципф s=%.2f, корзина в среднем %.1f (до %d), покупателей %d%n",
+                settings.getProducts(), settings.getInitialStock(), settings.getZipfExponent(),
+                settings.getBasketMean(), settings.getBasketMax(), settings.getUsers()));
+        for (int i = 0; i < phases.size(); i++) {
+            report.append(phases.get(i).format(i + 1));
+        }
+        report.append(String.format("Принято заказов: %d, отклонено: %s%n", acceptedOrders, rejectedByReason));
+        report.append(String.format("Согласованность: %s%n", isConsistent() ? "OK" : "НАРУШЕНА"));
+        report.append(String.format("  потеряно заказов: %d%n", lostOrders));
+        report.append(String.format("  задвоено заказов: %d%n", duplicateOrders));
+        report.append(String.format("  перепродано товаров: %d (%d шт.)%n", oversoldProducts, oversoldUnits));
+        report.append(String.format("  сохранено без подтверждения клиенту: %d%n", unconfirmedOrders));
+        report.append(String.format("  списано со склада без принятого заказа: %d шт.%n", unclaimedReservedUnits));
+        return report.toString();
+    }
+}
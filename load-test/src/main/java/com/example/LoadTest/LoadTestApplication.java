@@ -0,0 +1,22 @@
+package com.example.LoadTest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Сквозной нагрузочный тест без внешней инфраструктуры.
+ * Запускает order-service, inventory-service и notification-service в одной JVM со встроенными
+ * Kafka и PostgreSQL, подает заказы на {@code POST /api/order} с заданной интенсивностью
+ * и печатает отчет. Завершается с кодом 1, если найдены перепроданные товары или потерянные заказы.
+ * <p>
+ * Запуск: {@code mvn -f load-test/pom.xml compile exec:java -Dloadtest.rates=50,100,200},
+ * параметры описаны в {@link LoadTestSettings}.
+ */
+@Slf4j
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        LoadReport report = new LoadTestRun(LoadTestSettings.fromSystemProperties()).run();
+        log.info(report.format());
+        System.exit(report.isConsistent() ? 0 : 1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.LoadTest;
+
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один прогон нагрузочного теста: запуск сервисов, заполнение каталога и покупателей,
+ * фазы нагрузки и проверка согласованности данных после нее.
+ */
+@Slf4j
+public class LoadTestRun {
+
+    private static final String PASSWORD = "loadtest";
+
+    private final LoadTestSettings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+
+    public LoadTestRun(LoadTestSettings settings) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Проводит прогон.
+     *
+     * @return отчет
+     * @throws Exception если не удалось запустить сервисы или подготовить данные
+     */
+    public LoadReport run() throws Exception {
+        try (ServiceCluster cluster = new ServiceCluster()) {
+            cluster.start();
+            Random random = new Random(settings.getSeed());
+            List<Long> productIds = createProducts(cluster);
+            // Популярность не связана с порядком создания товаров
+            List<Long> productIdsByRank = new ArrayList<>(productIds);
+            Collections.shuffle(productIdsByRank, random);
+            List<String> tokens = registerUsers(cluster.orderServiceUrl());
+            log.info("[LoadTest] Каталог: {} товаров, покупателей: {}", productIds.size(), tokens.size());
+
+            BasketGenerator basketGenerator = new BasketGenerator(productIdsByRank, settings.getZipfExponent(),
+                    settings.getBasketMean(), settings.getBasketMax(), random);
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(httpClient, objectMapper,
+                    cluster.orderServiceUrl(), tokens, basketGenerator, settings);
+            List<PhaseResult> phases = generator.run();
+
+            return verify(cluster, phases, generator.acceptedOrders());
+        }
+    }
+
+    private List<Long> createProducts(ServiceCluster cluster) {
+        ProductService productService = cluster.inventory().getBean(ProductService.class);
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 1; i <= settings.getProducts(); i++) {
+            ProductDto product = new ProductDto(null, "Товар " + i, settings.getInitialStock(),
+                    BigDecimal.valueOf(100), BigDecimal.ZERO);
+            productIds.add(productService.createProduct(product).getId());
+        }
+        return productIds;
+    }
+
+    private List<String> registerUsers(String orderServiceUrl) throws IOException, InterruptedException {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 1; i <= settings.getUsers(); i++) {
+            String username = "load" + i;
+            post(orderServiceUrl + "/auth/reg", Map.of("username", username, "email", username + "@example.com",
+                    "password", PASSWORD, "confirmPassword", PASSWORD));
+            String login = post(orderServiceUrl + "/auth/login", Map.of("username", username, "password", PASSWORD));
+            tokens.add(objectMapper.readTree(login).get("token").asText());
+        }
+        return tokens;
+    }
+
+    private String post(String url, Map<String, String> body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST " + url + " вернул " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private LoadReport verify(ServiceCluster cluster, List<PhaseResult> phases,
+                              Map<String, Map<Long, Integer>> acceptedOrders) {
+        JdbcTemplate notificationDb = cluster.jdbc("notification");
+        Set<String> stored = awaitStoredOrders(notificationDb, acceptedOrders.keySet());
+
+        Set<String> lost = new HashSet<>(acceptedOrders.keySet());
+        lost.removeAll(stored);
+        Set<String> unconfirmed = new HashSet<>(stored);
+        unconfirmed.removeAll(acceptedOrders.keySet());
+        Long duplicates = notificationDb.queryForObject(
+                "SELECT count(*) FROM (SELECT order_id FROM orders GROUP BY order_id HAVING count(*) > 1) d", Long.class);
+
+        // Продано по принятым заказам и фактически списано со склада, по товарам
+        Map<Long, Long> sold = new HashMap<>();
+        acceptedOrders.values().forEach(basket ->
+                basket.forEach((productId, quantity) -> sold.merge(productId, (long) quantity, Long::sum)));
+        long oversoldProducts = 0;
+        long oversoldUnits = 0;
+        long unclaimedUnits = 0;
+        for (Map<String, Object> row : cluster.jdbc("inventory").queryForList("SELECT id, quantity FROM products")) {
+            long productId = ((Number) row.get("id")).longValue();
+            long quantity = ((Number) row.get("quantity")).longValue();
+            long soldUnits = sold.getOrDefault(productId, 0L);
+            long oversold = Math.max(soldUnits - settings.getInitialStock(), 0) + Math.max(-quantity, 0);
+            if (oversold > 0) {
+                oversoldProducts++;
+                oversoldUnits += oversold;
+            }
+            unclaimedUnits += Math.max(settings.getInitialStock() - quantity - soldUnits, 0);
+        }
+
+        if (!lost.isEmpty()) {
+            log.warn("[LoadTest] Потерянные заказы, первые: {}", lost.stream().limit(10).toList());
+        }
+        return LoadReport.builder()
+                .settings(settings)
+                .phases(phases)
+                .acceptedOrders(acceptedOrders.size())
+                .rejectedByReason(rejectedByReason(cluster.order().getBean(MeterRegistry.class)))
+                .lostOrders(lost.size())
+                .unconfirmedOrders(unconfirmed.size())
+                .duplicateOrders(duplicates == null ? 0 : duplicates)
+                .oversoldProducts(oversoldProducts)
+                .oversoldUnits(oversoldUnits)
+                .unclaimedReservedUnits(unclaimedUnits)
+                .build();
+    }
+
+    /**
+     * Ждет, пока принятые заказы дойдут через Kafka до базы notification-service.
+     *
+     * @param notificationDb база notification-service
+     * @param accepted       идентификаторы принятых заказов
+     * @return идентификаторы сохраненных заказов на момент окончания ожидания
+     */
+    private Set<String> awaitStoredOrders(JdbcTemplate notificationDb, Set<String> accepted) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getDrainSeconds());
+        while (true) {
+            Set<String> stored = new HashSet<>(notificationDb.queryForList("SELECT order_id FROM orders", String.class));
+            if (stored.containsAll(accepted) || System.nanoTime() - deadline >= 0) {
+                return stored;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return stored;
+            }
+        }
+    }
+
+    private Map<String, Long> rejectedByReason(MeterRegistry orderMeters) {
+        Map<String, Long> rejected = new TreeMap<>();
+        for (Counter counter : orderMeters.find(MeterNames.ORDERS_REJECTED).counters()) {
+            rejected.put(counter.getId().getTag(MeterNames.TAG_REASON), (long) counter.count());
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.LoadTest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Параметры нагрузочного теста.
+ * При запуске из командной строки задаются системными свойствами {@code loadtest.*},
+ * например {@code -Dloadtest.rates=50,100,200 -Dloadtest.phase-seconds=30}.
+ */
+@Value
+@Builder
+public class LoadTestSettings {
+
+    /** Целевая интенсивность заказов по фазам, запросов в секунду. */
+    @Builder.Default
+    List<Double> rates = List.of(20.0, 50.0, 100.0);
+
+    /** Длительность каждой фазы. */
+    @Builder.Default
+    int phaseSeconds = 20;
+
+    /** Количество товаров в каталоге. */
+    @Builder.Default
+    int products = 200;
+
+    /** Начальный остаток каждого товара. */
+    @Builder.Default
+    int initialStock = 200;
+
+    /** Показатель распределения Ципфа для популярности товаров: чем больше, тем сильнее перекос. */
+    @Builder.Default
+    double zipfExponent = 1.1;
+
+    /** Средний размер корзины, позиций. */
+    @Builder.Default
+    double basketMean = 2.0;
+
+    /** Максимальный размер корзины, позиций. */
+    @Builder.Default
+    int basketMax = 8;
+
+    /** Количество покупателей, от имени которых отправляются заказы. */
+    @Builder.Default
+    int users = 20;
+
+    /** Предел одновременных запросов; сверх него генератор отбрасывает заказы и учитывает их. */
+    @Builder.Default
+    int maxInFlight = 2000;
+
+    /** Таймаут одного запроса. */
+    @Builder.Default
+    int requestTimeoutMs = 10000;
+
+    /** Сколько ждать, пока принятые заказы дойдут до notification-service. */
+    @Builder.Default
+    int drainSeconds = 60;
+
+    /** Начальное значение генератора случайных чисел: одинаковое значение дает одинаковые корзины. */
+    @Builder.Default
+    long seed = 42;
+
+    /**
+     * Читает параметры из системных свойств, отсутствующие берутся по умолчанию.
+     *
+     * @return параметры теста
+     */
+    public static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings defaults = LoadTestSettings.builder().build();
+        String rates = System.getProperty("loadtest.rates");
+        return LoadTestSettings.builder()
+                .rates(rates == null ? defaults.rates : Arrays.stream(rates.split(","))
+                        .map(String::trim)
+                        .map(Double::valueOf)
+                        .toList())
+                .phaseSeconds(Integer.getInteger("loadtest.phase-seconds", defaults.phaseSeconds))
+                .products(Integer.getInteger("loadtest.products", defaults.products))
+                .initialStock(Integer.getInteger("loadtest.initial-stock", defaults.initialStock))
+                .zipfExponent(doubleProperty("loadtest.zipf-exponent", defaults.zipfExponent))
+                .basketMean(doubleProperty("loadtest.basket-mean", defaults.basketMean))
+                .basketMax(Integer.getInteger("loadtest.basket-max", defaults.basketMax))
+                .users(Integer.getInteger("loadtest.users", defaults.users))
+                .maxInFlight(Integer.getInteger("loadtest.max-in-flight", defaults.maxInFlight))
+                .requestTimeoutMs(Integer.getInteger("loadtest.request-timeout-ms", defaults.requestTimeoutMs))
+                .drainSeconds(Integer.getInteger("loadtest.drain-seconds", defaults.drainSeconds))
+                .seed(Long.getLong("loadtest.seed", defaults.seed))
+                .build();
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
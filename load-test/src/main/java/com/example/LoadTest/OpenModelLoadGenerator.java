@@ -0,0 +1,167 @@
+package com.example.LoadTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки с открытой моделью.
+ * Заказы поступают пуассоновским потоком с заданной интенсивностью независимо от того,
+ * успевает ли сервис отвечать: время следующего заказа не зависит от ответа на предыдущий.
+ * Так при перегрузке растет очередь и задержка, как у настоящих покупателей,
+ * а не снижается темп отправки, как в закрытой модели с фиксированным числом клиентов.
+ */
+@Slf4j
+public class OpenModelLoadGenerator {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI orderUri;
+    private final List<String> tokens;
+    private final BasketGenerator basketGenerator;
+    private final LoadTestSettings settings;
+    private final Random random;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Map<Long, Integer>> acceptedOrders = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param httpClient      HTTP клиент
+     * @param objectMapper    JSON сериализация
+     * @param orderServiceUrl базовый адрес order-service
+     * @param tokens          JWT токены покупателей
+     * @param basketGenerator генератор корзин
+     * @param settings        параметры теста
+     */
+    public OpenModelLoadGenerator(HttpClient httpClient, ObjectMapper objectMapper, String orderServiceUrl,
+                                  List<String> tokens, BasketGenerator basketGenerator, LoadTestSettings settings) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.orderUri = URI.create(orderServiceUrl + "/api/order");
+        this.tokens = List.copyOf(tokens);
+        this.basketGenerator = basketGenerator;
+        this.settings = settings;
+        this.random = new Random(settings.getSeed() + 1);
+    }
+
+    /**
+     * Проводит все фазы нагрузки и ждет ответов на отправленные заказы.
+     *
+     * @return результаты фаз
+     */
+    public List<PhaseResult> run() {
+        List<PhaseResult> results = new ArrayList<>();
+        for (double rate : settings.getRates()) {
+            PhaseResult phase = new PhaseResult(rate, settings.getPhaseSeconds());
+            log.info("[LoadTest] Фаза {}: {} зап/с в течение {} с", results.size() + 1, rate, settings.getPhaseSeconds());
+            runPhase(phase);
+            results.add(phase);
+        }
+        awaitInFlight();
+        return results;
+    }
+
+    /**
+     * @return принятые заказы: корзина по идентификатору заказа
+     */
+    public Map<String, Map<Long, Integer>> acceptedOrders() {
+        return acceptedOrders;
+    }
+
+    private void runPhase(PhaseResult phase) {
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / phase.getTargetRate();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getPhaseSeconds());
+        long scheduled = System.nanoTime();
+        while (true) {
+            // Экспоненциальные интервалы между заказами дают пуассоновский поток
+            scheduled += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+            if (scheduled - end >= 0) {
+                return;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= settings.getMaxInFlight()) {
+                phase.dropped();
+                continue;
+            }
+            send(phase, scheduled);
+        }
+    }
+
+    private void send(PhaseResult phase, long scheduled) {
+        Map<Long, Integer> basket = basketGenerator.next();
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(orderUri)
+                    .timeout(Duration.ofMillis(settings.getRequestTimeoutMs()))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(orderBody(basket))))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сериализовать заказ", e);
+        }
+        inFlight.incrementAndGet();
+        phase.sent();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - scheduled;
+                    try {
+                        if (error != null) {
+                            phase.failed(latency);
+                            return;
+                        }
+                        phase.completed(response.statusCode(), latency);
+                        if (response.statusCode() == 200) {
+                            accepted(response.body(), basket);
+                        }
+                    } finally {
+                        // Заказ учтен до уменьшения счетчика: после ожидания ответов список принятых полон
+                        inFlight.decrementAndGet();
+                    }
+                });
+    }
+
+    private void accepted(byte[] body, Map<Long, Integer> basket) {
+        try {
+            JsonNode orderId = objectMapper.readTree(body).get("orderId");
+            if (orderId != null) {
+                acceptedOrders.put(orderId.asText(), basket);
+            }
+        } catch (IOException e) {
+            log.warn("[LoadTest] Ответ на заказ не разобран: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Object> orderBody(Map<Long, Integer> basket) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        basket.forEach((productId, quantity) -> items.add(Map.of("productId", productId, "quantity", quantity)));
+        return Map.of("items", items);
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getRequestTimeoutMs() * 2L);
+        while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+}
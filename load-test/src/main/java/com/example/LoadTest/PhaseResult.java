@@ -0,0 +1,115 @@
+package com.example.LoadTest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты одной фазы нагрузки с постоянной целевой интенсивностью.
+ * Задержка отсчитывается от запланированного момента отправки, а не от фактического:
+ * если генератор или клиент не успевают, ожидание тоже попадает в задержку.
+ */
+public class PhaseResult {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final double targetRate;
+    private final int durationSeconds;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final Histogram latencyMicros = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+    public PhaseResult(double targetRate, int durationSeconds) {
+        this.targetRate = targetRate;
+        this.durationSeconds = durationSeconds;
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void completed(int status, long latencyNanos) {
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        recordLatency(latencyNanos);
+    }
+
+    void failed(long latencyNanos) {
+        failed.increment();
+        recordLatency(latencyNanos);
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * @return заказы, которые генератор не отправил из-за предела одновременных запросов
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return запросы без HTTP ответа: таймауты и ошибки соединения
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getCompleted() {
+        return statuses.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getStatusCount(int status) {
+        LongAdder count = statuses.get(status);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Форматирует результаты фазы для отчета.
+     *
+     * @param number номер фазы
+     * @return строки отчета
+     */
+    public String format(int number) {
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        return String.format("Фаза %d: цель %.1f зап/с, %d с%n", number, targetRate, durationSeconds)
+                + String.format("  отправлено %d (%.1f зап/с), получен ответ %d (%.1f отв/с), "
+                                + "без ответа %d, отброшено генератором %d%n",
+                        getSent(), (double) getSent() / durationSeconds,
+                        getCompleted(), (double) getCompleted() / durationSeconds, getFailed(), getDropped())
+                + String.format("  статусы: %s%n", statusCounts)
+                + String.format("  задержка, мс: p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                        percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                        latencyMicros.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * @param percentile перцентиль от 0 до 100
+     * @return задержка в миллисекундах
+     */
+    public double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private void recordLatency(long latencyNanos) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 1), MAX_LATENCY_MICROS);
+        latencyMicros.recordValue(micros);
+    }
+}
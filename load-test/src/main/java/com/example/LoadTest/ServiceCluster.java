@@ -0,0 +1,195 @@
+package com.example.LoadTest;
+
+import com.example.InventoryService.InventoryServiceApplication;
+import com.example.NotificationService.NotificationServiceApplication;
+import com.example.OrderService.OrderServiceApplication;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Все три сервиса в одной JVM вместе с инфраструктурой.
+ * PostgreSQL запускается встроенным, у каждого сервиса своя база; Kafka - встроенный брокер
+ * из spring-kafka-test. order-service обращается к inventory-service через in-process gRPC канал.
+ * Каждый сервис получает собственный контекст Spring со своим application.yml,
+ * поверх которого аргументами командной строки задаются адреса встроенной инфраструктуры.
+ */
+@Slf4j
+public class ServiceCluster implements AutoCloseable {
+
+    private static final String GRPC_IN_PROCESS_NAME = "inventory";
+
+    /**
+     * gRPC сервер тоже на общем classpath: без сетевого порта сервисы не спорят за 9090,
+     * а inventory-service доступен order-service через in-process канал.
+     */
+    private static final String GRPC_SERVER_OFF = "--grpc.server.port=-1";
+
+    /**
+     * Безопасность есть на общем classpath из-за order-service, но в остальных сервисах ее нет.
+     */
+    private static final String EXCLUDE_SECURITY = "--spring.autoconfigure.exclude="
+            + "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration,"
+            + "org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration";
+
+    private EmbeddedPostgres postgres;
+    private EmbeddedKafkaBroker kafka;
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private ConfigurableApplicationContext inventory;
+    private ConfigurableApplicationContext notification;
+    private ConfigurableApplicationContext order;
+
+    /**
+     * Запускает инфраструктуру и сервисы: inventory-service, notification-service, order-service.
+     *
+     * @return этот кластер
+     * @throws IOException если не удалось запустить PostgreSQL
+     */
+    public ServiceCluster start() throws IOException {
+        startInventory();
+        notification = startService(NotificationServiceApplication.class, "notification-service", "notification",
+                "--spring.flyway.locations=classpath:notification-service/db/migration",
+                "--app.notifications.channels.file.path=target/load-test/notifications.log",
+                GRPC_SERVER_OFF,
+                EXCLUDE_SECURITY);
+        order = startService(OrderServiceApplication.class, "order-service", "orders",
+                "--grpc.client.inventory-service.address=in-process:" + GRPC_IN_PROCESS_NAME,
+                // Немногие покупатели генератора заказывают чаще настоящих, лимиты приема отклонили бы их
+                "--app.orders.admission.enabled=false",
+                GRPC_SERVER_OFF);
+        return this;
+    }
+
+    /**
+     * Запускает инфраструктуру и только inventory-service, для бенчмарков его gRPC API.
+     *
+     * @param extraArgs дополнительные аргументы inventory-service
+     * @return этот кластер
+     * @throws IOException если не удалось запустить PostgreSQL
+     */
+    public ServiceCluster startInventory(String... extraArgs) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+        for (String database : List.of("inventory", "notification", "orders")) {
+            admin.execute("CREATE DATABASE " + database);
+        }
+        log.info("[LoadTest] PostgreSQL запущен на порту {}", postgres.getPort());
+
+        kafka = new EmbeddedKafkaZKBroker(1);
+        kafka.afterPropertiesSet();
+        log.info("[LoadTest] Kafka запущена: {}", kafka.getBrokersAsString());
+
+        List<String> args = new ArrayList<>(List.of(
+                GRPC_SERVER_OFF,
+                "--grpc.server.in-process-name=" + GRPC_IN_PROCESS_NAME,
+                EXCLUDE_SECURITY));
+        args.addAll(List.of(extraArgs));
+        inventory = startService(InventoryServiceApplication.class, "inventory-service", "inventory",
+                args.toArray(String[]::new));
+        return this;
+    }
+
+    /**
+     * @return новый in-process gRPC канал к inventory-service; закрывает вызывающий
+     */
+    public ManagedChannel inventoryChannel() {
+        return InProcessChannelBuilder.forName(GRPC_IN_PROCESS_NAME).build();
+    }
+
+    /**
+     * @return базовый адрес REST API order-service
+     */
+    public String orderServiceUrl() {
+        return "http://localhost:" + order.getEnvironment().getProperty("local.server.port");
+    }
+
+    public ConfigurableApplicationContext inventory() {
+        return inventory;
+    }
+
+    public ConfigurableApplicationContext notification() {
+        return notification;
+    }
+
+    public ConfigurableApplicationContext order() {
+        return order;
+    }
+
+    /**
+     * Доступ к базе сервиса в обход его кода, для проверки согласованности данных после нагрузки.
+     *
+     * @param database имя базы: inventory, notification или orders
+     * @return JdbcTemplate базы
+     */
+    public JdbcTemplate jdbc(String database) {
+        return new JdbcTemplate(new DriverManagerDataSource(jdbcUrl(database)));
+    }
+
+    @Override
+    public void close() {
+        // Сервисы останавливаются в обратном порядке: сначала тот, что принимает заказы
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        if (kafka != null) {
+            kafka.destroy();
+        }
+        if (postgres != null) {
+            try {
+                postgres.close();
+            } catch (IOException e) {
+                log.warn("[LoadTest] Не удалось остановить PostgreSQL: {}", e.getMessage());
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startService(Class<?> application, String name, String database,
+                                                        String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.config.location=classpath:/" + name + "/application.yml",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl(database),
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                // Трассы некуда отправлять: Jaeger в тесте не запускается
+                "--management.tracing.enabled=false",
+                // Логи сервисов на каждый заказ заглушили бы отчет и сами стали бы нагрузкой
+                "--logging.level.root=WARN",
+                "--logging.level.com.example=OFF",
+                "--logging.level.com.example.InventoryService=OFF",
+                "--logging.level.com.example.NotificationService=OFF",
+                "--logging.level.com.example.LoadTest=INFO",
+                "--logging.level.org.springframework.kafka=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.org.springframework.jdbc=WARN",
+                "--logging.level.com.zaxxer.hikari=WARN",
+                "--logging.level.org.apache.kafka=ERROR",
+                "--logging.level.kafka=ERROR",
+                "--logging.level.org.apache.zookeeper=ERROR"));
+        args.addAll(List.of(extraArgs));
+        long started = System.nanoTime();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .run(args.toArray(String[]::new));
+        contexts.add(context);
+        log.info("[LoadTest] {} запущен за {} мс", name, (System.nanoTime() - started) / 1_000_000);
+        return context;
+    }
+
+    private String jdbcUrl(String database) {
+        return postgres.getJdbcUrl("postgres", database);
+    }
+}
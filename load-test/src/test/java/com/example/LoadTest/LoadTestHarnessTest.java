@@ -0,0 +1,32 @@
+package com.example.LoadTest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadTestHarnessTest {
+
+    @Test
+    void shortRun_ShouldKeepOrdersAndStockConsistent() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.builder()
+                .rates(List.of(20.0))
+                .phaseSeconds(5)
+                .products(20)
+                .initialStock(10)
+                .users(3)
+                .drainSeconds(30)
+                .build();
+
+        LoadReport report = new LoadTestRun(settings).run();
+
+        assertTrue(report.getAcceptedOrders() > 0, report.format());
+        assertEquals(0, report.getLostOrders(), report.format());
+        assertEquals(0, report.getDuplicateOrders(), report.format());
+        assertEquals(0, report.getOversoldProducts(), report.format());
+        // Списанный со склада, но не попавший ни в один принятый заказ товар - утечка резервирований
+        assertEquals(0, report.getUnclaimedReservedUnits(), report.format());
+    }
+}
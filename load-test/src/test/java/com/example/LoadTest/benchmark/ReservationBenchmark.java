@@ -0,0 +1,123 @@
+package com.example.LoadTest.benchmark;
+
+import com.example.InventoryService.dto.ProductDto;
+import com.example.InventoryService.service.ProductService;
+import com.example.LoadTest.ServiceCluster;
+import com.example.inventory.InventoryServiceGrpc;
+import com.example.inventory.ProductRequestItem;
+import com.example.inventory.ReserveProductsRequest;
+import com.example.inventory.ReserveProductsResponse;
+import io.grpc.ManagedChannel;
+import io.grpc.StatusRuntimeException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH бенчмарк резервирований в inventory-service: транзакция на каждый запрос
+ * ({@code batching = false}) против группового коммита ReservationAggregator ({@code batching = true}).
+ * inventory-service запускается со встроенными PostgreSQL и Kafka, запросы идут через in-process gRPC
+ * из {@link Threads} потоков; каждый заказ резервирует одну единицу одного из {@code products} товаров,
+ * так что при малом числе товаров заказы спорят за одни и те же строки.
+ *
+ * Результат в резервированиях в секунду: {@code reserve} - все вызовы, {@code reserved} - успешные,
+ * {@code failed} - вызовы с ошибкой или отказом в резервировании.
+ *
+ * Запуск: {@code mvn test-compile} и затем {@link #main(String[])} из IDE
+ * или {@code java -cp <test classpath> org.openjdk.jmh.Main ReservationBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(32)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean batching;
+
+    @Param({"10"})
+    public int products;
+
+    private ServiceCluster cluster;
+    private ManagedChannel channel;
+    private InventoryServiceGrpc.InventoryServiceBlockingStub stub;
+    private List<Long> productIds;
+
+    /**
+     * Счетчики исходов резервирования, JMH выводит их как отдельные метрики в операциях в секунду.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long reserved;
+        public long failed;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cluster = new ServiceCluster().startInventory(
+                "--app.inventory.reservations.batching.enabled=" + batching);
+
+        // Остатка хватает на весь прогон: измеряются транзакции, а не нехватка товара
+        ProductService productService = cluster.inventory().getBean(ProductService.class);
+        productIds = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            ProductDto product = new ProductDto();
+            product.setName("Бенчмарк " + i);
+            product.setQuantity(Integer.MAX_VALUE);
+            product.setPrice(BigDecimal.valueOf(100));
+            product.setSale(BigDecimal.ZERO);
+            productIds.add(productService.createProduct(product).getId());
+        }
+
+        channel = cluster.inventoryChannel();
+        stub = InventoryServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        cluster.close();
+    }
+
+    @Benchmark
+    public ReserveProductsResponse reserve(Outcomes outcomes) {
+        long productId = productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+        ReserveProductsRequest request = ReserveProductsRequest.newBuilder()
+                .setOrderId(UUID.randomUUID().toString())
+                .addItems(ProductRequestItem.newBuilder().setProductId(productId).setRequestedQuantity(1))
+                .build();
+        try {
+            ReserveProductsResponse response = stub.withDeadlineAfter(10, TimeUnit.SECONDS).reserveProducts(request);
+            if (response.getSuccess()) {
+                outcomes.reserved++;
+            } else {
+                outcomes.failed++;
+            }
+            return response;
+        } catch (StatusRuntimeException e) {
+            outcomes.failed++;
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReservationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.NotificationService.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Конфигурация Kafka слушателей.
+ * Потребитель и десериализатор настраиваются Spring Boot из application.yml,
+ * здесь добавляются фабрики пакетного и параллельного слушателей, топик заказов,
+ * выбор активного слушателя по режиму и шаблон для retry/DLT топиков.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Идентификаторы слушателей основного топика по режимам app.kafka.consumer.mode.
+     */
+    private static final Map<String, String> MAIN_LISTENER_IDS = Map.of(
+            "single", "orders-single",
+            "batch", "orders-batch",
+            "parallel", "orders-parallel");
+
+    @Value("${app.kafka.consumer.concurrency:3}")
+    private int concurrency;
+
+    /**
+     * Топик заказов с явным количеством партиций.
+     * Количество партиций совпадает с числом потоков слушателя, чтобы каждый поток
+     * получил свою партицию. Если топик уже создан с меньшим числом партиций,
+     * KafkaAdmin добавит недостающие при старте.
+     *
+     * @param topic имя топика заказов
+     * @return описание топика для KafkaAdmin
+     */
+    @Bean
+    public NewTopic ordersTopic(@Value("${app.kafka.topic}") String topic) {
+        return TopicBuilder.name(topic)
+                .partitions(concurrency)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Запускает только слушатель основного топика, соответствующий режиму.
+     * Слушатели retry и DLT топиков (идентификаторы с суффиксами) запускаются всегда,
+     * потому что в них попадают ошибки из любого режима.
+     *
+     * @param mode режим потребителя: single, batch или parallel
+     * @return настройщик контейнеров
+     */
+    @Bean
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> listenerModeCustomizer(
+            @Value("${app.kafka.consumer.mode:batch}") String mode) {
+        String activeListenerId = MAIN_LISTENER_IDS.get(mode);
+        return container -> {
+            String listenerId = container.getListenerId();
+            if (MAIN_LISTENER_IDS.containsValue(listenerId)) {
+                container.setAutoStartup(listenerId.equals(activeListenerId));
+            }
+        };
+    }
+
+    /**
+     * Фабрика контейнеров для пакетного слушателя заказов.
+     * Слушатель получает все записи одного poll (не больше max-poll-records),
+     * offsets коммитятся один раз после возврата из слушателя.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> listenerModeCustomizer) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setContainerCustomizer(listenerModeCustomizer);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Фабрика контейнеров для параллельного слушателя заказов.
+     * Слушатель сам решает, какой префикс пачки подтвердить, поэтому режим подтверждения ручной.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> listenerModeCustomizer) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setContainerCustomizer(listenerModeCustomizer);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Шаблон для публикации в retry и DLT топики и для переотправки из DLT.
+     * Заказы сериализуются в JSON без заголовков типа, а исходные байты
+     * (недесериализуемые сообщения и записи DLT) отправляются как есть.
+     *
+     * @param kafkaProperties настройки Kafka из application.yml
+     * @return шаблон Kafka
+     */
+    @Bean
+    public KafkaTemplate<String, Object> orderRetryKafkaTemplate(KafkaProperties kafkaProperties) {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(Object.class, new JsonSerializer<>().noTypeInfo());
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null),
+                new StringSerializer(),
+                new DelegatingByTypeSerializer(serializers, true));
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        // Повторная попытка остается в трассе заказа: контекст передается в заголовках retry записи
+        kafkaTemplate.setObservationEnabled(true);
+        return kafkaTemplate;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.NotificationService.config;
+
+import com.example.NotificationService.exception.InvalidOrderMessageException;
+import com.example.NotificationService.kafka.OrderRetryPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.function.Consumer;
+
+/**
+ * Настройка неблокирующих повторов Spring Kafka ({@code @RetryableTopic}).
+ * Добавляет метрики недесериализуемых и некорректных записей, которые одиночный слушатель
+ * отправляет сразу в DLT, минуя retry топики.
+ */
+@Configuration
+public class KafkaRetryTopicConfig extends RetryTopicConfigurationSupport {
+
+    private final Counter deserializationDltCounter;
+    private final Counter invalidMessageDltCounter;
+
+    /**
+     * Конструктор конфигурации.
+     *
+     * @param meterRegistry реестр метрик
+     */
+    public KafkaRetryTopicConfig(MeterRegistry meterRegistry) {
+        this.deserializationDltCounter =
+                meterRegistry.counter(OrderRetryPublisher.DLT_COUNTER, "reason", "deserialization");
+        this.invalidMessageDltCounter =
+                meterRegistry.counter(OrderRetryPublisher.DLT_COUNTER, "reason", "invalid-message");
+    }
+
+    /**
+     * Планировщик возобновления партиций retry топиков после задержки.
+     * Оборачивается в RetryTopicSchedulerWrapper, чтобы не подменять планировщик Spring Boot.
+     *
+     * @return обертка планировщика
+     */
+    @Bean
+    public RetryTopicSchedulerWrapper retryTopicSchedulerWrapper() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("order-retry-");
+        return new RetryTopicSchedulerWrapper(scheduler);
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+        return factory -> factory.setHeadersFunction((record, exception) -> {
+            if (hasCause(exception, DeserializationException.class)) {
+                deserializationDltCounter.increment();
+            } else if (hasCause(exception, InvalidOrderMessageException.class)) {
+                invalidMessageDltCounter.increment();
+            }
+            return null;
+        });
+    }
+
+    private boolean hasCause(Throwable exception, Class<? extends Throwable> type) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
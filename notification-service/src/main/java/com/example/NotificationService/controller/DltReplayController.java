@@ -0,0 +1,47 @@
+package com.example.NotificationService.controller;
+
+import com.example.NotificationService.dto.DltReplayResultDto;
+import com.example.NotificationService.service.DltReplayService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST контроллер для переотправки заказов из DLT после устранения причины ошибок.
+ */
+@RestController
+@RequestMapping("/api/orders/dlt")
+public class DltReplayController {
+
+    /**
+     * Максимальное количество записей за один вызов.
+     */
+    private static final int MAX_REPLAY = 10000;
+
+    private final DltReplayService dltReplayService;
+
+    /**
+     * Конструктор контроллера переотправки.
+     *
+     * @param dltReplayService сервис переотправки из DLT
+     */
+    public DltReplayController(DltReplayService dltReplayService) {
+        this.dltReplayService = dltReplayService;
+    }
+
+    /**
+     * Переотправляет записи из DLT в основной топик заказов.
+     *
+     * @param max максимальное количество записей (от 1 до 10000)
+     * @return количество переотправленных и пропущенных записей
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<DltReplayResultDto> replay(@RequestParam(defaultValue = "1000") int max) {
+        if (max < 1 || max > MAX_REPLAY) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(dltReplayService.replay(max));
+    }
+}
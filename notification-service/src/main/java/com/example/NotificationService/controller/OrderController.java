@@ -1,10 +1,14 @@
 package com.example.NotificationService.controller;
 
 import com.example.NotificationService.dto.OrderDto;
+import com.example.NotificationService.dto.OrderPageDto;
 import com.example.NotificationService.entity.Order;
 import com.example.NotificationService.service.OrderService;
+import com.example.NotificationService.service.OrderStreamService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,26 +20,66 @@ import java.util.List;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    /**
+     * Максимальный размер страницы при постраничном чтении и чтении по курсору.
+     */
+    private static final int MAX_PAGE_LIMIT = 1000;
+
     private final OrderService orderService;
+    private final OrderStreamService orderStreamService;
 
     /**
      * Конструктор контроллера заказов.
      *
      * @param orderService сервис для работы с заказами
+     * @param orderStreamService сервис потоковой выгрузки заказов
      */
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderStreamService orderStreamService) {
         this.orderService = orderService;
+        this.orderStreamService = orderStreamService;
     }
 
     /**
-     * Возвращает все заказы с информацией о товарах в виде DTO.
+     * Возвращает заказы с информацией о товарах в виде DTO.
+     * Без параметра page возвращает все заказы.
      *
-     * @return список всех заказов
+     * @param page номер страницы, начиная с 0 (необязательный)
+     * @param size размер страницы (не больше 1000)
+     * @return список заказов или 400 при отрицательной странице или размере меньше 1
      */
     @GetMapping("/all")
-    public ResponseEntity<List<OrderDto>> getAllOrders() {
-        List<OrderDto> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderDto>> getAllOrders(@RequestParam(required = false) Integer page,
+                                                       @RequestParam(defaultValue = "100") int size) {
+        if (page == null) {
+            return ResponseEntity.ok(orderService.getAllOrders());
+        }
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderService.getAllOrders(page, Math.min(size, MAX_PAGE_LIMIT)));
+    }
+
+    /**
+     * Возвращает страницу заказов по курсору, новые первыми.
+     *
+     * @param cursor курсор из ответа на предыдущую страницу (для первой страницы не передается)
+     * @param limit размер страницы (не больше 1000)
+     * @return страница заказов с курсором следующей страницы или 400 при некорректном курсоре
+     */
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageDto> getOrdersPage(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "100") int limit) {
+        return getPage(null, cursor, limit);
+    }
+
+    /**
+     * Выгружает все заказы потоково в формате NDJSON (по заказу в строке), новые первыми.
+     *
+     * @return поток заказов
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders() {
+        return ResponseEntity.ok(out -> orderStreamService.streamOrders(null, out));
     }
 
     /**
@@ -55,14 +99,61 @@ public class OrderController {
     }
 
     /**
-     * Находит все заказы конкретного пользователя.
+     * Находит заказы конкретного пользователя.
+     * Без параметра page возвращает все заказы пользователя.
      *
      * @param userId идентификатор пользователя
-     * @return список заказов пользователя
+     * @param page номер страницы, начиная с 0 (необязательный)
+     * @param size размер страницы (не больше 1000)
+     * @return список заказов пользователя или 400 при отрицательной странице или размере меньше 1
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderDto>> getOrdersByUserId(@PathVariable Long userId) {
-        List<OrderDto> orders = orderService.getOrdersByUserId(userId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderDto>> getOrdersByUserId(@PathVariable Long userId,
+                                                            @RequestParam(required = false) Integer page,
+                                                            @RequestParam(defaultValue = "100") int size) {
+        if (page == null) {
+            return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+        }
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderService.getOrdersByUserId(userId, page, Math.min(size, MAX_PAGE_LIMIT)));
+    }
+
+    /**
+     * Возвращает страницу заказов пользователя по курсору, новые первыми.
+     *
+     * @param userId идентификатор пользователя
+     * @param cursor курсор из ответа на предыдущую страницу (для первой страницы не передается)
+     * @param limit размер страницы (не больше 1000)
+     * @return страница заказов с курсором следующей страницы или 400 при некорректном курсоре
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<OrderPageDto> getOrdersPageByUserId(@PathVariable Long userId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        return getPage(userId, cursor, limit);
+    }
+
+    /**
+     * Выгружает заказы пользователя потоково в формате NDJSON, новые первыми.
+     *
+     * @param userId идентификатор пользователя
+     * @return поток заказов пользователя
+     */
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrdersByUserId(@PathVariable Long userId) {
+        return ResponseEntity.ok(out -> orderStreamService.streamOrders(userId, out));
+    }
+
+    private ResponseEntity<OrderPageDto> getPage(Long userId, String cursor, int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(orderService.getOrdersPage(userId, cursor, Math.min(limit, MAX_PAGE_LIMIT)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
-} 
+}
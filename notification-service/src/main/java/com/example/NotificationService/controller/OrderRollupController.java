@@ -0,0 +1,77 @@
+package com.example.NotificationService.controller;
+
+import com.example.NotificationService.dto.OrderRollupDto;
+import com.example.NotificationService.entity.RollupGranularity;
+import com.example.NotificationService.service.OrderRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST контроллер агрегатов заказов по минутам, часам и дням
+ * для финансовых и операционных дашбордов.
+ */
+@RestController
+@RequestMapping("/api/orders/rollups")
+public class OrderRollupController {
+
+    /**
+     * Максимальное количество интервалов в одном запросе.
+     */
+    private static final long MAX_BUCKETS = 10000;
+
+    private final OrderRollupService orderRollupService;
+
+    /**
+     * Конструктор контроллера агрегатов.
+     *
+     * @param orderRollupService сервис агрегатов заказов
+     */
+    public OrderRollupController(OrderRollupService orderRollupService) {
+        this.orderRollupService = orderRollupService;
+    }
+
+    /**
+     * Возвращает агрегаты заказов за диапазон времени.
+     *
+     * @param granularity размер интервала: MINUTE, HOUR или DAY
+     * @param from        начало диапазона (ISO дата-время)
+     * @param to          конец диапазона не включительно (ISO дата-время)
+     * @return количество заказов, выручка и количество единиц товаров по интервалам
+     */
+    @GetMapping
+    public ResponseEntity<List<OrderRollupDto>> getRollups(
+            @RequestParam RollupGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to) || granularity.between(granularity.truncate(from), to) > MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderRollupService.getRollups(granularity, from, to));
+    }
+
+    /**
+     * Пересчитывает агрегаты за диапазон дней по сырым заказам.
+     *
+     * @param from начало диапазона (ISO дата-время)
+     * @param to   конец диапазона (ISO дата-время)
+     * @return количество записанных агрегатов или 400, если диапазон начинается раньше хранимой истории
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("rollups", orderRollupService.rebuild(from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
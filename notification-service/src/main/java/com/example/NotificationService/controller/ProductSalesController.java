@@ -0,0 +1,75 @@
+package com.example.NotificationService.controller;
+
+import com.example.NotificationService.dto.ProductSalesDto;
+import com.example.NotificationService.service.ProductSalesService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST контроллер накопленных продаж товаров для дашбордов мерчандайзинга.
+ * Итоги читаются из агрегата по первичному ключу, стоимость запроса не зависит от истории заказов.
+ */
+@RestController
+@RequestMapping("/api/products")
+public class ProductSalesController {
+
+    /**
+     * Максимальное количество товаров в одном запросе.
+     */
+    private static final int MAX_PRODUCT_IDS = 1000;
+
+    private final ProductSalesService productSalesService;
+
+    /**
+     * Конструктор контроллера продаж.
+     *
+     * @param productSalesService сервис накопленных продаж
+     */
+    public ProductSalesController(ProductSalesService productSalesService) {
+        this.productSalesService = productSalesService;
+    }
+
+    /**
+     * Возвращает накопленные продажи товара.
+     *
+     * @param productId идентификатор товара
+     * @return количество проданных единиц и выручка
+     */
+    @GetMapping("/{productId}/sales")
+    public ResponseEntity<ProductSalesDto> getSales(@PathVariable Long productId) {
+        return ResponseEntity.ok(productSalesService.getSales(productId));
+    }
+
+    /**
+     * Возвращает накопленные продажи нескольких товаров.
+     *
+     * @param ids идентификаторы товаров (не больше 1000)
+     * @return продажи в порядке запрошенных идентификаторов
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<List<ProductSalesDto>> getSales(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_PRODUCT_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productSalesService.getSales(ids));
+    }
+
+    /**
+     * Пересчитывает накопленные продажи по всем заказам.
+     * Используется для восстановления после ручных правок данных или сбоев.
+     *
+     * @return количество товаров с продажами или 409, если часть истории заказов уже удалена
+     */
+    @PostMapping("/sales/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuild() {
+        try {
+            return ResponseEntity.ok(Map.of("products", productSalesService.rebuild()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
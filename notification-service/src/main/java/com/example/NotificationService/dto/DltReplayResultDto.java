@@ -0,0 +1,22 @@
+package com.example.NotificationService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO результата переотправки записей из DLT.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DltReplayResultDto {
+    /**
+     * Количество записей, отправленных обратно в основной топик.
+     */
+    private int replayed;
+    /**
+     * Количество недесериализуемых записей, оставленных в DLT.
+     */
+    private int skipped;
+}
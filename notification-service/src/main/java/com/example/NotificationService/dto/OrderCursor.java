@@ -0,0 +1,45 @@
+package com.example.NotificationService.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Курсор постраничного чтения заказов: позиция последнего отданного заказа
+ * в порядке (order_date desc, id desc). Клиенту передается непрозрачной строкой.
+ *
+ * @param orderDate дата последнего заказа страницы
+ * @param id        внутренний идентификатор последнего заказа страницы
+ */
+public record OrderCursor(LocalDateTime orderDate, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Кодирует курсор в строку для передачи клиенту.
+     *
+     * @return курсор в base64url
+     */
+    public String encode() {
+        String raw = orderDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента.
+     *
+     * @param value строка курсора
+     * @return курсор
+     * @throws IllegalArgumentException если строка не является корректным курсором
+     */
+    public static OrderCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.NotificationService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO страницы заказов при чтении по курсору.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPageDto {
+    private List<OrderDto> orders;
+    /**
+     * Курсор следующей страницы, null если страница последняя.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.example.NotificationService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO агрегата заказов за интервал времени.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderRollupDto {
+    private LocalDateTime bucketStart;
+    private Long orderCount;
+    private BigDecimal revenue;
+    private Long itemCount;
+}
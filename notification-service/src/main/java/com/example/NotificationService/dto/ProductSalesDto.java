@@ -0,0 +1,19 @@
+package com.example.NotificationService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO накопленных продаж товара.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSalesDto {
+    private Long productId;
+    private Long totalQuantity;
+    private BigDecimal totalRevenue;
+}
@@ -11,6 +11,7 @@ import java.util.List;
 /**
  * Сущность заказа в системе уведомлений.
  * Сохраняет информацию о заказах, полученных из Kafka от Order Service.
+ * Таблица секционирована по месяцам order_date, схема и индексы задаются миграциями Flyway.
  */
 @Data
 @AllArgsConstructor
@@ -22,7 +23,8 @@ public class Order {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "order_id", unique = true, nullable = false)
+    // Уникальность по order_id обеспечивает таблица processed_orders: ключ секционированной таблицы включает order_date
+    @Column(name = "order_id", nullable = false)
     private String orderId;
 
     @Column(name = "user_id", nullable = false)
@@ -6,10 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Сущность элемента заказа в системе уведомлений.
  * Хранит информацию о конкретных товарах в заказе.
+ * Дата заказа повторяется в товаре, чтобы товары лежали в секции того же месяца, что и заказ.
  */
 @Data
 @AllArgsConstructor
@@ -25,6 +27,9 @@ public class OrderItem {
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
     @Column(name = "product_id", nullable = false)
     private Long productId;
 
@@ -40,5 +45,11 @@ public class OrderItem {
     @Column(name = "item_total", nullable = false, precision = 10, scale = 2)
     private BigDecimal itemTotal;
 
+    @PrePersist
+    void copyOrderDate() {
+        if (orderDate == null && order != null) {
+            orderDate = order.getOrderDate();
+        }
+    }
 
 } 
@@ -0,0 +1,52 @@
+package com.example.NotificationService.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность агрегата заказов за интервал времени (минута, час или день).
+ * Хранит количество заказов, выручку и количество единиц товаров,
+ * чтобы дашборды не сканировали таблицу заказов.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "order_rollups")
+@IdClass(OrderRollup.Key.class)
+public class OrderRollup {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 6)
+    private RollupGranularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    /**
+     * Составной ключ агрегата.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private RollupGranularity granularity;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.NotificationService.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность накопленных продаж товара.
+ * Строка обновляется инкрементально при сохранении заказов, поэтому итоги
+ * по товару читаются по первичному ключу без агрегации по order_items.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "product_sales")
+public class ProductSales {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "total_quantity", nullable = false)
+    private Long totalQuantity;
+
+    @Column(name = "total_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalRevenue;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,58 @@
+package com.example.NotificationService.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Размер интервала агрегатов заказов.
+ * Имя единицы совпадает с аргументом {@code date_trunc} PostgreSQL,
+ * поэтому границы интервалов в Java и в SQL одинаковы.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES, "minute"),
+    HOUR(ChronoUnit.HOURS, "hour"),
+    DAY(ChronoUnit.DAYS, "day");
+
+    private final ChronoUnit unit;
+    private final String sqlUnit;
+
+    RollupGranularity(ChronoUnit unit, String sqlUnit) {
+        this.unit = unit;
+        this.sqlUnit = sqlUnit;
+    }
+
+    /**
+     * Возвращает начало интервала, в который попадает момент времени.
+     *
+     * @param time момент времени
+     * @return начало интервала
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Возвращает начало следующего интервала.
+     *
+     * @param bucketStart начало интервала
+     * @return начало следующего интервала
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    /**
+     * Возвращает количество интервалов в диапазоне.
+     *
+     * @param from начало диапазона
+     * @param to   конец диапазона
+     * @return количество интервалов
+     */
+    public long between(LocalDateTime from, LocalDateTime to) {
+        return unit.between(from, to);
+    }
+
+    public String sqlUnit() {
+        return sqlUnit;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.NotificationService.exception;
+
+/**
+ * Исключение, выбрасываемое для сообщения о заказе, которое нельзя сохранить ни с какой попытки
+ * (нет или некорректна дата заказа, заказ старше срока хранения). Такие сообщения не повторяются,
+ * а сразу отправляются в DLT.
+ */
+public class InvalidOrderMessageException extends RuntimeException {
+
+    /**
+     * Создает новое исключение о некорректном сообщении.
+     *
+     * @param message сообщение об ошибке
+     */
+    public InvalidOrderMessageException(String message) {
+        super(message);
+    }
+
+    /**
+     * Создает новое исключение о некорректном сообщении.
+     *
+     * @param message сообщение об ошибке
+     * @param cause   исходное исключение
+     */
+    public InvalidOrderMessageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.NotificationService.kafka;
+
+import com.example.NotificationService.exception.InvalidOrderMessageException;
+import com.example.NotificationService.service.OrderBatchService;
+import dto.OrderMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Пакетный Kafka Consumer заказов.
+ * Получает все записи одного poll списком и сохраняет их одной транзакцией,
+ * offsets фиксируются один раз после обработки пачки.
+ * Пачка обрабатывается в одном span, связанном с трассами всех ее записей.
+ * Включается свойством {@code app.kafka.consumer.mode=batch} (по умолчанию).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderBatchConsumer {
+
+    private static final String LISTENER_ID = "orders-batch";
+
+    private final OrderBatchService orderBatchService;
+    private final OrderConsumer orderConsumer;
+    private final RecentOrderIdFilter recentOrderIdFilter;
+    private final OrderRetryPublisher orderRetryPublisher;
+    private final OrderRecordTracing orderRecordTracing;
+
+    /**
+     * Обрабатывает пачку записей из топика заказов.
+     * Недесериализуемые записи сразу уходят в DLT. Если пачку не удалось сохранить целиком
+     * (например, одно сообщение с некорректными данными), записи обрабатываются по одному,
+     * а не сохранившиеся отправляются в retry топик, чтобы не задерживать партицию.
+     * Некорректные сообщения, которые не сохранятся ни с какой попытки, уходят сразу в DLT.
+     *
+     * @param records записи из одного poll
+     */
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "${app.kafka.topic}",
+            groupId = "notification-group",
+            containerFactory = "batchListenerContainerFactory")
+    public void consume(List<ConsumerRecord<String, OrderMessage>> records) {
+        log.debug("[Notification] Получена пачка заказов: {}", records.size());
+        orderRecordTracing.observeBatch(records, LISTENER_ID, () -> process(records));
+    }
+
+    private void process(List<ConsumerRecord<String, OrderMessage>> records) {
+        List<ConsumerRecord<String, OrderMessage>> fresh = records.stream()
+                .filter(record -> !orderRetryPublisher.sendToDltIfPoisonPill(record))
+                .filter(record -> record.value() != null
+                        && !recentOrderIdFilter.seenRecently(record.value().getOrderId()))
+                .toList();
+        if (fresh.isEmpty()) {
+            return;
+        }
+        try {
+            orderBatchService.saveBatch(fresh.stream().map(ConsumerRecord::value).toList());
+            fresh.forEach(record -> recentOrderIdFilter.remember(record.value().getOrderId()));
+        } catch (Exception e) {
+            log.warn("[Notification] Не удалось сохранить пачку из {} заказов ({}), обрабатываем по одному",
+                    fresh.size(), e.getMessage());
+            fresh.forEach(this::processOrRetry);
+        }
+    }
+
+    private void processOrRetry(ConsumerRecord<String, OrderMessage> record) {
+        try {
+            orderConsumer.process(record.value());
+        } catch (InvalidOrderMessageException e) {
+            orderRetryPublisher.sendToDlt(record, e);
+        } catch (Exception e) {
+            orderRetryPublisher.sendToRetry(record, e);
+        }
+    }
+}
@@ -2,12 +2,22 @@ package com.example.NotificationService.kafka;
 
 import com.example.NotificationService.entity.Order;
 import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.exception.InvalidOrderMessageException;
 import com.example.NotificationService.mapper.OrderMapper;
 import com.example.NotificationService.service.OrderService;
 import dto.OrderMessage;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -21,56 +31,109 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderConsumer {
 
+    static final String RETRY_ATTEMPT_COUNTER = "notification.orders.retry.attempts";
+
     private final OrderMapper orderMapper;
     private final OrderService orderService;
+    private final RecentOrderIdFilter recentOrderIdFilter;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Обрабатывает сообщения из Kafka топика orders.
+     * Обрабатывает сообщения из Kafka топика orders и его retry топиков.
      * Получает сообщение в формате OrderMessage благодаря JsonDeserializer.
+     * Слушатель основного топика запускается только при {@code app.kafka.consumer.mode=single};
+     * слушатели retry и DLT топиков работают во всех режимах.
+     * Ошибка обработки не блокирует партицию: запись уходит в следующий retry топик
+     * с нарастающей задержкой, а после последней попытки - в DLT.
+     * Недесериализуемые и некорректные ({@link InvalidOrderMessageException}) сообщения сразу попадают в DLT.
      *
      * @param message объект OrderMessage с данными заказа
+     * @param topic топик, из которого получено сообщение
      */
-    @KafkaListener(topics = "orders", groupId = "notification-group")
-    public void consume(OrderMessage message) {
-        String orderId = "unknown";
-
+    @RetryableTopic(
+            attempts = "${app.kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${app.kafka.retry.delay-ms:5000}",
+                    multiplierExpression = "${app.kafka.retry.multiplier:6}",
+                    maxDelayExpression = "${app.kafka.retry.max-delay-ms:600000}"),
+            numPartitions = "${app.kafka.consumer.concurrency:3}",
+            replicationFactor = "1",
+            kafkaTemplate = "orderRetryKafkaTemplate",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltStrategy = DltStrategy.FAIL_ON_ERROR,
+            exclude = InvalidOrderMessageException.class)
+    @KafkaListener(
+            id = "orders-single",
+            topics = "${app.kafka.topic}",
+            groupId = "notification-group")
+    public void consume(OrderMessage message, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        if (topic.contains("-retry-")) {
+            meterRegistry.counter(RETRY_ATTEMPT_COUNTER, "topic", topic).increment();
+        }
         try {
-            orderId = message.getOrderId();
-            log.info("=== KAFKA MESSAGE RECEIVED ===");
-            log.info("Order ID: {}", orderId);
-            log.info("User ID: {}", message.getUserId());
-            log.info("Username: {}", message.getUsername());
-            log.info("Total Price: {}", message.getTotalPrice());
-            log.info("Order Date: {}", message.getOrderDate());
-            log.info("Items count: {}", message.getItems() != null ? message.getItems().size() : 0);
+            process(message);
+        } catch (Exception e) {
+            log.error("=== ОШИБКА ОБРАБОТКИ СООБЩЕНИЯ ===");
+            log.error("Order ID: {}, топик: {}", message.getOrderId(), topic);
+            log.error("Тип ошибки: {}", e.getClass().getSimpleName());
+            log.error("Сообщение ошибки: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Обрабатывает запись, исчерпавшую все попытки.
+     * Запись остается в DLT топике и может быть переотправлена через {@code POST /api/orders/dlt/replay}.
+     *
+     * @param record запись из DLT топика
+     */
+    @DltHandler
+    public void handleDlt(ConsumerRecord<String, OrderMessage> record) {
+        meterRegistry.counter(OrderRetryPublisher.DLT_COUNTER, "reason", "retries-exhausted").increment();
+        log.error("[Notification] Заказ {} перемещен в DLT после всех попыток ({}@{})",
+                record.key(), record.topic(), record.offset());
+    }
 
-            // Проверяем существование заказа
-            if (orderService.orderExists(orderId)) {
-                log.warn("Заказ с id {} уже существует", orderId);
-                return;
-            }
+    /**
+     * Сохраняет заказ из сообщения. Ошибки пробрасываются: вызывающий слушатель
+     * решает, отправить ли запись на повторную обработку или не фиксировать ее offset.
+     *
+     * @param message объект OrderMessage с данными заказа
+     */
+    public void process(OrderMessage message) {
+        String orderId = message.getOrderId();
+        log.info("=== KAFKA MESSAGE RECEIVED ===");
+        log.info("Order ID: {}", orderId);
+        log.info("User ID: {}", message.getUserId());
+        log.info("Username: {}", message.getUsername());
+        log.info("Total Price: {}", message.getTotalPrice());
+        log.info("Order Date: {}", message.getOrderDate());
+        log.info("Items count: {}", message.getItems() != null ? message.getItems().size() : 0);
 
-            // Преобразуем в сущности
-            Order order = orderMapper.toOrderEntity(message);
-            List<OrderItem> orderItems = orderMapper.toOrderItemEntities(message, order);
+        // Повторная доставка недавно сохраненного заказа отсекается без запроса к базе
+        if (recentOrderIdFilter.seenRecently(orderId)) {
+            log.warn("Заказ с id {} уже обработан", orderId);
+            return;
+        }
 
-            log.info("Преобразование в сущности завершено. Order: {}, Items: {}",
-                    order != null ? order.getId() : "null",
-                    orderItems != null ? orderItems.size() : 0);
+        // Преобразуем в сущности
+        Order order = orderMapper.toOrderEntity(message);
+        List<OrderItem> orderItems = orderMapper.toOrderItemEntities(message, order);
 
-            // Сохраняем в одной транзакции
-            orderService.processOrder(order, orderItems);
+        log.info("Преобразование в сущности завершено. Order: {}, Items: {}",
+                order != null ? order.getId() : "null",
+                orderItems != null ? orderItems.size() : 0);
 
-            log.info("=== УСПЕШНО СОХРАНЕНО В БАЗУ ДАННЫХ ===");
-            log.info("Заказ {} успешно обработан и сохранен", orderId);
+        // Сохраняем одним оператором, существующий заказ не перезаписывается
+        boolean inserted = orderService.saveIfAbsent(order, orderItems);
+        recentOrderIdFilter.remember(orderId);
 
-        } catch (Exception e) {
-            log.error("=== ОШИБКА ОБРАБОТКИ СООБЩЕНИЯ ===");
-            log.error("Order ID: {}", orderId);
-            log.error("Тип ошибки: {}", e.getClass().getSimpleName());
-            log.error("Сообщение ошибки: {}", e.getMessage());
-            log.error("Stack trace: ", e);
-            // Можно добавить логику retry или отправку в dead letter queue
+        if (!inserted) {
+            log.warn("Заказ с id {} уже существует", orderId);
+            return;
         }
+
+        log.info("=== УСПЕШНО СОХРАНЕНО В БАЗУ ДАННЫХ ===");
+        log.info("Заказ {} успешно обработан и сохранен", orderId);
     }
-}
\ No newline at end of file
+}
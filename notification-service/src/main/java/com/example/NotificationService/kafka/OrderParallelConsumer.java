@@ -0,0 +1,190 @@
+package com.example.NotificationService.kafka;
+
+import com.example.NotificationService.exception.InvalidOrderMessageException;
+import dto.OrderMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kafka Consumer заказов с параллельной обработкой внутри партиции.
+ * Записи одного poll распределяются по дорожкам по хешу ключа упорядочивания
+ * (orderId или userId): записи с одинаковым ключом обрабатываются одной дорожкой
+ * строго по порядку offsets, разные дорожки работают параллельно.
+ * Фиксируется только полностью обработанный префикс пачки, остальное будет прочитано повторно.
+ * Каждая запись обрабатывается в собственном span, продолжающем трассу отправителя.
+ * Включается свойством {@code app.kafka.consumer.mode=parallel}.
+ */
+@Component
+@Slf4j
+public class OrderParallelConsumer {
+
+    private static final String LISTENER_ID = "orders-parallel";
+
+    private final OrderConsumer orderConsumer;
+    private final OrderRetryPublisher orderRetryPublisher;
+    private final OrderRecordTracing orderRecordTracing;
+    private final ExecutorService laneExecutor;
+    private final int maxConcurrency;
+    private final boolean orderByUser;
+    private final Duration retryBackoff;
+
+    /**
+     * Конструктор параллельного потребителя.
+     * Пул дорожек рассчитан на то, что каждый поток слушателя одновременно
+     * занимает не больше maxConcurrency потоков.
+     *
+     * @param orderConsumer       обработчик одного заказа
+     * @param orderRetryPublisher публикатор необработанных записей в retry и DLT топики
+     * @param orderRecordTracing  трассировка обработки записей
+     * @param listenerConcurrency количество потоков слушателя
+     * @param maxConcurrency      максимальное количество дорожек на одну пачку
+     * @param orderingKey         ключ упорядочивания: order-id или user-id
+     * @param retryBackoffMs      пауза перед повторным чтением необработанного остатка пачки
+     */
+    public OrderParallelConsumer(OrderConsumer orderConsumer,
+                                 OrderRetryPublisher orderRetryPublisher,
+                                 OrderRecordTracing orderRecordTracing,
+                                 @Value("${app.kafka.consumer.concurrency:3}") int listenerConcurrency,
+                                 @Value("${app.kafka.consumer.parallel.max-concurrency:8}") int maxConcurrency,
+                                 @Value("${app.kafka.consumer.parallel.ordering-key:order-id}") String orderingKey,
+                                 @Value("${app.kafka.consumer.parallel.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.orderConsumer = orderConsumer;
+        this.orderRetryPublisher = orderRetryPublisher;
+        this.orderRecordTracing = orderRecordTracing;
+        this.laneExecutor = Executors.newFixedThreadPool(listenerConcurrency * maxConcurrency,
+                new CustomizableThreadFactory("order-lane-"));
+        this.maxConcurrency = maxConcurrency;
+        this.orderByUser = "user-id".equals(orderingKey);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+    }
+
+    /**
+     * Останавливает пул дорожек при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        laneExecutor.shutdown();
+    }
+
+    /**
+     * Обрабатывает пачку записей параллельно по дорожкам.
+     * Запись, которую не удалось сохранить, передается в retry топик и считается обработанной.
+     * Если все записи обработаны, offsets фиксируются целиком. Иначе (не удалось опубликовать
+     * запись в retry или DLT топик) фиксируются
+     * offsets до первой необработанной записи, а начиная с нее партиции перечитываются
+     * после паузы. Уже сохраненные при этом заказы отсекаются идемпотентной вставкой.
+     *
+     * @param records        записи одного poll
+     * @param acknowledgment подтверждение offsets
+     */
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "${app.kafka.topic}",
+            groupId = "notification-group",
+            containerFactory = "parallelListenerContainerFactory")
+    public void consume(List<ConsumerRecord<String, OrderMessage>> records, Acknowledgment acknowledgment) {
+        int firstFailed = processInLanes(records);
+        if (firstFailed < 0) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        log.warn("[Notification] Пачка обработана не полностью: зафиксировано {} из {} записей",
+                firstFailed, records.size());
+        acknowledgment.nack(firstFailed, retryBackoff);
+    }
+
+    /**
+     * Обрабатывает записи по дорожкам и ждет завершения всех дорожек.
+     *
+     * @param records записи одного poll
+     * @return индекс первой необработанной записи или -1, если обработаны все
+     */
+    int processInLanes(List<ConsumerRecord<String, OrderMessage>> records) {
+        int laneCount = Math.min(maxConcurrency, records.size());
+        List<List<Integer>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            lanes.get(Math.floorMod(Objects.hashCode(orderingKey(records.get(i))), laneCount)).add(i);
+        }
+
+        AtomicInteger firstFailed = new AtomicInteger(Integer.MAX_VALUE);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(laneCount);
+        for (List<Integer> lane : lanes) {
+            if (!lane.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> processLane(records, lane, firstFailed), laneExecutor));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        int failed = firstFailed.get();
+        return failed == Integer.MAX_VALUE ? -1 : failed;
+    }
+
+    /**
+     * Обрабатывает записи одной дорожки по порядку.
+     * Запись с ошибкой уходит в retry топик, и дорожка продолжает работу. Если и это не удалось,
+     * дорожка останавливается, чтобы следующие записи того же ключа не обогнали необработанную.
+     * Записи за пределами уже известного необработанного префикса пропускаются:
+     * они все равно будут прочитаны повторно.
+     */
+    private void processLane(List<ConsumerRecord<String, OrderMessage>> records, List<Integer> lane,
+                             AtomicInteger firstFailed) {
+        for (int index : lane) {
+            if (index > firstFailed.get()) {
+                return;
+            }
+            ConsumerRecord<String, OrderMessage> record = records.get(index);
+            try {
+                orderRecordTracing.observe(record, LISTENER_ID, () -> {
+                    if (record.value() != null) {
+                        processOrRetry(record);
+                    } else {
+                        orderRetryPublisher.sendToDltIfPoisonPill(record);
+                    }
+                });
+            } catch (Exception e) {
+                log.error("[Notification] Не удалось передать запись offset {} на повторную обработку: {}",
+                        record.offset(), e.getMessage());
+                firstFailed.accumulateAndGet(index, Math::min);
+                return;
+            }
+        }
+    }
+
+    private void processOrRetry(ConsumerRecord<String, OrderMessage> record) {
+        try {
+            orderConsumer.process(record.value());
+        } catch (InvalidOrderMessageException e) {
+            orderRetryPublisher.sendToDlt(record, e);
+        } catch (Exception e) {
+            log.error("[Notification] Ошибка обработки заказа {} (offset {}): {}",
+                    record.value().getOrderId(), record.offset(), e.getMessage());
+            orderRetryPublisher.sendToRetry(record, e);
+        }
+    }
+
+    private Object orderingKey(ConsumerRecord<String, OrderMessage> record) {
+        OrderMessage message = record.value();
+        if (orderByUser && message != null) {
+            return message.getUserId();
+        }
+        return record.key() != null ? record.key() : (message != null ? message.getOrderId() : null);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.NotificationService.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Link;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import metrics.MeterNames;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.record.RecordBatch;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.support.micrometer.KafkaListenerObservation;
+import org.springframework.kafka.support.micrometer.KafkaListenerObservation.DefaultKafkaListenerObservationConvention;
+import org.springframework.kafka.support.micrometer.KafkaRecordReceiverContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Трассировка записей заказов на стороне потребителя.
+ * Для каждой записи создается span ожидания в Kafka: от времени записи до начала обработки,
+ * дочерний к span отправки из заголовков записи. Так в трассе заказа видно, сколько
+ * он пролежал в топике, отдельно от времени обработки.
+ * Одиночный слушатель и слушатели retry топиков получают span обработки от контейнера
+ * ({@code spring.kafka.listener.observation-enabled}), а этот класс подключается к ним
+ * как перехватчик записей. Пакетный и параллельный слушатели контейнерных span не получают
+ * и открывают их через этот класс сами.
+ * Время записи ставит отправитель, поэтому ожидание включает расхождение часов сервисов.
+ * Время обработки записей и пачек учитывается в общей метрике {@link MeterNames#CONSUMER_PROCESSING}.
+ */
+@Component
+public class OrderRecordTracing implements RecordInterceptor<Object, Object> {
+
+    private static final Propagator.Getter<ConsumerRecord<?, ?>> HEADER_GETTER = (record, key) -> {
+        Header header = record.headers().lastHeader(key);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    };
+
+    private final ObservationRegistry observationRegistry;
+    private final Tracer tracer;
+    private final Propagator propagator;
+    private final MeterRegistry meterRegistry;
+    private final ThreadLocal<Timer.Sample> interceptedSample = new ThreadLocal<>();
+
+    /**
+     * Конструктор трассировки записей. Без настроенной трассировки span не создаются,
+     * а время ожидания учитывается только в метрике.
+     *
+     * @param observationRegistry реестр наблюдений
+     * @param tracer              трассировщик
+     * @param propagator          извлечение контекста трассировки из заголовков
+     * @param meterRegistry       реестр метрик
+     */
+    public OrderRecordTracing(ObjectProvider<ObservationRegistry> observationRegistry,
+                              ObjectProvider<Tracer> tracer,
+                              ObjectProvider<Propagator> propagator,
+                              MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record,
+                                                    Consumer<Object, Object> consumer) {
+        recordWait(record);
+        interceptedSample.set(Timer.start(meterRegistry));
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        stopInterceptedSample(record.topic(), MeterNames.OUTCOME_SUCCESS);
+    }
+
+    @Override
+    public void failure(ConsumerRecord<Object, Object> record, Exception exception, Consumer<Object, Object> consumer) {
+        stopInterceptedSample(record.topic(), MeterNames.OUTCOME_FAILURE);
+    }
+
+    /**
+     * Обрабатывает запись в span обработки, продолжающем трассу отправителя.
+     *
+     * @param record     запись
+     * @param listenerId идентификатор слушателя
+     * @param processing обработка записи
+     */
+    public void observe(ConsumerRecord<?, ?> record, String listenerId, Runnable processing) {
+        recordWait(record);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = MeterNames.OUTCOME_FAILURE;
+        try {
+            KafkaListenerObservation.LISTENER_OBSERVATION.observation(null,
+                            DefaultKafkaListenerObservationConvention.INSTANCE,
+                            () -> new KafkaRecordReceiverContext(record, listenerId, () -> null),
+                            observationRegistry)
+                    .observe(processing);
+            outcome = MeterNames.OUTCOME_SUCCESS;
+        } finally {
+            sample.stop(processingTimer(record.topic(), outcome));
+        }
+    }
+
+    /**
+     * Обрабатывает пачку записей в одном span. У записей пачки разные трассы,
+     * поэтому span пачки начинает новую трассу и ссылается на span ожидания каждой записи.
+     *
+     * @param records    записи пачки
+     * @param listenerId идентификатор слушателя
+     * @param processing обработка пачки
+     */
+    public void observeBatch(List<? extends ConsumerRecord<?, ?>> records, String listenerId, Runnable processing) {
+        Span.Builder builder = tracer.spanBuilder()
+                .name(listenerId + " receive")
+                .kind(Span.Kind.CONSUMER)
+                .tag("messaging.batch.message_count", String.valueOf(records.size()));
+        for (ConsumerRecord<?, ?> record : records) {
+            TraceContext waitContext = recordWait(record);
+            if (waitContext != null) {
+                builder.addLink(new Link(waitContext));
+            }
+        }
+        Span span = builder.start();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = MeterNames.OUTCOME_FAILURE;
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            processing.run();
+            outcome = MeterNames.OUTCOME_SUCCESS;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+            if (!records.isEmpty()) {
+                sample.stop(processingTimer(records.get(0).topic(), outcome));
+            }
+        }
+    }
+
+    /**
+     * Учитывает время ожидания записи в Kafka в метрике и в span.
+     *
+     * @param record запись
+     * @return контекст span ожидания или null, если у записи нет времени
+     */
+    TraceContext recordWait(ConsumerRecord<?, ?> record) {
+        if (record.timestamp() == RecordBatch.NO_TIMESTAMP) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        meterRegistry.timer(MeterNames.CONSUMER_WAIT, MeterNames.TAG_TOPIC, record.topic())
+                .record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+        Span span = propagator.extract(record, HEADER_GETTER)
+                .name(record.topic() + " wait")
+                .kind(Span.Kind.CONSUMER)
+                .tag("messaging.kafka.partition", String.valueOf(record.partition()))
+                .tag("messaging.kafka.offset", String.valueOf(record.offset()))
+                .startTimestamp(record.timestamp(), TimeUnit.MILLISECONDS)
+                .start();
+        span.end(now, TimeUnit.MILLISECONDS);
+        return span.context();
+    }
+
+    private void stopInterceptedSample(String topic, String outcome) {
+        Timer.Sample sample = interceptedSample.get();
+        if (sample != null) {
+            interceptedSample.remove();
+            sample.stop(processingTimer(topic, outcome));
+        }
+    }
+
+    private Timer processingTimer(String topic, String outcome) {
+        return meterRegistry.timer(MeterNames.CONSUMER_PROCESSING,
+                MeterNames.TAG_TOPIC, topic, MeterNames.TAG_OUTCOME, outcome);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.NotificationService.kafka;
+
+import dto.OrderMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Передает необработанные записи пакетного и параллельного слушателей в retry и DLT топики.
+ * Одиночный слушатель попадает туда через {@code @RetryableTopic}; здесь запись публикуется
+ * в первый retry топик с теми же заголовками, что ставит Spring Kafka, поэтому дальше
+ * ее ведут те же слушатели retry топиков с нарастающими задержками.
+ * Заголовки исключения и исходной позиции тоже совпадают с заголовками retry топиков Spring Kafka.
+ * Отправка синхронная: offset исходной записи фиксируется только после того,
+ * как запись надежно оказалась в retry или DLT топике.
+ */
+@Component
+@Slf4j
+public class OrderRetryPublisher {
+
+    static final String RETRY_COUNTER = "notification.orders.retry";
+    public static final String DLT_COUNTER = "notification.orders.dlt";
+
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(OrderRetryPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String firstRetryTopic;
+    private final String dltTopic;
+    private final long firstRetryDelayMs;
+
+    /**
+     * Конструктор публикатора.
+     *
+     * @param kafkaTemplate     шаблон для retry и DLT топиков
+     * @param meterRegistry     реестр метрик
+     * @param topic             основной топик заказов
+     * @param firstRetryDelayMs задержка первой повторной попытки
+     */
+    public OrderRetryPublisher(@Qualifier("orderRetryKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.kafka.topic}") String topic,
+                               @Value("${app.kafka.retry.delay-ms:5000}") long firstRetryDelayMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.firstRetryTopic = topic + "-retry-0";
+        this.dltTopic = topic + "-dlt";
+        this.firstRetryDelayMs = firstRetryDelayMs;
+    }
+
+    /**
+     * Отправляет запись, которую не удалось обработать, в первый retry топик.
+     *
+     * @param record исходная запись
+     * @param cause  ошибка обработки
+     * @throws IllegalStateException если запись не удалось опубликовать
+     */
+    public void sendToRetry(ConsumerRecord<String, OrderMessage> record, Exception cause) {
+        ProducerRecord<String, Object> retryRecord =
+                new ProducerRecord<>(firstRetryTopic, null, record.key(), record.value());
+        Headers headers = retryRecord.headers();
+        headers.add(RetryTopicHeaders.DEFAULT_HEADER_ORIGINAL_TIMESTAMP,
+                BigInteger.valueOf(record.timestamp()).toByteArray());
+        // Первая попытка была в основном топике
+        headers.add(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS,
+                ByteBuffer.allocate(Integer.BYTES).putInt(2).array());
+        headers.add(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP,
+                BigInteger.valueOf(System.currentTimeMillis() + firstRetryDelayMs).toByteArray());
+        addExceptionHeaders(headers, record, cause);
+
+        send(retryRecord);
+        meterRegistry.counter(RETRY_COUNTER, "topic", firstRetryTopic).increment();
+        log.warn("[Notification] Заказ {} отправлен на повторную обработку в {}: {}",
+                record.key(), firstRetryTopic, cause.getMessage());
+    }
+
+    /**
+     * Отправляет запись, которую бессмысленно повторять (например, без даты заказа), сразу в DLT.
+     *
+     * @param record исходная запись
+     * @param cause  ошибка обработки
+     * @throws IllegalStateException если запись не удалось опубликовать
+     */
+    public void sendToDlt(ConsumerRecord<String, OrderMessage> record, Exception cause) {
+        ProducerRecord<String, Object> dltRecord =
+                new ProducerRecord<>(dltTopic, null, record.key(), record.value());
+        addExceptionHeaders(dltRecord.headers(), record, cause);
+
+        send(dltRecord);
+        meterRegistry.counter(DLT_COUNTER, "reason", "invalid-message").increment();
+        log.error("[Notification] Заказ {} отправлен в {} без повторов: {}", record.key(), dltTopic, cause.getMessage());
+    }
+
+    /**
+     * Проверяет, не удалось ли десериализовать значение записи, и если так,
+     * отправляет исходные байты сразу в DLT: повторять такую запись бессмысленно.
+     *
+     * @param record запись из пакетного слушателя
+     * @return true если запись была недесериализуемой и ушла в DLT
+     */
+    public boolean sendToDltIfPoisonPill(ConsumerRecord<String, OrderMessage> record) {
+        if (record.value() != null) {
+            return false;
+        }
+        DeserializationException exception = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        if (exception == null) {
+            return false;
+        }
+        ProducerRecord<String, Object> dltRecord =
+                new ProducerRecord<>(dltTopic, null, record.key(), exception.getData());
+        addExceptionHeaders(dltRecord.headers(), record, exception);
+
+        send(dltRecord);
+        meterRegistry.counter(DLT_COUNTER, "reason", "deserialization").increment();
+        log.error("[Notification] Недесериализуемая запись {}-{}@{} отправлена в {}",
+                record.topic(), record.partition(), record.offset(), dltTopic);
+        return true;
+    }
+
+    private void addExceptionHeaders(Headers headers, ConsumerRecord<?, ?> record, Exception cause) {
+        headers.add(KafkaHeaders.ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.ORIGINAL_PARTITION,
+                ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+        headers.add(KafkaHeaders.ORIGINAL_OFFSET,
+                ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        headers.add(KafkaHeaders.EXCEPTION_FQCN, cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        if (cause.getMessage() != null) {
+            headers.add(KafkaHeaders.EXCEPTION_MESSAGE, cause.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void send(ProducerRecord<String, Object> record) {
+        try {
+            kafkaTemplate.send(record).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервана отправка в " + record.topic(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Не удалось отправить запись в " + record.topic(), e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.NotificationService.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Фильтр недавно обработанных orderId.
+ * Отсекает повторные доставки Kafka (ребаланс, повтор после сбоя коммита offsets)
+ * без обращения к базе. Ограничен по размеру и вытесняет самые старые записи,
+ * поэтому не заменяет уникальный индекс, а только экономит запросы.
+ */
+@Component
+public class RecentOrderIdFilter {
+
+    private final Map<String, Boolean> recent;
+
+    /**
+     * Конструктор фильтра.
+     *
+     * @param maxSize максимальное количество запоминаемых orderId
+     */
+    public RecentOrderIdFilter(@Value("${app.kafka.consumer.recent-order-ids-size:10000}") int maxSize) {
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Проверяет, обрабатывался ли заказ недавно.
+     *
+     * @param orderId идентификатор заказа
+     * @return true если заказ уже сохранен этим экземпляром сервиса
+     */
+    public boolean seenRecently(String orderId) {
+        return orderId != null && recent.get(orderId) != null;
+    }
+
+    /**
+     * Запоминает заказ как обработанный. Вызывается только после коммита транзакции.
+     *
+     * @param orderId идентификатор заказа
+     */
+    public void remember(String orderId) {
+        if (orderId != null) {
+            recent.put(orderId, Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.NotificationService.mapper;
+
+import com.example.NotificationService.dto.OrderDto;
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Маппер для преобразования сущностей заказа в DTO для REST API.
+ * Копирует поля напрямую, без рефлексии и без обращений к базе данных.
+ */
+@Component
+public class OrderDtoMapper {
+
+    /**
+     * Преобразует сущность Order и её товары в DTO.
+     *
+     * @param order сущность заказа
+     * @param items товары заказа (могут быть null)
+     * @return DTO заказа
+     */
+    public OrderDto toDto(Order order, List<OrderItem> items) {
+        OrderDto dto = new OrderDto();
+        dto.setId(order.getId());
+        dto.setOrderId(order.getOrderId());
+        dto.setUserId(order.getUserId());
+        dto.setTotalPrice(order.getTotalPrice());
+        dto.setOrderDate(order.getOrderDate());
+        dto.setItems(toItemDtos(items));
+        return dto;
+    }
+
+    /**
+     * Преобразует список сущностей OrderItem в список DTO.
+     *
+     * @param items товары заказа (могут быть null)
+     * @return список DTO товаров, пустой если товаров нет
+     */
+    public List<OrderDto.OrderItemDto> toItemDtos(List<OrderItem> items) {
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<OrderDto.OrderItemDto> itemDtos = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            itemDtos.add(toItemDto(item));
+        }
+        return itemDtos;
+    }
+
+    /**
+     * Преобразует сущность OrderItem в DTO.
+     *
+     * @param item сущность товара заказа
+     * @return DTO товара заказа
+     */
+    public OrderDto.OrderItemDto toItemDto(OrderItem item) {
+        OrderDto.OrderItemDto dto = new OrderDto.OrderItemDto();
+        dto.setProductId(item.getProductId());
+        dto.setQuantity(item.getQuantity());
+        dto.setPrice(item.getPrice());
+        dto.setDiscount(item.getDiscount());
+        dto.setItemTotal(item.getItemTotal());
+        return dto;
+    }
+}
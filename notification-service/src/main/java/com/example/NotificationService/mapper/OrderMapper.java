@@ -2,12 +2,14 @@ package com.example.NotificationService.mapper;
 
 import com.example.NotificationService.entity.Order;
 import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.exception.InvalidOrderMessageException;
 import dto.OrderMessage;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,6 +27,7 @@ public class OrderMapper {
      *
      * @param kafkaMessage сообщение из Kafka
      * @return сущность заказа
+     * @throws InvalidOrderMessageException если в сообщении нет корректной даты заказа
      */
     public Order toOrderEntity(OrderMessage kafkaMessage) {
         Order order = new Order();
@@ -62,6 +65,7 @@ public class OrderMapper {
     private OrderItem toOrderItemEntity(OrderMessage.OrderItemMessage itemMessage, Order order) {
         OrderItem orderItem = new OrderItem();
         orderItem.setOrder(order);
+        orderItem.setOrderDate(order.getOrderDate());
         orderItem.setProductId(getSafeLong(itemMessage.getProductId()));
         orderItem.setQuantity(getSafeInteger(itemMessage.getQuantity()));
         orderItem.setPrice(getSafeBigDecimal(itemMessage.getPrice()));
@@ -72,18 +76,21 @@ public class OrderMapper {
 
     /**
      * Парсит строку даты в LocalDateTime.
+     * Текущее время вместо даты не подставляется: дата определяет секцию заказа,
+     * и повторная доставка того же сообщения должна попасть в ту же секцию.
      *
      * @param orderDate строка с датой
-     * @return LocalDateTime или текущее время при ошибке парсинга
+     * @return дата заказа
+     * @throws InvalidOrderMessageException если даты нет или ее не удалось разобрать
      */
     private LocalDateTime parseOrderDate(String orderDate) {
         if (orderDate == null) {
-            return LocalDateTime.now();
+            throw new InvalidOrderMessageException("В сообщении о заказе нет даты заказа");
         }
         try {
             return LocalDateTime.parse(orderDate, DATE_FORMATTER);
-        } catch (Exception e) {
-            return LocalDateTime.now();
+        } catch (DateTimeParseException e) {
+            throw new InvalidOrderMessageException("Некорректная дата заказа: " + orderDate, e);
         }
     }
 
@@ -0,0 +1,47 @@
+package com.example.NotificationService.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Заглушка почтового канала: вместо отправки письма пишет его в лог.
+ * Почтового сервера в окружении нет; канал показывает, как подключается внешний
+ * получатель с собственным лимитом скорости.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "app.notifications.channels.email", name = "enabled", havingValue = "true")
+public class EmailNotificationChannel implements NotificationChannel {
+
+    private final double maxPerSecond;
+
+    /**
+     * Конструктор почтового канала.
+     *
+     * @param maxPerSecond лимит скорости, 0 - без ограничения
+     */
+    public EmailNotificationChannel(@Value("${app.notifications.channels.email.max-per-second:10}") double maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public double maxPerSecond() {
+        return maxPerSecond;
+    }
+
+    @Override
+    public void send(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            log.info("[Notification] Письмо пользователю {}: {}", notification.getUserId(), notification.text());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.NotificationService.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Канал, дописывающий уведомления в локальный файл по строке на уведомление.
+ * Заменяет настоящую доставку при локальном запуске и в тестах.
+ * Пачка записывается одним открытием файла.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.notifications.channels.file", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class FileNotificationChannel implements NotificationChannel {
+
+    private final Path path;
+    private final double maxPerSecond;
+
+    /**
+     * Конструктор файлового канала.
+     *
+     * @param path         путь к файлу уведомлений
+     * @param maxPerSecond лимит скорости, 0 - без ограничения
+     */
+    public FileNotificationChannel(@Value("${app.notifications.channels.file.path:notifications.log}") Path path,
+                                   @Value("${app.notifications.channels.file.max-per-second:0}") double maxPerSecond) {
+        this.path = path;
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public double maxPerSecond() {
+        return maxPerSecond;
+    }
+
+    @Override
+    public synchronized void send(List<Notification> notifications) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        String now = LocalDateTime.now().toString();
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Notification notification : notifications) {
+                writer.write(now + " user=" + notification.getUserId() + " " + notification.text()
+                        + System.lineSeparator());
+            }
+        }
+    }
+}
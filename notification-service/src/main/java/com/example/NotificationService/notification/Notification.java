@@ -0,0 +1,59 @@
+package com.example.NotificationService.notification;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Уведомление пользователя о принятых заказах.
+ * Заказы одного пользователя, пришедшие в пределах окна объединения,
+ * сливаются в одно уведомление. Объект неизменяем: слияние создает новый.
+ */
+@Value
+public class Notification {
+
+    Long userId;
+
+    /**
+     * Идентификаторы заказов (UUID из Order Service) в порядке поступления.
+     */
+    List<String> orderIds;
+
+    BigDecimal totalPrice;
+
+    long itemCount;
+
+    /**
+     * Момент постановки первого заказа в очередь по {@link System#nanoTime()}:
+     * от него отсчитываются окно объединения и задержка доставки.
+     */
+    long firstQueuedNanos;
+
+    /**
+     * Объединяет уведомление с более поздним уведомлением того же пользователя.
+     *
+     * @param later уведомление о следующих заказах
+     * @return объединенное уведомление
+     */
+    public Notification merge(Notification later) {
+        List<String> merged = new ArrayList<>(orderIds.size() + later.orderIds.size());
+        merged.addAll(orderIds);
+        merged.addAll(later.orderIds);
+        return new Notification(userId, List.copyOf(merged), totalPrice.add(later.totalPrice),
+                itemCount + later.itemCount, Math.min(firstQueuedNanos, later.firstQueuedNanos));
+    }
+
+    /**
+     * Текст уведомления для пользователя.
+     *
+     * @return текст уведомления
+     */
+    public String text() {
+        String orders = orderIds.size() == 1
+                ? "Заказ " + orderIds.get(0) + " принят"
+                : "Заказы " + String.join(", ", orderIds) + " приняты";
+        return orders + ": товаров " + itemCount + " на сумму " + totalPrice;
+    }
+}
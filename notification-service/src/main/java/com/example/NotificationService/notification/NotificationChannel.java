@@ -0,0 +1,35 @@
+package com.example.NotificationService.notification;
+
+import java.util.List;
+
+/**
+ * Канал доставки уведомлений (файл, почта, push и т.д.).
+ * Каждый бин-реализация автоматически подключается к {@link NotificationDispatcher}.
+ * Уведомления передаются пачками, чтобы канал мог отправить их одним запросом.
+ */
+public interface NotificationChannel {
+
+    /**
+     * Имя канала для метрик, логов и настроек.
+     *
+     * @return имя канала
+     */
+    String name();
+
+    /**
+     * Максимальная скорость доставки в уведомлениях в секунду.
+     *
+     * @return лимит скорости, 0 - без ограничения
+     */
+    default double maxPerSecond() {
+        return 0;
+    }
+
+    /**
+     * Доставляет пачку уведомлений. Исключение означает, что не доставлена вся пачка.
+     *
+     * @param notifications уведомления разных пользователей
+     * @throws Exception если доставка не удалась
+     */
+    void send(List<Notification> notifications) throws Exception;
+}
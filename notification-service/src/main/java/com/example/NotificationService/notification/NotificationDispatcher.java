@@ -0,0 +1,217 @@
+package com.example.NotificationService.notification;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рассылает уведомления о сохраненных заказах по всем каналам.
+ * Сохранение заказа только кладет его в очередь в памяти и никогда не ждет доставки.
+ * Заказы одного пользователя в пределах окна объединения сливаются в одно уведомление,
+ * созревшие уведомления периодически собираются в пачки и отправляются в каналы
+ * с ограничением скорости на каждый канал. У каждого канала свой ограниченный пул потоков
+ * и своя очередь пачек: медленный или ограниченный по скорости канал ждет только в своих потоках
+ * и не задерживает доставку в остальные.
+ * Если очередь или пул переполнены, уведомления отбрасываются с учетом в метриках:
+ * доставка уведомлений вторична по отношению к приему заказов.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    static final String SENT_COUNTER = "notification.dispatch.sent";
+    static final String FAILED_COUNTER = "notification.dispatch.failed";
+    static final String DROPPED_COUNTER = "notification.dispatch.dropped";
+    static final String LATENCY_TIMER = "notification.dispatch.latency";
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final List<NotificationChannel> channels;
+    private final Map<String, TokenBucket> rateLimits = new LinkedHashMap<>();
+    private final Map<String, ThreadPoolExecutor> workers = new LinkedHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long coalesceWindowNanos;
+    private final int batchSize;
+    private final int maxPendingUsers;
+
+    private final Map<Long, Notification> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор диспетчера.
+     *
+     * @param channels         каналы доставки; без каналов уведомления не собираются
+     * @param meterRegistry    реестр метрик
+     * @param workerCount      количество потоков доставки каждого канала
+     * @param queueCapacity    сколько пачек канала может ждать свободного потока
+     * @param coalesceWindowMs окно объединения заказов одного пользователя
+     * @param batchSize        максимальный размер пачки для канала
+     * @param maxPendingUsers  сколько пользователей может ждать уведомления одновременно
+     */
+    public NotificationDispatcher(ObjectProvider<NotificationChannel> channels,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.notifications.workers:4}") int workerCount,
+                                  @Value("${app.notifications.queue-capacity:100}") int queueCapacity,
+                                  @Value("${app.notifications.coalesce-window-ms:2000}") long coalesceWindowMs,
+                                  @Value("${app.notifications.batch-size:50}") int batchSize,
+                                  @Value("${app.notifications.max-pending-users:10000}") int maxPendingUsers) {
+        this.channels = channels.orderedStream().toList();
+        this.meterRegistry = meterRegistry;
+        this.coalesceWindowNanos = TimeUnit.MILLISECONDS.toNanos(coalesceWindowMs);
+        this.batchSize = batchSize;
+        this.maxPendingUsers = maxPendingUsers;
+        for (NotificationChannel channel : this.channels) {
+            if (channel.maxPerSecond() > 0) {
+                rateLimits.put(channel.name(), new TokenBucket(channel.maxPerSecond(), Math.max(batchSize, 1)));
+            }
+            ThreadPoolExecutor channelWorkers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("notification-" + channel.name() + "-"));
+            workers.put(channel.name(), channelWorkers);
+            meterRegistry.gaugeCollectionSize("notification.dispatch.queue", List.of(Tag.of("channel", channel.name())),
+                    channelWorkers.getQueue());
+        }
+        meterRegistry.gaugeMapSize("notification.dispatch.pending", List.of(), pending);
+        log.info("[Notification] Каналы уведомлений: {}", this.channels.stream().map(NotificationChannel::name).toList());
+    }
+
+    /**
+     * Ставит уведомление о сохраненном заказе в очередь.
+     * Внутри транзакции заказ попадет в очередь после ее коммита, вне транзакции - сразу.
+     *
+     * @param order сохраненный заказ
+     * @param items товары заказа
+     */
+    public void submit(Order order, List<OrderItem> items) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        long itemCount = items.stream().mapToLong(OrderItem::getQuantity).sum();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(order, itemCount);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(order, itemCount);
+            }
+        });
+    }
+
+    /**
+     * Отправляет уведомления, у которых истекло окно объединения.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.flush-interval-ms:500}")
+    public void flushDue() {
+        flush(System.nanoTime() - coalesceWindowNanos);
+    }
+
+    /**
+     * Отправляет оставшиеся уведомления и ждет завершения доставки при остановке приложения.
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flush(System.nanoTime());
+        workers.values().forEach(ThreadPoolExecutor::shutdown);
+        // Каналы завершаются параллельно, поэтому общий срок ожидания делится между ними
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        for (Map.Entry<String, ThreadPoolExecutor> entry : workers.entrySet()) {
+            if (!entry.getValue().awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                log.warn("[Notification] Доставка уведомлений в канал {} не завершилась за {} с",
+                        entry.getKey(), SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Извлекает уведомления, первый заказ которых поставлен в очередь не позже границы,
+     * и передает их пачками в каждый канал.
+     *
+     * @param queuedBeforeNanos граница по {@link System#nanoTime()}
+     * @return количество извлеченных уведомлений
+     */
+    int flush(long queuedBeforeNanos) {
+        List<Notification> due = new ArrayList<>();
+        for (Map.Entry<Long, Notification> entry : pending.entrySet()) {
+            Notification notification = entry.getValue();
+            // Разность, а не сравнение: nanoTime может переполняться
+            if (notification.getFirstQueuedNanos() - queuedBeforeNanos <= 0
+                    && pending.remove(entry.getKey(), notification)) {
+                due.add(notification);
+            }
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Notification> batch = List.copyOf(due.subList(from, Math.min(from + batchSize, due.size())));
+            for (NotificationChannel channel : channels) {
+                dispatch(channel, batch);
+            }
+        }
+        return due.size();
+    }
+
+    private void enqueue(Order order, long itemCount) {
+        Notification notification = new Notification(order.getUserId(), List.of(order.getOrderId()),
+                order.getTotalPrice(), itemCount, System.nanoTime());
+        if (pending.size() >= maxPendingUsers && !pending.containsKey(order.getUserId())) {
+            meterRegistry.counter(DROPPED_COUNTER, "reason", "pending-full").increment();
+            log.warn("[Notification] Очередь уведомлений переполнена, заказ {} без уведомления", order.getOrderId());
+            return;
+        }
+        pending.merge(order.getUserId(), notification, Notification::merge);
+    }
+
+    private void dispatch(NotificationChannel channel, List<Notification> batch) {
+        try {
+            workers.get(channel.name()).execute(() -> deliver(channel, batch));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter(DROPPED_COUNTER, "channel", channel.name(), "reason", "queue-full")
+                    .increment(batch.size());
+            log.warn("[Notification] Пул доставки канала занят, канал {} пропускает {} уведомлений",
+                    channel.name(), batch.size());
+        }
+    }
+
+    private void deliver(NotificationChannel channel, List<Notification> batch) {
+        try {
+            TokenBucket rateLimit = rateLimits.get(channel.name());
+            if (rateLimit != null) {
+                rateLimit.acquire(batch.size());
+            }
+            channel.send(batch);
+            meterRegistry.counter(SENT_COUNTER, "channel", channel.name()).increment(batch.size());
+            long now = System.nanoTime();
+            for (Notification notification : batch) {
+                meterRegistry.timer(LATENCY_TIMER, "channel", channel.name())
+                        .record(now - notification.getFirstQueuedNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            meterRegistry.counter(FAILED_COUNTER, "channel", channel.name()).increment(batch.size());
+        } catch (Exception e) {
+            meterRegistry.counter(FAILED_COUNTER, "channel", channel.name()).increment(batch.size());
+            log.error("[Notification] Канал {} не доставил {} уведомлений: {}",
+                    channel.name(), batch.size(), e.getMessage());
+        }
+    }
+}
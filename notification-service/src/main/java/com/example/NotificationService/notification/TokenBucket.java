@@ -0,0 +1,54 @@
+package com.example.NotificationService.notification;
+
+/**
+ * Ограничитель скорости по алгоритму token bucket.
+ * Запрос резервирует разрешения сразу, уводя баланс в минус, и ждет, пока долг не погасится пополнением.
+ * Поэтому пачка больше емкости тоже проходит, просто следующая ждет дольше.
+ */
+class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double available;
+    private long lastRefillNanos;
+
+    /**
+     * Конструктор ограничителя. Изначально ведро заполнено.
+     *
+     * @param permitsPerSecond скорость пополнения
+     * @param capacity         емкость ведра (допустимый всплеск)
+     */
+    TokenBucket(double permitsPerSecond, double capacity) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.available = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Получает разрешения, при необходимости ожидая пополнения.
+     *
+     * @param permits количество разрешений
+     * @throws InterruptedException если ожидание прервано
+     */
+    void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits, System.nanoTime());
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Резервирует разрешения.
+     *
+     * @param permits  количество разрешений
+     * @param nowNanos текущее время по {@link System#nanoTime()}
+     * @return сколько наносекунд нужно подождать до использования разрешений
+     */
+    synchronized long reserve(int permits, long nowNanos) {
+        available = Math.min(capacity, available + (nowNanos - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = nowNanos;
+        available -= permits;
+        return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerNano);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.NotificationService.repository;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.entity.ProductSales;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Репозиторий для пакетной записи заказов и накопленных продаж товаров через JDBC.
+ * Используется пакетным Kafka слушателем: Hibernate не батчит вставки при
+ * {@code GenerationType.IDENTITY}, поэтому идентификаторы резервируются заранее
+ * одним запросом к последовательности, а строки уходят JDBC пакетами.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)";
+
+    /**
+     * Заказ вставляется только если он занял строку processed_orders: уникальность по order_id
+     * не зависит от order_date, в отличие от ключа секционированной таблицы.
+     */
+    private static final String INSERT_ORDER_SQL =
+            "WITH claimed AS (" +
+            "  INSERT INTO processed_orders (order_id, order_date) VALUES (?, ?) " +
+            "  ON CONFLICT (order_id) DO NOTHING RETURNING order_id, order_date" +
+            ") INSERT INTO orders (id, order_id, user_id, total_price, order_date) " +
+            "SELECT ?, claimed.order_id, ?, ?, claimed.order_date FROM claimed";
+
+    /**
+     * Заказ, его товары и приращение продаж одним оператором: товары и продажи
+     * записываются только если заказ занял строку processed_orders и вставился.
+     * Модифицирующие CTE выполняются всегда, даже если основной запрос на них не ссылается.
+     */
+    private static final String INSERT_ORDER_WITH_ITEMS_SQL =
+            "WITH claimed AS (" +
+            "  INSERT INTO processed_orders (order_id, order_date) VALUES (?, ?) " +
+            "  ON CONFLICT (order_id) DO NOTHING RETURNING order_id, order_date" +
+            "), inserted AS (" +
+            "  INSERT INTO orders (order_id, user_id, total_price, order_date) " +
+            "  SELECT claimed.order_id, ?, ?, claimed.order_date FROM claimed RETURNING id, order_date" +
+            "), src AS (" +
+            "  SELECT * FROM unnest(?::bigint[], ?::int[], ?::numeric[], ?::numeric[], ?::numeric[]) " +
+            "    AS i(product_id, quantity, price, discount, item_total)" +
+            "), items AS (" +
+            "  INSERT INTO order_items (order_id, order_date, product_id, quantity, price, discount, item_total) " +
+            "  SELECT inserted.id, inserted.order_date, src.product_id, src.quantity, src.price, src.discount, src.item_total " +
+            "  FROM inserted CROSS JOIN src" +
+            "), sales AS (" +
+            "  INSERT INTO product_sales (product_id, total_quantity, total_revenue, updated_at) " +
+            "  SELECT src.product_id, sum(src.quantity), sum(src.item_total), now() " +
+            "  FROM inserted CROSS JOIN src GROUP BY src.product_id ORDER BY src.product_id " +
+            "  ON CONFLICT (product_id) DO UPDATE SET " +
+            "    total_quantity = product_sales.total_quantity + EXCLUDED.total_quantity, " +
+            "    total_revenue = product_sales.total_revenue + EXCLUDED.total_revenue, " +
+            "    updated_at = EXCLUDED.updated_at" +
+            ") SELECT count(*) FROM inserted";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (id, order_id, order_date, product_id, quantity, price, discount, item_total) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ADD_PRODUCT_SALES_SQL =
+            "INSERT INTO product_sales (product_id, total_quantity, total_revenue, updated_at) " +
+            "VALUES (?, ?, ?, now()) " +
+            "ON CONFLICT (product_id) DO UPDATE SET " +
+            "  total_quantity = product_sales.total_quantity + EXCLUDED.total_quantity, " +
+            "  total_revenue = product_sales.total_revenue + EXCLUDED.total_revenue, " +
+            "  updated_at = EXCLUDED.updated_at";
+
+    /**
+     * Блокировка несовместима с ROW EXCLUSIVE, которую берут инкрементальные обновления:
+     * заказы, сохраняемые во время пересчета, применят свои приращения уже к пересчитанным строкам.
+     */
+    private static final String LOCK_PRODUCT_SALES_SQL = "LOCK TABLE product_sales IN SHARE ROW EXCLUSIVE MODE";
+
+    private static final String REBUILD_PRODUCT_SALES_SQL =
+            "INSERT INTO product_sales (product_id, total_quantity, total_revenue, updated_at) " +
+            "SELECT product_id, sum(quantity), sum(item_total), now() FROM order_items " +
+            "GROUP BY product_id ORDER BY product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Резервирует пачку идентификаторов заказов одним запросом.
+     *
+     * @param count количество идентификаторов
+     * @return зарезервированные идентификаторы
+     */
+    public List<Long> nextOrderIds(int count) {
+        return nextIds("orders", count);
+    }
+
+    /**
+     * Резервирует пачку идентификаторов товаров заказов одним запросом.
+     *
+     * @param count количество идентификаторов
+     * @return зарезервированные идентификаторы
+     */
+    public List<Long> nextOrderItemIds(int count) {
+        return nextIds("order_items", count);
+    }
+
+    /**
+     * Сохраняет заказ с товарами, если заказа с таким orderId еще нет,
+     * и добавляет его товары к накопленным продажам.
+     * Проверка и вставка выполняются одним оператором, поэтому параллельные потребители
+     * не конфликтуют на уникальном order_id в processed_orders.
+     *
+     * @param order заказ без идентификатора
+     * @param items товары заказа
+     * @return true если заказ был записан, false если он уже существовал
+     */
+    public boolean insertIfAbsent(Order order, List<OrderItem> items) {
+        Long count = jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(INSERT_ORDER_WITH_ITEMS_SQL);
+                    ps.setString(1, order.getOrderId());
+                    ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+                    ps.setLong(3, order.getUserId());
+                    ps.setBigDecimal(4, order.getTotalPrice());
+                    ps.setArray(5, connection.createArrayOf("bigint",
+                            items.stream().map(OrderItem::getProductId).toArray()));
+                    ps.setArray(6, connection.createArrayOf("integer",
+                            items.stream().map(OrderItem::getQuantity).toArray()));
+                    ps.setArray(7, connection.createArrayOf("numeric",
+                            items.stream().map(OrderItem::getPrice).toArray()));
+                    ps.setArray(8, connection.createArrayOf("numeric",
+                            items.stream().map(OrderItem::getDiscount).toArray()));
+                    ps.setArray(9, connection.createArrayOf("numeric",
+                            items.stream().map(OrderItem::getItemTotal).toArray()));
+                    return ps;
+                },
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Вставляет заказы одним JDBC пакетом. Идентификаторы должны быть уже заполнены.
+     * Заказы с уже существующим orderId пропускаются без ошибки.
+     *
+     * @param orders заказы для вставки
+     * @return количество вставленных строк для каждого заказа (0 - заказ уже был сохранен)
+     */
+    public int[] insertOrders(List<Order> orders) {
+        return jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Order order = orders.get(i);
+                ps.setString(1, order.getOrderId());
+                ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+                ps.setLong(3, order.getId());
+                ps.setLong(4, order.getUserId());
+                ps.setBigDecimal(5, order.getTotalPrice());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return orders.size();
+            }
+        });
+    }
+
+    /**
+     * Вставляет товары заказов одним JDBC пакетом.
+     * Идентификаторы товаров и их заказов должны быть уже заполнены.
+     *
+     * @param items товары заказов для вставки
+     */
+    public void insertOrderItems(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderItem item = items.get(i);
+                ps.setLong(1, item.getId());
+                ps.setLong(2, item.getOrder().getId());
+                ps.setTimestamp(3, Timestamp.valueOf(item.getOrder().getOrderDate()));
+                ps.setLong(4, item.getProductId());
+                ps.setInt(5, item.getQuantity());
+                ps.setBigDecimal(6, item.getPrice());
+                ps.setBigDecimal(7, item.getDiscount());
+                ps.setBigDecimal(8, item.getItemTotal());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+
+    /**
+     * Добавляет приращения к накопленным продажам товаров одним JDBC пакетом.
+     * Приращения должны быть уже сгруппированы по товару и отсортированы по productId:
+     * одинаковый порядок блокировки строк исключает взаимные блокировки между потребителями.
+     *
+     * @param deltas приращения продаж по товарам
+     */
+    public void addProductSales(List<ProductSales> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_PRODUCT_SALES_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductSales delta = deltas.get(i);
+                ps.setLong(1, delta.getProductId());
+                ps.setLong(2, delta.getTotalQuantity());
+                ps.setBigDecimal(3, delta.getTotalRevenue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return deltas.size();
+            }
+        });
+    }
+
+    /**
+     * Пересчитывает накопленные продажи всех товаров по order_items.
+     * Должен вызываться в транзакции: таблица блокируется от инкрементальных обновлений до коммита.
+     *
+     * @return количество товаров с продажами
+     */
+    public int rebuildProductSales() {
+        jdbcTemplate.execute(LOCK_PRODUCT_SALES_SQL);
+        jdbcTemplate.update("DELETE FROM product_sales");
+        return jdbcTemplate.update(REBUILD_PRODUCT_SALES_SQL);
+    }
+
+    private List<Long> nextIds(String table, int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, table, count);
+    }
+}
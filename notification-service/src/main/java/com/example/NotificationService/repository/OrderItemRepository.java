@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,6 +32,21 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.orderId = :orderId")
     List<OrderItem> findByOrderOrderId(@Param("orderId") String orderId);
 
+    /**
+     * Находит товары сразу нескольких заказов одним запросом.
+     * Используется при чтении списков заказов вместо запроса на каждый заказ.
+     * Диапазон дат заказов ограничивает чтение секциями нужных месяцев.
+     *
+     * @param orderIds внутренние идентификаторы заказов
+     * @param from     дата самого раннего из заказов
+     * @param to       дата самого позднего из заказов
+     * @return товары указанных заказов
+     */
+    @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id IN :orderIds AND oi.orderDate BETWEEN :from AND :to")
+    List<OrderItem> findByOrderIdInAndOrderDateBetween(@Param("orderIds") Collection<Long> orderIds,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
     /**
      * Находит все товары по идентификатору продукта.
      * Полезно для аналитики популярности товаров.
@@ -40,7 +57,8 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByProductId(Long productId);
 
     /**
-     * Рассчитывает общее количество проданных единиц товара.
+     * Рассчитывает общее количество проданных единиц товара суммированием по всем заказам.
+     * Для частого чтения используйте накопленные продажи из {@link ProductSalesRepository}.
      *
      * @param productId идентификатор товара
      * @return общее количество проданных единиц
@@ -0,0 +1,127 @@
+package com.example.NotificationService.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Репозиторий месячных секций таблиц orders и order_items.
+ * Секции называются {@code <таблица>_yYYYYmMM} и создаются функцией
+ * {@code create_order_partitions} из миграции V1.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderPartitionRepository {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^(orders|order_items)_y(\\d{4})m(\\d{2})$");
+
+    private static final String CREATE_PARTITIONS_SQL = "SELECT create_order_partitions(?, ?)";
+
+    private static final String FIND_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = ?::regclass ORDER BY c.relname";
+
+    private static final String RAISE_HORIZON_SQL =
+            "INSERT INTO order_retention_horizon (oldest_retained) VALUES (?) " +
+            "ON CONFLICT (id) DO UPDATE SET oldest_retained = " +
+            "GREATEST(order_retention_horizon.oldest_retained, EXCLUDED.oldest_retained)";
+
+    private static final String FIND_HORIZON_SQL = "SELECT oldest_retained FROM order_retention_horizon";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Месячная секция таблицы.
+     *
+     * @param parent родительская таблица: orders или order_items
+     * @param table  имя секции
+     * @param month месяц, данные которого хранит секция
+     */
+    public record OrderPartition(String parent, String table, YearMonth month) {
+    }
+
+    /**
+     * Создает недостающие секции orders и order_items для месяцев диапазона.
+     *
+     * @param from первый месяц
+     * @param to   последний месяц включительно
+     * @return количество созданных секций orders
+     */
+    public int createPartitions(YearMonth from, YearMonth to) {
+        Integer created = jdbcTemplate.queryForObject(CREATE_PARTITIONS_SQL, Integer.class,
+                Date.valueOf(from.atDay(1)), Date.valueOf(to.plusMonths(1).atDay(1)));
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Находит присоединенные месячные секции таблицы.
+     * Секции с именами не по шаблону не возвращаются.
+     *
+     * @param parentTable orders или order_items
+     * @return секции по возрастанию месяца
+     */
+    public List<OrderPartition> findPartitions(String parentTable) {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class, parentTable).stream()
+                .map(OrderPartitionRepository::parse)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Отсоединяет секцию: данные остаются в отдельной таблице, но запросы к родительской таблице их не видят.
+     *
+     * @param partition секция
+     */
+    public void detach(OrderPartition partition) {
+        jdbcTemplate.execute("ALTER TABLE " + partition.parent() + " DETACH PARTITION " + partition.table());
+    }
+
+    /**
+     * Удаляет секцию вместе с данными.
+     *
+     * @param partition секция
+     */
+    public void drop(OrderPartition partition) {
+        jdbcTemplate.execute("DROP TABLE " + partition.table());
+    }
+
+    /**
+     * Запоминает, что заказы до начала месяца отсоединены или удалены. Граница только сдвигается вперед.
+     *
+     * @param oldestRetained первый месяц, заказы которого еще хранятся
+     */
+    public void raiseRetentionHorizon(YearMonth oldestRetained) {
+        jdbcTemplate.update(RAISE_HORIZON_SQL, Timestamp.valueOf(oldestRetained.atDay(1).atStartOfDay()));
+    }
+
+    /**
+     * @return начало хранимой истории заказов или пусто, если секции по сроку хранения не удалялись
+     */
+    public Optional<LocalDateTime> findRetentionHorizon() {
+        return jdbcTemplate.queryForList(FIND_HORIZON_SQL, Timestamp.class).stream()
+                .findFirst()
+                .map(Timestamp::toLocalDateTime);
+    }
+
+    /**
+     * Разбирает имя секции. Имена подставляются в DDL, поэтому принимаются только имена по шаблону.
+     */
+    private static OrderPartition parse(String table) {
+        Matcher matcher = PARTITION_NAME.matcher(table);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new OrderPartition(matcher.group(1), table,
+                YearMonth.of(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3))));
+    }
+}
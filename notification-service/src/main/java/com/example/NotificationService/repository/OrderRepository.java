@@ -1,10 +1,12 @@
 package com.example.NotificationService.repository;
 
 import com.example.NotificationService.entity.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,12 +32,22 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByUserId(Long userId);
 
+    /**
+     * Находит страницу заказов пользователя, новые первыми.
+     * Возвращает список, поэтому отдельный запрос на подсчет общего количества не выполняется.
+     *
+     * @param userId идентификатор пользователя
+     * @param pageable номер и размер страницы
+     * @return заказы пользователя на странице
+     */
+    List<Order> findByUserIdOrderByOrderDateDescIdDesc(Long userId, Pageable pageable);
+
     /**
      * Находит все заказы с информацией о товарах для аналитики.
      *
      * @return список всех заказов с товарами
      */
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items")
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items")
     List<Order> findAllWithItems();
 
     /**
@@ -44,4 +56,48 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @return список заказов отсортированных по дате
      */
     List<Order> findAllByOrderByOrderDateDesc();
+
+    /**
+     * Находит страницу заказов, новые первыми.
+     * Возвращает список, поэтому отдельный запрос на подсчет общего количества не выполняется.
+     *
+     * @param pageable номер и размер страницы
+     * @return заказы на странице
+     */
+    List<Order> findAllByOrderByOrderDateDescIdDesc(Pageable pageable);
+
+    /**
+     * Находит заказы, следующие за позицией курсора, в порядке (order_date desc, id desc).
+     * Сравнение строк по кортежу использует индекс idx_orders_date_id,
+     * поэтому стоимость запроса не зависит от номера страницы.
+     * Отдельное условие на order_date позволяет планировщику пропустить секции более поздних месяцев.
+     *
+     * @param orderDate дата последнего заказа предыдущей страницы
+     * @param id идентификатор последнего заказа предыдущей страницы
+     * @param limit максимальное количество заказов
+     * @return заказы после курсора
+     */
+    @Query(value = "SELECT * FROM orders WHERE order_date <= :orderDate AND (order_date, id) < (:orderDate, :id) " +
+            "ORDER BY order_date DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Order> findAfterCursor(@Param("orderDate") LocalDateTime orderDate,
+                                @Param("id") Long id,
+                                @Param("limit") int limit);
+
+    /**
+     * Находит заказы пользователя, следующие за позицией курсора, в порядке (order_date desc, id desc).
+     * Использует индекс idx_orders_user_date.
+     *
+     * @param userId идентификатор пользователя
+     * @param orderDate дата последнего заказа предыдущей страницы
+     * @param id идентификатор последнего заказа предыдущей страницы
+     * @param limit максимальное количество заказов
+     * @return заказы пользователя после курсора
+     */
+    @Query(value = "SELECT * FROM orders WHERE user_id = :userId AND order_date <= :orderDate " +
+            "AND (order_date, id) < (:orderDate, :id) " +
+            "ORDER BY order_date DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Order> findByUserIdAfterCursor(@Param("userId") Long userId,
+                                        @Param("orderDate") LocalDateTime orderDate,
+                                        @Param("id") Long id,
+                                        @Param("limit") int limit);
 } 
@@ -0,0 +1,145 @@
+package com.example.NotificationService.repository;
+
+import com.example.NotificationService.entity.OrderRollup;
+import com.example.NotificationService.entity.RollupGranularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий агрегатов заказов по интервалам времени.
+ * Приращения записываются JDBC пакетами, агрегаты по сырым заказам
+ * считаются группировкой по {@code date_trunc}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderRollupRepository {
+
+    private static final String ADD_SQL =
+            "INSERT INTO order_rollups (granularity, bucket_start, order_count, revenue, item_count) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, bucket_start) DO UPDATE SET " +
+            "  order_count = order_rollups.order_count + EXCLUDED.order_count, " +
+            "  revenue = order_rollups.revenue + EXCLUDED.revenue, " +
+            "  item_count = order_rollups.item_count + EXCLUDED.item_count";
+
+    private static final String FIND_RANGE_SQL =
+            "SELECT granularity, bucket_start, order_count, revenue, item_count FROM order_rollups " +
+            "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+
+    /**
+     * Товары суммируются подзапросом на каждый заказ диапазона: по индексу order_items.order_id,
+     * без соединения, которое размножило бы строки заказов.
+     * Условие на order_date оставляет подзапросу только секцию месяца заказа.
+     */
+    private static final String AGGREGATE_ORDERS_SQL =
+            "SELECT ? AS granularity, date_trunc(?, o.order_date) AS bucket_start, count(*) AS order_count, " +
+            "  coalesce(sum(o.total_price), 0) AS revenue, coalesce(sum(i.quantity), 0) AS item_count " +
+            "FROM orders o LEFT JOIN LATERAL (" +
+            "  SELECT sum(quantity) AS quantity FROM order_items " +
+            "  WHERE order_items.order_id = o.id AND order_items.order_date = o.order_date" +
+            ") i ON true " +
+            "WHERE o.order_date >= ? AND o.order_date < ? " +
+            "GROUP BY 2 ORDER BY 2";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM order_rollups WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?";
+
+    private static final String LOCK_SQL = "LOCK TABLE order_rollups IN SHARE ROW EXCLUSIVE MODE";
+
+    private static final RowMapper<OrderRollup> ROW_MAPPER = (rs, rowNum) -> new OrderRollup(
+            RollupGranularity.valueOf(rs.getString("granularity")),
+            rs.getTimestamp("bucket_start").toLocalDateTime(),
+            rs.getLong("order_count"),
+            rs.getBigDecimal("revenue"),
+            rs.getLong("item_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Добавляет приращения к агрегатам одним JDBC пакетом.
+     * Приращения должны быть отсортированы по ключу, чтобы параллельные сбросы
+     * блокировали строки в одном порядке.
+     *
+     * @param deltas приращения агрегатов
+     */
+    public void add(List<OrderRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderRollup delta = deltas.get(i);
+                ps.setString(1, delta.getGranularity().name());
+                ps.setTimestamp(2, Timestamp.valueOf(delta.getBucketStart()));
+                ps.setLong(3, delta.getOrderCount());
+                ps.setBigDecimal(4, delta.getRevenue());
+                ps.setLong(5, delta.getItemCount());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return deltas.size();
+            }
+        });
+    }
+
+    /**
+     * Находит сохраненные агрегаты в диапазоне начал интервалов.
+     *
+     * @param granularity размер интервала
+     * @param from        начало диапазона включительно
+     * @param to          конец диапазона не включительно
+     * @return агрегаты по возрастанию начала интервала
+     */
+    public List<OrderRollup> findRange(RollupGranularity granularity, LocalDateTime from,
+                                       LocalDateTime to) {
+        return jdbcTemplate.query(FIND_RANGE_SQL, ROW_MAPPER,
+                granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Считает агрегаты по сырым заказам диапазона.
+     * Интервалы без заказов в результат не попадают.
+     *
+     * @param granularity размер интервала
+     * @param from        начало диапазона по дате заказа включительно
+     * @param to          конец диапазона по дате заказа не включительно
+     * @return агрегаты по возрастанию начала интервала
+     */
+    public List<OrderRollup> aggregateOrders(RollupGranularity granularity, LocalDateTime from,
+                                             LocalDateTime to) {
+        return jdbcTemplate.query(AGGREGATE_ORDERS_SQL, ROW_MAPPER,
+                granularity.name(), granularity.sqlUnit(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Пересчитывает агрегаты всех размеров в диапазоне по сырым заказам.
+     * Должен вызываться в транзакции: таблица блокируется от сброса приращений до коммита.
+     * Границы диапазона должны совпадать с границами дней.
+     *
+     * @param from начало диапазона включительно
+     * @param to   конец диапазона не включительно
+     * @return количество записанных агрегатов
+     */
+    public int rebuild(LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute(LOCK_SQL);
+        int written = 0;
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update(DELETE_RANGE_SQL, granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+            List<OrderRollup> rollups = aggregateOrders(granularity, from, to);
+            add(rollups);
+            written += rollups.size();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.NotificationService.repository;
+
+import com.example.NotificationService.entity.ProductSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Репозиторий для чтения накопленных продаж товаров.
+ * Запись выполняется JDBC операторами {@link OrderBatchRepository} вместе с заказами.
+ */
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long> {
+}
@@ -0,0 +1,153 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.DltReplayResultDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис переотправки записей из DLT обратно в основной топик заказов.
+ * Записи читаются отдельной группой потребителя как исходные байты и публикуются без изменений,
+ * поэтому их снова обрабатывает активный слушатель с полным циклом повторов.
+ * Прочитанная позиция фиксируется в группе, и повторный вызов продолжает с места остановки.
+ * Недесериализуемые записи пропускаются: без исправления данных они снова попадут в DLT.
+ */
+@Service
+@Slf4j
+public class DltReplayService {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Counter replayedCounter;
+    private final String topic;
+    private final String dltTopic;
+    private final String groupId;
+
+    /**
+     * Конструктор сервиса переотправки.
+     *
+     * @param consumerFactory фабрика потребителей Kafka
+     * @param kafkaTemplate   шаблон для публикации в основной топик
+     * @param meterRegistry   реестр метрик
+     * @param topic           основной топик заказов
+     * @param groupId         группа потребителя DLT
+     */
+    public DltReplayService(ConsumerFactory<Object, Object> consumerFactory,
+                            @Qualifier("orderRetryKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.kafka.topic}") String topic,
+                            @Value("${app.kafka.dlt.replay-group-id:notification-dlt-replay}") String groupId) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.replayedCounter = meterRegistry.counter("notification.orders.dlt.replayed");
+        this.topic = topic;
+        this.dltTopic = topic + "-dlt";
+        this.groupId = groupId;
+    }
+
+    /**
+     * Переотправляет до max записей из DLT в основной топик.
+     * Вызовы выполняются по одному, чтобы две переотправки не читали одни и те же записи.
+     * Если лимит исчерпан посреди poll, остаток будет прочитан следующим вызовом с зафиксированной позиции.
+     *
+     * @param max максимальное количество записей за вызов
+     * @return количество переотправленных и пропущенных записей
+     */
+    public synchronized DltReplayResultDto replay(int max) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(max, 500));
+
+        int replayed = 0;
+        int skipped = 0;
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(groupId, "-replay", null, overrides)) {
+            consumer.assign(consumer.partitionsFor(dltTopic).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList());
+
+            while (replayed + skipped < max) {
+                List<ConsumerRecord<Object, Object>> records = new ArrayList<>();
+                consumer.poll(POLL_TIMEOUT).forEach(records::add);
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>();
+                for (ConsumerRecord<Object, Object> record : records) {
+                    if (replayed + skipped >= max) {
+                        break;
+                    }
+                    if (isPoisonPill(record)) {
+                        skipped++;
+                    } else {
+                        sends.add(kafkaTemplate.send(toMainTopic(record)));
+                        replayed++;
+                    }
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                }
+                // Позиция фиксируется только после подтверждения всех отправок
+                CompletableFuture.allOf(sends.toArray(new CompletableFuture[0]))
+                        .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                consumer.commitSync(offsets);
+                replayedCounter.increment(sends.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Переотправка из DLT прервана", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось переотправить записи из DLT: " + e.getMessage(), e);
+        }
+
+        log.info("[Notification] Из {} переотправлено записей: {}, пропущено недесериализуемых: {}",
+                dltTopic, replayed, skipped);
+        return new DltReplayResultDto(replayed, skipped);
+    }
+
+    private boolean isPoisonPill(ConsumerRecord<Object, Object> record) {
+        return isDeserializationException(record.headers().lastHeader(KafkaHeaders.EXCEPTION_FQCN))
+                || isDeserializationException(record.headers().lastHeader(KafkaHeaders.EXCEPTION_CAUSE_FQCN));
+    }
+
+    private boolean isDeserializationException(Header fqcn) {
+        return fqcn != null && new String(fqcn.value(), StandardCharsets.UTF_8)
+                .equals(DeserializationException.class.getName());
+    }
+
+    private ProducerRecord<String, Object> toMainTopic(ConsumerRecord<Object, Object> record) {
+        String key = record.key() != null ? new String((byte[]) record.key(), StandardCharsets.UTF_8) : null;
+        return new ProducerRecord<>(topic, null, key, record.value());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.entity.ProductSales;
+import com.example.NotificationService.mapper.OrderMapper;
+import com.example.NotificationService.notification.NotificationDispatcher;
+import com.example.NotificationService.repository.OrderBatchRepository;
+import dto.OrderMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сервис пакетного сохранения заказов из Kafka.
+ * Вся пачка сохраняется в одной транзакции фиксированным числом запросов,
+ * независимо от количества сообщений. Повторно доставленные заказы отсекаются
+ * вставкой в processed_orders с {@code ON CONFLICT DO NOTHING}, без предварительной проверки.
+ * Товары новых заказов в той же транзакции добавляются к накопленным продажам,
+ * по одному приращению на товар за пачку.
+ * После коммита новые заказы передаются в рассылку уведомлений.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderBatchService {
+
+    private final OrderBatchRepository orderBatchRepository;
+    private final OrderMapper orderMapper;
+    private final OrderRollupAccumulator orderRollupAccumulator;
+    private final NotificationDispatcher notificationDispatcher;
+    private final OrderPartitionMaintenance orderPartitionMaintenance;
+
+    /**
+     * Сохраняет пачку сообщений о заказах.
+     * Повторы внутри пачки и уже сохраненные заказы пропускаются.
+     *
+     * @param messages сообщения из одного poll
+     * @return количество сохраненных заказов
+     */
+    @Transactional
+    public int saveBatch(List<OrderMessage> messages) {
+        Map<String, OrderMessage> unique = new LinkedHashMap<>();
+        for (OrderMessage message : messages) {
+            if (message != null && message.getOrderId() != null) {
+                unique.putIfAbsent(message.getOrderId(), message);
+            }
+        }
+        if (unique.isEmpty()) {
+            return 0;
+        }
+
+        List<OrderMessage> candidates = new ArrayList<>(unique.values());
+        List<Order> orders = new ArrayList<>(candidates.size());
+        for (OrderMessage message : candidates) {
+            orders.add(orderMapper.toOrderEntity(message));
+        }
+        orderPartitionMaintenance.ensurePartitions(orders.stream().map(Order::getOrderDate).toList());
+        assignIds(orders, orderBatchRepository.nextOrderIds(orders.size()));
+
+        // Заказы, уже сохраненные ранее, отсекает ON CONFLICT: отдельный SELECT не нужен
+        int[] inserted = orderBatchRepository.insertOrders(orders);
+        List<OrderItem> items = new ArrayList<>();
+        int insertedOrders = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            if (inserted[i] > 0) {
+                insertedOrders++;
+                List<OrderItem> orderItems = orderMapper.toOrderItemEntities(candidates.get(i), orders.get(i));
+                orderRollupAccumulator.record(orders.get(i), orderItems);
+                notificationDispatcher.submit(orders.get(i), orderItems);
+                items.addAll(orderItems);
+            }
+        }
+        if (insertedOrders < orders.size()) {
+            log.debug("[Notification] Пропущено уже сохраненных заказов: {}", orders.size() - insertedOrders);
+        }
+
+        Iterator<Long> itemIds = orderBatchRepository.nextOrderItemIds(items.size()).iterator();
+        items.forEach(item -> item.setId(itemIds.next()));
+        orderBatchRepository.insertOrderItems(items);
+        orderBatchRepository.addProductSales(mergeSales(items));
+
+        log.info("[Notification] Пачка сохранена: получено {}, сохранено заказов {}, товаров {}",
+                messages.size(), insertedOrders, items.size());
+        return insertedOrders;
+    }
+
+    /**
+     * Сводит товары пачки в одно приращение на товар, в порядке productId.
+     */
+    private List<ProductSales> mergeSales(List<OrderItem> items) {
+        Map<Long, ProductSales> sales = new TreeMap<>();
+        for (OrderItem item : items) {
+            ProductSales delta = sales.computeIfAbsent(item.getProductId(),
+                    productId -> new ProductSales(productId, 0L, BigDecimal.ZERO, null));
+            delta.setTotalQuantity(delta.getTotalQuantity() + item.getQuantity());
+            delta.setTotalRevenue(delta.getTotalRevenue().add(item.getItemTotal()));
+        }
+        return new ArrayList<>(sales.values());
+    }
+
+    private void assignIds(List<Order> orders, List<Long> ids) {
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(ids.get(i));
+        }
+    }
+}
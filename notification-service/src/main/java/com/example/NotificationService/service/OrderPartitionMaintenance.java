@@ -0,0 +1,176 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.exception.InvalidOrderMessageException;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.OrderPartitionRepository.OrderPartition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Обслуживание месячных секций заказов.
+ * Заранее создает секции на несколько месяцев вперед, чтобы вставка заказа
+ * никогда не упиралась в отсутствующую секцию, и освобождает место, отсоединяя
+ * или удаляя секции старше срока хранения целиком, без построчного DELETE.
+ * Накопленные продажи товаров и агрегаты заказов при этом не меняются, а граница хранимой истории
+ * запоминается, чтобы их пересчет не стер итоги по удаленным заказам.
+ * Выполняется при старте и по расписанию. Секции прошлых месяцев, на которые заранее
+ * не рассчитывали (заказ доставлен с опозданием), создаются при записи через {@link #ensurePartitions}.
+ */
+@Component
+@Slf4j
+public class OrderPartitionMaintenance implements SmartInitializingSingleton {
+
+    /**
+     * Сначала товары, затем заказы: заказ без товаров не виден в выгрузках дольше, чем товары без заказа.
+     */
+    private static final List<String> TABLES = List.of("order_items", "orders");
+
+    private final OrderPartitionRepository orderPartitionRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropExpired;
+
+    /** Месяцы, секции которых уже существуют: запись заказа в них не обращается к каталогу базы */
+    private final Set<YearMonth> knownMonths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Конструктор задачи обслуживания секций.
+     *
+     * @param orderPartitionRepository репозиторий секций
+     * @param monthsAhead              на сколько месяцев вперед создавать секции
+     * @param retentionMonths          сколько последних месяцев хранить, 0 - хранить все
+     * @param retentionMode            detach или drop
+     * @throws IllegalArgumentException если режим хранения неизвестен
+     */
+    public OrderPartitionMaintenance(OrderPartitionRepository orderPartitionRepository,
+                                     @Value("${app.orders.partitions.months-ahead:3}") int monthsAhead,
+                                     @Value("${app.orders.partitions.retention-months:0}") int retentionMonths,
+                                     @Value("${app.orders.partitions.retention-mode:detach}") String retentionMode) {
+        if (!"detach".equals(retentionMode) && !"drop".equals(retentionMode)) {
+            throw new IllegalArgumentException("Неизвестный режим хранения секций: " + retentionMode);
+        }
+        this.orderPartitionRepository = orderPartitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.dropExpired = "drop".equals(retentionMode);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        maintain();
+    }
+
+    /**
+     * Создает будущие секции и применяет срок хранения по текущему месяцу.
+     */
+    @Scheduled(cron = "${app.orders.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        maintain(YearMonth.now());
+    }
+
+    /**
+     * Создает секции с текущего месяца на monthsAhead вперед и обрабатывает секции,
+     * вышедшие за срок хранения.
+     *
+     * @param currentMonth текущий месяц
+     * @return количество отсоединенных или удаленных секций orders
+     */
+    int maintain(YearMonth currentMonth) {
+        int created = orderPartitionRepository.createPartitions(currentMonth, currentMonth.plusMonths(monthsAhead));
+        if (created > 0) {
+            log.info("[Notification] Созданы секции заказов: {}", created);
+        }
+        int expired = retentionMonths > 0 ? expire(oldestKept(currentMonth)) : 0;
+        if (expired > 0) {
+            // Пересчеты по сырым заказам больше не должны заходить раньше этой границы
+            orderPartitionRepository.raiseRetentionHorizon(oldestKept(currentMonth));
+        }
+        knownMonths.clear();
+        orderPartitionRepository.findPartitions("orders").forEach(partition -> knownMonths.add(partition.month()));
+        return expired;
+    }
+
+    /**
+     * Создает недостающие секции для месяцев заказов, которые сейчас будут записаны.
+     * Вызывается в транзакции записи: секции создаются в ней же, а месяц запоминается
+     * как существующий только после коммита.
+     *
+     * @param orderDates даты записываемых заказов
+     * @throws InvalidOrderMessageException если заказ старше срока хранения: его секция уже удалена или отсоединена
+     */
+    public void ensurePartitions(Collection<LocalDateTime> orderDates) {
+        Set<YearMonth> missing = new TreeSet<>();
+        for (LocalDateTime orderDate : orderDates) {
+            YearMonth month = YearMonth.from(orderDate);
+            if (!knownMonths.contains(month)) {
+                missing.add(month);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        if (retentionMonths > 0 && missing.iterator().next().isBefore(oldestKept(YearMonth.now()))) {
+            throw new InvalidOrderMessageException("Заказ за " + missing.iterator().next()
+                    + " старше срока хранения " + retentionMonths + " мес.");
+        }
+        for (YearMonth month : missing) {
+            if (orderPartitionRepository.createPartitions(month, month) > 0) {
+                log.info("[Notification] Создана секция заказов за {} при записи заказа", month);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    knownMonths.addAll(missing);
+                }
+            });
+        } else {
+            knownMonths.addAll(missing);
+        }
+    }
+
+    private YearMonth oldestKept(YearMonth currentMonth) {
+        return currentMonth.minusMonths(retentionMonths - 1L);
+    }
+
+    /**
+     * Отсоединяет или удаляет секции месяцев раньше oldestKept.
+     *
+     * @return количество отсоединенных или удаленных секций orders
+     */
+    private int expire(YearMonth oldestKept) {
+        int expired = 0;
+        for (String table : TABLES) {
+            for (OrderPartition partition : orderPartitionRepository.findPartitions(table)) {
+                if (!partition.month().isBefore(oldestKept)) {
+                    continue;
+                }
+                if (dropExpired) {
+                    orderPartitionRepository.drop(partition);
+                } else {
+                    orderPartitionRepository.detach(partition);
+                }
+                log.info("[Notification] Секция {} за {} {}", partition.table(), partition.month(),
+                        dropExpired ? "удалена" : "отсоединена");
+                if ("orders".equals(table)) {
+                    expired++;
+                }
+            }
+        }
+        return expired;
+    }
+}
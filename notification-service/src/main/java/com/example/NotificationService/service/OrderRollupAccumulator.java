@@ -0,0 +1,120 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.entity.OrderRollup;
+import com.example.NotificationService.entity.RollupGranularity;
+import com.example.NotificationService.repository.OrderRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Накопитель приращений агрегатов заказов по минутам, часам и дням.
+ * Сохраненные заказы сводятся в памяти в одно приращение на интервал
+ * и периодически сбрасываются в order_rollups одним JDBC пакетом.
+ * Заказ учитывается только после коммита транзакции, в которой он был сохранен.
+ * Несброшенные приращения теряются при аварийной остановке; для восстановления
+ * предназначен пересчет по сырым заказам.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderRollupAccumulator {
+
+    private static final Comparator<OrderRollup.Key> KEY_ORDER = Comparator
+            .comparing(OrderRollup.Key::getGranularity)
+            .thenComparing(OrderRollup.Key::getBucketStart);
+
+    private final OrderRollupRepository orderRollupRepository;
+
+    private final Map<OrderRollup.Key, OrderRollup> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Учитывает сохраненный заказ.
+     * Внутри транзакции заказ попадет в накопитель после ее коммита, вне транзакции - сразу.
+     *
+     * @param order сохраненный заказ
+     * @param items товары заказа
+     */
+    public void record(Order order, List<OrderItem> items) {
+        long itemCount = items.stream().mapToLong(OrderItem::getQuantity).sum();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(order, itemCount);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(order, itemCount);
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает накопленные приращения в базу.
+     * Каждый ключ извлекается из накопителя атомарно, поэтому заказы,
+     * учтенные во время сброса, попадут в следующий сброс. При ошибке записи
+     * приращения возвращаются в накопитель.
+     */
+    @Scheduled(fixedDelayString = "${app.rollups.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<OrderRollup> deltas = new ArrayList<>(pending.size());
+        pending.keySet().stream()
+                .sorted(KEY_ORDER)
+                .forEach(key -> {
+                    OrderRollup delta = pending.remove(key);
+                    if (delta != null) {
+                        deltas.add(delta);
+                    }
+                });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            orderRollupRepository.add(deltas);
+            log.debug("[Notification] Сброшено приращений агрегатов заказов: {}", deltas.size());
+        } catch (Exception e) {
+            deltas.forEach(this::merge);
+            log.error("[Notification] Не удалось сбросить агрегаты заказов ({} приращений): {}",
+                    deltas.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Сбрасывает оставшиеся приращения при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void add(Order order, long itemCount) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            merge(new OrderRollup(granularity, granularity.truncate(order.getOrderDate()),
+                    1L, order.getTotalPrice(), itemCount));
+        }
+    }
+
+    /**
+     * Приращения неизменяемы после помещения в накопитель: слияние создает новый объект,
+     * чтобы извлеченное при сбросе приращение не менялось параллельно.
+     */
+    private void merge(OrderRollup delta) {
+        pending.merge(new OrderRollup.Key(delta.getGranularity(), delta.getBucketStart()), delta,
+                (current, added) -> new OrderRollup(current.getGranularity(), current.getBucketStart(),
+                        current.getOrderCount() + added.getOrderCount(),
+                        current.getRevenue().add(added.getRevenue()),
+                        current.getItemCount() + added.getItemCount()));
+    }
+}
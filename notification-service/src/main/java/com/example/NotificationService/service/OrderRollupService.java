@@ -0,0 +1,119 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.OrderRollupDto;
+import com.example.NotificationService.entity.OrderRollup;
+import com.example.NotificationService.entity.RollupGranularity;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.OrderRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис агрегатов заказов по интервалам времени для дашбордов.
+ * Завершенные интервалы читаются из order_rollups. Текущий интервал и интервалы,
+ * приращения которых еще могут быть не сброшены накопителем, считаются по сырым заказам.
+ */
+@Service
+@Slf4j
+public class OrderRollupService {
+
+    private final OrderRollupRepository orderRollupRepository;
+    private final OrderRollupAccumulator orderRollupAccumulator;
+    private final OrderPartitionRepository orderPartitionRepository;
+    private final Duration flushLag;
+
+    /**
+     * Конструктор сервиса агрегатов.
+     *
+     * @param orderRollupRepository    репозиторий агрегатов
+     * @param orderRollupAccumulator   накопитель приращений
+     * @param orderPartitionRepository репозиторий секций заказов
+     * @param flushIntervalMs          период сброса приращений накопителем
+     */
+    public OrderRollupService(OrderRollupRepository orderRollupRepository,
+                              OrderRollupAccumulator orderRollupAccumulator,
+                              OrderPartitionRepository orderPartitionRepository,
+                              @Value("${app.rollups.flush-interval-ms:5000}") long flushIntervalMs) {
+        this.orderRollupRepository = orderRollupRepository;
+        this.orderRollupAccumulator = orderRollupAccumulator;
+        this.orderPartitionRepository = orderPartitionRepository;
+        // Запас в два периода покрывает сброс, начавшийся перед концом интервала
+        this.flushLag = Duration.ofMillis(2 * flushIntervalMs);
+    }
+
+    /**
+     * Возвращает агрегаты заказов за диапазон времени.
+     * Интервалы без заказов в результат не попадают.
+     *
+     * @param granularity размер интервала
+     * @param from        начало диапазона (округляется вниз до границы интервала)
+     * @param to          конец диапазона не включительно
+     * @return агрегаты по возрастанию начала интервала
+     */
+    @Transactional(readOnly = true)
+    public List<OrderRollupDto> getRollups(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime bucketFrom = granularity.truncate(from);
+        LocalDateTime rawFrom = granularity.truncate(LocalDateTime.now().minus(flushLag));
+
+        List<OrderRollup> rollups = new ArrayList<>();
+        if (bucketFrom.isBefore(rawFrom)) {
+            rollups.addAll(orderRollupRepository.findRange(granularity, bucketFrom, min(to, rawFrom)));
+        }
+        if (rawFrom.isBefore(to)) {
+            rollups.addAll(orderRollupRepository.aggregateOrders(granularity, max(bucketFrom, rawFrom), to));
+        }
+        return rollups.stream()
+                .map(rollup -> new OrderRollupDto(rollup.getBucketStart(), rollup.getOrderCount(),
+                        rollup.getRevenue(), rollup.getItemCount()))
+                .toList();
+    }
+
+    /**
+     * Пересчитывает агрегаты за диапазон дней по сырым заказам.
+     * Используется для восстановления после потери несброшенных приращений.
+     * Перед пересчетом накопитель сбрасывается, чтобы уже учтенные заказы не были добавлены повторно.
+     * Заказы диапазона, сохраненные во время самого пересчета, могут быть учтены дважды,
+     * поэтому пересчитывать стоит завершенные периоды.
+     * Диапазон не может начинаться раньше хранимой истории: агрегаты удаленных по сроку хранения
+     * заказов пересчитать не из чего, и пересчет бы их стер.
+     *
+     * @param from начало диапазона (округляется вниз до начала дня)
+     * @param to   конец диапазона (округляется вверх до начала следующего дня)
+     * @return количество записанных агрегатов
+     * @throws IllegalArgumentException если диапазон начинается раньше хранимой истории заказов
+     */
+    @Transactional
+    public int rebuild(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime dayFrom = RollupGranularity.DAY.truncate(from);
+        LocalDateTime dayTo = RollupGranularity.DAY.truncate(to);
+        if (dayTo.isBefore(to)) {
+            dayTo = RollupGranularity.DAY.next(dayTo);
+        }
+        LocalDateTime rangeFrom = dayFrom;
+        orderPartitionRepository.findRetentionHorizon()
+                .filter(rangeFrom::isBefore)
+                .ifPresent(horizon -> {
+                    throw new IllegalArgumentException("Заказы до " + horizon
+                            + " отсоединены или удалены, пересчет агрегатов возможен только с этой даты");
+                });
+        orderRollupAccumulator.flush();
+        int written = orderRollupRepository.rebuild(dayFrom, dayTo);
+        log.info("[Notification] Агрегаты заказов за {} - {} пересчитаны, записано: {}", dayFrom, dayTo, written);
+        return written;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,19 +1,29 @@
 package com.example.NotificationService.service;
 
+import com.example.NotificationService.dto.OrderCursor;
 import com.example.NotificationService.dto.OrderDto;
+import com.example.NotificationService.dto.OrderPageDto;
 import com.example.NotificationService.entity.Order;
 import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.mapper.OrderDtoMapper;
 import com.example.NotificationService.mapper.OrderMapper;
+import com.example.NotificationService.notification.NotificationDispatcher;
+import com.example.NotificationService.repository.OrderBatchRepository;
 import com.example.NotificationService.repository.OrderRepository;
 import com.example.NotificationService.repository.OrderItemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Унифицированный сервис для работы с заказами.
@@ -25,41 +35,40 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
 
+    /**
+     * Максимальное количество заказов в одном IN запросе за товарами.
+     */
+    private static final int ITEMS_IN_BATCH_SIZE = 1000;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final OrderBatchRepository orderBatchRepository;
     private final OrderMapper orderMapper;
+    private final OrderDtoMapper orderDtoMapper;
+    private final OrderRollupAccumulator orderRollupAccumulator;
+    private final NotificationDispatcher notificationDispatcher;
+    private final OrderPartitionMaintenance orderPartitionMaintenance;
 
     // === Методы для обработки Kafka сообщений ===
 
     /**
-     * Обрабатывает и сохраняет заказ из Kafka сообщения.
+     * Сохраняет заказ с товарами, если заказа с таким orderId еще нет.
+     * Выполняется одним оператором INSERT ... ON CONFLICT DO NOTHING вместо
+     * пары "проверить, затем вставить", поэтому не гоняется с другими потребителями.
      *
      * @param order заказ для сохранения
      * @param orderItems список товаров заказа
-     * @throws RuntimeException если сохранение не удалось
-     */
-    @Transactional
-    public void processOrder(Order order, List<OrderItem> orderItems) {
-        // Сохраняем заказ и товары в одной транзакции
-        Order savedOrder = orderRepository.save(order);
-
-        // Устанавливаем связь с сохраненным заказом
-        orderItems.forEach(item -> item.setOrder(savedOrder));
-
-        orderItemRepository.saveAll(orderItems);
-
-        log.info("Успешно сохранен заказ {} с {} товарами",
-                savedOrder.getOrderId(), orderItems.size());
-    }
-
-    /**
-     * Проверяет существование заказа с указанным orderId.
-     *
-     * @param orderId уникальный идентификатор заказа
-     * @return true если заказ существует, false в противном случае
+     * @return true если заказ был записан, false если он уже существовал
      */
-    public boolean orderExists(String orderId) {
-        return orderRepository.findByOrderId(orderId).isPresent();
+    public boolean saveIfAbsent(Order order, List<OrderItem> orderItems) {
+        orderPartitionMaintenance.ensurePartitions(List.of(order.getOrderDate()));
+        boolean inserted = orderBatchRepository.insertIfAbsent(order, orderItems);
+        if (inserted) {
+            orderRollupAccumulator.record(order, orderItems);
+            notificationDispatcher.submit(order, orderItems);
+            log.info("Успешно сохранен заказ {} с {} товарами", order.getOrderId(), orderItems.size());
+        }
+        return inserted;
     }
 
     // === Методы для REST API ===
@@ -71,9 +80,20 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public List<OrderDto> getAllOrders() {
-        return orderRepository.findAllByOrderByOrderDateDesc().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(orderRepository.findAllByOrderByOrderDateDesc());
+    }
+
+    /**
+     * Возвращает страницу заказов в виде DTO, новые первыми.
+     * Выполняет два запроса: страницу заказов и товары всех заказов страницы.
+     *
+     * @param page номер страницы, начиная с 0
+     * @param size размер страницы
+     * @return список DTO заказов на странице
+     */
+    @Transactional(readOnly = true)
+    public List<OrderDto> getAllOrders(int page, int size) {
+        return convertToDtos(orderRepository.findAllByOrderByOrderDateDescIdDesc(PageRequest.of(page, size)));
     }
 
     /**
@@ -97,9 +117,57 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(orderRepository.findByUserId(userId));
+    }
+
+    /**
+     * Находит страницу заказов пользователя, новые первыми.
+     *
+     * @param userId идентификатор пользователя
+     * @param page номер страницы, начиная с 0
+     * @param size размер страницы
+     * @return список DTO заказов пользователя на странице
+     */
+    @Transactional(readOnly = true)
+    public List<OrderDto> getOrdersByUserId(Long userId, int page, int size) {
+        return convertToDtos(orderRepository.findByUserIdOrderByOrderDateDescIdDesc(userId, PageRequest.of(page, size)));
+    }
+
+    /**
+     * Возвращает страницу заказов по курсору в порядке (order_date desc, id desc).
+     * В отличие от OFFSET пагинации, стоимость чтения не растет с номером страницы:
+     * запрос начинает с позиции курсора по индексу.
+     *
+     * @param userId идентификатор пользователя или null для всех заказов
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit размер страницы
+     * @return страница заказов и курсор следующей страницы
+     * @throws IllegalArgumentException если курсор некорректен
+     */
+    @Transactional(readOnly = true)
+    public OrderPageDto getOrdersPage(Long userId, String cursor, int limit) {
+        // Читаем на один заказ больше, чтобы узнать, есть ли следующая страница
+        int fetchSize = limit + 1;
+        List<Order> orders;
+        if (cursor == null) {
+            PageRequest firstPage = PageRequest.of(0, fetchSize);
+            orders = userId == null
+                    ? orderRepository.findAllByOrderByOrderDateDescIdDesc(firstPage)
+                    : orderRepository.findByUserIdOrderByOrderDateDescIdDesc(userId, firstPage);
+        } else {
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = userId == null
+                    ? orderRepository.findAfterCursor(position.orderDate(), position.id(), fetchSize)
+                    : orderRepository.findByUserIdAfterCursor(userId, position.orderDate(), position.id(), fetchSize);
+        }
+
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            Order last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new OrderPageDto(convertToDtos(orders), nextCursor);
     }
 
     /**
@@ -137,42 +205,45 @@ public class OrderService {
     // === Вспомогательные методы ===
 
     /**
-     * Преобразует сущность Order в DTO.
+     * Преобразует сущность Order в DTO, загружая товары заказа.
      *
      * @param order сущность заказа
      * @return DTO заказа
      */
     private OrderDto convertToDto(Order order) {
-        OrderDto dto = new OrderDto();
-        dto.setId(order.getId());
-        dto.setOrderId(order.getOrderId());
-        dto.setUserId(order.getUserId());
-        dto.setTotalPrice(order.getTotalPrice());
-        dto.setOrderDate(order.getOrderDate());
-
-        // Загружаем items для этого заказа
         List<OrderItem> items = orderItemRepository.findByOrderOrderId(order.getOrderId());
-        List<OrderDto.OrderItemDto> itemDtos = items.stream()
-                .map(this::convertToItemDto)
-                .collect(Collectors.toList());
-        dto.setItems(itemDtos);
-
-        return dto;
+        return orderDtoMapper.toDto(order, items);
     }
 
     /**
-     * Преобразует сущность OrderItem в DTO.
+     * Преобразует список заказов в DTO, загружая товары всех заказов через IN запрос.
+     * Число запросов не зависит от количества заказов: один запрос на каждые
+     * {@value #ITEMS_IN_BATCH_SIZE} заказов вместо запроса на каждый заказ.
+     * Запрос ограничен датами заказов, поэтому читает только секции их месяцев.
      *
-     * @param item сущность товара заказа
-     * @return DTO товара заказа
+     * @param orders сущности заказов
+     * @return DTO заказов в исходном порядке
      */
-    private OrderDto.OrderItemDto convertToItemDto(OrderItem item) {
-        OrderDto.OrderItemDto dto = new OrderDto.OrderItemDto();
-        dto.setProductId(item.getProductId());
-        dto.setQuantity(item.getQuantity());
-        dto.setPrice(item.getPrice());
-        dto.setDiscount(item.getDiscount());
-        dto.setItemTotal(item.getItemTotal());
-        return dto;
+    private List<OrderDto> convertToDtos(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        for (int from = 0; from < orders.size(); from += ITEMS_IN_BATCH_SIZE) {
+            List<Order> chunk = orders.subList(from, Math.min(from + ITEMS_IN_BATCH_SIZE, orders.size()));
+            List<Long> orderIds = chunk.stream()
+                    .map(Order::getId)
+                    .toList();
+            LocalDateTime minDate = chunk.stream().map(Order::getOrderDate).min(Comparator.naturalOrder()).orElseThrow();
+            LocalDateTime maxDate = chunk.stream().map(Order::getOrderDate).max(Comparator.naturalOrder()).orElseThrow();
+            for (OrderItem item : orderItemRepository.findByOrderIdInAndOrderDateBetween(orderIds, minDate, maxDate)) {
+                itemsByOrderId.computeIfAbsent(item.getOrder().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        List<OrderDto> dtos = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            dtos.add(orderDtoMapper.toDto(order, itemsByOrderId.get(order.getId())));
+        }
+        return dtos;
     }
 } 
@@ -0,0 +1,135 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.OrderDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Сервис потоковой выгрузки заказов в формате NDJSON (по заказу в строке).
+ * Заказы с товарами читаются одним запросом через серверный курсор PostgreSQL
+ * порциями по fetch-size строк и сразу пишутся в ответ, поэтому расход памяти
+ * не зависит от количества заказов.
+ */
+@Service
+@Slf4j
+public class OrderStreamService {
+
+    private static final String STREAM_SQL =
+            "SELECT o.id, o.order_id, o.user_id, o.total_price, o.order_date, " +
+            "i.product_id, i.quantity, i.price, i.discount, i.item_total " +
+            "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id AND i.order_date = o.order_date ";
+
+    private static final String ORDER_BY = " ORDER BY o.order_date DESC, o.id DESC";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Конструктор сервиса выгрузки.
+     *
+     * @param dataSource         источник данных
+     * @param transactionManager менеджер транзакций
+     * @param objectMapper       сериализатор JSON
+     * @param fetchSize          количество строк, получаемых с сервера за один раз
+     */
+    public OrderStreamService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${app.orders.stream.fetch-size:500}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Выгружает заказы с товарами в поток, новые первыми.
+     *
+     * @param userId идентификатор пользователя или null для всех заказов
+     * @param out    поток ответа
+     * @return количество выгруженных заказов
+     */
+    public int streamOrders(Long userId, OutputStream out) {
+        NdjsonWriter writer = new NdjsonWriter(out);
+        // Драйвер PostgreSQL использует курсор с fetchSize только вне режима autocommit
+        readOnlyTransaction.executeWithoutResult(status -> {
+            if (userId == null) {
+                streamingJdbcTemplate.query(STREAM_SQL + ORDER_BY, writer);
+            } else {
+                streamingJdbcTemplate.query(STREAM_SQL + "WHERE o.user_id = ?" + ORDER_BY, writer, userId);
+            }
+        });
+        writer.finish();
+        log.debug("[Notification] Выгружено заказов: {}", writer.count);
+        return writer.count;
+    }
+
+    /**
+     * Собирает подряд идущие строки одного заказа в DTO и пишет его строкой NDJSON.
+     */
+    private class NdjsonWriter implements RowCallbackHandler {
+
+        private final OutputStream out;
+        private OrderDto current;
+        private int count;
+
+        private NdjsonWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || current.getId() != id) {
+                write(current);
+                current = new OrderDto(id, rs.getString("order_id"), rs.getLong("user_id"),
+                        rs.getBigDecimal("total_price"), rs.getTimestamp("order_date").toLocalDateTime(),
+                        new ArrayList<>());
+            }
+            long productId = rs.getLong("product_id");
+            if (!rs.wasNull()) {
+                current.getItems().add(new OrderDto.OrderItemDto(productId, rs.getInt("quantity"),
+                        rs.getBigDecimal("price"), rs.getBigDecimal("discount"), rs.getBigDecimal("item_total")));
+            }
+        }
+
+        private void finish() {
+            write(current);
+            current = null;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void write(OrderDto order) {
+            if (order == null) {
+                return;
+            }
+            try {
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
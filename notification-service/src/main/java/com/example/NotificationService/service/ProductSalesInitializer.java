@@ -0,0 +1,22 @@
+package com.example.NotificationService.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Заполняет накопленные продажи при первом запуске на базе с уже сохраненными заказами.
+ * Выполняется после создания бинов, но до запуска Kafka слушателей, чтобы инкрементальные
+ * обновления новых заказов не сделали таблицу непустой раньше пересчета истории.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSalesInitializer implements SmartInitializingSingleton {
+
+    private final ProductSalesService productSalesService;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        productSalesService.rebuildIfEmpty();
+    }
+}
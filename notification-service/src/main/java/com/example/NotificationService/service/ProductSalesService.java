@@ -0,0 +1,110 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.ProductSalesDto;
+import com.example.NotificationService.entity.ProductSales;
+import com.example.NotificationService.repository.OrderBatchRepository;
+import com.example.NotificationService.repository.OrderItemRepository;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.ProductSalesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис накопленных продаж товаров.
+ * Итоги читаются из таблицы product_sales по первичному ключу, а не суммированием order_items.
+ * Таблица пополняется при сохранении заказов; пересчет нужен только для восстановления.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSalesService {
+
+    private final ProductSalesRepository productSalesRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderBatchRepository orderBatchRepository;
+    private final OrderPartitionRepository orderPartitionRepository;
+
+    /**
+     * Возвращает накопленные продажи товара.
+     *
+     * @param productId идентификатор товара
+     * @return продажи товара, нулевые если товар еще не продавался
+     */
+    @Transactional(readOnly = true)
+    public ProductSalesDto getSales(Long productId) {
+        return productSalesRepository.findById(productId)
+                .map(this::toDto)
+                .orElseGet(() -> empty(productId));
+    }
+
+    /**
+     * Возвращает накопленные продажи нескольких товаров одним запросом.
+     *
+     * @param productIds идентификаторы товаров
+     * @return продажи в порядке запрошенных идентификаторов
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSalesDto> getSales(Collection<Long> productIds) {
+        Map<Long, ProductSales> found = productSalesRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductSales::getProductId, Function.identity()));
+        return productIds.stream()
+                .map(productId -> found.containsKey(productId) ? toDto(found.get(productId)) : empty(productId))
+                .toList();
+    }
+
+    /**
+     * Пересчитывает накопленные продажи по всем сохраненным товарам заказов.
+     * Во время пересчета сохранение заказов ожидает его завершения.
+     * Продажи копятся за все время, поэтому после удаления секций по сроку хранения
+     * пересчет запрещен: он потерял бы продажи удаленных заказов.
+     *
+     * @return количество товаров с продажами
+     * @throws IllegalStateException если часть истории заказов уже отсоединена или удалена
+     */
+    @Transactional
+    public int rebuild() {
+        orderPartitionRepository.findRetentionHorizon().ifPresent(horizon -> {
+            throw new IllegalStateException("Заказы до " + horizon
+                    + " отсоединены или удалены, пересчет продаж потерял бы их итоги");
+        });
+        int products = orderBatchRepository.rebuildProductSales();
+        log.info("[Notification] Накопленные продажи пересчитаны, товаров: {}", products);
+        return products;
+    }
+
+    /**
+     * Заполняет пустую таблицу продаж по уже сохраненным заказам.
+     *
+     * @return true если пересчет был выполнен
+     */
+    @Transactional
+    public boolean rebuildIfEmpty() {
+        if (productSalesRepository.count() > 0 || orderItemRepository.count() == 0) {
+            return false;
+        }
+        if (orderPartitionRepository.findRetentionHorizon().isPresent()) {
+            log.warn("[Notification] Таблица накопленных продаж пуста, но часть заказов уже удалена: пересчет пропущен");
+            return false;
+        }
+        log.info("[Notification] Таблица накопленных продаж пуста, выполняем пересчет");
+        rebuild();
+        return true;
+    }
+
+    private ProductSalesDto toDto(ProductSales sales) {
+        return new ProductSalesDto(sales.getProductId(), sales.getTotalQuantity(), sales.getTotalRevenue());
+    }
+
+    private ProductSalesDto empty(Long productId) {
+        return new ProductSalesDto(productId, 0L, BigDecimal.ZERO);
+    }
+}
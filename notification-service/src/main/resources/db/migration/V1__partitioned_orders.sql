@@ -0,0 +1,126 @@
+-- Заказы и товары заказов хранятся в таблицах, секционированных по месяцам order_date.
+-- Старые данные удаляются отсоединением или удалением целых секций, а запросы
+-- с ограничением по order_date читают только нужные секции.
+--
+-- Таблицы, ранее созданные Hibernate (ddl-auto: update), переносятся в новую схему:
+-- они перемещаются в схему legacy вместе с индексами и последовательностями,
+-- данные копируются в секции, после чего схема legacy удаляется.
+
+CREATE SCHEMA IF NOT EXISTS legacy;
+
+DO $$
+BEGIN
+    IF to_regclass('public.order_items') IS NOT NULL THEN
+        ALTER TABLE public.order_items SET SCHEMA legacy;
+    END IF;
+    IF to_regclass('public.orders') IS NOT NULL THEN
+        ALTER TABLE public.orders SET SCHEMA legacy;
+    END IF;
+END $$;
+
+-- Первичный и уникальный ключи секционированной таблицы должны включать ключ секционирования.
+-- Повторная доставка заказа несет тот же order_date, поэтому уникальность (order_id, order_date)
+-- по-прежнему отсекает дубликаты.
+CREATE TABLE orders (
+    id          BIGSERIAL      NOT NULL,
+    order_id    VARCHAR(255)   NOT NULL,
+    user_id     BIGINT         NOT NULL,
+    total_price NUMERIC(10, 2) NOT NULL,
+    order_date  TIMESTAMP      NOT NULL,
+    CONSTRAINT orders_pkey PRIMARY KEY (id, order_date),
+    CONSTRAINT uk_orders_order_id UNIQUE (order_id, order_date)
+) PARTITION BY RANGE (order_date);
+
+-- order_date дублируется из заказа, чтобы товары лежали в секции того же месяца.
+-- Внешнего ключа на orders нет: заказ и товары пишутся одним оператором или одной
+-- транзакцией, а без ключа секции обеих таблиц отсоединяются независимо.
+CREATE TABLE order_items (
+    id         BIGSERIAL      NOT NULL,
+    order_id   BIGINT         NOT NULL,
+    order_date TIMESTAMP      NOT NULL,
+    product_id BIGINT         NOT NULL,
+    quantity   INTEGER        NOT NULL,
+    price      NUMERIC(10, 2) NOT NULL,
+    discount   NUMERIC(5, 2)  NOT NULL,
+    item_total NUMERIC(10, 2) NOT NULL,
+    CONSTRAINT order_items_pkey PRIMARY KEY (id, order_date)
+) PARTITION BY RANGE (order_date);
+
+-- Индексы секционированных таблиц автоматически создаются в каждой секции
+CREATE INDEX idx_orders_user_date ON orders (user_id, order_date DESC, id DESC);
+CREATE INDEX idx_orders_date_id ON orders (order_date DESC, id DESC);
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
+
+-- Создает недостающие месячные секции orders и order_items для месяцев,
+-- пересекающихся с диапазоном [p_from, p_to). Секции называются orders_yYYYYmMM и order_items_yYYYYmMM.
+CREATE OR REPLACE FUNCTION create_order_partitions(p_from DATE, p_to DATE) RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_from);
+    month_end   DATE;
+    suffix      TEXT;
+    created     INTEGER := 0;
+BEGIN
+    WHILE month_start < p_to LOOP
+        month_end := month_start + INTERVAL '1 month';
+        suffix := to_char(month_start, '"y"YYYY"m"MM');
+        IF to_regclass('public.orders_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                           'orders_' || suffix, month_start, month_end);
+            created := created + 1;
+        END IF;
+        IF to_regclass('public.order_items_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF order_items FOR VALUES FROM (%L) TO (%L)',
+                           'order_items_' || suffix, month_start, month_end);
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
+
+-- Секции с прошлого месяца на три месяца вперед; дальше их создает задача обслуживания
+SELECT create_order_partitions((date_trunc('month', now()) - INTERVAL '1 month')::date,
+                               (date_trunc('month', now()) + INTERVAL '4 months')::date);
+
+DO $$
+DECLARE
+    first_order_date TIMESTAMP;
+    last_order_date  TIMESTAMP;
+BEGIN
+    IF to_regclass('legacy.orders') IS NULL THEN
+        RETURN;
+    END IF;
+    SELECT min(order_date), max(order_date) INTO first_order_date, last_order_date FROM legacy.orders;
+    IF first_order_date IS NOT NULL THEN
+        PERFORM create_order_partitions(first_order_date::date, (last_order_date + INTERVAL '1 day')::date);
+        INSERT INTO orders (id, order_id, user_id, total_price, order_date)
+        SELECT id, order_id, user_id, total_price, order_date FROM legacy.orders;
+    END IF;
+    IF to_regclass('legacy.order_items') IS NOT NULL THEN
+        INSERT INTO order_items (id, order_id, order_date, product_id, quantity, price, discount, item_total)
+        SELECT i.id, i.order_id, o.order_date, i.product_id, i.quantity, i.price, i.discount, i.item_total
+        FROM legacy.order_items i JOIN legacy.orders o ON o.id = i.order_id;
+    END IF;
+    PERFORM setval(pg_get_serial_sequence('orders', 'id'), coalesce((SELECT max(id) FROM orders), 0) + 1, false);
+    PERFORM setval(pg_get_serial_sequence('order_items', 'id'),
+                   coalesce((SELECT max(id) FROM order_items), 0) + 1, false);
+END $$;
+
+DROP SCHEMA legacy CASCADE;
+
+-- Агрегаты, которые раньше создавал Hibernate
+CREATE TABLE IF NOT EXISTS product_sales (
+    product_id     BIGINT         NOT NULL PRIMARY KEY,
+    total_quantity BIGINT         NOT NULL,
+    total_revenue  NUMERIC(14, 2) NOT NULL,
+    updated_at     TIMESTAMP      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_rollups (
+    granularity  VARCHAR(6)     NOT NULL,
+    bucket_start TIMESTAMP      NOT NULL,
+    order_count  BIGINT         NOT NULL,
+    revenue      NUMERIC(16, 2) NOT NULL,
+    item_count   BIGINT         NOT NULL,
+    PRIMARY KEY (granularity, bucket_start)
+);
@@ -0,0 +1,52 @@
+-- Уникальный ключ секционированной таблицы orders обязан включать order_date, поэтому
+-- (order_id, order_date) не отсекает повтор заказа с другой датой. Идемпотентность записи
+-- держится на отдельной несекционированной таблице с ключом order_id: заказ сначала занимает
+-- в ней строку и только потом вставляется в orders. Строки не удаляются вместе с секциями,
+-- чтобы повтор давно сохраненного заказа тоже отсекался.
+CREATE TABLE processed_orders (
+    order_id   VARCHAR(255) NOT NULL PRIMARY KEY,
+    order_date TIMESTAMP    NOT NULL
+);
+
+-- Заказы, уже записанные несколько раз с разными датами, сводятся к самой ранней записи.
+-- Накопленные продажи и агрегаты таких заказов посчитаны с повторами: после миграции их
+-- нужно пересчитать (POST /api/products/sales/rebuild и /api/orders/rollups/rebuild).
+INSERT INTO processed_orders (order_id, order_date)
+SELECT order_id, min(order_date) FROM orders GROUP BY order_id;
+
+DELETE FROM order_items i USING orders o
+WHERE i.order_id = o.id
+  AND i.order_date = o.order_date
+  AND NOT EXISTS (SELECT 1 FROM processed_orders p WHERE p.order_id = o.order_id AND p.order_date = o.order_date);
+
+DELETE FROM orders o
+WHERE NOT EXISTS (SELECT 1 FROM processed_orders p WHERE p.order_id = o.order_id AND p.order_date = o.order_date);
+
+-- Секции создаются и при записи заказа прошлого месяца, в транзакции потребителя.
+-- Advisory lock упорядочивает параллельные вызовы: второй дождется коммита первого
+-- и увидит уже созданные секции, а не упадет на CREATE TABLE.
+CREATE OR REPLACE FUNCTION create_order_partitions(p_from DATE, p_to DATE) RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_from);
+    month_end   DATE;
+    suffix      TEXT;
+    created     INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('create_order_partitions'));
+    WHILE month_start < p_to LOOP
+        month_end := month_start + INTERVAL '1 month';
+        suffix := to_char(month_start, '"y"YYYY"m"MM');
+        IF to_regclass('public.orders_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                           'orders_' || suffix, month_start, month_end);
+            created := created + 1;
+        END IF;
+        IF to_regclass('public.order_items_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF order_items FOR VALUES FROM (%L) TO (%L)',
+                           'order_items_' || suffix, month_start, month_end);
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
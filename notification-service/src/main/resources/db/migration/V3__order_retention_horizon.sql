@@ -0,0 +1,8 @@
+-- Начало истории заказов, оставшейся после отсоединения или удаления секций по сроку хранения.
+-- Пересчеты накопленных продаж и агрегатов по сырым заказам не должны затрагивать время
+-- до этой границы: заказов там уже нет, а итоги по ним остались только в агрегатных таблицах.
+-- Строка одна; пока секции не удалялись, таблица пуста.
+CREATE TABLE order_retention_horizon (
+    id              BOOLEAN   NOT NULL PRIMARY KEY DEFAULT TRUE CHECK (id),
+    oldest_retained TIMESTAMP NOT NULL
+);
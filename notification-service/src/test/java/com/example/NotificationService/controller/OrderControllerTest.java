@@ -1,7 +1,9 @@
 package com.example.NotificationService.controller;
 
 import com.example.NotificationService.dto.OrderDto;
+import com.example.NotificationService.dto.OrderPageDto;
 import com.example.NotificationService.service.OrderService;
+import com.example.NotificationService.service.OrderStreamService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -13,6 +15,8 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +33,9 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderStreamService orderStreamService;
+
     @Test
     void getAllOrders_WithOrders_ShouldReturnOrderList() throws Exception {
         // Arrange
@@ -101,6 +108,45 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void getAllOrders_WithPageSize_ShouldRejectInvalidAndCapLarge() throws Exception {
+        // Arrange
+        when(orderService.getAllOrders(0, 1000)).thenReturn(List.of(createTestOrderDto()));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/orders/all").param("page", "0").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/user/1").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/all").param("page", "0").param("size", "1000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        verify(orderService, never()).getAllOrders(0, 0);
+    }
+
+    @Test
+    void getOrdersPage_ShouldReturnOrdersAndNextCursor() throws Exception {
+        // Arrange
+        OrderDto orderDto = createTestOrderDto();
+        when(orderService.getOrdersPage(null, null, 1)).thenReturn(new OrderPageDto(List.of(orderDto), "next"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/orders/page").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void getOrdersPageByUserId_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        when(orderService.getOrdersPage(1L, "broken", 100)).thenThrow(new IllegalArgumentException("Некорректный курсор"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/orders/user/1/page").param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
     private OrderDto createTestOrderDto() {
         OrderDto orderDto = new OrderDto();
         orderDto.setId(1L);
@@ -0,0 +1,138 @@
+package com.example.NotificationService.kafka;
+
+import dto.OrderMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import metrics.MeterNames;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderParallelConsumerTest {
+
+    @Mock
+    private OrderConsumer orderConsumer;
+
+    @Mock
+    private OrderRetryPublisher orderRetryPublisher;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OrderParallelConsumer parallelConsumer;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        OrderRecordTracing orderRecordTracing = new OrderRecordTracing(
+                beanFactory.getBeanProvider(ObservationRegistry.class), beanFactory.getBeanProvider(Tracer.class),
+                beanFactory.getBeanProvider(Propagator.class), meterRegistry);
+        parallelConsumer = new OrderParallelConsumer(orderConsumer, orderRetryPublisher, orderRecordTracing,
+                1, 4, "user-id", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelConsumer.shutdown();
+    }
+
+    @Test
+    void consume_WhenAllRecordsProcessed_ShouldAcknowledgeWholeBatch() {
+        // Arrange
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> processed.add(((OrderMessage) invocation.getArgument(0)).getOrderId()))
+                .when(orderConsumer).process(any());
+        List<ConsumerRecord<String, OrderMessage>> records = List.of(
+                record(0, "a-1", 1L), record(1, "b-1", 2L), record(2, "a-2", 1L),
+                record(3, "c-1", 3L), record(4, "a-3", 1L));
+
+        // Act
+        parallelConsumer.consume(records, acknowledgment);
+
+        // Assert
+        verify(acknowledgment).acknowledge();
+        verify(acknowledgment, never()).nack(anyInt(), any(Duration.class));
+        assertEquals(5, processed.size());
+        // Заказы одного пользователя обрабатываются в порядке offsets
+        List<String> userOne = processed.stream().filter(id -> id.startsWith("a-")).toList();
+        assertEquals(List.of("a-1", "a-2", "a-3"), userOne);
+        assertEquals(5, meterRegistry.get(MeterNames.CONSUMER_PROCESSING)
+                .tag(MeterNames.TAG_OUTCOME, MeterNames.OUTCOME_SUCCESS).timer().count());
+    }
+
+    @Test
+    void consume_WhenRecordFails_ShouldSendItToRetryTopicAndAcknowledgeBatch() {
+        // Arrange
+        RuntimeException failure = new RuntimeException("db down");
+        doAnswer(invocation -> {
+            if ("a-2".equals(((OrderMessage) invocation.getArgument(0)).getOrderId())) {
+                throw failure;
+            }
+            return null;
+        }).when(orderConsumer).process(any());
+        List<ConsumerRecord<String, OrderMessage>> records = List.of(
+                record(0, "a-1", 1L), record(1, "b-1", 2L), record(2, "a-2", 1L),
+                record(3, "c-1", 3L), record(4, "a-3", 1L));
+
+        // Act
+        parallelConsumer.consume(records, acknowledgment);
+
+        // Assert
+        verify(orderRetryPublisher).sendToRetry(records.get(2), failure);
+        verify(acknowledgment).acknowledge();
+        verify(orderConsumer, times(5)).process(any());
+    }
+
+    @Test
+    void consume_WhenRetryPublishFails_ShouldCommitOnlyProcessedPrefixAndStopItsKey() {
+        // Arrange
+        doAnswer(invocation -> {
+            if ("a-2".equals(((OrderMessage) invocation.getArgument(0)).getOrderId())) {
+                throw new RuntimeException("db down");
+            }
+            return null;
+        }).when(orderConsumer).process(any());
+        doThrow(new IllegalStateException("kafka down")).when(orderRetryPublisher).sendToRetry(any(), any());
+        List<ConsumerRecord<String, OrderMessage>> records = List.of(
+                record(0, "a-1", 1L), record(1, "b-1", 2L), record(2, "a-2", 1L),
+                record(3, "c-1", 3L), record(4, "a-3", 1L));
+
+        // Act
+        parallelConsumer.consume(records, acknowledgment);
+
+        // Assert
+        verify(acknowledgment).nack(2, Duration.ofMillis(100));
+        verify(acknowledgment, never()).acknowledge();
+        // Следующий заказ того же пользователя не обгоняет необработанный
+        verify(orderConsumer, never()).process(argThat(message -> message != null && "a-3".equals(message.getOrderId())));
+    }
+
+    private ConsumerRecord<String, OrderMessage> record(long offset, String orderId, Long userId) {
+        OrderMessage message = new OrderMessage();
+        message.setOrderId(orderId);
+        message.setUserId(userId);
+        return new ConsumerRecord<>("orders", 0, offset, orderId, message);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.NotificationService.kafka;
+
+import dto.OrderMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderRetryPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderRetryPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new OrderRetryPublisher(kafkaTemplate, meterRegistry, "orders", 5000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendToRetry_ShouldPublishToFirstRetryTopicWithFrameworkHeaders() {
+        // Arrange
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        OrderMessage message = new OrderMessage();
+        message.setOrderId("order-1");
+        ConsumerRecord<String, OrderMessage> record = new ConsumerRecord<>("orders", 2, 42L, "order-1", message);
+        long before = System.currentTimeMillis();
+
+        // Act
+        publisher.sendToRetry(record, new RuntimeException("db down"));
+
+        // Assert
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        ProducerRecord<String, Object> sent = captor.getValue();
+        assertEquals("orders-retry-0", sent.topic());
+        assertEquals("order-1", sent.key());
+        assertSame(message, sent.value());
+        Headers headers = sent.headers();
+        assertEquals(2, ByteBuffer.wrap(headers.lastHeader(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS).value()).getInt());
+        long backoffUntil = new BigInteger(headers.lastHeader(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP).value())
+                .longValue();
+        assertTrue(backoffUntil >= before + 5000);
+        assertEquals(42L, ByteBuffer.wrap(headers.lastHeader(KafkaHeaders.ORIGINAL_OFFSET).value()).getLong());
+        assertEquals(1.0, meterRegistry.counter(OrderRetryPublisher.RETRY_COUNTER, "topic", "orders-retry-0").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendToDltIfPoisonPill_ShouldPublishRawBytesToDlt() {
+        // Arrange
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        byte[] data = "not json".getBytes();
+        RecordHeaders headers = new RecordHeaders();
+        OrderMessage value;
+        try (ErrorHandlingDeserializer<OrderMessage> deserializer =
+                     new ErrorHandlingDeserializer<>(new JsonDeserializer<>(OrderMessage.class))) {
+            value = deserializer.deserialize("orders", headers, data);
+        }
+        ConsumerRecord<String, OrderMessage> record = new ConsumerRecord<>("orders", 0, 7L, 0L,
+                TimestampType.CREATE_TIME, 0, data.length, "order-2", value, headers, Optional.empty());
+
+        // Act
+        boolean sent = publisher.sendToDltIfPoisonPill(record);
+
+        // Assert
+        assertTrue(sent);
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals("orders-dlt", captor.getValue().topic());
+        assertArrayEquals(data, (byte[]) captor.getValue().value());
+        assertEquals(1.0, meterRegistry.counter(OrderRetryPublisher.DLT_COUNTER, "reason", "deserialization").count());
+    }
+
+    @Test
+    void sendToDltIfPoisonPill_WhenValuePresent_ShouldNotPublish() {
+        // Arrange
+        ConsumerRecord<String, OrderMessage> record =
+                new ConsumerRecord<>("orders", 0, 7L, "order-3", new OrderMessage());
+
+        // Act & Assert
+        assertFalse(publisher.sendToDltIfPoisonPill(record));
+        verifyNoInteractions(kafkaTemplate);
+    }
+}
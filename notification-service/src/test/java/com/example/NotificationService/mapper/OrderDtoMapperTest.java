@@ -0,0 +1,74 @@
+package com.example.NotificationService.mapper;
+
+import com.example.NotificationService.dto.OrderDto;
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDtoMapperTest {
+
+    private OrderDtoMapper orderDtoMapper;
+
+    @BeforeEach
+    void setUp() {
+        orderDtoMapper = new OrderDtoMapper();
+    }
+
+    @Test
+    void toDto_WithOrderAndItems_ShouldCopyAllFields() {
+        // Arrange
+        LocalDateTime orderDate = LocalDateTime.now();
+        Order order = new Order();
+        order.setId(1L);
+        order.setOrderId("order-123");
+        order.setUserId(1L);
+        order.setTotalPrice(BigDecimal.valueOf(150.0));
+        order.setOrderDate(orderDate);
+
+        OrderItem item = new OrderItem();
+        item.setProductId(10L);
+        item.setQuantity(2);
+        item.setPrice(BigDecimal.valueOf(50.0));
+        item.setDiscount(BigDecimal.valueOf(0.1));
+        item.setItemTotal(BigDecimal.valueOf(90.0));
+
+        // Act
+        OrderDto dto = orderDtoMapper.toDto(order, List.of(item));
+
+        // Assert
+        assertEquals(1L, dto.getId());
+        assertEquals("order-123", dto.getOrderId());
+        assertEquals(1L, dto.getUserId());
+        assertEquals(BigDecimal.valueOf(150.0), dto.getTotalPrice());
+        assertEquals(orderDate, dto.getOrderDate());
+        assertEquals(1, dto.getItems().size());
+
+        OrderDto.OrderItemDto itemDto = dto.getItems().get(0);
+        assertEquals(10L, itemDto.getProductId());
+        assertEquals(2, itemDto.getQuantity());
+        assertEquals(BigDecimal.valueOf(50.0), itemDto.getPrice());
+        assertEquals(BigDecimal.valueOf(0.1), itemDto.getDiscount());
+        assertEquals(BigDecimal.valueOf(90.0), itemDto.getItemTotal());
+    }
+
+    @Test
+    void toDto_WithNullItems_ShouldReturnEmptyItemList() {
+        // Arrange
+        Order order = new Order();
+        order.setOrderId("order-123");
+
+        // Act
+        OrderDto dto = orderDtoMapper.toDto(order, null);
+
+        // Assert
+        assertNotNull(dto.getItems());
+        assertTrue(dto.getItems().isEmpty());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.NotificationService.mapper;
 
 import com.example.NotificationService.entity.Order;
 import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.exception.InvalidOrderMessageException;
 import dto.OrderMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,7 +45,7 @@ class OrderMapperTest {
     }
 
     @Test
-    void toOrderEntity_WithNullDate_ShouldUseCurrentDate() {
+    void toOrderEntity_WithMissingOrInvalidDate_ShouldRejectMessage() {
         // Arrange
         OrderMessage message = new OrderMessage();
         message.setOrderId("order-123");
@@ -52,12 +53,10 @@ class OrderMapperTest {
         message.setTotalPrice(BigDecimal.valueOf(150.0));
         message.setOrderDate(null);
 
-        // Act
-        Order order = orderMapper.toOrderEntity(message);
-
-        // Assert
-        assertNotNull(order);
-        assertNotNull(order.getOrderDate());
+        // Act & Assert
+        assertThrows(InvalidOrderMessageException.class, () -> orderMapper.toOrderEntity(message));
+        message.setOrderDate("вчера");
+        assertThrows(InvalidOrderMessageException.class, () -> orderMapper.toOrderEntity(message));
     }
 
     @Test
@@ -0,0 +1,167 @@
+package com.example.NotificationService.notification;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void submit_ShouldCoalesceOrdersOfSameUser() throws Exception {
+        // Arrange
+        RecordingChannel channel = new RecordingChannel("file");
+        NotificationDispatcher dispatcher = dispatcher(50, 0, channel);
+
+        // Act
+        dispatcher.submit(order("order-1", 1L, "10.00"), List.of(item(2)));
+        dispatcher.submit(order("order-2", 2L, "5.00"), List.of(item(1)));
+        dispatcher.submit(order("order-3", 1L, "7.50"), List.of(item(3)));
+        dispatcher.shutdown();
+
+        // Assert
+        assertEquals(1, channel.batches.size());
+        Notification first = channel.batches.get(0).stream()
+                .filter(notification -> notification.getUserId() == 1L).findFirst().orElseThrow();
+        assertEquals(List.of("order-1", "order-3"), first.getOrderIds());
+        assertEquals(new BigDecimal("17.50"), first.getTotalPrice());
+        assertEquals(5, first.getItemCount());
+        assertEquals(2, channel.batches.get(0).size());
+        assertEquals(2.0, meterRegistry.counter(NotificationDispatcher.SENT_COUNTER, "channel", "file").count());
+    }
+
+    @Test
+    void flushDue_ShouldKeepNotificationsInsideCoalesceWindow() throws Exception {
+        // Arrange
+        RecordingChannel channel = new RecordingChannel("file");
+        NotificationDispatcher dispatcher = dispatcher(50, 60_000, channel);
+        dispatcher.submit(order("order-1", 1L, "10.00"), List.of(item(1)));
+
+        // Act
+        dispatcher.flushDue();
+
+        // Assert
+        assertEquals(0, dispatcher.flush(System.nanoTime() - 60_000_000_000L));
+        dispatcher.shutdown();
+        assertEquals(1, channel.batches.size());
+    }
+
+    @Test
+    void flush_ShouldSendBatchesToEveryChannelAndCountFailures() throws Exception {
+        // Arrange
+        RecordingChannel file = new RecordingChannel("file");
+        RecordingChannel email = new RecordingChannel("email");
+        email.failing = true;
+        NotificationDispatcher dispatcher = dispatcher(2, 0, file, email);
+        for (long userId = 1; userId <= 5; userId++) {
+            dispatcher.submit(order("order-" + userId, userId, "1.00"), List.of(item(1)));
+        }
+
+        // Act
+        dispatcher.shutdown();
+
+        // Assert
+        assertEquals(List.of(1, 2, 2), file.batches.stream().map(List::size).sorted().toList());
+        assertEquals(5.0, meterRegistry.counter(NotificationDispatcher.SENT_COUNTER, "channel", "file").count());
+        assertEquals(5.0, meterRegistry.counter(NotificationDispatcher.FAILED_COUNTER, "channel", "email").count());
+    }
+
+    @Test
+    void flush_WithBlockedChannel_ShouldKeepDeliveringToOtherChannels() throws Exception {
+        // Arrange
+        RecordingChannel file = new RecordingChannel("file");
+        RecordingChannel email = new RecordingChannel("email");
+        email.release = new CountDownLatch(1);
+        NotificationDispatcher dispatcher = dispatcher(1, 0, file, email);
+        for (long userId = 1; userId <= 10; userId++) {
+            dispatcher.submit(order("order-" + userId, userId, "1.00"), List.of(item(1)));
+        }
+
+        // Act
+        dispatcher.flush(System.nanoTime());
+
+        // Assert: потоки почты заняты, но файл получает все пачки
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (file.batches.size() < 10) {
+            assertTrue(System.nanoTime() < deadline, "файл не получил уведомления, пока почта занята");
+            Thread.sleep(10);
+        }
+        assertTrue(email.batches.isEmpty());
+        email.release.countDown();
+        dispatcher.shutdown();
+        assertEquals(10, email.batches.size());
+        assertEquals(0.0, meterRegistry.counter(NotificationDispatcher.DROPPED_COUNTER,
+                "channel", "file", "reason", "queue-full").count());
+    }
+
+    private NotificationDispatcher dispatcher(int batchSize, long coalesceWindowMs, NotificationChannel... channels) {
+        Map<String, Object> beans = new LinkedHashMap<>();
+        for (NotificationChannel channel : channels) {
+            beans.put(channel.name(), channel);
+        }
+        return new NotificationDispatcher(new StaticListableBeanFactory(beans).getBeanProvider(NotificationChannel.class),
+                meterRegistry, 2, 10, coalesceWindowMs, batchSize, 100);
+    }
+
+    private Order order(String orderId, Long userId, String totalPrice) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(userId);
+        order.setTotalPrice(new BigDecimal(totalPrice));
+        return order;
+    }
+
+    private OrderItem item(int quantity) {
+        OrderItem item = new OrderItem();
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static class RecordingChannel implements NotificationChannel {
+
+        private final String name;
+        private final List<List<Notification>> batches = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean failing;
+        private volatile CountDownLatch release;
+
+        RecordingChannel(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void send(List<Notification> notifications) throws InterruptedException {
+            if (release != null) {
+                release.await();
+            }
+            if (failing) {
+                throw new IllegalStateException("канал недоступен");
+            }
+            batches.add(notifications);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.NotificationService.notification;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void reserve_ShouldAllowBurstUpToCapacityThenWaitForRefill() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long start = System.nanoTime();
+
+        // Act & Assert
+        assertEquals(0, bucket.reserve(5, start));
+        assertEquals(100_000_000L, bucket.reserve(1, start));
+        // Через 0,2 с пополнились 2 разрешения, одно из них погасило долг
+        assertEquals(0, bucket.reserve(1, start + 200_000_000L));
+    }
+
+    @Test
+    void reserve_ShouldLetBatchLargerThanCapacityPassWithDebt() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long start = System.nanoTime();
+
+        // Act
+        long firstWait = bucket.reserve(8, start);
+        long secondWait = bucket.reserve(1, start);
+
+        // Assert
+        assertEquals(300_000_000L, firstWait);
+        assertEquals(400_000_000L, secondWait);
+    }
+}
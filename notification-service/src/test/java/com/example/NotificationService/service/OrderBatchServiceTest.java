@@ -0,0 +1,121 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.entity.ProductSales;
+import com.example.NotificationService.mapper.OrderMapper;
+import com.example.NotificationService.notification.NotificationDispatcher;
+import com.example.NotificationService.repository.OrderBatchRepository;
+import dto.OrderMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchServiceTest {
+
+    @Mock
+    private OrderBatchRepository orderBatchRepository;
+
+    @Mock
+    private OrderRollupAccumulator orderRollupAccumulator;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private OrderPartitionMaintenance orderPartitionMaintenance;
+
+    @Spy
+    private OrderMapper orderMapper = new OrderMapper();
+
+    @InjectMocks
+    private OrderBatchService orderBatchService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveBatch_WithDuplicatesAndExistingOrders_ShouldInsertOnlyNewOrders() {
+        // Arrange
+        OrderMessage first = message("order-1", 2);
+        OrderMessage duplicate = message("order-1", 2);
+        OrderMessage existing = message("order-2", 1);
+        OrderMessage fresh = message("order-3", 1);
+
+        when(orderBatchRepository.nextOrderIds(3)).thenReturn(List.of(100L, 101L, 102L));
+        // order-2 уже сохранен: ON CONFLICT DO NOTHING возвращает 0 строк
+        when(orderBatchRepository.insertOrders(any())).thenReturn(new int[]{1, 0, 1});
+        when(orderBatchRepository.nextOrderItemIds(3)).thenReturn(List.of(200L, 201L, 202L));
+
+        // Act
+        int saved = orderBatchService.saveBatch(List.of(first, duplicate, existing, fresh));
+
+        // Assert
+        assertEquals(2, saved);
+
+        ArgumentCaptor<List<Order>> ordersCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderBatchRepository).insertOrders(ordersCaptor.capture());
+        List<Order> orders = ordersCaptor.getValue();
+        assertEquals(List.of("order-1", "order-2", "order-3"), orders.stream().map(Order::getOrderId).toList());
+
+        ArgumentCaptor<List<OrderItem>> itemsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderBatchRepository).insertOrderItems(itemsCaptor.capture());
+        List<OrderItem> items = itemsCaptor.getValue();
+        assertEquals(List.of(200L, 201L, 202L), items.stream().map(OrderItem::getId).toList());
+        assertEquals(List.of(100L, 100L, 102L), items.stream().map(item -> item.getOrder().getId()).toList());
+
+        // Товар 1 есть в двух новых заказах: одно приращение на товар
+        ArgumentCaptor<List<ProductSales>> salesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderBatchRepository).addProductSales(salesCaptor.capture());
+        List<ProductSales> sales = salesCaptor.getValue();
+        assertEquals(List.of(1L, 2L), sales.stream().map(ProductSales::getProductId).toList());
+        assertEquals(List.of(2L, 1L), sales.stream().map(ProductSales::getTotalQuantity).toList());
+    }
+
+    @Test
+    void saveBatch_WhenAllOrdersExist_ShouldNotInsertItems() {
+        // Arrange
+        when(orderBatchRepository.nextOrderIds(1)).thenReturn(List.of(100L));
+        when(orderBatchRepository.insertOrders(any())).thenReturn(new int[]{0});
+
+        // Act
+        int saved = orderBatchService.saveBatch(List.of(message("order-1", 1)));
+
+        // Assert
+        assertEquals(0, saved);
+        verify(orderBatchRepository).insertOrderItems(List.of());
+    }
+
+    private OrderMessage message(String orderId, int itemCount) {
+        OrderMessage message = new OrderMessage();
+        message.setOrderId(orderId);
+        message.setUserId(1L);
+        message.setUsername("testuser");
+        message.setTotalPrice(BigDecimal.valueOf(100.0));
+        message.setOrderDate(LocalDateTime.now().toString());
+        List<OrderMessage.OrderItemMessage> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            OrderMessage.OrderItemMessage item = new OrderMessage.OrderItemMessage();
+            item.setProductId((long) i + 1);
+            item.setQuantity(1);
+            item.setPrice(BigDecimal.valueOf(50.0));
+            item.setDiscount(BigDecimal.ZERO);
+            item.setItemTotal(BigDecimal.valueOf(50.0));
+            items.add(item);
+        }
+        message.setItems(items);
+        return message;
+    }
+}
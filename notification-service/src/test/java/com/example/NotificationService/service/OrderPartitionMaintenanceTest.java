@@ -0,0 +1,179 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.exception.InvalidOrderMessageException;
+import com.example.NotificationService.repository.OrderBatchRepository;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.OrderPartitionRepository.OrderPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет создание месячных секций заказов, срок хранения и отсечение секций в запросах на PostgreSQL.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderPartitionRepository.class, OrderBatchRepository.class, OrderServiceQueryCountTest.EmbeddedPostgresConfig.class})
+class OrderPartitionMaintenanceTest {
+
+    private static final YearMonth CURRENT_MONTH = YearMonth.now();
+
+    @Autowired
+    private OrderPartitionRepository orderPartitionRepository;
+
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void maintain_ShouldCreatePartitionsAheadForBothTables() {
+        // Arrange
+        OrderPartitionMaintenance maintenance = new OrderPartitionMaintenance(orderPartitionRepository, 6, 0, "detach");
+
+        // Act
+        maintenance.maintain(CURRENT_MONTH);
+
+        // Assert
+        for (String table : List.of("orders", "order_items")) {
+            List<YearMonth> months = months(table);
+            for (int i = 0; i <= 6; i++) {
+                assertTrue(months.contains(CURRENT_MONTH.plusMonths(i)), table + " " + CURRENT_MONTH.plusMonths(i));
+            }
+        }
+    }
+
+    @Test
+    void maintain_WithDropRetention_ShouldDropExpiredPartitionsOnly() {
+        // Arrange
+        orderPartitionRepository.createPartitions(CURRENT_MONTH.minusMonths(4), CURRENT_MONTH);
+        insertOrder("old", CURRENT_MONTH.minusMonths(4));
+        insertOrder("kept", CURRENT_MONTH.minusMonths(1));
+        OrderPartitionMaintenance maintenance = new OrderPartitionMaintenance(orderPartitionRepository, 3, 2, "drop");
+
+        // Act
+        int expired = maintenance.maintain(CURRENT_MONTH);
+
+        // Assert
+        assertEquals(3, expired);
+        assertEquals(CURRENT_MONTH.minusMonths(1), months("orders").get(0));
+        assertEquals(CURRENT_MONTH.minusMonths(1), months("order_items").get(0));
+        assertEquals(List.of("kept"), jdbcTemplate.queryForList("SELECT order_id FROM orders", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM order_items", Integer.class));
+        assertEquals(Optional.of(CURRENT_MONTH.minusMonths(1).atDay(1).atStartOfDay()),
+                orderPartitionRepository.findRetentionHorizon());
+    }
+
+    @Test
+    void maintain_WithDetachRetention_ShouldKeepDetachedTable() {
+        // Arrange
+        YearMonth expiredMonth = CURRENT_MONTH.minusMonths(3);
+        orderPartitionRepository.createPartitions(expiredMonth, CURRENT_MONTH);
+        insertOrder("old", expiredMonth);
+        OrderPartitionMaintenance maintenance = new OrderPartitionMaintenance(orderPartitionRepository, 3, 3, "detach");
+
+        // Act
+        maintenance.maintain(CURRENT_MONTH);
+
+        // Assert
+        assertFalse(months("orders").contains(expiredMonth));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM orders", Integer.class));
+        String detached = String.format("orders_y%04dm%02d", expiredMonth.getYear(), expiredMonth.getMonthValue());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM " + detached, Integer.class));
+    }
+
+    @Test
+    void ensurePartitions_ShouldCreateMissingPastMonthWithinRetention() {
+        // Arrange
+        YearMonth lateMonth = CURRENT_MONTH.minusMonths(5);
+        OrderPartitionMaintenance maintenance = new OrderPartitionMaintenance(orderPartitionRepository, 3, 12, "drop");
+
+        // Act
+        maintenance.ensurePartitions(List.of(lateMonth.atDay(3).atStartOfDay()));
+
+        // Assert
+        assertTrue(months("orders").contains(lateMonth));
+        assertTrue(months("order_items").contains(lateMonth));
+        assertThrows(InvalidOrderMessageException.class, () ->
+                maintenance.ensurePartitions(List.of(CURRENT_MONTH.minusMonths(12).atDay(1).atStartOfDay())));
+    }
+
+    @Test
+    void insertIfAbsent_WithRedeliveryUnderAnotherDate_ShouldKeepSingleOrder() {
+        // Arrange
+        orderPartitionRepository.createPartitions(CURRENT_MONTH.minusMonths(1), CURRENT_MONTH);
+        Order first = order("order-1", CURRENT_MONTH.atDay(1).atStartOfDay());
+        Order redelivered = order("order-1", CURRENT_MONTH.minusMonths(1).atDay(1).atStartOfDay());
+
+        // Act
+        boolean firstInserted = orderBatchRepository.insertIfAbsent(first, List.of());
+        boolean redeliveredInserted = orderBatchRepository.insertIfAbsent(redelivered, List.of());
+
+        // Assert
+        assertTrue(firstInserted);
+        assertFalse(redeliveredInserted);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM orders WHERE order_id = 'order-1'", Integer.class));
+    }
+
+    @Test
+    void cursorQuery_ShouldScanOnlyPartitionsUpToCursor() {
+        // Arrange
+        orderPartitionRepository.createPartitions(CURRENT_MONTH.minusMonths(2), CURRENT_MONTH.plusMonths(3));
+        LocalDateTime cursorDate = CURRENT_MONTH.minusMonths(1).atDay(10).atStartOfDay();
+
+        // Act
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM orders WHERE order_date <= ? AND (order_date, id) < (?, ?) " +
+                        "ORDER BY order_date DESC, id DESC LIMIT 10",
+                String.class, Timestamp.valueOf(cursorDate), Timestamp.valueOf(cursorDate), 1L));
+
+        // Assert
+        assertTrue(plan.contains(partition(CURRENT_MONTH.minusMonths(1))), plan);
+        assertTrue(plan.contains(partition(CURRENT_MONTH.minusMonths(2))), plan);
+        assertFalse(plan.contains(partition(CURRENT_MONTH)), plan);
+        assertFalse(plan.contains(partition(CURRENT_MONTH.plusMonths(1))), plan);
+    }
+
+    private List<YearMonth> months(String table) {
+        return orderPartitionRepository.findPartitions(table).stream()
+                .map(OrderPartition::month)
+                .sorted()
+                .toList();
+    }
+
+    private String partition(YearMonth month) {
+        return String.format("orders_y%04dm%02d ", month.getYear(), month.getMonthValue());
+    }
+
+    private static Order order(String orderId, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(1L);
+        order.setTotalPrice(BigDecimal.TEN);
+        order.setOrderDate(orderDate);
+        return order;
+    }
+
+    private void insertOrder(String orderId, YearMonth month) {
+        Timestamp orderDate = Timestamp.valueOf(month.atDay(15).atStartOfDay());
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO orders (order_id, user_id, total_price, order_date) VALUES (?, 1, 10.00, ?) RETURNING id",
+                Long.class, orderId, orderDate);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, order_date, product_id, quantity, price, discount, " +
+                "item_total) VALUES (?, ?, 1, 1, 10.00, 0, 10.00)", id, orderDate);
+    }
+}
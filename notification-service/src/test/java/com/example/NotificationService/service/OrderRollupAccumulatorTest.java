@@ -0,0 +1,99 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.entity.OrderRollup;
+import com.example.NotificationService.entity.RollupGranularity;
+import com.example.NotificationService.repository.OrderRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderRollupAccumulatorTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 3, 1, 10, 15, 30);
+
+    @Mock
+    private OrderRollupRepository orderRollupRepository;
+
+    @InjectMocks
+    private OrderRollupAccumulator accumulator;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteOneMergedDeltaPerBucket() {
+        // Arrange
+        accumulator.record(order(TIME, "10.00"), List.of(item(2), item(1)));
+        accumulator.record(order(TIME.plusSeconds(10), "5.50"), List.of(item(1)));
+        accumulator.record(order(TIME.plusMinutes(1), "1.00"), List.of(item(4)));
+
+        // Act
+        accumulator.flush();
+
+        // Assert
+        ArgumentCaptor<List<OrderRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderRollupRepository).add(captor.capture());
+        List<OrderRollup> deltas = captor.getValue();
+        // Две минуты, один час, один день, в порядке ключей
+        assertEquals(List.of(RollupGranularity.MINUTE, RollupGranularity.MINUTE, RollupGranularity.HOUR,
+                RollupGranularity.DAY), deltas.stream().map(OrderRollup::getGranularity).toList());
+        OrderRollup firstMinute = deltas.get(0);
+        assertEquals(LocalDateTime.of(2024, 3, 1, 10, 15), firstMinute.getBucketStart());
+        assertEquals(2L, firstMinute.getOrderCount());
+        assertEquals(new BigDecimal("15.50"), firstMinute.getRevenue());
+        assertEquals(4L, firstMinute.getItemCount());
+        OrderRollup day = deltas.get(3);
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), day.getBucketStart());
+        assertEquals(3L, day.getOrderCount());
+        assertEquals(8L, day.getItemCount());
+
+        // Повторный сброс без новых заказов ничего не пишет
+        accumulator.flush();
+        verifyNoMoreInteractions(orderRollupRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WhenWriteFails_ShouldKeepDeltasForNextFlush() {
+        // Arrange
+        accumulator.record(order(TIME, "10.00"), List.of(item(1)));
+        doThrow(new RuntimeException("db down")).doNothing().when(orderRollupRepository).add(any());
+        accumulator.flush();
+        accumulator.record(order(TIME, "2.00"), List.of(item(1)));
+
+        // Act
+        accumulator.flush();
+
+        // Assert
+        ArgumentCaptor<List<OrderRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderRollupRepository, times(2)).add(captor.capture());
+        OrderRollup minute = captor.getValue().get(0);
+        assertEquals(2L, minute.getOrderCount());
+        assertEquals(new BigDecimal("12.00"), minute.getRevenue());
+    }
+
+    private Order order(LocalDateTime orderDate, String totalPrice) {
+        Order order = new Order();
+        order.setOrderDate(orderDate);
+        order.setTotalPrice(new BigDecimal(totalPrice));
+        return order;
+    }
+
+    private OrderItem item(int quantity) {
+        OrderItem item = new OrderItem();
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.OrderRollupDto;
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.entity.OrderRollup;
+import com.example.NotificationService.entity.RollupGranularity;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.OrderRollupRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет чтение агрегатов заказов из order_rollups и по сырым заказам на PostgreSQL.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderRollupService.class, OrderRollupAccumulator.class, OrderRollupRepository.class,
+        OrderPartitionRepository.class, OrderServiceQueryCountTest.EmbeddedPostgresConfig.class})
+class OrderRollupServiceTest {
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private OrderRollupRepository orderRollupRepository;
+
+    @Autowired
+    private OrderPartitionRepository orderPartitionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private LocalDateTime currentHour;
+
+    @BeforeEach
+    void setUp() {
+        currentHour = RollupGranularity.HOUR.truncate(LocalDateTime.now());
+        // Два заказа три часа назад и один в текущем часе
+        persistOrder("order-1", currentHour.minusHours(3).plusMinutes(5), "10.00", 2);
+        persistOrder("order-2", currentHour.minusHours(3).plusMinutes(50), "20.00", 1);
+        persistOrder("order-3", currentHour.plusSeconds(1), "7.00", 3);
+        entityManager.flush();
+    }
+
+    @Test
+    void getRollups_ShouldReadFinishedBucketsFromRollupsAndCurrentBucketFromOrders() {
+        // Arrange: в агрегатах завершенного часа другие значения, чтобы отличить источник
+        orderRollupRepository.add(List.of(
+                new OrderRollup(RollupGranularity.HOUR, currentHour.minusHours(3), 100L, new BigDecimal("1000.00"), 200L),
+                new OrderRollup(RollupGranularity.HOUR, currentHour, 999L, new BigDecimal("999.00"), 999L)));
+
+        // Act
+        List<OrderRollupDto> rollups = orderRollupService.getRollups(
+                RollupGranularity.HOUR, currentHour.minusHours(5), currentHour.plusHours(1));
+
+        // Assert
+        assertEquals(2, rollups.size());
+        assertEquals(currentHour.minusHours(3), rollups.get(0).getBucketStart());
+        assertEquals(100L, rollups.get(0).getOrderCount());
+        assertEquals(currentHour, rollups.get(1).getBucketStart());
+        assertEquals(1L, rollups.get(1).getOrderCount());
+        assertEquals(0, new BigDecimal("7.00").compareTo(rollups.get(1).getRevenue()));
+        assertEquals(3L, rollups.get(1).getItemCount());
+    }
+
+    @Test
+    void rebuild_ShouldRecomputeAllGranularitiesFromOrders() {
+        // Arrange
+        orderRollupRepository.add(List.of(
+                new OrderRollup(RollupGranularity.HOUR, currentHour.minusHours(3), 100L, new BigDecimal("1000.00"), 200L)));
+
+        // Act
+        orderRollupService.rebuild(currentHour.minusHours(4), currentHour);
+
+        // Assert
+        List<OrderRollup> hours = orderRollupRepository.findRange(
+                RollupGranularity.HOUR, currentHour.minusHours(5), currentHour.minusHours(1));
+        assertEquals(1, hours.size());
+        assertEquals(2L, hours.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("30.00").compareTo(hours.get(0).getRevenue()));
+        assertEquals(3L, hours.get(0).getItemCount());
+        List<OrderRollup> minutes = orderRollupRepository.findRange(
+                RollupGranularity.MINUTE, currentHour.minusHours(3), currentHour.minusHours(2));
+        assertEquals(2, minutes.size());
+    }
+
+    @Test
+    void rebuild_BeforeRetentionHorizon_ShouldRefuseAndKeepRollups() {
+        // Arrange: заказы прошлого месяца удалены по сроку хранения, их агрегаты остались
+        LocalDateTime lastMonth = currentHour.minusMonths(1);
+        orderRollupRepository.add(List.of(
+                new OrderRollup(RollupGranularity.HOUR, lastMonth, 5L, new BigDecimal("50.00"), 5L)));
+        orderPartitionRepository.raiseRetentionHorizon(YearMonth.from(currentHour));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> orderRollupService.rebuild(lastMonth.minusDays(1), currentHour));
+        assertEquals(1, orderRollupRepository.findRange(
+                RollupGranularity.HOUR, lastMonth, lastMonth.plusHours(1)).size());
+    }
+
+    private void persistOrder(String orderId, LocalDateTime orderDate, String totalPrice, int quantity) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(1L);
+        order.setTotalPrice(new BigDecimal(totalPrice));
+        order.setOrderDate(orderDate);
+        entityManager.persist(order);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(1L);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(totalPrice));
+        item.setDiscount(BigDecimal.ZERO);
+        item.setItemTotal(new BigDecimal(totalPrice));
+        entityManager.persist(item);
+    }
+}
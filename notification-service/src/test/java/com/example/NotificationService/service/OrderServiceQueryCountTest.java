@@ -0,0 +1,184 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.OrderDto;
+import com.example.NotificationService.dto.OrderPageDto;
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.mapper.OrderDtoMapper;
+import com.example.NotificationService.mapper.OrderMapper;
+import com.example.NotificationService.notification.NotificationDispatcher;
+import com.example.NotificationService.repository.OrderBatchRepository;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.OrderRollupRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет, что чтение списков заказов выполняет фиксированное число SQL запросов,
+ * независимо от количества заказов, а также чтение по курсору и потоковую выгрузку.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderStreamService.class, OrderMapper.class, OrderDtoMapper.class,
+        OrderBatchRepository.class, OrderRollupAccumulator.class, OrderRollupRepository.class,
+        OrderPartitionMaintenance.class, OrderPartitionRepository.class, JacksonAutoConfiguration.class, OrderServiceQueryCountTest.EmbeddedPostgresConfig.class})
+class OrderServiceQueryCountTest {
+
+    private static final int ORDER_COUNT = 25;
+
+    @MockBean
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStreamService orderStreamService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order();
+            order.setOrderId("order-" + i);
+            order.setUserId(i % 2 == 0 ? 1L : 2L);
+            order.setTotalPrice(BigDecimal.valueOf(100.0));
+            order.setOrderDate(LocalDateTime.now().minusMinutes(i));
+            entityManager.persist(order);
+            for (int j = 0; j < 2; j++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProductId((long) j + 1);
+                item.setQuantity(1);
+                item.setPrice(BigDecimal.valueOf(50.0));
+                item.setDiscount(BigDecimal.ZERO);
+                item.setItemTotal(BigDecimal.valueOf(50.0));
+                entityManager.persist(item);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllOrders_ShouldUseTwoStatementsRegardlessOfOrderCount() {
+        // Act
+        List<OrderDto> result = orderService.getAllOrders();
+
+        // Assert
+        assertEquals(ORDER_COUNT, result.size());
+        assertTrue(result.stream().allMatch(dto -> dto.getItems().size() == 2));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllOrders_WithPage_ShouldUseTwoStatements() {
+        // Act
+        List<OrderDto> result = orderService.getAllOrders(1, 10);
+
+        // Assert
+        assertEquals(10, result.size());
+        assertEquals("order-10", result.get(0).getOrderId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getOrdersByUserId_WithPage_ShouldUseTwoStatements() {
+        // Act
+        List<OrderDto> result = orderService.getOrdersByUserId(1L, 0, 5);
+
+        // Assert
+        assertEquals(5, result.size());
+        assertTrue(result.stream().allMatch(dto -> dto.getUserId() == 1L && dto.getItems().size() == 2));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getOrdersPage_ShouldWalkAllOrdersByCursorWithTwoStatementsPerPage() {
+        // Act
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            OrderPageDto page = orderService.getOrdersPage(null, cursor, 10);
+            assertEquals(2, statistics.getPrepareStatementCount());
+            page.getOrders().forEach(dto -> seen.add(dto.getOrderId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(3, pages);
+        assertEquals(ORDER_COUNT, seen.size());
+        assertEquals("order-0", seen.get(0));
+        assertEquals("order-" + (ORDER_COUNT - 1), seen.get(ORDER_COUNT - 1));
+    }
+
+    @Test
+    void streamOrders_ShouldWriteOneLinePerOrderWithItems() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        int count = orderStreamService.streamOrders(2L, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ORDER_COUNT / 2, count);
+        assertEquals(ORDER_COUNT / 2, lines.length);
+        assertTrue(lines[0].contains("\"orderId\":\"order-1\""));
+        assertTrue(lines[0].contains("\"items\":[{"));
+    }
+
+    @TestConfiguration
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
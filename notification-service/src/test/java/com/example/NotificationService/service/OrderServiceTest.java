@@ -3,15 +3,19 @@ package com.example.NotificationService.service;
 import com.example.NotificationService.dto.OrderDto;
 import com.example.NotificationService.entity.Order;
 import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.repository.OrderBatchRepository;
 import com.example.NotificationService.repository.OrderRepository;
 import com.example.NotificationService.repository.OrderItemRepository;
+import com.example.NotificationService.mapper.OrderDtoMapper;
 import com.example.NotificationService.mapper.OrderMapper;
+import com.example.NotificationService.notification.NotificationDispatcher;
 import dto.OrderMessage; // Импорт из общего пакета dto
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -33,9 +37,24 @@ class OrderServiceTest {
     @Mock
     private OrderItemRepository orderItemRepository;
 
+    @Mock
+    private OrderBatchRepository orderBatchRepository;
+
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private OrderRollupAccumulator orderRollupAccumulator;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private OrderPartitionMaintenance orderPartitionMaintenance;
+
+    @Spy
+    private OrderDtoMapper orderDtoMapper = new OrderDtoMapper();
+
     @InjectMocks
     private OrderService orderService;
 
@@ -100,69 +119,30 @@ class OrderServiceTest {
     }
 
     @Test
-    void processOrder_WithValidData_ShouldSaveOrderAndItems() {
+    void saveIfAbsent_WithNewOrder_ShouldReturnTrue() {
         // Arrange
         List<OrderItem> orderItems = List.of(testOrderItem);
-
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-        when(orderItemRepository.saveAll(any(List.class))).thenReturn(orderItems);
+        when(orderBatchRepository.insertIfAbsent(testOrder, orderItems)).thenReturn(true);
 
         // Act
-        orderService.processOrder(testOrder, orderItems);
+        boolean inserted = orderService.saveIfAbsent(testOrder, orderItems);
 
         // Assert
-        verify(orderRepository, times(1)).save(testOrder);
-        verify(orderItemRepository, times(1)).saveAll(orderItems);
-        verify(orderItemRepository, times(1)).saveAll(orderItems);
+        assertTrue(inserted);
+        verify(orderRepository, never()).findByOrderId(anyString());
     }
 
     @Test
-    void processOrder_ShouldSetOrderForEachItem() {
+    void saveIfAbsent_WithExistingOrder_ShouldReturnFalse() {
         // Arrange
-        OrderItem item1 = new OrderItem();
-        item1.setProductId(1L);
-        OrderItem item2 = new OrderItem();
-        item2.setProductId(2L);
-        List<OrderItem> orderItems = List.of(item1, item2);
-
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-        when(orderItemRepository.saveAll(any(List.class))).thenReturn(orderItems);
-
-        // Act
-        orderService.processOrder(testOrder, orderItems);
-
-        // Assert
-        // Проверяем, что для каждого item установлен order
-        assertSame(testOrder, item1.getOrder());
-        assertSame(testOrder, item2.getOrder());
-        verify(orderRepository, times(1)).save(testOrder);
-        verify(orderItemRepository, times(1)).saveAll(orderItems);
-    }
-
-    @Test
-    void orderExists_WithExistingOrder_ShouldReturnTrue() {
-        // Arrange
-        when(orderRepository.findByOrderId("order-123")).thenReturn(Optional.of(testOrder));
-
-        // Act
-        boolean exists = orderService.orderExists("order-123");
-
-        // Assert
-        assertTrue(exists);
-        verify(orderRepository, times(1)).findByOrderId("order-123");
-    }
-
-    @Test
-    void orderExists_WithNonExistingOrder_ShouldReturnFalse() {
-        // Arrange
-        when(orderRepository.findByOrderId("unknown-order")).thenReturn(Optional.empty());
+        List<OrderItem> orderItems = List.of(testOrderItem);
+        when(orderBatchRepository.insertIfAbsent(testOrder, orderItems)).thenReturn(false);
 
         // Act
-        boolean exists = orderService.orderExists("unknown-order");
+        boolean inserted = orderService.saveIfAbsent(testOrder, orderItems);
 
         // Assert
-        assertFalse(exists);
-        verify(orderRepository, times(1)).findByOrderId("unknown-order");
+        assertFalse(inserted);
     }
 
     @Test
@@ -170,15 +150,17 @@ class OrderServiceTest {
         // Arrange
         List<Order> orders = List.of(testOrder);
         when(orderRepository.findAllByOrderByOrderDateDesc()).thenReturn(orders);
-        when(orderItemRepository.findByOrderOrderId("order-123")).thenReturn(List.of(testOrderItem));
+        when(orderItemRepository.findByOrderIdInAndOrderDateBetween(List.of(1L), testOrder.getOrderDate(), testOrder.getOrderDate())).thenReturn(List.of(testOrderItem));
 
         // Act
         List<OrderDto> result = orderService.getAllOrders();
 
         // Assert
         assertNotNull(result);
+        assertEquals(1, result.get(0).getItems().size());
         verify(orderRepository, times(1)).findAllByOrderByOrderDateDesc();
-        verify(orderItemRepository, times(1)).findByOrderOrderId("order-123");
+        verify(orderItemRepository, times(1)).findByOrderIdInAndOrderDateBetween(List.of(1L), testOrder.getOrderDate(), testOrder.getOrderDate());
+        verify(orderItemRepository, never()).findByOrderOrderId(anyString());
     }
 
     @Test
@@ -193,7 +175,7 @@ class OrderServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
         verify(orderRepository, times(1)).findAllByOrderByOrderDateDesc();
-        verify(orderItemRepository, never()).findByOrderOrderId(anyString());
+        verify(orderItemRepository, never()).findByOrderIdInAndOrderDateBetween(any(), any(), any());
     }
 
     @Test
@@ -232,7 +214,7 @@ class OrderServiceTest {
         // Arrange
         List<Order> userOrders = List.of(testOrder);
         when(orderRepository.findByUserId(1L)).thenReturn(userOrders);
-        when(orderItemRepository.findByOrderOrderId("order-123")).thenReturn(List.of(testOrderItem));
+        when(orderItemRepository.findByOrderIdInAndOrderDateBetween(List.of(1L), testOrder.getOrderDate(), testOrder.getOrderDate())).thenReturn(List.of(testOrderItem));
 
         // Act
         List<OrderDto> result = orderService.getOrdersByUserId(1L);
@@ -240,7 +222,7 @@ class OrderServiceTest {
         // Assert
         assertNotNull(result);
         verify(orderRepository, times(1)).findByUserId(1L);
-        verify(orderItemRepository, times(1)).findByOrderOrderId("order-123");
+        verify(orderItemRepository, times(1)).findByOrderIdInAndOrderDateBetween(List.of(1L), testOrder.getOrderDate(), testOrder.getOrderDate());
     }
 
     @Test
@@ -255,7 +237,7 @@ class OrderServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
         verify(orderRepository, times(1)).findByUserId(999L);
-        verify(orderItemRepository, never()).findByOrderOrderId(anyString());
+        verify(orderItemRepository, never()).findByOrderIdInAndOrderDateBetween(any(), any(), any());
     }
 
     @Test
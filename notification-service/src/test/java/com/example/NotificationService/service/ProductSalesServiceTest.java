@@ -0,0 +1,158 @@
+package com.example.NotificationService.service;
+
+import com.example.NotificationService.dto.ProductSalesDto;
+import com.example.NotificationService.entity.Order;
+import com.example.NotificationService.entity.OrderItem;
+import com.example.NotificationService.mapper.OrderMapper;
+import com.example.NotificationService.notification.NotificationDispatcher;
+import com.example.NotificationService.repository.OrderBatchRepository;
+import com.example.NotificationService.repository.OrderPartitionRepository;
+import com.example.NotificationService.repository.OrderRollupRepository;
+import dto.OrderMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет инкрементальное обновление накопленных продаж при сохранении заказов
+ * и их пересчет на PostgreSQL.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductSalesService.class, OrderBatchService.class, OrderBatchRepository.class, OrderMapper.class,
+        OrderRollupAccumulator.class, OrderRollupRepository.class, OrderPartitionMaintenance.class,
+        OrderPartitionRepository.class, OrderServiceQueryCountTest.EmbeddedPostgresConfig.class})
+class ProductSalesServiceTest {
+
+    /**
+     * Повторная доставка заказа несет ту же дату, что и первая.
+     */
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.now().withNano(0);
+
+    @MockBean
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private ProductSalesService productSalesService;
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private OrderPartitionRepository orderPartitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertIfAbsent_ShouldAddItemsToSalesOnlyOnce() {
+        // Act
+        orderBatchRepository.insertIfAbsent(order("order-1"), List.of(item(1L, 2, "20.00"), item(2L, 1, "5.00")));
+        orderBatchRepository.insertIfAbsent(order("order-1"), List.of(item(1L, 2, "20.00"), item(2L, 1, "5.00")));
+        orderBatchRepository.insertIfAbsent(order("order-2"), List.of(item(1L, 3, "30.00"), item(1L, 1, "10.00")));
+
+        // Assert
+        assertSales(1L, 6L, "60.00");
+        assertSales(2L, 1L, "5.00");
+    }
+
+    @Test
+    void saveBatch_ShouldMergeIncrementsPerProduct() {
+        // Act
+        orderBatchService.saveBatch(List.of(message("order-1", 1L, 2L), message("order-2", 1L), message("order-1", 1L, 2L)));
+
+        // Assert
+        assertSales(1L, 2L, "100.00");
+        assertSales(2L, 1L, "50.00");
+        assertEquals(0L, productSalesService.getSales(3L).getTotalQuantity());
+    }
+
+    @Test
+    void rebuild_ShouldRecomputeSalesFromOrderItems() {
+        // Arrange
+        orderBatchService.saveBatch(List.of(message("order-1", 1L, 2L), message("order-2", 1L)));
+        jdbcTemplate.update("UPDATE product_sales SET total_quantity = 999");
+        jdbcTemplate.update("INSERT INTO product_sales VALUES (42, 7, 1.00, now())");
+
+        // Act
+        int products = productSalesService.rebuild();
+
+        // Assert
+        assertEquals(2, products);
+        List<ProductSalesDto> sales = productSalesService.getSales(List.of(2L, 1L, 42L));
+        assertEquals(List.of(1L, 2L, 0L), sales.stream().map(ProductSalesDto::getTotalQuantity).toList());
+    }
+
+    @Test
+    void rebuild_AfterPartitionsExpired_ShouldRefuse() {
+        // Arrange
+        orderBatchService.saveBatch(List.of(message("order-1", 1L)));
+        orderPartitionRepository.raiseRetentionHorizon(YearMonth.from(ORDER_DATE));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> productSalesService.rebuild());
+        assertFalse(productSalesService.rebuildIfEmpty());
+        assertSales(1L, 1L, "50.00");
+    }
+
+    private void assertSales(Long productId, Long quantity, String revenue) {
+        ProductSalesDto sales = productSalesService.getSales(productId);
+        assertEquals(quantity, sales.getTotalQuantity());
+        assertEquals(new BigDecimal(revenue), sales.getTotalRevenue());
+    }
+
+    private Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(1L);
+        order.setTotalPrice(BigDecimal.TEN);
+        order.setOrderDate(ORDER_DATE);
+        return order;
+    }
+
+    private OrderItem item(Long productId, int quantity, String total) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(total));
+        item.setDiscount(BigDecimal.ZERO);
+        item.setItemTotal(new BigDecimal(total));
+        return item;
+    }
+
+    private OrderMessage message(String orderId, Long... productIds) {
+        OrderMessage message = new OrderMessage();
+        message.setOrderId(orderId);
+        message.setUserId(1L);
+        message.setUsername("testuser");
+        message.setTotalPrice(BigDecimal.valueOf(100.0));
+        message.setOrderDate(ORDER_DATE.toString());
+        List<OrderMessage.OrderItemMessage> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            OrderMessage.OrderItemMessage item = new OrderMessage.OrderItemMessage();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            item.setPrice(BigDecimal.valueOf(50.0));
+            item.setDiscount(BigDecimal.ZERO);
+            item.setItemTotal(BigDecimal.valueOf(50.0));
+            items.add(item);
+        }
+        message.setItems(items);
+        return message;
+    }
+}
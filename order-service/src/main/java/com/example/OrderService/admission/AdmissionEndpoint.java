@@ -0,0 +1,54 @@
+package com.example.OrderService.admission;
+
+import com.example.OrderService.entity.Role;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator эндпоинт лимитов приема заказов, доступен только администраторам.
+ * <ul>
+ *     <li>{@code GET /actuator/admission} - текущие лимиты;</li>
+ *     <li>{@code POST /actuator/admission} с {@code {"enabled": false}} - выключить ограничение;</li>
+ *     <li>{@code POST /actuator/admission/USER} с {@code {"userRate": 2, "userBurst": 5}} - изменить
+ *     лимиты класса, незаданные параметры остаются прежними.</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "admission")
+@RequiredArgsConstructor
+public class AdmissionEndpoint {
+
+    private final OrderAdmissionControl orderAdmissionControl;
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        return orderAdmissionControl.snapshot();
+    }
+
+    @WriteOperation
+    public Map<String, Object> setEnabled(boolean enabled) {
+        orderAdmissionControl.setEnabled(enabled);
+        return orderAdmissionControl.snapshot();
+    }
+
+    @WriteOperation
+    public OrderAdmissionControl.ClassLimit updateClass(@Selector String priority,
+                                                        @Nullable Double globalRate, @Nullable Integer globalBurst,
+                                                        @Nullable Double userRate, @Nullable Integer userBurst) {
+        try {
+            return orderAdmissionControl.update(Role.valueOf(priority.toUpperCase()),
+                    globalRate, globalBurst, userRate, userBurst);
+        } catch (IllegalArgumentException e) {
+            // Неизвестный класс или некорректные лимиты - ошибка запроса, а не сервера
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.OrderService.admission;
+
+import com.example.OrderService.entity.Role;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Начальные лимиты приема заказов из app.orders.admission.
+ * Во время работы их можно изменить через actuator эндпоинт admission.
+ */
+@Data
+@Component
+@ConfigurationProperties("app.orders.admission")
+public class AdmissionProperties {
+
+    /** Включено ли ограничение; выключенное пропускает все запросы */
+    private boolean enabled = true;
+
+    /** Лимиты по классам приоритета; для класса без лимитов ограничения нет */
+    private Map<Role, ClassLimits> classes = new EnumMap<>(Role.class);
+
+    @Data
+    public static class ClassLimits {
+
+        /** Заказов в секунду от всех пользователей класса */
+        private double globalRate;
+        private int globalBurst;
+
+        /** Заказов в секунду от одного пользователя */
+        private double userRate;
+        private int userBurst;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.OrderService.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Параметры ограничителя: средняя интенсивность и допустимый всплеск.
+ *
+ * @param rate  запросов в секунду в среднем
+ * @param burst запросов, которые можно сделать подряд после простоя
+ */
+public record BucketLimit(double rate, int burst) {
+
+    public BucketLimit {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Интенсивность должна быть больше 0: " + rate);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Всплеск должен быть не меньше 1: " + burst);
+        }
+    }
+
+    /**
+     * @return интервал между запросами при средней интенсивности, наносекунды
+     */
+    long intervalNanos() {
+        return Math.max((long) (TimeUnit.SECONDS.toNanos(1) / rate), 1);
+    }
+
+    /**
+     * @return насколько поток может опережать среднюю интенсивность, наносекунды
+     */
+    long toleranceNanos() {
+        return intervalNanos() * (burst - 1);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.OrderService.admission;
+
+import com.example.OrderService.entity.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограничение приема заказов до любой работы с базой, inventory-service и Kafka.
+ * Для каждого класса приоритета (роли) действуют две корзины: у каждого пользователя своя
+ * и одна общая на класс, так что поток заказов администраторов не отнимает лимит у покупателей
+ * и наоборот. Сначала проверяется корзина пользователя: один активный клиент исчерпывает
+ * свой лимит, не расходуя общий.
+ */
+@Component
+@Slf4j
+public class OrderAdmissionControl {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Role, TokenBucket> globalBuckets = new EnumMap<>(Role.class);
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+    private volatile Map<Role, ClassLimit> limits;
+
+    /**
+     * Конструктор ограничителя.
+     *
+     * @param properties    начальные лимиты
+     * @param meterRegistry реестр метрик для учета отклоненных заказов
+     */
+    public OrderAdmissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.isEnabled();
+        Map<Role, ClassLimit> initial = new EnumMap<>(Role.class);
+        properties.getClasses().forEach((role, classLimits) -> initial.put(role, new ClassLimit(
+                new BucketLimit(classLimits.getGlobalRate(), classLimits.getGlobalBurst()),
+                new BucketLimit(classLimits.getUserRate(), classLimits.getUserBurst()))));
+        this.limits = Collections.unmodifiableMap(initial);
+        long now = System.nanoTime();
+        for (Role role : Role.values()) {
+            globalBuckets.put(role, new TokenBucket(now));
+        }
+    }
+
+    /**
+     * Решает, принимать ли заказ пользователя.
+     *
+     * @param username имя пользователя
+     * @param priority класс приоритета
+     * @return 0 если заказ принят, иначе через сколько наносекунд стоит повторить запрос
+     */
+    public long tryAdmit(String username, Role priority) {
+        return tryAdmit(username, priority, System.nanoTime());
+    }
+
+    long tryAdmit(String username, Role priority, long nowNanos) {
+        ClassLimit limit = limits.get(priority);
+        if (!enabled || limit == null) {
+            return 0;
+        }
+
+        TokenBucket userBucket = userBuckets.get(username);
+        if (userBucket == null) {
+            userBucket = userBuckets.computeIfAbsent(username, name -> new TokenBucket(nowNanos));
+        }
+        long wait = userBucket.tryAcquire(limit.perUser(), nowNanos);
+        if (wait > 0) {
+            rejected(priority, MeterNames.SCOPE_USER);
+            return wait;
+        }
+
+        wait = globalBuckets.get(priority).tryAcquire(limit.global(), nowNanos);
+        if (wait > 0) {
+            // Заказ не принят, токен пользователя не должен пропасть
+            userBucket.refund(limit.perUser());
+            rejected(priority, MeterNames.SCOPE_GLOBAL);
+            return wait;
+        }
+        return 0;
+    }
+
+    /**
+     * Изменяет лимиты класса. Незаданные параметры остаются прежними.
+     *
+     * @param priority    класс приоритета
+     * @param globalRate  заказов в секунду на класс
+     * @param globalBurst всплеск на класс
+     * @param userRate    заказов в секунду на пользователя
+     * @param userBurst   всплеск на пользователя
+     * @return новые лимиты класса
+     * @throws IllegalArgumentException если у класса не было лимитов и заданы не все параметры,
+     *                                  или параметры некорректны
+     */
+    public synchronized ClassLimit update(Role priority, Double globalRate, Integer globalBurst,
+                                          Double userRate, Integer userBurst) {
+        ClassLimit current = limits.get(priority);
+        if (current == null && (globalRate == null || globalBurst == null || userRate == null || userBurst == null)) {
+            throw new IllegalArgumentException("Для класса " + priority + " без лимитов нужно задать все параметры");
+        }
+        ClassLimit updated = new ClassLimit(
+                new BucketLimit(globalRate != null ? globalRate : current.global().rate(),
+                        globalBurst != null ? globalBurst : current.global().burst()),
+                new BucketLimit(userRate != null ? userRate : current.perUser().rate(),
+                        userBurst != null ? userBurst : current.perUser().burst()));
+
+        Map<Role, ClassLimit> next = new EnumMap<>(Role.class);
+        next.putAll(limits);
+        next.put(priority, updated);
+        limits = Collections.unmodifiableMap(next);
+        log.info("[Admission] Лимиты класса {} изменены: {}", priority, updated);
+        return updated;
+    }
+
+    /**
+     * Включает или выключает ограничение.
+     *
+     * @param enabled true чтобы ограничивать прием заказов
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        log.info("[Admission] Ограничение приема заказов {}", enabled ? "включено" : "выключено");
+    }
+
+    /**
+     * @return текущее состояние для actuator эндпоинта
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("classes", limits);
+        snapshot.put("trackedUsers", userBuckets.size());
+        return snapshot;
+    }
+
+    /**
+     * Удаляет полные корзины пользователей: новая корзина ведет себя так же.
+     * Если запрос успел получить корзину до удаления, пользователь выиграет не больше одного токена.
+     */
+    @Scheduled(fixedDelayString = "${app.orders.admission.sweep-interval-ms:60000}")
+    public void evictFullBuckets() {
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    int trackedUsers() {
+        return userBuckets.size();
+    }
+
+    private void rejected(Role priority, String scope) {
+        meterRegistry.counter(MeterNames.ADMISSION_REJECTED,
+                MeterNames.TAG_PRIORITY, priority.name(), MeterNames.TAG_SCOPE, scope).increment();
+    }
+
+    /**
+     * Лимиты класса приоритета.
+     *
+     * @param global  корзина на весь класс
+     * @param perUser корзина каждого пользователя класса
+     */
+    public record ClassLimit(BucketLimit global, BucketLimit perUser) {
+    }
+}
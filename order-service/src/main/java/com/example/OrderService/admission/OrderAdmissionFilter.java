@@ -0,0 +1,96 @@
+package com.example.OrderService.admission;
+
+import com.example.OrderService.dto.ErrorResponse;
+import com.example.OrderService.entity.Role;
+import com.example.OrderService.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр приема заказов: стоит перед JwtAuthenticationFilter и отклоняет лишние заказы
+ * ответом 429 с заголовком Retry-After до загрузки пользователя из базы и обращения к inventory-service.
+ * Пользователь и роль берутся из подписанного JWT токена; запросы без валидного токена
+ * пропускаются дальше, их отклонит проверка аутентификации.
+ *
+ * Не аннотирован @Component, чтобы не попасть в цепочку фильтров сервлет-контейнера.
+ * Создается в SecurityConfig.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OrderAdmissionFilter extends OncePerRequestFilter {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final OrderAdmissionControl orderAdmissionControl;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Authentication authentication = getAuthentication(request);
+        if (authentication != null) {
+            Role priority = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> ("ROLE_" + Role.ADMIN.name()).equals(authority.getAuthority()))
+                    ? Role.ADMIN : Role.USER;
+            long retryAfterNanos = orderAdmissionControl.tryAdmit(authentication.getName(), priority);
+            if (retryAfterNanos > 0) {
+                reject(request, response, authentication.getName(), retryAfterNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Ограничивается только создание заказов.
+     *
+     * @param request HTTP запрос
+     * @return true если запрос не является созданием заказа
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !("POST".equals(request.getMethod()) && "/api/order".equals(request.getServletPath()));
+    }
+
+    private Authentication getAuthentication(HttpServletRequest request) {
+        String bearerToken = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtTokenProvider.getAuthentication(bearerToken.substring(7));
+        } catch (Exception e) {
+            // Невалидный токен отклонит JwtAuthenticationFilter и проверка доступа
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, String username,
+                        long retryAfterNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.debug("[Admission] Заказ пользователя {} отклонен, повтор через {} с", username, retryAfterSeconds);
+
+        ErrorResponse error = new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Слишком много заказов, повторите через " + retryAfterSeconds + " с", request.getRequestURI());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.OrderService.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket без блокировок в форме GCRA (generic cell rate algorithm).
+ * Вместо числа токенов и времени пополнения хранится одно число - теоретическое время
+ * следующего запроса, и оно меняется через compareAndSet. Параметры передаются в каждый вызов,
+ * поэтому новые лимиты начинают действовать сразу и без пересоздания корзин.
+ */
+class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Создает полную корзину: сразу доступен весь всплеск.
+     *
+     * @param nowNanos текущее время по System.nanoTime()
+     */
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Пытается взять токен.
+     *
+     * @param limit    параметры ограничителя
+     * @param nowNanos текущее время по System.nanoTime()
+     * @return 0 если токен взят, иначе через сколько наносекунд он появится
+     */
+    long tryAcquire(BucketLimit limit, long nowNanos) {
+        long interval = limit.intervalNanos();
+        long tolerance = limit.toleranceNanos();
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            // При постоянных лимитах время не уходит дальше этого окна; после смены лимитов
+            // долг, накопленный по старым, списывается и не держит клиента дольше одного интервала по новым
+            long window = tolerance + interval;
+            if (arrival - nowNanos > window) {
+                theoreticalArrival.compareAndSet(arrival, nowNanos + window);
+                continue;
+            }
+            long base = arrival - nowNanos > 0 ? arrival : nowNanos;
+            long allowedAt = base - tolerance;
+            if (allowedAt - nowNanos > 0) {
+                return allowedAt - nowNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, base + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Возвращает взятый токен, если запрос все-таки не был допущен.
+     *
+     * @param limit параметры ограничителя, с которыми токен был взят
+     */
+    void refund(BucketLimit limit) {
+        theoreticalArrival.addAndGet(-limit.intervalNanos());
+    }
+
+    /**
+     * @param nowNanos текущее время по System.nanoTime()
+     * @return true, если корзина полна и ее можно удалить без изменения поведения
+     */
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
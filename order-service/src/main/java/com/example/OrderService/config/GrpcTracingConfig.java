@@ -0,0 +1,27 @@
+package com.example.OrderService.config;
+
+import io.grpc.ClientInterceptor;
+import io.micrometer.core.instrument.binder.grpc.ObservationGrpcClientInterceptor;
+import io.micrometer.observation.ObservationRegistry;
+import net.devh.boot.grpc.client.interceptor.GrpcGlobalClientInterceptor;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Трассировка gRPC вызовов inventory-service.
+ * Перехватчик открывает клиентский span на каждый вызов и передает контекст трассировки
+ * в метаданных запроса, поэтому серверный span inventory-service продолжает трассу заказа.
+ */
+@Configuration
+public class GrpcTracingConfig {
+
+    /**
+     * Глобальный клиентский перехватчик наблюдения для всех gRPC каналов.
+     *
+     * @param observationRegistry реестр наблюдений
+     * @return перехватчик gRPC клиента
+     */
+    @GrpcGlobalClientInterceptor
+    public ClientInterceptor observationGrpcClientInterceptor(ObservationRegistry observationRegistry) {
+        return new ObservationGrpcClientInterceptor(observationRegistry);
+    }
+}
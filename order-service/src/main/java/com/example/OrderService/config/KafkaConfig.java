@@ -1,13 +1,21 @@
 package com.example.OrderService.config;
 
+import dto.StockChangeMessage;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,8 +37,40 @@ public class KafkaConfig {
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
+    /**
+     * Шаблон отправки заказов. Наблюдение включено: каждая отправка получает span,
+     * а контекст трассировки передается потребителям в заголовках записи.
+     */
     @Bean
     public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        kafkaTemplate.setObservationEnabled(true);
+        return kafkaTemplate;
     }
-}
\ No newline at end of file
+
+    /**
+     * Потребитель событий остатков для локальной реплики.
+     * Реплика каждый раз читает компактируемый топик с начала, поэтому offsets не фиксируются.
+     */
+    @Bean
+    public ConsumerFactory<String, StockChangeMessage> stockChangeConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        JsonDeserializer<StockChangeMessage> valueDeserializer = new JsonDeserializer<>(StockChangeMessage.class, false);
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), valueDeserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, StockChangeMessage> stockChangeListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, StockChangeMessage> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(stockChangeConsumerFactory());
+        // Без Acknowledgment в слушателе режим MANUAL означает, что offsets не коммитятся вовсе
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // События простоя нужны, чтобы пересчитывать отставание, когда изменений нет
+        factory.getContainerProperties().setIdleEventInterval(5000L);
+        return factory;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.OrderService.controller;
 import com.example.OrderService.dto.ErrorResponse;
 import com.example.OrderService.dto.OrderRequest;
 import com.example.OrderService.dto.OrderResponseDto;
+import com.example.OrderService.exception.IdempotencyKeyConflictException;
+import com.example.OrderService.service.OrderIdempotencyService;
 import com.example.OrderService.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,26 +24,47 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class OrderController {
 
+    /** Заголовок, по которому повтор запроса клиентом не создает второй заказ */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     /**
      * Создает новый заказ для аутентифицированного пользователя.
      * Требует валидный JWT токен в заголовке Authorization.
+     * С заголовком Idempotency-Key повтор запроса возвращает исходный заказ вместо создания нового.
      *
      * @param request данные заказа
+     * @param idempotencyKey ключ идемпотентности, необязательный
      * @param authentication данные аутентификации пользователя
      * @return ответ с UUID созданного заказа
      */
     @PostMapping("/order")
     public ResponseEntity<?> createOrder(
             @Valid @RequestBody OrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
 
+        if (idempotencyKey != null
+                && (idempotencyKey.isBlank() || idempotencyKey.length() > OrderIdempotencyService.MAX_KEY_LENGTH)) {
+            ErrorResponse errorResponse = new ErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Заголовок " + IDEMPOTENCY_KEY_HEADER + " должен содержать от 1 до "
+                            + OrderIdempotencyService.MAX_KEY_LENGTH + " символов",
+                    "/api/order"
+            );
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
         try {
             String username = authentication.getName();
             log.info("Creating order for user: {}, items: {}", username, request.getItems());
 
-            String orderId = orderService.processOrder(request, username);
+            String orderId = idempotencyKey == null
+                    ? orderService.processOrder(request, username)
+                    : orderIdempotencyService.execute(username, idempotencyKey, request,
+                            orderUuid -> orderService.processOrder(request, username, orderUuid));
 
             OrderResponseDto response = new OrderResponseDto(
                     "Заказ успешно создан",
@@ -51,6 +74,17 @@ public class OrderController {
             log.info("Order created successfully. Order ID: {}, User: {}", orderId, username);
             return ResponseEntity.ok(response);
 
+        } catch (IdempotencyKeyConflictException e) {
+            log.warn("Idempotency conflict for user: {}: {}", authentication.getName(), e.getMessage());
+
+            ErrorResponse errorResponse = new ErrorResponse(
+                    HttpStatus.CONFLICT.value(),
+                    e.getMessage(),
+                    "/api/order"
+            );
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+
         } catch (Exception e) {
             log.error("Error creating order for user: {}", authentication.getName(), e);
 
@@ -0,0 +1,37 @@
+package com.example.OrderService.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Журнал ключей идемпотентности создания заказов.
+ * Запись без orderId означает, что заказ с этим ключом еще обрабатывается;
+ * после успешной обработки в ней хранится идентификатор созданного заказа.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "order_idempotency_keys")
+public class IdempotencyRecord {
+
+    /** Ключ из заголовка Idempotency-Key вместе с именем пользователя */
+    @Id
+    @Column(name = "id", length = 128)
+    private String id;
+
+    /** Отпечаток состава заказа, чтобы ключ нельзя было использовать для другого заказа */
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    /** Идентификатор созданного заказа или null, пока заказ обрабатывается */
+    @Column(name = "order_id", length = 36)
+    private String orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
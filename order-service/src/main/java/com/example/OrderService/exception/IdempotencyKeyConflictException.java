@@ -0,0 +1,18 @@
+package com.example.OrderService.exception;
+
+/**
+ * Исключение, выбрасываемое когда запрос с Idempotency-Key нельзя выполнить или повторить:
+ * заказ с этим ключом еще обрабатывается другим экземпляром сервиса
+ * или ключ уже использован для заказа с другим составом.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    /**
+     * Создает новое исключение о конфликте ключа идемпотентности.
+     *
+     * @param message сообщение об ошибке
+     */
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
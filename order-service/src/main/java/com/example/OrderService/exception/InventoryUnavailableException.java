@@ -0,0 +1,18 @@
+package com.example.OrderService.exception;
+
+/**
+ * Исключение, выбрасываемое при временной недоступности inventory-service
+ * (gRPC статусы UNAVAILABLE и DEADLINE_EXCEEDED). Такие вызовы можно безопасно повторять.
+ */
+public class InventoryUnavailableException extends RuntimeException {
+
+    /**
+     * Создает новое исключение о временной недоступности inventory-service.
+     *
+     * @param message сообщение об ошибке
+     * @param cause   исходное gRPC исключение
+     */
+    public InventoryUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
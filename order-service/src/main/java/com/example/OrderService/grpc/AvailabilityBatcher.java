@@ -0,0 +1,224 @@
+package com.example.OrderService.grpc;
+
+import com.example.inventory.BulkProductRequest;
+import com.example.inventory.BulkProductResponse;
+import com.example.inventory.ProductRequestItem;
+import com.example.inventory.ProductResponseItem;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Объединяет одновременные проверки доступности в один запрос CheckAvailability.
+ * Первый запрос открывает пачку и ждет окно или пока в пачке не наберется заданное число товаров,
+ * затем сам отправляет объединенный запрос; остальные запросы присоединяются к открытой пачке
+ * и ждут ее ответа. Отдельных потоков нет: запрос к inventory-service выполняет поток первого заказа.
+ *
+ * Один товар попадает в объединенный запрос один раз с наибольшим запрошенным количеством,
+ * а доступность для каждого заказа пересчитывается по остатку из ответа и своему количеству.
+ */
+@Slf4j
+class AvailabilityBatcher {
+
+    private final Function<BulkProductRequest, BulkProductResponse> sender;
+    private final long windowNanos;
+    private final int maxItems;
+    private final long waitTimeoutMs;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchItems;
+    private final Timer batchWait;
+
+    private Batch current;
+
+    /**
+     * Конструктор объединителя.
+     *
+     * @param sender        отправка объединенного запроса в inventory-service
+     * @param windowMs      сколько первый запрос пачки ждет остальные
+     * @param maxItems      после скольких разных товаров пачка отправляется не дожидаясь окна
+     * @param waitTimeoutMs сколько присоединившийся запрос ждет ответа пачки
+     * @param meterRegistry реестр метрик
+     */
+    AvailabilityBatcher(Function<BulkProductRequest, BulkProductResponse> sender, long windowMs, int maxItems,
+                        long waitTimeoutMs, MeterRegistry meterRegistry) {
+        if (windowMs < 0 || maxItems < 1) {
+            throw new IllegalArgumentException("Некорректные параметры объединения: окно " + windowMs
+                    + " мс, товаров " + maxItems);
+        }
+        this.sender = sender;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxItems = maxItems;
+        this.waitTimeoutMs = windowMs + waitTimeoutMs;
+        this.batchSize = DistributionSummary.builder(MeterNames.AVAILABILITY_BATCH_SIZE)
+                .description("Число проверок доступности в одном запросе к inventory-service")
+                .register(meterRegistry);
+        this.batchItems = DistributionSummary.builder(MeterNames.AVAILABILITY_BATCH_ITEMS)
+                .description("Число разных товаров в одном запросе к inventory-service")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder(MeterNames.AVAILABILITY_BATCH_WAIT)
+                .description("Задержка проверки доступности на ожидание пачки")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Проверяет доступность товаров в составе пачки.
+     *
+     * @param request запрос одного заказа
+     * @return ответ для этого заказа с его rqUid и запрошенными количествами
+     * @throws StatusRuntimeException если объединенный запрос не удался или ответ не пришел вовремя
+     */
+    BulkProductResponse check(BulkProductRequest request) {
+        long joinedAt = System.nanoTime();
+        Batch batch;
+        boolean leader;
+        synchronized (this) {
+            leader = current == null;
+            if (leader) {
+                current = new Batch();
+            }
+            batch = current;
+            batch.add(request, joinedAt);
+            if (batch.quantities.size() >= maxItems) {
+                current = null;
+                batch.full.countDown();
+            }
+        }
+
+        if (leader) {
+            awaitWindow(batch);
+            synchronized (this) {
+                if (current == batch) {
+                    current = null;
+                }
+            }
+            send(batch);
+        }
+        return split(await(batch, request.getRqUid()), request);
+    }
+
+    private void awaitWindow(Batch batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // Пачку все равно нужно отправить: ее ждут другие заказы
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(Batch batch) {
+        long sentAt = System.nanoTime();
+        List<ProductRequestItem> items = new ArrayList<>(batch.quantities.size());
+        batch.quantities.forEach((productId, quantity) -> items.add(ProductRequestItem.newBuilder()
+                .setProductId(productId)
+                .setRequestedQuantity(quantity)
+                .build()));
+        BulkProductRequest merged = BulkProductRequest.newBuilder()
+                .setRqUid("batch-" + UUID.randomUUID())
+                .addAllItems(items)
+                .build();
+
+        batchSize.record(batch.joinedAt.size());
+        batchItems.record(items.size());
+        for (long joinedAt : batch.joinedAt) {
+            batchWait.record(sentAt - joinedAt, TimeUnit.NANOSECONDS);
+        }
+        log.debug("[Batch: {}] Объединенная проверка доступности: заказов {}, товаров {}, заказы {}",
+                merged.getRqUid(), batch.joinedAt.size(), items.size(), batch.rqUids);
+
+        try {
+            batch.result.complete(sender.apply(merged));
+        } catch (RuntimeException e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    private BulkProductResponse await(Batch batch, String rqUid) {
+        try {
+            return batch.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("[Заказ: {}] Ответ объединенной проверки доступности не получен за {} мс", rqUid, waitTimeoutMs);
+            throw Status.DEADLINE_EXCEEDED
+                    .withDescription("Ответ объединенной проверки доступности не получен за " + waitTimeoutMs + " мс")
+                    .asRuntimeException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Ожидание проверки доступности прервано").asRuntimeException();
+        }
+    }
+
+    /**
+     * Собирает ответ одного заказа из объединенного ответа.
+     * Товар недоступен заказу, если остатка не хватает на его количество; если товар был недоступен
+     * при остатке, достаточном и для наибольшего количества (например, не найден), он недоступен всем.
+     */
+    private static BulkProductResponse split(BulkProductResponse merged, BulkProductRequest request) {
+        Map<Long, ProductResponseItem> byProduct = new HashMap<>();
+        merged.getAvailableItemsList().forEach(item -> byProduct.put(item.getProductId(), item));
+        merged.getUnavailableItemsList().forEach(item -> byProduct.put(item.getProductId(), item));
+
+        BulkProductResponse.Builder response = BulkProductResponse.newBuilder().setRqUid(request.getRqUid());
+        for (ProductRequestItem requestItem : request.getItemsList()) {
+            ProductResponseItem mergedItem = byProduct.get(requestItem.getProductId());
+            if (mergedItem == null) {
+                throw Status.INTERNAL
+                        .withDescription("В ответе inventory-service нет товара " + requestItem.getProductId())
+                        .asRuntimeException();
+            }
+            int requested = requestItem.getRequestedQuantity();
+            boolean available = mergedItem.getIsAvailable()
+                    || (mergedItem.getAvailableQuantity() >= requested
+                    && mergedItem.getAvailableQuantity() < mergedItem.getRequestedQuantity());
+            ProductResponseItem item = mergedItem.toBuilder()
+                    .setRequestedQuantity(requested)
+                    .setIsAvailable(available)
+                    .build();
+            if (available) {
+                response.addAvailableItems(item);
+            } else {
+                response.addUnavailableItems(item);
+            }
+        }
+        return response.build();
+    }
+
+    /**
+     * Открытая пачка. Изменяется только под монитором объединителя до отправки.
+     */
+    private static final class Batch {
+        private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+        private final List<Long> joinedAt = new ArrayList<>();
+        private final List<String> rqUids = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CompletableFuture<BulkProductResponse> result = new CompletableFuture<>();
+
+        private void add(BulkProductRequest request, long nowNanos) {
+            for (ProductRequestItem item : request.getItemsList()) {
+                quantities.merge(item.getProductId(), item.getRequestedQuantity(), Math::max);
+            }
+            joinedAt.add(nowNanos);
+            rqUids.add(request.getRqUid());
+        }
+    }
+}
@@ -1,16 +1,30 @@
 package com.example.OrderService.grpc;
 
 import com.example.OrderService.dto.OrderItemDTO;
+import com.example.OrderService.exception.InventoryUnavailableException;
 import com.example.inventory.*;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gRPC клиент inventory-service.
+ * Каждый вызов ограничен дедлайном; при временной недоступности сервиса вызов повторяется.
+ * Повтор резервирования безопасен: inventory-service дедуплицирует запросы по orderId.
+ * При {@code app.inventory.batching.enabled} одновременные проверки доступности
+ * объединяются в один запрос, см. {@link AvailabilityBatcher}.
+ */
 @Component
 @Slf4j
 public class InventoryClient {
@@ -18,6 +32,36 @@ public class InventoryClient {
     @GrpcClient("inventory-service")
     private InventoryServiceGrpc.InventoryServiceBlockingStub stub;
 
+    @Value("${app.inventory.grpc.deadline-ms:2000}")
+    private long deadlineMs;
+
+    @Value("${app.inventory.batching.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${app.inventory.batching.window-ms:5}")
+    private long batchingWindowMs;
+
+    @Value("${app.inventory.batching.max-items:100}")
+    private int batchingMaxItems;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AvailabilityBatcher availabilityBatcher;
+
+    @PostConstruct
+    void initBatching() {
+        if (batchingEnabled) {
+            availabilityBatcher = new AvailabilityBatcher(request -> stubWithDeadline().checkAvailability(request),
+                    batchingWindowMs, batchingMaxItems, deadlineMs, meterRegistry);
+            log.info("Объединение проверок доступности включено: окно {} мс, до {} товаров",
+                    batchingWindowMs, batchingMaxItems);
+        }
+    }
+
+    @Retryable(retryFor = InventoryUnavailableException.class,
+            maxAttemptsExpression = "${app.inventory.grpc.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${app.inventory.grpc.backoff-ms:100}", multiplier = 2))
     public BulkProductResponse checkBulkAvailability(List<OrderItemDTO> orderItems, String orderUuid) {
         try {
             log.info("[Заказ: {}] Отправка bulk gRPC запроса для {} товаров", orderUuid, orderItems.size());
@@ -42,7 +86,9 @@ public class InventoryClient {
             BulkProductRequest request = requestBuilder.build();
             log.debug("[Заказ: {}] gRPC Request: {}", orderUuid, request);
 
-            BulkProductResponse response = stub.checkAvailability(request);
+            BulkProductResponse response = availabilityBatcher != null
+                    ? availabilityBatcher.check(request)
+                    : stubWithDeadline().checkAvailability(request);
 
             log.info("[Заказ: {}] Bulk gRPC ответ: доступно {} товаров, недоступно {} товаров",
                     orderUuid, response.getAvailableItemsCount(), response.getUnavailableItemsCount());
@@ -64,6 +110,9 @@ public class InventoryClient {
         } catch (StatusRuntimeException e) {
             log.error("[Заказ: {}] Bulk gRPC вызов не удался. Статус: {}, Описание: {}",
                     orderUuid, e.getStatus().getCode(), e.getStatus().getDescription(), e);
+            if (isRetryable(e)) {
+                throw new InventoryUnavailableException("Inventory-service временно недоступен: " + e.getStatus().getCode(), e);
+            }
             throw new RuntimeException("Не удалось проверить доступность товаров: " + e.getStatus().getDescription(), e);
         } catch (Exception e) {
             log.error("[Заказ: {}] Неожиданная ошибка при gRPC вызове: {}", orderUuid, e.getMessage(), e);
@@ -71,6 +120,9 @@ public class InventoryClient {
         }
     }
 
+    @Retryable(retryFor = InventoryUnavailableException.class,
+            maxAttemptsExpression = "${app.inventory.grpc.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${app.inventory.grpc.backoff-ms:100}", multiplier = 2))
     public ReserveProductsResponse reserveProducts(String orderId, List<OrderItemDTO> orderItems) {
         try {
             log.info("[Заказ: {}] Резервирование {} товаров", orderId, orderItems.size());
@@ -89,7 +141,7 @@ public class InventoryClient {
             ReserveProductsRequest request = requestBuilder.build();
             log.debug("[Заказ: {}] gRPC Reserve Request: {}", orderId, request);
 
-            ReserveProductsResponse response = stub.reserveProducts(request);
+            ReserveProductsResponse response = stubWithDeadline().reserveProducts(request);
 
             log.info("[Заказ: {}] Ответ резервирования: успех={}, сообщение={}, зарезервировано={}",
                     orderId, response.getSuccess(), response.getMessage(), response.getReservedItemsCount());
@@ -99,10 +151,25 @@ public class InventoryClient {
         } catch (StatusRuntimeException e) {
             log.error("[Заказ: {}] gRPC вызов резервирования не удался. Статус: {}, Описание: {}",
                     orderId, e.getStatus().getCode(), e.getStatus().getDescription(), e);
+            if (isRetryable(e)) {
+                throw new InventoryUnavailableException("Inventory-service временно недоступен: " + e.getStatus().getCode(), e);
+            }
             throw new RuntimeException("Не удалось зарезервировать товары: " + e.getStatus().getDescription(), e);
         } catch (Exception e) {
             log.error("[Заказ: {}] Неожиданная ошибка при резервировании: {}", orderId, e.getMessage(), e);
             throw new RuntimeException("Неожиданная ошибка при резервировании товаров", e);
         }
     }
-}
\ No newline at end of file
+
+    private InventoryServiceGrpc.InventoryServiceBlockingStub stubWithDeadline() {
+        return stub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Временные сбои сети и перегрузка сервера, после которых имеет смысл повторить вызов.
+     */
+    private static boolean isRetryable(StatusRuntimeException e) {
+        Status.Code code = e.getStatus().getCode();
+        return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+    }
+}
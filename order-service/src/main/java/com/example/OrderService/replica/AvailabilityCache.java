@@ -0,0 +1,218 @@
+package com.example.OrderService.replica;
+
+import com.example.OrderService.dto.OrderItemDTO;
+import com.example.OrderService.grpc.InventoryClient;
+import com.example.inventory.BulkProductResponse;
+import com.example.inventory.ProductResponseItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Кэш остатков по ответам inventory-service (stale-while-revalidate).
+ * Заполняется ответами проверки доступности и резервирования; ответы на повторное резервирование
+ * (replayed) несут устаревшие остатки и в кэш не попадают. Пока запись свежая (fresh-ttl),
+ * она используется как есть; устаревшая, но не старше max-stale, тоже используется, а ее обновление
+ * запрашивается в фоне одним bulk запросом на все устаревшие товары. Старше max-stale - промах.
+ *
+ * Как и реплика, кэш только подсказка: он может лишь пропустить gRPC проверку, если остатка
+ * заведомо хватает с большим запасом, а окончательное решение принимает резервирование.
+ * Отклонить заказ по кэшу нельзя, товары с малым остатком всегда проверяются в inventory-service.
+ */
+@Component
+@Slf4j
+public class AvailabilityCache {
+
+    private final InventoryClient inventoryClient;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long freshTtlNanos;
+    private final long maxStaleNanos;
+    private final int lowStock;
+    private final int safetyFactor;
+
+    private final Map<Long, CachedStock> entries = new ConcurrentHashMap<>();
+    private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Конструктор кэша остатков.
+     *
+     * @param inventoryClient клиент inventory-service для фонового обновления
+     * @param meterRegistry   реестр метрик
+     * @param enabled         использовать ли кэш при обработке заказов
+     * @param freshTtl        сколько запись считается свежей
+     * @param maxStale        сколько устаревшая запись еще используется, пока идет обновление
+     * @param lowStock        остаток, ниже которого товар всегда проверяется в inventory-service
+     * @param safetyFactor    во сколько раз остаток в кэше должен превышать запрошенное количество
+     */
+    public AvailabilityCache(InventoryClient inventoryClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.inventory.cache.enabled:true}") boolean enabled,
+                             @Value("${app.inventory.cache.fresh-ttl:PT2S}") Duration freshTtl,
+                             @Value("${app.inventory.cache.max-stale:PT30S}") Duration maxStale,
+                             @Value("${app.inventory.cache.low-stock:100}") int lowStock,
+                             @Value("${app.inventory.cache.safety-factor:10}") int safetyFactor) {
+        if (freshTtl.compareTo(maxStale) > 0 || safetyFactor < 1 || lowStock < 1) {
+            throw new IllegalArgumentException("Некорректные параметры кэша остатков: fresh-ttl " + freshTtl
+                    + ", max-stale " + maxStale + ", low-stock " + lowStock + ", safety-factor " + safetyFactor);
+        }
+        this.inventoryClient = inventoryClient;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.freshTtlNanos = freshTtl.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.lowStock = lowStock;
+        this.safetyFactor = safetyFactor;
+    }
+
+    /**
+     * Оценивает заказ по кэшу.
+     *
+     * @param items товары заказа
+     * @return AVAILABLE если всех товаров в кэше с большим запасом, иначе UNKNOWN
+     */
+    public AvailabilityVerdict check(List<OrderItemDTO> items) {
+        return check(items, System.nanoTime());
+    }
+
+    AvailabilityVerdict check(List<OrderItemDTO> items, long nowNanos) {
+        if (!enabled) {
+            return AvailabilityVerdict.UNKNOWN;
+        }
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (OrderItemDTO item : items) {
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<Long> stale = new ArrayList<>();
+        AvailabilityVerdict verdict = AvailabilityVerdict.AVAILABLE;
+        for (Map.Entry<Long, Integer> item : requested.entrySet()) {
+            CachedStock entry = entries.get(item.getKey());
+            long age = entry != null ? nowNanos - entry.updatedAt() : Long.MAX_VALUE;
+            if (age > maxStaleNanos) {
+                verdict = AvailabilityVerdict.UNKNOWN;
+                continue;
+            }
+            if (age > freshTtlNanos) {
+                stale.add(item.getKey());
+            }
+            if (!isFarAbove(entry.quantity(), item.getValue())) {
+                verdict = AvailabilityVerdict.UNKNOWN;
+            }
+        }
+
+        if (verdict == AvailabilityVerdict.AVAILABLE) {
+            // При промахе заказ все равно проверяется через gRPC, и его ответ обновит кэш
+            stale.forEach(this::scheduleRefresh);
+        }
+        meterRegistry.counter(MeterNames.AVAILABILITY_CACHE, MeterNames.TAG_OUTCOME,
+                verdict == AvailabilityVerdict.UNKNOWN ? MeterNames.CACHE_MISS
+                        : stale.isEmpty() ? MeterNames.CACHE_FRESH : MeterNames.CACHE_STALE).increment();
+        return verdict;
+    }
+
+    /**
+     * Запоминает остатки из ответа проверки доступности.
+     *
+     * @param response ответ CheckAvailability
+     */
+    public void update(BulkProductResponse response) {
+        long now = System.nanoTime();
+        response.getAvailableItemsList().forEach(item -> put(item, now));
+        response.getUnavailableItemsList().forEach(item -> put(item, now));
+    }
+
+    /**
+     * Запоминает остатки из позиций ответа резервирования: после резервирования в них новый остаток.
+     * Позиции ответа на повторный запрос (replayed) передавать нельзя: их остаток устарел.
+     *
+     * @param items зарезервированные или не зарезервированные позиции
+     */
+    public void update(List<ProductResponseItem> items) {
+        long now = System.nanoTime();
+        items.forEach(item -> put(item, now));
+    }
+
+    /**
+     * Удаляет записи старше max-stale: они все равно не используются.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.updatedAt() > maxStaleNanos);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Остаток должен покрывать и порог малого остатка, и запрошенное количество с запасом:
+     * за время жизни записи товар успевают раскупить другие заказы.
+     */
+    private boolean isFarAbove(int quantity, int requested) {
+        return quantity >= lowStock && quantity >= (long) requested * safetyFactor;
+    }
+
+    private void put(ProductResponseItem item, long nowNanos) {
+        entries.merge(item.getProductId(), new CachedStock(item.getAvailableQuantity(), nowNanos),
+                (current, next) -> next.updatedAt() - current.updatedAt() >= 0 ? next : current);
+    }
+
+    private void scheduleRefresh(Long productId) {
+        // Один товар ждет обновления не больше одного раза; все ожидающие уходят одним запросом
+        if (pendingRefresh.add(productId)) {
+            refresher.execute(this::refreshPending);
+        }
+    }
+
+    private void refreshPending() {
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (Iterator<Long> it = pendingRefresh.iterator(); it.hasNext(); ) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(it.next());
+            item.setQuantity(1);
+            items.add(item);
+            it.remove();
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+        String rqUid = "cache-refresh-" + UUID.randomUUID();
+        try {
+            update(inventoryClient.checkBulkAvailability(items, rqUid));
+            log.debug("[Кэш остатков] Обновлено товаров: {}", items.size());
+        } catch (Exception e) {
+            // Записи останутся устаревшими и перестанут использоваться через max-stale
+            log.warn("[Кэш остатков] Не удалось обновить {} товаров: {}", items.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Остаток товара и момент его получения по System.nanoTime().
+     */
+    private record CachedStock(int quantity, long updatedAt) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.OrderService.replica;
+
+import com.example.OrderService.dto.OrderItemDTO;
+import dto.StockChangeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальная реплика остатков товаров, построенная по компактируемому топику событий inventory-service.
+ * Каждый экземпляр order-service читает топик с начала в собственной группе потребителей.
+ * Реплика используется только как подсказка: окончательное решение принимает резервирование в inventory-service.
+ * События отправляются без подтверждения, и пропущенное пополнение оставило бы в реплике заниженный остаток,
+ * поэтому по реплике заказ можно только пропустить без gRPC проверки, но не отклонить.
+ */
+@Component
+@Slf4j
+public class AvailabilityReplica {
+
+    static final String LISTENER_ID = "availability-replica";
+
+    private final Map<Long, StockEntry> entries = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final long maxLag;
+    private final int availableMargin;
+
+    /** Суммарное отставание по назначенным партициям, -1 если неизвестно */
+    private volatile long lag = -1;
+    private volatile long lastEventAt;
+    private volatile long lastLagCheckAt;
+
+    /**
+     * Конструктор реплики остатков.
+     *
+     * @param enabled         использовать ли реплику при обработке заказов
+     * @param maxLag          допустимое отставание (в сообщениях), при превышении реплика не используется
+     * @param availableMargin запас сверх запрошенного количества, при котором товар считается заведомо доступным
+     */
+    public AvailabilityReplica(@Value("${app.inventory.replica.enabled:true}") boolean enabled,
+                               @Value("${app.inventory.replica.max-lag:100}") long maxLag,
+                               @Value("${app.inventory.replica.available-margin:5}") int availableMargin) {
+        this.enabled = enabled;
+        this.maxLag = maxLag;
+        this.availableMargin = availableMargin;
+    }
+
+    /**
+     * Применяет событие изменения остатка. Tombstone удаляет товар из реплики,
+     * события со старой версией игнорируются.
+     *
+     * @param record   запись из топика остатков
+     * @param consumer потребитель Kafka для расчета отставания
+     */
+    @KafkaListener(id = LISTENER_ID,
+            topics = "${app.kafka.topics.stock-changes}",
+            groupId = "order-availability-${random.uuid}",
+            containerFactory = "stockChangeListenerContainerFactory",
+            autoStartup = "${app.inventory.replica.enabled:true}")
+    public void onStockChange(ConsumerRecord<String, StockChangeMessage> record, Consumer<?, ?> consumer) {
+        apply(Long.valueOf(record.key()), record.value());
+        lastEventAt = System.currentTimeMillis();
+        // currentLag берется из метаданных последнего fetch и не делает сетевых вызовов
+        if (lastEventAt - lastLagCheckAt >= 1000) {
+            updateLag(consumer);
+        }
+    }
+
+    /**
+     * Пересчитывает отставание, когда в топике нет новых событий.
+     *
+     * @param event событие простоя контейнера
+     */
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        updateLag(event.getConsumer());
+    }
+
+    void apply(Long productId, StockChangeMessage message) {
+        if (message == null) {
+            entries.remove(productId);
+            return;
+        }
+        StockEntry incoming = new StockEntry(message.getQuantity(), message.getVersion());
+        entries.merge(productId, incoming, (current, next) -> next.version() >= current.version() ? next : current);
+    }
+
+    void updateLag(Consumer<?, ?> consumer) {
+        long total = 0;
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong partitionLag = consumer.currentLag(partition);
+            if (partitionLag.isEmpty()) {
+                lag = -1;
+                return;
+            }
+            total += partitionLag.getAsLong();
+        }
+        lag = total;
+        lastLagCheckAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Оценивает заказ по реплике.
+     *
+     * @param items товары заказа
+     * @return AVAILABLE если всех товаров заведомо достаточно, UNKNOWN если реплика отключена, отстает,
+     * не уверена или какого-то товара по ней не хватает
+     */
+    public AvailabilityVerdict check(List<OrderItemDTO> items) {
+        if (!isUsable()) {
+            return AvailabilityVerdict.UNKNOWN;
+        }
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (OrderItemDTO item : items) {
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        AvailabilityVerdict verdict = AvailabilityVerdict.AVAILABLE;
+        for (Map.Entry<Long, Integer> item : requested.entrySet()) {
+            StockEntry entry = entries.get(item.getKey());
+            if (entry == null || entry.quantity() < item.getValue() + availableMargin) {
+                // Нехватку по реплике подтверждает inventory-service: событие пополнения могло потеряться
+                return AvailabilityVerdict.UNKNOWN;
+            }
+        }
+        return AvailabilityVerdict.AVAILABLE;
+    }
+
+    /**
+     * @param productId идентификатор товара
+     * @return известный реплике остаток или null если товара нет в реплике
+     */
+    public Integer getQuantity(Long productId) {
+        StockEntry entry = entries.get(productId);
+        return entry != null ? entry.quantity() : null;
+    }
+
+    /**
+     * @return true если реплика включена и отставание известно и не превышает допустимое
+     */
+    public boolean isUsable() {
+        long currentLag = lag;
+        return enabled && currentLag >= 0 && currentLag <= maxLag;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return суммарное отставание в сообщениях или -1 если еще неизвестно
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    public long getLastEventAt() {
+        return lastEventAt;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Остаток товара и версия записи в inventory-service.
+     */
+    private record StockEntry(int quantity, long version) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.OrderService.replica;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Показывает состояние реплики остатков в /actuator/health.
+ * Отставание реплики не делает сервис нездоровым: при отставании заказы
+ * просто проверяются через gRPC, поэтому статус всегда UP, а детали показывают lag.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityReplicaHealthIndicator implements HealthIndicator {
+
+    private final AvailabilityReplica availabilityReplica;
+
+    @Override
+    public Health health() {
+        long lastEventAt = availabilityReplica.getLastEventAt();
+        return Health.up()
+                .withDetail("enabled", availabilityReplica.isEnabled())
+                .withDetail("usable", availabilityReplica.isUsable())
+                .withDetail("lag", availabilityReplica.getLag())
+                .withDetail("products", availabilityReplica.size())
+                .withDetail("lastEventAt", lastEventAt > 0 ? Instant.ofEpochMilli(lastEventAt).toString() : "never")
+                .build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.OrderService.replica;
+
+/**
+ * Итог проверки заказа по локальной реплике остатков.
+ */
+public enum AvailabilityVerdict {
+    /** Всех товаров заведомо достаточно, проверку через gRPC можно пропустить */
+    AVAILABLE,
+    /** Реплика не уверена (нет данных, отстает, остаток близок к запрошенному или меньше него) */
+    UNKNOWN
+}
@@ -0,0 +1,79 @@
+package com.example.OrderService.repository;
+
+import com.example.OrderService.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Репозиторий журнала ключей идемпотентности.
+ * Каждый метод выполняется в своей транзакции: отметка о начале обработки
+ * должна стать видна другим экземплярам сервиса до обращения к inventory-service.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Занимает ключ до начала обработки заказа.
+     *
+     * @param id          ключ вместе с именем пользователя
+     * @param requestHash отпечаток состава заказа
+     * @return 1 если ключ занят этим вызовом, 0 если запись с таким ключом уже есть
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO order_idempotency_keys (id, request_hash, created_at) VALUES (:id, :requestHash, now()) " +
+            "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int claim(@Param("id") String id, @Param("requestHash") String requestHash);
+
+    /**
+     * Сохраняет идентификатор созданного заказа.
+     *
+     * @param id      ключ вместе с именем пользователя
+     * @param orderId идентификатор заказа
+     * @return количество обновленных строк
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.orderId = :orderId WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("orderId") String orderId);
+
+    /**
+     * Перехватывает ключ, обработка которого началась раньше указанного момента и не завершилась,
+     * например из-за остановки экземпляра сервиса.
+     *
+     * @param id        ключ вместе с именем пользователя
+     * @param threshold момент, раньше которого обработка считается прерванной
+     * @return 1 если ключ перехвачен, 0 если обработка завершилась или еще идет
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.createdAt = CURRENT_TIMESTAMP " +
+            "WHERE r.id = :id AND r.orderId IS NULL AND r.createdAt < :threshold")
+    int takeOver(@Param("id") String id, @Param("threshold") LocalDateTime threshold);
+
+    /**
+     * Освобождает ключ после неудачной обработки, чтобы клиент мог повторить заказ.
+     *
+     * @param id ключ вместе с именем пользователя
+     * @return количество удаленных записей
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.orderId IS NULL")
+    int release(@Param("id") String id);
+
+    /**
+     * Удаляет записи старше указанного момента.
+     *
+     * @param threshold граница хранения
+     * @return количество удаленных записей
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :threshold")
+    int deleteOlderThan(@Param("threshold") LocalDateTime threshold);
+}
@@ -1,5 +1,8 @@
 package com.example.OrderService.security;
 
+import com.example.OrderService.admission.OrderAdmissionControl;
+import com.example.OrderService.admission.OrderAdmissionFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.security.authentication.BasicGrpcAuthenticationReader;
 import net.devh.boot.grpc.server.security.authentication.GrpcAuthenticationReader;
@@ -38,6 +41,8 @@ public class SecurityConfig {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final OrderAdmissionControl orderAdmissionControl;
+    private final ObjectMapper objectMapper;
 
     /**
      * Создает бин JwtAuthenticationFilter для обработки JWT токенов.
@@ -68,6 +73,10 @@ public class SecurityConfig {
                         // Публичные эндпоинты
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        // Проверки состояния и сбор метрик Prometheus выполняются без токена
+                        .requestMatchers("/actuator/health", "/actuator/info", "/actuator/prometheus").permitAll()
+                        // Лимиты приема заказов меняют только администраторы
+                        .requestMatchers("/actuator/admission", "/actuator/admission/**").hasRole("ADMIN")
                         // Защищенные эндпоинты
                         .requestMatchers("/api/order").hasAnyRole("USER", "ADMIN")
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
@@ -76,6 +85,9 @@ public class SecurityConfig {
                 )
                 .authenticationProvider(authenticationProvider())
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                // Лишние заказы отклоняются до загрузки пользователя из базы в JwtAuthenticationFilter
+                .addFilterBefore(new OrderAdmissionFilter(jwtTokenProvider, orderAdmissionControl, objectMapper),
+                        JwtAuthenticationFilter.class)
                 .build();
     }
 
@@ -0,0 +1,235 @@
+package com.example.OrderService.service;
+
+import com.example.OrderService.dto.OrderItemDTO;
+import com.example.OrderService.dto.OrderRequest;
+import com.example.OrderService.entity.IdempotencyRecord;
+import com.example.OrderService.exception.IdempotencyKeyConflictException;
+import com.example.OrderService.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Идемпотентное создание заказов по заголовку Idempotency-Key.
+ * Недавние результаты хранятся в LRU индексе в памяти, полный журнал - в таблице order_idempotency_keys.
+ * Повтор запроса с тем же ключом получает идентификатор исходного заказа и не обращается
+ * к inventory-service и Kafka; повтор во время обработки исходного запроса в этом же экземпляре
+ * дожидается ее результата. Ключ действует в пределах пользователя.
+ * Идентификатор заказа выводится из пользователя и ключа, поэтому попытка после ошибки
+ * или после перехвата прерванной обработки получает в inventory-service исходное резервирование
+ * этого заказа, а не резервирует товар еще раз.
+ */
+@Service
+@Slf4j
+public class OrderIdempotencyService {
+
+    /** Максимальная длина ключа, вместе с именем пользователя он должен поместиться в колонку id */
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Map<String, Completed> recent;
+    private final Map<String, Attempt> inFlight = new ConcurrentHashMap<>();
+    private final Duration inProgressTimeout;
+    private final Duration retention;
+
+    /**
+     * Конструктор сервиса идемпотентности.
+     *
+     * @param idempotencyRecordRepository репозиторий журнала ключей
+     * @param cacheSize                   количество ключей в индексе в памяти
+     * @param inProgressTimeout           время, после которого незавершенная обработка считается прерванной
+     * @param retention                   срок хранения записей журнала
+     */
+    public OrderIdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                                   @Value("${app.orders.idempotency.cache-size:10000}") int cacheSize,
+                                   @Value("${app.orders.idempotency.in-progress-timeout:PT30S}") Duration inProgressTimeout,
+                                   @Value("${app.orders.idempotency.retention:P1D}") Duration retention) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.inProgressTimeout = inProgressTimeout;
+        this.retention = retention;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Создает заказ не более одного раза для пары пользователь и ключ.
+     * Если обработка завершилась ошибкой, ключ освобождается и запрос можно повторить.
+     *
+     * @param username       имя пользователя
+     * @param idempotencyKey значение заголовка Idempotency-Key
+     * @param request        данные заказа
+     * @param processOrder   создание заказа с переданным идентификатором, вызывается только
+     *                       для первого запроса с ключом и для повторов после ошибки
+     * @return идентификатор заказа, созданного первым запросом с этим ключом
+     * @throws IdempotencyKeyConflictException если заказ с ключом обрабатывается другим экземпляром
+     *                                         или ключ использован для заказа с другим составом
+     */
+    public String execute(String username, String idempotencyKey, OrderRequest request,
+                          Function<String, String> processOrder) {
+        String id = username + ":" + idempotencyKey;
+        String requestHash = fingerprint(request);
+
+        Completed completed = recent.get(id);
+        if (completed != null) {
+            checkSameRequest(completed.requestHash(), requestHash, idempotencyKey);
+            log.info("[Idempotency-Key: {}] Повторный запрос, возвращен заказ {}", idempotencyKey, completed.orderId());
+            return completed.orderId();
+        }
+
+        Attempt attempt = new Attempt(requestHash, new CompletableFuture<>());
+        Attempt running = inFlight.putIfAbsent(id, attempt);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash, idempotencyKey);
+            log.info("[Idempotency-Key: {}] Заказ с этим ключом обрабатывается, ожидание результата", idempotencyKey);
+            return await(running, idempotencyKey);
+        }
+
+        try {
+            String orderId = claimAndProcess(id, idempotencyKey, requestHash, processOrder);
+            attempt.result().complete(orderId);
+            return orderId;
+        } catch (RuntimeException e) {
+            attempt.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, attempt);
+        }
+    }
+
+    /**
+     * Удаляет из журнала записи старше срока хранения.
+     */
+    @Scheduled(cron = "${app.orders.idempotency.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("[Idempotency] Удалено устаревших ключей идемпотентности: {}", deleted);
+        }
+    }
+
+    private String claimAndProcess(String id, String idempotencyKey, String requestHash,
+                                   Function<String, String> processOrder) {
+        if (idempotencyRecordRepository.claim(id, requestHash) == 0) {
+            IdempotencyRecord record = idempotencyRecordRepository.findById(id).orElse(null);
+            if (record == null) {
+                // Запись удалили между вставкой и чтением: предыдущая попытка завершилась ошибкой
+                if (idempotencyRecordRepository.claim(id, requestHash) == 0) {
+                    throw new IdempotencyKeyConflictException("Заказ с ключом " + idempotencyKey + " уже обрабатывается");
+                }
+            } else {
+                checkSameRequest(record.getRequestHash(), requestHash, idempotencyKey);
+                if (record.getOrderId() != null) {
+                    recent.put(id, new Completed(requestHash, record.getOrderId()));
+                    log.info("[Idempotency-Key: {}] Повторный запрос, заказ {} найден в журнале",
+                            idempotencyKey, record.getOrderId());
+                    return record.getOrderId();
+                }
+                if (idempotencyRecordRepository.takeOver(id, LocalDateTime.now().minus(inProgressTimeout)) == 0) {
+                    throw new IdempotencyKeyConflictException("Заказ с ключом " + idempotencyKey + " уже обрабатывается");
+                }
+                log.warn("[Idempotency-Key: {}] Обработка не завершилась за {}, заказ обрабатывается заново",
+                        idempotencyKey, inProgressTimeout);
+            }
+        }
+
+        String orderId;
+        try {
+            orderId = processOrder.apply(orderIdFor(id));
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.release(id);
+            throw e;
+        }
+
+        try {
+            idempotencyRecordRepository.complete(id, orderId);
+        } catch (DataAccessException e) {
+            // Заказ уже создан и отправлен: клиент получает его, повторы обслужит индекс в памяти
+            log.error("[Idempotency-Key: {}] Не удалось сохранить заказ {} в журнал: {}",
+                    idempotencyKey, orderId, e.getMessage());
+        }
+        recent.put(id, new Completed(requestHash, orderId));
+        return orderId;
+    }
+
+    private String await(Attempt running, String idempotencyKey) {
+        try {
+            return running.result().get(inProgressTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ошибка обработки заказа с ключом " + idempotencyKey, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyConflictException("Заказ с ключом " + idempotencyKey + " уже обрабатывается");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyConflictException("Заказ с ключом " + idempotencyKey + " уже обрабатывается");
+        }
+    }
+
+    /**
+     * Идентификатор заказа для ключа: один и тот же для всех попыток, чтобы inventory-service
+     * распознал повторное резервирование по orderId.
+     *
+     * @param id пользователь и ключ идемпотентности
+     * @return UUID заказа
+     */
+    static String orderIdFor(String id) {
+        return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static void checkSameRequest(String expectedHash, String requestHash, String idempotencyKey) {
+        if (!expectedHash.equals(requestHash)) {
+            throw new IdempotencyKeyConflictException(
+                    "Ключ " + idempotencyKey + " уже использован для заказа с другим составом");
+        }
+    }
+
+    /**
+     * Вычисляет отпечаток состава заказа: товары и количества в порядке запроса.
+     *
+     * @param request данные заказа
+     * @return SHA-256 в шестнадцатеричном виде
+     */
+    static String fingerprint(OrderRequest request) {
+        StringBuilder items = new StringBuilder();
+        for (OrderItemDTO item : request.getItems()) {
+            items.append(item.getProductId()).append(':').append(item.getQuantity()).append(';');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(items.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private record Completed(String requestHash, String orderId) {
+    }
+
+    private record Attempt(String requestHash, CompletableFuture<String> result) {
+    }
+}
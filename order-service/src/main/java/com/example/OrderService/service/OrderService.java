@@ -5,4 +5,6 @@ import com.example.OrderService.dto.OrderRequest;
 
 public interface OrderService {
     public String processOrder(OrderRequest request, String username);
+
+    public String processOrder(OrderRequest request, String username, String orderId);
 }
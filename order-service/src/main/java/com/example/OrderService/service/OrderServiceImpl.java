@@ -1,20 +1,26 @@
 package com.example.OrderService.service;
 
+import com.example.OrderService.dto.OrderItemDTO;
 import com.example.OrderService.dto.OrderRequest;
 import com.example.OrderService.entity.User;
 import com.example.OrderService.exception.ProductsUnavailableException;
 import com.example.OrderService.exception.UserNotFoundException;
 import com.example.OrderService.grpc.InventoryClient;
 import com.example.OrderService.kafka.OrderProducer;
+import com.example.OrderService.replica.AvailabilityCache;
+import com.example.OrderService.replica.AvailabilityReplica;
+import com.example.OrderService.replica.AvailabilityVerdict;
 import com.example.OrderService.repository.UserRepository;
 import com.example.inventory.BulkProductResponse;
 import com.example.inventory.ProductResponseItem;
 import com.example.inventory.ReserveProductsResponse;
 import dto.OrderMessage;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import metrics.MeterNames;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -28,6 +34,7 @@ import java.util.stream.Collectors;
  * Основной сервис для обработки заказов покупателей.
  * Отвечает за проверку наличия товаров, расчет стоимости и отправку заказов в Kafka.
  * Реализует полный цикл обработки заказа от валидации до отправки уведомлений.
+ * Учитывает в метриках принятые и отклоненные по причинам заказы и нехватку товаров по группам.
  */
 @Service
 @Slf4j
@@ -37,6 +44,9 @@ public class OrderServiceImpl implements OrderService {
     private final InventoryClient inventoryClient;
     private final OrderProducer orderProducer;
     private final UserRepository userRepository;
+    private final AvailabilityReplica availabilityReplica;
+    private final AvailabilityCache availabilityCache;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Обрабатывает новый заказ от пользователя.
@@ -44,7 +54,7 @@ public class OrderServiceImpl implements OrderService {
      * Процесс включает следующие шаги:
      * 1. Валидация входных данных
      * 2. Поиск пользователя в базе данных
-     * 3. Проверка доступности товаров через gRPC
+     * 3. Проверка доступности товаров: по локальной реплике остатков и кэшу, при неопределенности через gRPC
      * 4. Резервирование товаров
      * 5. Расчет стоимости заказа
      * 6. Отправка уведомления в Kafka
@@ -59,57 +69,93 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public String processOrder(OrderRequest request, String username) {
-        String orderUuid = UUID.randomUUID().toString();
+        return processOrder(request, username, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Обрабатывает заказ с заданным идентификатором.
+     * Повторный вызов с тем же идентификатором не резервирует товар заново: inventory-service
+     * возвращает результат исходного резервирования этого заказа.
+     *
+     * @param request   данные заказа, включая список товаров
+     * @param username  имя пользователя, оформляющего заказ
+     * @param orderUuid идентификатор заказа
+     * @return идентификатор заказа
+     * @see #processOrder(OrderRequest, String)
+     */
+    @Override
+    public String processOrder(OrderRequest request, String username, String orderUuid) {
         log.info("[Заказ: {}] === НАЧАЛО ОБРАБОТКИ ЗАКАЗА ===", orderUuid);
         log.info("[Заказ: {}] Пользователь: {}, Товаров: {}", orderUuid, username, request.getItems().size());
 
+        String rejectReason = null;
         try {
             // 0. Валидация входных данных
             log.info("[Заказ: {}] Шаг 0: Валидация входных данных", orderUuid);
             validateOrderRequest(request, orderUuid);
             log.info("[Заказ: {}] Валидация пройдена успешно", orderUuid);
+            for (OrderItemDTO item : request.getItems()) {
+                meterRegistry.counter(MeterNames.ORDER_ITEMS_REQUESTED,
+                        MeterNames.TAG_PRODUCT_BUCKET, MeterNames.productBucket(item.getProductId())).increment();
+            }
 
             // 1. Поиск пользователя
             log.info("[Заказ: {}] Шаг 1: Поиск пользователя в БД", orderUuid);
             User user = findUser(username, orderUuid);
             log.info("[Заказ: {}] Пользователь найден: ID {}", orderUuid, user.getId());
 
-            // 2. Проверка доступности товаров через gRPC
-            log.info("[Заказ: {}] Шаг 2: Проверка доступности товаров через gRPC", orderUuid);
-            BulkProductResponse bulkResponse = inventoryClient.checkBulkAvailability(request.getItems(), orderUuid);
-            log.info("[Заказ: {}] gRPC ответ получен: доступно={}, недоступно={}",
-                    orderUuid, bulkResponse.getAvailableItemsCount(), bulkResponse.getUnavailableItemsCount());
-
-            // Если есть недоступные товары - бросаем исключение
-            if (bulkResponse.getUnavailableItemsCount() > 0) {
-                List<String> unavailableProducts = new ArrayList<>();
-                for (ProductResponseItem item : bulkResponse.getUnavailableItemsList()) {
-                    String productInfo = String.format("Товар ID:%d '%s' (запрошено: %d, доступно: %d)",
-                            item.getProductId(), item.getName(), item.getRequestedQuantity(), item.getAvailableQuantity());
-                    unavailableProducts.add(productInfo);
-                    log.warn("[Заказ: {}] Недоступный товар: {}", orderUuid, productInfo);
+            // 2. Проверка доступности товаров: сначала по локальной реплике и кэшу, при неопределенности через gRPC
+            AvailabilityVerdict verdict = availabilityReplica.check(request.getItems());
+            log.info("[Заказ: {}] Шаг 2: Проверка доступности товаров, вердикт реплики: {}", orderUuid, verdict);
+            if (verdict == AvailabilityVerdict.UNKNOWN) {
+                verdict = availabilityCache.check(request.getItems());
+                log.debug("[Заказ: {}] Вердикт кэша остатков: {}", orderUuid, verdict);
+            }
+
+            BulkProductResponse bulkResponse = null;
+            if (verdict == AvailabilityVerdict.UNKNOWN) {
+                bulkResponse = inventoryClient.checkBulkAvailability(request.getItems(), orderUuid);
+                availabilityCache.update(bulkResponse);
+                log.info("[Заказ: {}] gRPC ответ получен: доступно={}, недоступно={}",
+                        orderUuid, bulkResponse.getAvailableItemsCount(), bulkResponse.getUnavailableItemsCount());
+
+                // Если есть недоступные товары - бросаем исключение
+                if (bulkResponse.getUnavailableItemsCount() > 0) {
+                    throw unavailable(bulkResponse.getUnavailableItemsList(), orderUuid);
                 }
-                log.error("[Заказ: {}] Найдены недоступные товары. Количество: {}", orderUuid, unavailableProducts.size());
-                throw new ProductsUnavailableException("Некоторые товары недоступны", unavailableProducts);
+                log.info("[Заказ: {}] Все товары доступны для заказа", orderUuid);
+            } else {
+                log.info("[Заказ: {}] Реплика или кэш остатков подтверждает наличие, gRPC проверка пропущена", orderUuid);
             }
-            log.info("[Заказ: {}] Все товары доступны для заказа", orderUuid);
 
             // 3. Резервирование товаров
             log.info("[Заказ: {}] Шаг 3: Резервирование товаров через gRPC", orderUuid);
             ReserveProductsResponse reserveResponse = inventoryClient.reserveProducts(orderUuid, request.getItems());
             log.info("[Заказ: {}] Ответ резервирования: успех={}, сообщение='{}', зарезервировано={}",
                     orderUuid, reserveResponse.getSuccess(), reserveResponse.getMessage(), reserveResponse.getReservedItemsCount());
+            if (!reserveResponse.getReplayed()) {
+                // В ответе на повтор остатки на момент первого резервирования, кэш они бы откатили
+                availabilityCache.update(reserveResponse.getReservedItemsList());
+                availabilityCache.update(reserveResponse.getFailedItemsList());
+            }
 
             if (!reserveResponse.getSuccess()) {
                 log.error("[Заказ: {}] Ошибка резервирования товаров: {}", orderUuid, reserveResponse.getMessage());
+                if (bulkResponse == null && reserveResponse.getFailedItemsCount() > 0) {
+                    // Реплика или кэш ошиблись: сообщаем пользователю о нехватке товара, как при gRPC проверке
+                    throw unavailable(reserveResponse.getFailedItemsList(), orderUuid);
+                }
+                rejectReason = MeterNames.REASON_RESERVATION_FAILED;
                 throw new RuntimeException("Не удалось зарезервировать товары: " + reserveResponse.getMessage());
             }
             log.info("[Заказ: {}] Товары успешно зарезервированы", orderUuid);
 
-            // 4. Создание OrderItems из доступных товаров
+            // 4. Создание OrderItems из доступных товаров (без gRPC проверки цены берутся из ответа резервирования)
             log.info("[Заказ: {}] Шаг 4: Создание элементов заказа", orderUuid);
-            List<OrderItemProcessingResult> processingResults = createOrderItemsFromResponse(
-                    bulkResponse.getAvailableItemsList(), orderUuid);
+            List<ProductResponseItem> pricedItems = bulkResponse != null
+                    ? bulkResponse.getAvailableItemsList()
+                    : reserveResponse.getReservedItemsList();
+            List<OrderItemProcessingResult> processingResults = createOrderItemsFromResponse(pricedItems, orderUuid);
             log.info("[Заказ: {}] Создано элементов заказа: {}", orderUuid, processingResults.size());
 
             // 5. Расчет общей суммы
@@ -126,6 +172,7 @@ public class OrderServiceImpl implements OrderService {
 
             orderProducer.sendOrder(message);
             log.info("[Заказ: {}] Сообщение успешно отправлено в Kafka", orderUuid);
+            meterRegistry.counter(MeterNames.ORDERS_ACCEPTED).increment();
 
             log.info("[Заказ: {}] === ОБРАБОТКА ЗАКАЗА УСПЕШНО ЗАВЕРШЕНА ===", orderUuid);
             log.info("[Заказ: {}] Итог: orderId={}, user={}, total={}, itemsCount={}",
@@ -136,8 +183,17 @@ public class OrderServiceImpl implements OrderService {
         } catch (ProductsUnavailableException | UserNotFoundException e) {
             // Эти исключения пробрасываем как есть (бизнес-логика)
             log.error("[Заказ: {}] Бизнес-ошибка: {}", orderUuid, e.getMessage());
+            rejected(e instanceof UserNotFoundException
+                    ? MeterNames.REASON_USER_NOT_FOUND
+                    : MeterNames.REASON_OUT_OF_STOCK);
             throw e;
         } catch (Exception e) {
+            if (rejectReason == null) {
+                rejectReason = e instanceof IllegalArgumentException
+                        ? MeterNames.REASON_VALIDATION
+                        : MeterNames.REASON_ERROR;
+            }
+            rejected(rejectReason);
             log.error("[Заказ: {}] === КРИТИЧЕСКАЯ ОШИБКА ПРИ ОБРАБОТКЕ ЗАКАЗА ===", orderUuid);
             log.error("[Заказ: {}] Тип ошибки: {}", orderUuid, e.getClass().getName());
             log.error("[Заказ: {}] Сообщение ошибки: {}", orderUuid, e.getMessage());
@@ -146,6 +202,45 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Учитывает отклоненный заказ в метриках.
+     *
+     * @param reason причина отклонения из {@link MeterNames}
+     */
+    private void rejected(String reason) {
+        meterRegistry.counter(MeterNames.ORDERS_REJECTED, MeterNames.TAG_REASON, reason).increment();
+    }
+
+    /**
+     * Учитывает нехватку товара в метриках его группы.
+     *
+     * @param productId идентификатор товара
+     */
+    private void outOfStock(long productId) {
+        meterRegistry.counter(MeterNames.ORDER_ITEMS_OUT_OF_STOCK,
+                MeterNames.TAG_PRODUCT_BUCKET, MeterNames.productBucket(productId)).increment();
+    }
+
+    /**
+     * Создает исключение о недоступных товарах по ответу inventory-service.
+     *
+     * @param unavailableItems недоступные товары
+     * @param orderUuid UUID заказа для логирования
+     * @return исключение со списком недоступных товаров
+     */
+    private ProductsUnavailableException unavailable(List<ProductResponseItem> unavailableItems, String orderUuid) {
+        List<String> unavailableProducts = new ArrayList<>();
+        for (ProductResponseItem item : unavailableItems) {
+            String productInfo = String.format("Товар ID:%d '%s' (запрошено: %d, доступно: %d)",
+                    item.getProductId(), item.getName(), item.getRequestedQuantity(), item.getAvailableQuantity());
+            unavailableProducts.add(productInfo);
+            outOfStock(item.getProductId());
+            log.warn("[Заказ: {}] Недоступный товар: {}", orderUuid, productInfo);
+        }
+        log.error("[Заказ: {}] Найдены недоступные товары. Количество: {}", orderUuid, unavailableProducts.size());
+        return new ProductsUnavailableException("Некоторые товары недоступны", unavailableProducts);
+    }
+
     /**
      * Валидирует запрос на создание заказа.
      * Проверяет корректность входных данных, включая:
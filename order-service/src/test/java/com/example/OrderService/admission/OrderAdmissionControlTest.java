@@ -0,0 +1,133 @@
+package com.example.OrderService.admission;
+
+import com.example.OrderService.entity.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import metrics.MeterNames;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Юнит тесты для ограничения приема заказов.
+ */
+class OrderAdmissionControlTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderAdmissionControl orderAdmissionControl;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getClasses().put(Role.USER, classLimits(10, 4, 1, 2));
+        properties.getClasses().put(Role.ADMIN, classLimits(5, 5, 5, 5));
+        meterRegistry = new SimpleMeterRegistry();
+        orderAdmissionControl = new OrderAdmissionControl(properties, meterRegistry);
+    }
+
+    @Test
+    void tryAdmit_UserBurstExceeded_ShouldRejectWithRetryAfter() {
+        long now = System.nanoTime();
+
+        // Act
+        long first = orderAdmissionControl.tryAdmit("alice", Role.USER, now);
+        long second = orderAdmissionControl.tryAdmit("alice", Role.USER, now);
+        long third = orderAdmissionControl.tryAdmit("alice", Role.USER, now);
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertEquals(SECOND, third);
+        assertEquals(0, orderAdmissionControl.tryAdmit("alice", Role.USER, now + SECOND));
+        assertEquals(1.0, meterRegistry.counter(MeterNames.ADMISSION_REJECTED,
+                MeterNames.TAG_PRIORITY, "USER", MeterNames.TAG_SCOPE, MeterNames.SCOPE_USER).count());
+    }
+
+    @Test
+    void tryAdmit_GlobalLimitExceeded_ShouldRejectOtherUsersAndKeepTheirTokens() {
+        long now = System.nanoTime();
+        for (String user : new String[]{"u1", "u2", "u3", "u4"}) {
+            assertEquals(0, orderAdmissionControl.tryAdmit(user, Role.USER, now));
+        }
+
+        // Act
+        long rejected = orderAdmissionControl.tryAdmit("u5", Role.USER, now);
+
+        // Assert
+        assertTrue(rejected > 0);
+        assertEquals(1.0, meterRegistry.counter(MeterNames.ADMISSION_REJECTED,
+                MeterNames.TAG_PRIORITY, "USER", MeterNames.TAG_SCOPE, MeterNames.SCOPE_GLOBAL).count());
+        // Токен u5 возвращен: после пополнения общей корзины доступен весь всплеск пользователя
+        long later = now + SECOND;
+        assertEquals(0, orderAdmissionControl.tryAdmit("u5", Role.USER, later));
+        assertEquals(0, orderAdmissionControl.tryAdmit("u5", Role.USER, later));
+    }
+
+    @Test
+    void tryAdmit_AdminTraffic_ShouldNotConsumeUserLimits() {
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, orderAdmissionControl.tryAdmit("admin", Role.ADMIN, now));
+        }
+
+        // Act & Assert
+        assertTrue(orderAdmissionControl.tryAdmit("admin", Role.ADMIN, now) > 0);
+        assertEquals(0, orderAdmissionControl.tryAdmit("alice", Role.USER, now));
+    }
+
+    @Test
+    void update_ShouldApplyNewLimitsWithinOneInterval() {
+        long now = System.nanoTime();
+        orderAdmissionControl.tryAdmit("alice", Role.USER, now);
+        orderAdmissionControl.tryAdmit("alice", Role.USER, now);
+        assertTrue(orderAdmissionControl.tryAdmit("alice", Role.USER, now) > 0);
+
+        // Act
+        OrderAdmissionControl.ClassLimit updated = orderAdmissionControl.update(Role.USER, null, null, 100.0, 10);
+
+        // Assert
+        assertEquals(new BucketLimit(10, 4), updated.global());
+        // Долг по старому лимиту (1 зап/с) списан: ждать нужно не больше интервала нового (10 мс)
+        long wait = orderAdmissionControl.tryAdmit("alice", Role.USER, now);
+        assertTrue(wait <= SECOND / 100, "ожидание " + wait);
+        assertEquals(0, orderAdmissionControl.tryAdmit("alice", Role.USER, now + wait));
+    }
+
+    @Test
+    void setEnabled_False_ShouldAdmitEverything() {
+        long now = System.nanoTime();
+        orderAdmissionControl.setEnabled(false);
+
+        // Act & Assert
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, orderAdmissionControl.tryAdmit("alice", Role.USER, now));
+        }
+    }
+
+    @Test
+    void evictFullBuckets_ShouldDropOnlyRefilledBuckets() {
+        long now = System.nanoTime();
+        orderAdmissionControl.tryAdmit("idle", Role.USER, now - 10 * SECOND);
+        orderAdmissionControl.tryAdmit("busy", Role.USER, now + 10 * SECOND);
+
+        // Act
+        orderAdmissionControl.evictFullBuckets();
+
+        // Assert
+        assertEquals(1, orderAdmissionControl.trackedUsers());
+    }
+
+    private static AdmissionProperties.ClassLimits classLimits(double globalRate, int globalBurst,
+                                                               double userRate, int userBurst) {
+        AdmissionProperties.ClassLimits limits = new AdmissionProperties.ClassLimits();
+        limits.setGlobalRate(globalRate);
+        limits.setGlobalBurst(globalBurst);
+        limits.setUserRate(userRate);
+        limits.setUserBurst(userBurst);
+        return limits;
+    }
+}
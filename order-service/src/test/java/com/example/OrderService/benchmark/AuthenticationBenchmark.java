@@ -0,0 +1,141 @@
+package com.example.OrderService.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.OrderService.security.JwtAuthenticationFilter;
+import com.example.OrderService.security.JwtTokenProvider;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH бенчмарк аутентификации, которая выполняется на каждом вызове API заказов.
+ * <ul>
+ *     <li>методы JwtTokenProvider: createToken, validateToken, getUsernameFromToken, getAuthentication;</li>
+ *     <li>{@code buildParser} - parserBuilder().build(), который каждый из этих методов делает заново,
+ *     и {@code parseWithPrebuiltParser} - разбор тем же токеном готовым парсером для сравнения;</li>
+ *     <li>{@code filterRequest} - JwtAuthenticationFilter целиком на запросе с заголовком Authorization
+ *     и UserDetailsService, который возвращает готового пользователя без обращения к базе.</li>
+ * </ul>
+ * Результат в операциях в секунду; {@link #main(String[])} подключает GCProfiler,
+ * аллокации на операцию - в строке gc.alloc.rate.norm.
+ *
+ * Запуск: {@code mvn test-compile} и затем {@link #main(String[])} из IDE
+ * или {@code java -cp <test classpath> org.openjdk.jmh.Main AuthenticationBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthenticationBenchmark {
+
+    /** Секрет из application.yml, длина ключа влияет на стоимость HMAC. */
+    private static final String SECRET = "bmV3LXN1cGVyLXNlY3VyZS1zZWNyZXQta2V5LWZvci1qd3QtdG9rZW5zLTIwMjQ=";
+    private static final String USERNAME = "customer42";
+
+    private JwtTokenProvider jwtTokenProvider;
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private List<GrantedAuthority> authorities;
+    private Key key;
+    private JwtParser prebuiltParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // Уровень логирования как в работающем сервисе: debug фильтра не печатается
+        ((Logger) LoggerFactory.getLogger("com.example")).setLevel(Level.INFO);
+
+        jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", 3600000L);
+        ReflectionTestUtils.invokeMethod(jwtTokenProvider, "init");
+
+        authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        token = jwtTokenProvider.createToken(USERNAME, authorities);
+
+        // Тот же ключ, что строит JwtTokenProvider.init()
+        key = Keys.hmacShaKeyFor(Base64.getEncoder().encode(SECRET.getBytes()));
+        prebuiltParser = Jwts.parserBuilder().setSigningKey(key).build();
+
+        UserDetails user = User.withUsername(USERNAME).password("").authorities(authorities).build();
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtTokenProvider, username -> user);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtTokenProvider.createToken(USERNAME, authorities);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtTokenProvider.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return jwtTokenProvider.getAuthentication(token);
+    }
+
+    @Benchmark
+    public JwtParser buildParser() {
+        return Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    @Benchmark
+    public String parseWithPrebuiltParser() {
+        return prebuiltParser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Authentication filterRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/order");
+        request.setServletPath("/api/order");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            // Иначе следующий вызов увидит готовую аутентификацию и пропустит загрузку пользователя
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthenticationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
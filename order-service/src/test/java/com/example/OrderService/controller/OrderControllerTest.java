@@ -2,6 +2,7 @@ package com.example.OrderService.controller;
 
 import com.example.OrderService.dto.OrderRequest;
 import com.example.OrderService.dto.OrderItemDTO;
+import com.example.OrderService.service.OrderIdempotencyService;
 import com.example.OrderService.service.OrderServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,9 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -36,6 +40,9 @@ class OrderControllerTest {
     @MockBean
     private OrderServiceImpl orderServiceImpl;
 
+    @MockBean
+    private OrderIdempotencyService orderIdempotencyService;
+
     @Test
     @WithMockUser(username = "testuser", roles = "USER")
     void createOrder_WithValidData_ShouldReturnSuccess() throws Exception {
@@ -60,6 +67,31 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.orderId").value("order-123"));
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createOrder_WithIdempotencyKey_ShouldProcessThroughIdempotencyService() throws Exception {
+        // Arrange
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(1L);
+        item.setQuantity(2);
+
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setItems(List.of(item));
+
+        when(orderIdempotencyService.execute(eq("testuser"), eq("key-1"), any(OrderRequest.class), any()))
+                .thenReturn("order-123");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/order")
+                        .with(csrf())
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value("order-123"));
+        verify(orderServiceImpl, never()).processOrder(any(OrderRequest.class), anyString());
+    }
+
     @Test
     @WithMockUser(username = "testuser", roles = "USER")
     void createOrder_WithInvalidData_ShouldReturnBadRequest() throws Exception {
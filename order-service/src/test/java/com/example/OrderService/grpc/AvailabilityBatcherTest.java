@@ -0,0 +1,135 @@
+package com.example.OrderService.grpc;
+
+import com.example.inventory.BulkProductRequest;
+import com.example.inventory.BulkProductResponse;
+import com.example.inventory.ProductRequestItem;
+import com.example.inventory.ProductResponseItem;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import metrics.MeterNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Юнит тесты для объединения проверок доступности.
+ */
+class AvailabilityBatcherTest {
+
+    /** Остатки на складе: товара 3 нет в inventory-service. */
+    private static final Map<Long, Integer> STOCK = Map.of(1L, 5, 2L, 100);
+
+    private final List<BulkProductRequest> sent = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void check_ConcurrentRequests_ShouldSendOneMergedRequestAndSplitResults() throws Exception {
+        // Arrange
+        AvailabilityBatcher batcher = new AvailabilityBatcher(this::inventory, 300, 100, 1000, meterRegistry);
+
+        // Act
+        Future<BulkProductResponse> small = executor.submit(() -> batcher.check(request("order-1", 1, 3)));
+        Future<BulkProductResponse> large = executor.submit(() -> batcher.check(request("order-2", 1, 10)));
+        Future<BulkProductResponse> other = executor.submit(() -> batcher.check(request("order-3", 2, 1)));
+        Future<BulkProductResponse> missing = executor.submit(() -> batcher.check(request("order-4", 3, 1)));
+
+        // Assert
+        assertEquals("order-1", small.get().getRqUid());
+        assertEquals(1, small.get().getAvailableItemsCount());
+        assertEquals(3, small.get().getAvailableItems(0).getRequestedQuantity());
+        assertEquals(1, large.get().getUnavailableItemsCount());
+        assertEquals(10, large.get().getUnavailableItems(0).getRequestedQuantity());
+        assertEquals(5, large.get().getUnavailableItems(0).getAvailableQuantity());
+        assertEquals(1, other.get().getAvailableItemsCount());
+        assertEquals(1, missing.get().getUnavailableItemsCount());
+
+        assertEquals(1, sent.size());
+        assertEquals(3, sent.get(0).getItemsCount());
+        assertEquals(10, sent.get(0).getItems(0).getRequestedQuantity());
+        assertEquals(4.0, meterRegistry.get(MeterNames.AVAILABILITY_BATCH_SIZE).summary().totalAmount());
+        assertEquals(4, meterRegistry.get(MeterNames.AVAILABILITY_BATCH_WAIT).timer().count());
+    }
+
+    @Test
+    void check_MaxItemsReached_ShouldSendWithoutWaitingForWindow() {
+        // Arrange
+        AvailabilityBatcher batcher = new AvailabilityBatcher(this::inventory, 60_000, 1, 1000, meterRegistry);
+
+        // Act
+        BulkProductResponse response = batcher.check(request("order-1", 2, 1));
+
+        // Assert
+        assertEquals(1, response.getAvailableItemsCount());
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void check_InventoryFailure_ShouldPropagateToEveryRequest() {
+        // Arrange
+        Function<BulkProductRequest, BulkProductResponse> failing = request -> {
+            throw Status.UNAVAILABLE.asRuntimeException();
+        };
+        AvailabilityBatcher batcher = new AvailabilityBatcher(failing, 200, 100, 1000, meterRegistry);
+
+        // Act
+        Future<BulkProductResponse> first = executor.submit(() -> batcher.check(request("order-1", 1, 1)));
+        Future<BulkProductResponse> second = executor.submit(() -> batcher.check(request("order-2", 2, 1)));
+
+        // Assert
+        for (Future<BulkProductResponse> future : List.of(first, second)) {
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            StatusRuntimeException cause = assertInstanceOf(StatusRuntimeException.class, e.getCause());
+            assertEquals(Status.Code.UNAVAILABLE, cause.getStatus().getCode());
+        }
+    }
+
+    private BulkProductResponse inventory(BulkProductRequest request) {
+        sent.add(request);
+        BulkProductResponse.Builder response = BulkProductResponse.newBuilder().setRqUid(request.getRqUid());
+        for (ProductRequestItem item : request.getItemsList()) {
+            Integer stock = STOCK.get(item.getProductId());
+            ProductResponseItem.Builder responseItem = ProductResponseItem.newBuilder()
+                    .setProductId(item.getProductId())
+                    .setRequestedQuantity(item.getRequestedQuantity())
+                    .setAvailableQuantity(stock != null ? stock : 0)
+                    .setIsAvailable(stock != null && stock >= item.getRequestedQuantity());
+            if (responseItem.getIsAvailable()) {
+                response.addAvailableItems(responseItem);
+            } else {
+                response.addUnavailableItems(responseItem);
+            }
+        }
+        return response.build();
+    }
+
+    private static BulkProductRequest request(String rqUid, long productId, int quantity) {
+        return BulkProductRequest.newBuilder()
+                .setRqUid(rqUid)
+                .addItems(ProductRequestItem.newBuilder().setProductId(productId).setRequestedQuantity(quantity))
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.OrderService.replica;
+
+import com.example.OrderService.dto.OrderItemDTO;
+import com.example.OrderService.grpc.InventoryClient;
+import com.example.inventory.BulkProductResponse;
+import com.example.inventory.ProductResponseItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import metrics.MeterNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Юнит тесты для кэша остатков.
+ */
+class AvailabilityCacheTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private InventoryClient inventoryClient;
+    private SimpleMeterRegistry meterRegistry;
+    private AvailabilityCache cache;
+
+    @BeforeEach
+    void setUp() {
+        inventoryClient = mock(InventoryClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AvailabilityCache(inventoryClient, meterRegistry, true,
+                Duration.ofSeconds(2), Duration.ofSeconds(30), 100, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void check_WithFreshEntries_ShouldPassOnlyFarAboveRequested() {
+        // Arrange
+        cache.update(response(stock(1L, 1000), stock(2L, 120), stock(3L, 50)));
+        long now = System.nanoTime();
+
+        // Act & Assert
+        assertEquals(AvailabilityVerdict.AVAILABLE, cache.check(List.of(item(1L, 100)), now));
+        assertEquals(AvailabilityVerdict.UNKNOWN, cache.check(List.of(item(1L, 60), item(1L, 60)), now));
+        assertEquals(AvailabilityVerdict.UNKNOWN, cache.check(List.of(item(1L, 1), item(2L, 20)), now));
+        // Малый остаток всегда проверяется в inventory-service, даже при запросе одной штуки
+        assertEquals(AvailabilityVerdict.UNKNOWN, cache.check(List.of(item(3L, 1)), now));
+        assertEquals(AvailabilityVerdict.UNKNOWN, cache.check(List.of(item(99L, 1)), now));
+        verifyNoInteractions(inventoryClient);
+    }
+
+    @Test
+    void check_WithStaleEntry_ShouldPassAndRefreshInBackground() {
+        // Arrange
+        cache.update(response(stock(1L, 1000)));
+        when(inventoryClient.checkBulkAvailability(anyList(), anyString())).thenReturn(response(stock(1L, 10)));
+
+        // Act
+        AvailabilityVerdict verdict = cache.check(List.of(item(1L, 1)), System.nanoTime() + 5 * SECOND);
+
+        // Assert
+        assertEquals(AvailabilityVerdict.AVAILABLE, verdict);
+        verify(inventoryClient, timeout(1000)).checkBulkAvailability(anyList(), anyString());
+        // Обновленный остаток мал: следующий заказ снова идет в inventory-service
+        await(() -> cache.check(List.of(item(1L, 1))) == AvailabilityVerdict.UNKNOWN);
+        assertEquals(1.0, meterRegistry.counter(MeterNames.AVAILABILITY_CACHE,
+                MeterNames.TAG_OUTCOME, MeterNames.CACHE_STALE).count());
+    }
+
+    @Test
+    void check_WithExpiredEntry_ShouldReturnUnknownWithoutRefresh() {
+        // Arrange
+        cache.update(response(stock(1L, 1000)));
+
+        // Act & Assert
+        assertEquals(AvailabilityVerdict.UNKNOWN, cache.check(List.of(item(1L, 1)), System.nanoTime() + 31 * SECOND));
+        verifyNoInteractions(inventoryClient);
+    }
+
+    @Test
+    void update_WithReservationResult_ShouldReplaceCachedStock() {
+        // Arrange
+        cache.update(response(stock(1L, 1000)));
+
+        // Act
+        cache.update(List.of(stock(1L, 90)));
+
+        // Assert
+        assertEquals(AvailabilityVerdict.UNKNOWN, cache.check(List.of(item(1L, 1)), System.nanoTime()));
+    }
+
+    @Test
+    void check_Disabled_ShouldReturnUnknown() {
+        AvailabilityCache disabled = new AvailabilityCache(inventoryClient, meterRegistry, false,
+                Duration.ofSeconds(2), Duration.ofSeconds(30), 100, 10);
+        disabled.update(response(stock(1L, 1000)));
+
+        assertEquals(AvailabilityVerdict.UNKNOWN, disabled.check(List.of(item(1L, 1))));
+        disabled.shutdown();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + SECOND;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "условие не выполнилось за секунду");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static BulkProductResponse response(ProductResponseItem... items) {
+        return BulkProductResponse.newBuilder().addAllAvailableItems(List.of(items)).build();
+    }
+
+    private static ProductResponseItem stock(long productId, int quantity) {
+        return ProductResponseItem.newBuilder()
+                .setProductId(productId)
+                .setAvailableQuantity(quantity)
+                .setIsAvailable(quantity > 0)
+                .build();
+    }
+
+    private static OrderItemDTO item(Long productId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
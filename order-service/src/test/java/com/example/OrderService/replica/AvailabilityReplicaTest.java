@@ -0,0 +1,95 @@
+package com.example.OrderService.replica;
+
+import com.example.OrderService.dto.OrderItemDTO;
+import dto.StockChangeMessage;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Юнит тесты для локальной реплики остатков.
+ */
+class AvailabilityReplicaTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("stock-changes", 0);
+
+    private AvailabilityReplica replica;
+    private Consumer<?, ?> consumer;
+
+    @BeforeEach
+    void setUp() {
+        replica = new AvailabilityReplica(true, 10, 5);
+        consumer = mock(Consumer.class);
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        when(consumer.currentLag(PARTITION)).thenReturn(OptionalLong.of(0));
+    }
+
+    @Test
+    void check_BeforeLagIsKnown_ShouldReturnUnknown() {
+        replica.apply(1L, new StockChangeMessage(1L, 100, 1L, 0L));
+
+        assertEquals(AvailabilityVerdict.UNKNOWN, replica.check(List.of(item(1L, 1))));
+    }
+
+    @Test
+    void check_WithFreshReplica_ShouldClassifyByMargin() {
+        // Arrange
+        replica.apply(1L, new StockChangeMessage(1L, 100, 1L, 0L));
+        replica.apply(2L, new StockChangeMessage(2L, 6, 1L, 0L));
+        replica.apply(3L, new StockChangeMessage(3L, 0, 1L, 0L));
+        replica.updateLag(consumer);
+
+        // Act & Assert
+        assertEquals(AvailabilityVerdict.AVAILABLE, replica.check(List.of(item(1L, 10))));
+        assertEquals(AvailabilityVerdict.UNKNOWN, replica.check(List.of(item(1L, 10), item(2L, 2))));
+        assertEquals(AvailabilityVerdict.UNKNOWN, replica.check(List.of(item(99L, 1))));
+        // Нехватку по реплике подтверждает inventory-service
+        assertEquals(AvailabilityVerdict.UNKNOWN, replica.check(List.of(item(1L, 1), item(3L, 1))));
+        assertEquals(AvailabilityVerdict.UNKNOWN, replica.check(List.of(item(2L, 4), item(2L, 4))));
+    }
+
+    @Test
+    void apply_ShouldIgnoreStaleVersionsAndHonourTombstones() {
+        // Arrange
+        replica.apply(1L, new StockChangeMessage(1L, 10, 5L, 0L));
+
+        // Act
+        replica.apply(1L, new StockChangeMessage(1L, 50, 4L, 0L));
+
+        // Assert
+        assertEquals(10, replica.getQuantity(1L));
+
+        replica.apply(1L, null);
+        assertNull(replica.getQuantity(1L));
+    }
+
+    @Test
+    void check_WhenLagExceedsLimit_ShouldReturnUnknown() {
+        // Arrange
+        replica.apply(1L, new StockChangeMessage(1L, 100, 1L, 0L));
+        when(consumer.currentLag(PARTITION)).thenReturn(OptionalLong.of(11));
+
+        // Act
+        replica.updateLag(consumer);
+
+        // Assert
+        assertFalse(replica.isUsable());
+        assertEquals(11, replica.getLag());
+        assertEquals(AvailabilityVerdict.UNKNOWN, replica.check(List.of(item(1L, 1))));
+    }
+
+    private static OrderItemDTO item(Long productId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
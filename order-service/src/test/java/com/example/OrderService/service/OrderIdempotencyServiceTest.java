@@ -0,0 +1,228 @@
+package com.example.OrderService.service;
+
+import com.example.OrderService.dto.OrderItemDTO;
+import com.example.OrderService.dto.OrderRequest;
+import com.example.OrderService.entity.IdempotencyRecord;
+import com.example.OrderService.exception.IdempotencyKeyConflictException;
+import com.example.OrderService.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Юнит тесты для сервиса идемпотентного создания заказов.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private OrderIdempotencyService orderIdempotencyService;
+    private OrderRequest orderRequest;
+
+    @BeforeEach
+    void setUp() {
+        orderIdempotencyService = new OrderIdempotencyService(idempotencyRecordRepository, 100,
+                Duration.ofSeconds(5), Duration.ofDays(1));
+        orderRequest = orderRequest(1L, 2);
+    }
+
+    @Test
+    void execute_RepeatedKey_ShouldReturnSameOrderWithoutProcessing() {
+        // Arrange
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(1);
+        AtomicInteger processed = new AtomicInteger();
+
+        // Act
+        String first = orderIdempotencyService.execute("testuser", "key-1", orderRequest,
+                orderUuid -> "order-" + processed.incrementAndGet());
+        String second = orderIdempotencyService.execute("testuser", "key-1", orderRequest,
+                orderUuid -> "order-" + processed.incrementAndGet());
+
+        // Assert
+        assertEquals("order-1", first);
+        assertEquals("order-1", second);
+        assertEquals(1, processed.get());
+        verify(idempotencyRecordRepository, times(1)).claim(eq("testuser:key-1"), anyString());
+        verify(idempotencyRecordRepository).complete("testuser:key-1", "order-1");
+    }
+
+    @Test
+    void execute_ConcurrentDuplicate_ShouldAttachToInFlightOrder() throws Exception {
+        // Arrange
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+                    processed.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "order-1";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() ->
+                orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+                    processed.incrementAndGet();
+                    return "order-2";
+                }));
+        release.countDown();
+
+        // Assert
+        assertEquals("order-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("order-1", duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, processed.get());
+        verify(idempotencyRecordRepository, times(1)).claim(anyString(), anyString());
+    }
+
+    @Test
+    void execute_KeyCompletedByAnotherInstance_ShouldReturnStoredOrder() {
+        // Arrange
+        String requestHash = OrderIdempotencyService.fingerprint(orderRequest);
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("testuser:key-1")).thenReturn(Optional.of(
+                new IdempotencyRecord("testuser:key-1", requestHash, "order-1", LocalDateTime.now())));
+
+        // Act
+        String orderId = orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+            throw new AssertionError("Заказ не должен создаваться повторно");
+        });
+
+        // Assert
+        assertEquals("order-1", orderId);
+    }
+
+    @Test
+    void execute_KeyInProgressOnAnotherInstance_ShouldThrowConflict() {
+        // Arrange
+        String requestHash = OrderIdempotencyService.fingerprint(orderRequest);
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("testuser:key-1")).thenReturn(Optional.of(
+                new IdempotencyRecord("testuser:key-1", requestHash, null, LocalDateTime.now())));
+        when(idempotencyRecordRepository.takeOver(eq("testuser:key-1"), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(IdempotencyKeyConflictException.class, () ->
+                orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> "order-2"));
+    }
+
+    @Test
+    void execute_SameKeyDifferentItems_ShouldThrowConflict() {
+        // Arrange
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(1);
+        orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> "order-1");
+
+        // Act & Assert
+        assertThrows(IdempotencyKeyConflictException.class, () ->
+                orderIdempotencyService.execute("testuser", "key-1", orderRequest(1L, 3), orderUuid -> "order-2"));
+    }
+
+    @Test
+    void execute_FailedProcessing_ShouldReleaseKeyForRetry() {
+        // Arrange
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(1);
+
+        // Act
+        assertThrows(IllegalStateException.class, () ->
+                orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+                    throw new IllegalStateException("inventory-service недоступен");
+                }));
+        String orderId = orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> "order-2");
+
+        // Assert
+        assertEquals("order-2", orderId);
+        verify(idempotencyRecordRepository).release("testuser:key-1");
+    }
+
+    @Test
+    void execute_RetryAfterFailedProcessing_ShouldReserveOnce() {
+        // Arrange: резервирование прошло, затем отправка в Kafka упала
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(1);
+        Map<String, Integer> reservations = new HashMap<>();
+
+        // Act
+        assertThrows(IllegalStateException.class, () ->
+                orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+                    reserve(reservations, orderUuid);
+                    throw new IllegalStateException("Kafka недоступна");
+                }));
+        String orderId = orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+            reserve(reservations, orderUuid);
+            return orderUuid;
+        });
+
+        // Assert
+        verify(idempotencyRecordRepository).release("testuser:key-1");
+        assertEquals(Map.of(orderId, 1), reservations);
+    }
+
+    @Test
+    void execute_TakeOverAfterCrashedOwner_ShouldReserveOnce() {
+        // Arrange: прежний владелец ключа зарезервировал товар и упал, не завершив обработку
+        String requestHash = OrderIdempotencyService.fingerprint(orderRequest);
+        Map<String, Integer> reservations = new HashMap<>();
+        reserve(reservations, OrderIdempotencyService.orderIdFor("testuser:key-1"));
+        when(idempotencyRecordRepository.claim(anyString(), anyString())).thenReturn(0);
+        when(idempotencyRecordRepository.findById("testuser:key-1")).thenReturn(Optional.of(
+                new IdempotencyRecord("testuser:key-1", requestHash, null, LocalDateTime.now().minusMinutes(1))));
+        when(idempotencyRecordRepository.takeOver(eq("testuser:key-1"), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        String orderId = orderIdempotencyService.execute("testuser", "key-1", orderRequest, orderUuid -> {
+            reserve(reservations, orderUuid);
+            return orderUuid;
+        });
+
+        // Assert
+        assertEquals(Map.of(orderId, 1), reservations);
+        verify(idempotencyRecordRepository).complete("testuser:key-1", orderId);
+    }
+
+    /**
+     * Резервирование в inventory-service: повтор с тем же orderId не меняет остатки.
+     */
+    private static void reserve(Map<String, Integer> reservations, String orderId) {
+        reservations.putIfAbsent(orderId, 1);
+    }
+
+    private static OrderRequest orderRequest(long productId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
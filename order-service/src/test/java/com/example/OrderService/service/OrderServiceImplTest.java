@@ -7,17 +7,25 @@ import com.example.OrderService.exception.ProductsUnavailableException;
 import com.example.OrderService.exception.UserNotFoundException;
 import com.example.OrderService.grpc.InventoryClient;
 import com.example.OrderService.kafka.OrderProducer;
+import com.example.OrderService.replica.AvailabilityCache;
+import com.example.OrderService.replica.AvailabilityReplica;
+import com.example.OrderService.replica.AvailabilityVerdict;
 import com.example.OrderService.repository.UserRepository;
 import com.example.inventory.BulkProductResponse;
 import com.example.inventory.ProductResponseItem;
 import dto.OrderMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import metrics.MeterNames;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,6 +49,15 @@ class OrderServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AvailabilityReplica availabilityReplica;
+
+    @Mock
+    private AvailabilityCache availabilityCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private OrderServiceImpl orderServiceImpl;
 
@@ -61,6 +78,9 @@ class OrderServiceImplTest {
 
         validOrderRequest = new OrderRequest();
         validOrderRequest.setItems(List.of(item));
+
+        lenient().when(availabilityReplica.check(anyList())).thenReturn(AvailabilityVerdict.UNKNOWN);
+        lenient().when(availabilityCache.check(anyList())).thenReturn(AvailabilityVerdict.UNKNOWN);
     }
 
     @Test
@@ -97,6 +117,7 @@ class OrderServiceImplTest {
         verify(inventoryClient, times(1)).checkBulkAvailability(anyList(), anyString());
         verify(inventoryClient, times(1)).reserveProducts(anyString(), anyList());
         verify(orderProducer, times(1)).sendOrder(any(OrderMessage.class));
+        assertEquals(1.0, meterRegistry.counter(MeterNames.ORDERS_ACCEPTED).count());
     }
 
     @Test
@@ -179,4 +200,65 @@ class OrderServiceImplTest {
         verify(inventoryClient, times(1)).reserveProducts(anyString(), anyList());
         verify(orderProducer, never()).sendOrder(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void processOrder_WhenReplicaConfirmsAvailability_ShouldSkipGrpcCheck() {
+        // Arrange
+        when(availabilityReplica.check(anyList())).thenReturn(AvailabilityVerdict.AVAILABLE);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(inventoryClient.reserveProducts(anyString(), anyList())).thenReturn(
+                com.example.inventory.ReserveProductsResponse.newBuilder()
+                        .setSuccess(true)
+                        .addReservedItems(ProductResponseItem.newBuilder()
+                                .setProductId(1L)
+                                .setName("Test Product")
+                                .setRequestedQuantity(2)
+                                .setPrice(100.0)
+                                .setSale(0.1)
+                                .setIsAvailable(true)
+                                .build())
+                        .build()
+        );
+
+        // Act
+        String orderId = orderServiceImpl.processOrder(validOrderRequest, "testuser");
+
+        // Assert
+        assertNotNull(orderId);
+        verify(inventoryClient, never()).checkBulkAvailability(anyList(), anyString());
+        verify(orderProducer, times(1)).sendOrder(argThat(message ->
+                message.getItems().size() == 1
+                        && message.getTotalPrice().compareTo(BigDecimal.valueOf(180.0)) == 0));
+    }
+
+    @Test
+    void processOrder_WithReplayedReservation_ShouldNotUpdateCache() {
+        // Arrange
+        when(availabilityReplica.check(anyList())).thenReturn(AvailabilityVerdict.AVAILABLE);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(inventoryClient.reserveProducts(anyString(), anyList())).thenReturn(
+                com.example.inventory.ReserveProductsResponse.newBuilder()
+                        .setSuccess(true)
+                        .setReplayed(true)
+                        .addReservedItems(ProductResponseItem.newBuilder()
+                                .setProductId(1L)
+                                .setName("Test Product")
+                                .setAvailableQuantity(1000)
+                                .setRequestedQuantity(2)
+                                .setPrice(100.0)
+                                .setSale(0.1)
+                                .setIsAvailable(true)
+                                .build())
+                        .build()
+        );
+
+        // Act
+        String orderId = orderServiceImpl.processOrder(validOrderRequest, "testuser", "order-42");
+
+        // Assert
+        assertEquals("order-42", orderId);
+        verify(inventoryClient).reserveProducts(eq("order-42"), anyList());
+        verify(availabilityCache, never()).update(anyList());
+        verify(orderProducer, times(1)).sendOrder(any());
+    }
+}